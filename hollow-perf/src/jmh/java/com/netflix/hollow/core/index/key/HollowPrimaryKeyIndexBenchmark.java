@@ -3,6 +3,8 @@ package com.netflix.hollow.core.index.key;
 import com.netflix.hollow.core.index.AbstractHollowIndexBenchmark;
 import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -34,6 +36,51 @@ public class HollowPrimaryKeyIndexBenchmark {
         }
     }
 
+    /**
+     * Compares matching a batch of keys one at a time with matching the whole batch.  The int[] batch
+     * requires the default single field query size.
+     */
+    public static class BatchLoadHollowPrimaryKeyIndexBenchmark extends AbstractHollowPrimaryKeyIndexBenchmark {
+        @Param( {"500", "5000"})
+        public int batchSize;
+
+        private Object[][] keys;
+        private int[] intKeys;
+        private int[] ordinals;
+
+        @Setup
+        public void setupBatch() {
+            keys = new Object[batchSize][];
+            intKeys = new int[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                keys[i] = nextKeys();
+                intKeys[i] = (Integer) keys[i][0];
+            }
+            ordinals = new int[batchSize];
+        }
+
+        @Benchmark
+        public int[] getMatchingOrdinalLoop() {
+            HollowPrimaryKeyIndex index = nextIndex();
+            for (int i = 0; i < batchSize; i++) {
+                ordinals[i] = index.getMatchingOrdinal(keys[i]);
+            }
+            return ordinals;
+        }
+
+        @Benchmark
+        public int[] getMatchingOrdinals() {
+            nextIndex().getMatchingOrdinals(keys, ordinals);
+            return ordinals;
+        }
+
+        @Benchmark
+        public int[] getMatchingOrdinalsInt() {
+            nextIndex().getMatchingOrdinals(intKeys, ordinals);
+            return ordinals;
+        }
+    }
+
     public static class AbstractHollowPrimaryKeyIndexBenchmark
             extends AbstractHollowIndexBenchmark<HollowPrimaryKeyIndex> {
         @Override
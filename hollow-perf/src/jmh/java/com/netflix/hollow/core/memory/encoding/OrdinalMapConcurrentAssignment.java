@@ -0,0 +1,87 @@
+package com.netflix.hollow.core.memory.encoding;
+
+import com.netflix.hollow.core.memory.ByteArrayOrdinalMap;
+import com.netflix.hollow.core.memory.ByteDataArray;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of many threads concurrently adding mostly new records to a shared ordinal map,
+ * as when a producer populates a full cycle with many threads.
+ * <p>
+ * Run with {@code -t} to vary the number of populating threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class OrdinalMapConcurrentAssignment {
+
+    @Param("4194304")
+    int n = 4194304;
+
+    @Param("32")
+    int contentSize = 32;
+
+    /// the percentage of added records which were already added by another thread
+    @Param({"0", "50"})
+    int duplicatePercentage = 0;
+
+    ByteDataArray[] content;
+
+    ByteArrayOrdinalMap map;
+
+    AtomicInteger nextRecord;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom r = new SplittableRandom(0);
+
+        content = new ByteDataArray[n];
+        for (int i = 0; i < n; i++) {
+            ByteDataArray buf = new ByteDataArray();
+            for (int j = 0; j < contentSize; j++) {
+                buf.write((byte) r.nextInt(0, 256));
+            }
+            content[i] = buf;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        map = new ByteArrayOrdinalMap();
+        nextRecord = new AtomicInteger();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public int getOrAssignOrdinal(ThreadState threadState) {
+        int record = nextRecord.getAndIncrement();
+        if (threadState.random.nextInt(100) < duplicatePercentage && record > 0) {
+            record = threadState.random.nextInt(record);
+        }
+        /// once every record has been added, the remaining operations of the iteration only find existing records
+        return map.getOrAssignOrdinal(content[record % n]);
+    }
+}
@@ -0,0 +1,101 @@
+package com.netflix.hollow.core.write.objectmapper;
+
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares adding POJOs to a {@link HollowObjectMapper} which reads their fields with {@code sun.misc.Unsafe} with
+ * one which reads them through MethodHandles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HollowObjectMapperFieldAccessBenchmark {
+
+    @Param({"unsafe", "methodHandle"})
+    String fieldAccess;
+
+    @Param({"1024"})
+    int numRecords;
+
+    HollowObjectMapper mapper;
+    Record[] records;
+    int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        mapper = new HollowObjectMapper(new HollowWriteStateEngine());
+        if ("methodHandle".equals(fieldAccess)) {
+            mapper.useMethodHandleFieldAccess();
+        }
+        mapper.initializeTypeState(Record.class);
+
+        records = new Record[numRecords];
+        for (int i = 0; i < numRecords; i++) {
+            records[i] = new Record(i);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public int add() {
+        Record record = records[next];
+        next = (next + 1) % numRecords;
+        return mapper.add(record);
+    }
+
+    @SuppressWarnings("unused")
+    static class Record {
+        final int id;
+        final long timestamp;
+        final double score;
+        final boolean active;
+        final short rank;
+        @HollowInline
+        final Integer count;
+        @HollowInline
+        final String name;
+
+        Record(int id) {
+            this.id = id;
+            this.timestamp = id * 1000L;
+            this.score = id / 3d;
+            this.active = id % 2 == 0;
+            this.rank = (short) id;
+            this.count = id;
+            this.name = "record" + id;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HollowObjectMapperFieldAccessBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
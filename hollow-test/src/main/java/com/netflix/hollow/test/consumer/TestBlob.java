@@ -39,6 +39,11 @@ public class TestBlob extends Blob {
         this.inputStream = null;
     }
 
+    public TestBlob(long fromVersion, long toVersion, BlobType blobType) {
+        super(fromVersion, toVersion, blobType);
+        this.inputStream = null;
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
         return inputStream;
@@ -18,7 +18,10 @@ package com.netflix.hollow.test.consumer;
 
 import com.netflix.hollow.api.consumer.HollowConsumer.Blob;
 import com.netflix.hollow.api.consumer.HollowConsumer.BlobRetriever;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,6 +32,7 @@ public class TestBlobRetriever implements BlobRetriever {
     private final Map<Long, Blob> snapshots = new HashMap<>();
     private final Map<Long, Blob> deltas = new HashMap<>();
     private final Map<Long, Blob> reverseDeltas = new HashMap<>();
+    private final Map<Long, List<Blob>> skipDeltas = new HashMap<>();
 
     @Override
     public Blob retrieveSnapshotBlob(long desiredVersion) {
@@ -45,6 +49,11 @@ public class TestBlobRetriever implements BlobRetriever {
         return reverseDeltas.get(currentVersion);
     }
 
+    @Override
+    public List<Blob> retrieveSkipDeltaBlobs(long currentVersion) {
+        return skipDeltas.getOrDefault(currentVersion, Collections.emptyList());
+    }
+
     public void addSnapshot(long desiredVersion, Blob transition) {
         snapshots.put(desiredVersion, transition);
     }
@@ -57,4 +66,8 @@ public class TestBlobRetriever implements BlobRetriever {
         reverseDeltas.put(currentVersion, transition);
     }
 
+    public void addSkipDelta(long currentVersion, Blob transition) {
+        skipDeltas.computeIfAbsent(currentVersion, v -> new ArrayList<>()).add(transition);
+    }
+
 }
@@ -0,0 +1,256 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.client;
+
+import static com.netflix.hollow.core.util.Threads.daemonThread;
+
+import com.netflix.hollow.api.consumer.HollowConsumer;
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedInputStream;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fetches the delta transitions of an update plan ahead of their application, so that a consumer which has fallen
+ * several versions behind does not pay the latency of each fetch serially.  Not intended for external consumption.
+ * <p>
+ * Up to {@code prefetchDepth} transitions following the transition currently being applied are fetched concurrently,
+ * each on a thread of a bounded pool.  In the {@link MemoryMode#ON_HEAP} and {@link MemoryMode#OFF_HEAP} modes the
+ * contents of a fetched transition are buffered on heap until it is applied, and no further transitions are fetched
+ * while the buffered transitions, together with the transitions being fetched, would exceed {@code maxBufferedBytes}.
+ * The size of a transition being fetched is estimated as the average size of the transitions already fetched, so
+ * transitions are fetched one at a time until the first has been fetched.  In the {@link MemoryMode#SHARED_MEMORY_LAZY} mode
+ * the transition's file is retrieved, and nothing is buffered on heap.
+ * <p>
+ * A transition which could not be prefetched is retrieved again when it is applied, so that any failure is reported
+ * in the same way as it would be without prefetching.
+ */
+class DeltaPrefetcher {
+    private static final Logger LOG = Logger.getLogger(DeltaPrefetcher.class.getName());
+
+    private final int prefetchDepth;
+    private final long maxBufferedBytes;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param prefetchDepth the number of transitions to fetch ahead of the transition being applied, or 0 to fetch
+     * each transition as it is applied
+     * @param maxBufferedBytes the number of bytes of fetched transitions beyond which no further transitions are
+     * fetched until the buffered transitions have been applied
+     */
+    DeltaPrefetcher(int prefetchDepth, long maxBufferedBytes) {
+        if(prefetchDepth < 0)
+            throw new IllegalArgumentException("prefetchDepth must be non-negative");
+        if(maxBufferedBytes <= 0)
+            throw new IllegalArgumentException("maxBufferedBytes must be positive");
+
+        this.prefetchDepth = prefetchDepth;
+        this.maxBufferedBytes = maxBufferedBytes;
+
+        if(prefetchDepth > 0) {
+            this.executor = new ThreadPoolExecutor(prefetchDepth, prefetchDepth, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), r -> daemonThread(r, getClass(), "prefetch"));
+            this.executor.allowCoreThreadTimeOut(true);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Stop the threads which fetch transitions.  Transitions still being fetched are allowed to complete, but no
+     * further plans may be prefetched.
+     */
+    void shutdown() {
+        if(executor != null)
+            executor.shutdown();
+    }
+
+    /**
+     * Begin fetching the transitions of an update plan.  The returned transitions must be closed once the plan has
+     * been applied, or has failed.
+     *
+     * @param transitions the delta transitions of the plan, in the order in which they will be applied
+     * @param memoryMode the memory mode in which the transitions will be applied
+     * @return the transitions, from which each transition's input is opened as it is applied
+     */
+    Transitions prefetch(List<HollowConsumer.Blob> transitions, MemoryMode memoryMode) {
+        Transitions prefetched = new Transitions(transitions, memoryMode);
+        prefetched.fetchAhead();
+        return prefetched;
+    }
+
+    /**
+     * The transitions of a single update plan.  Not thread safe; transitions are opened by the thread applying the plan.
+     */
+    class Transitions implements AutoCloseable {
+        private final List<HollowConsumer.Blob> transitions;
+        private final MemoryMode memoryMode;
+        private final Deque<PrefetchedTransition> pending;
+        private final AtomicLong bufferedBytes;
+        private final AtomicLong fetchedBytes;
+        private final AtomicInteger numFetchedTransitions;
+        private int nextTransitionToFetch;
+
+        private Transitions(List<HollowConsumer.Blob> transitions, MemoryMode memoryMode) {
+            this.transitions = transitions;
+            this.memoryMode = memoryMode;
+            this.pending = new ArrayDeque<>();
+            this.bufferedBytes = new AtomicLong();
+            this.fetchedBytes = new AtomicLong();
+            this.numFetchedTransitions = new AtomicInteger();
+        }
+
+        /**
+         * Open the input of the next transition of the plan, waiting for it to be fetched if necessary, and continue
+         * fetching the transitions which follow it.
+         *
+         * @param transition the next transition of the plan
+         * @return the input of the transition, which must be closed once the transition has been applied
+         * @throws IOException if the input could not be opened
+         */
+        HollowBlobInput open(HollowConsumer.Blob transition) throws IOException {
+            PrefetchedTransition prefetched = pending.peekFirst();
+            if(prefetched == null || prefetched.transition != transition)
+                return HollowBlobInput.modeBasedSelector(memoryMode, transition);
+
+            pending.removeFirst();
+            try {
+                return prefetched.open();
+            } finally {
+                fetchAhead();
+            }
+        }
+
+        /**
+         * Abandon any transitions which have not yet been opened.
+         */
+        @Override
+        public void close() {
+            for(PrefetchedTransition prefetched : pending)
+                prefetched.future.cancel(true);
+            pending.clear();
+            nextTransitionToFetch = transitions.size();
+        }
+
+        private void fetchAhead() {
+            while(pending.size() < prefetchDepth
+                    && nextTransitionToFetch < transitions.size()
+                    && isWithinBudget()) {
+                PrefetchedTransition prefetched = new PrefetchedTransition(transitions.get(nextTransitionToFetch++));
+                prefetched.future = executor.submit(prefetched);
+                pending.addLast(prefetched);
+            }
+        }
+
+        private boolean isWithinBudget() {
+            if(memoryMode == MemoryMode.SHARED_MEMORY_LAZY)
+                return true;
+
+            long projectedBytes = bufferedBytes.get();
+            int numFetched = numFetchedTransitions.get();
+            for(PrefetchedTransition prefetched : pending) {
+                if(!prefetched.future.isDone())
+                    projectedBytes += numFetched == 0 ? maxBufferedBytes : fetchedBytes.get() / numFetched;
+            }
+            return projectedBytes < maxBufferedBytes;
+        }
+
+        private class PrefetchedTransition implements Callable<Void> {
+            private final HollowConsumer.Blob transition;
+            private Future<?> future;
+            private TransitionBuffer data;
+            private File file;
+
+            PrefetchedTransition(HollowConsumer.Blob transition) {
+                this.transition = transition;
+            }
+
+            @Override
+            public Void call() throws IOException {
+                if(memoryMode == MemoryMode.SHARED_MEMORY_LAZY) {
+                    file = transition.getFile();
+                    return null;
+                }
+
+                TransitionBuffer os = new TransitionBuffer();
+                try (InputStream is = BlockCompressedInputStream.decompressIfBlockCompressed(transition.getInputStream())) {
+                    byte[] buf = new byte[1 << 16];
+                    int n;
+                    while((n = is.read(buf)) != -1)
+                        os.write(buf, 0, n);
+                }
+                data = os;
+                bufferedBytes.addAndGet(data.size());
+                fetchedBytes.addAndGet(data.size());
+                numFetchedTransitions.incrementAndGet();
+                return null;
+            }
+
+            private HollowBlobInput open() throws IOException {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while fetching transition " + transition.getFromVersion()
+                            + " -> " + transition.getToVersion(), e);
+                } catch (ExecutionException e) {
+                    LOG.log(Level.WARNING, "Failed to prefetch transition " + transition.getFromVersion()
+                            + " -> " + transition.getToVersion() + ", retrieving it again", e.getCause());
+                    return HollowBlobInput.modeBasedSelector(memoryMode, transition);
+                }
+
+                if(file != null)
+                    return HollowBlobInput.randomAccess(file);
+
+                bufferedBytes.addAndGet(-data.size());
+                HollowBlobInput in = HollowBlobInput.serial(data.toInputStream());
+                data = null;
+                return in;
+            }
+        }
+    }
+
+    /**
+     * Buffers a fetched transition, which is read in place rather than copied out with {@link #toByteArray()}.
+     */
+    private static class TransitionBuffer extends ByteArrayOutputStream {
+        TransitionBuffer() {
+            super(1 << 16);
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -56,6 +56,7 @@ public class HollowClientUpdater {
     private final HollowMetricsCollector<HollowConsumerMetrics> metricsCollector;
 
     private TypeFilter filter;
+    private DeltaPrefetcher deltaPrefetcher = new DeltaPrefetcher(0, Long.MAX_VALUE);
 
     public HollowClientUpdater(HollowConsumer.BlobRetriever transitionCreator,
                                List<HollowConsumer.RefreshListener> refreshListeners,
@@ -242,7 +243,8 @@ public class HollowClientUpdater {
         return new HollowDataHolder(newStateEngine(), apiFactory, memoryMode,
                 doubleSnapshotConfig, failedTransitionTracker,
                 staleReferenceDetector, objectLongevityConfig)
-                .setFilter(filter);
+                .setFilter(filter)
+                .setDeltaPrefetcher(deltaPrefetcher);
     }
 
     private HollowReadStateEngine newStateEngine() {
@@ -277,6 +279,24 @@ public class HollowClientUpdater {
         this.filter = filter;
     }
 
+    /**
+     * Configure the number of delta transitions of an update plan which are fetched ahead of the transition being applied.
+     *
+     * @param prefetchDepth the number of transitions to fetch ahead, or 0 to fetch each transition as it is applied
+     * @param maxBufferedBytes the number of bytes of fetched transitions beyond which no further transitions are fetched
+     * until the buffered transitions have been applied
+     * @throws IllegalArgumentException if the prefetch depth is negative or the maximum buffered bytes is not positive
+     */
+    public synchronized void setDeltaPrefetch(int prefetchDepth, long maxBufferedBytes) {
+        DeltaPrefetcher previousPrefetcher = deltaPrefetcher;
+        this.deltaPrefetcher = new DeltaPrefetcher(prefetchDepth, maxBufferedBytes);
+        /// no update is in progress, since updates are synchronized, so the previous prefetcher is no longer used
+        previousPrefetcher.shutdown();
+        HollowDataHolder hollowDataHolderLocal = hollowDataHolderVolatile;
+        if (hollowDataHolderLocal != null)
+            hollowDataHolderLocal.setDeltaPrefetcher(deltaPrefetcher);
+    }
+
     /**
      * @return the number of failed snapshot transitions stored in the {@link FailedTransitionTracker}.
      */
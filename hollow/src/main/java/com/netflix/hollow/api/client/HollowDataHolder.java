@@ -50,6 +50,7 @@ class HollowDataHolder {
     private final HollowConsumer.ObjectLongevityConfig objLongevityConfig;
 
     private TypeFilter filter;
+    private DeltaPrefetcher deltaPrefetcher;
 
     private HollowAPI currentAPI;
 
@@ -72,6 +73,7 @@ class HollowDataHolder {
         this.failedTransitionTracker = failedTransitionTracker;
         this.staleReferenceDetector = staleReferenceDetector;
         this.objLongevityConfig = objLongevityConfig;
+        this.deltaPrefetcher = new DeltaPrefetcher(0, Long.MAX_VALUE);
     }
 
     HollowReadStateEngine getStateEngine() {
@@ -99,6 +101,11 @@ class HollowDataHolder {
         return this;
     }
 
+    HollowDataHolder setDeltaPrefetcher(DeltaPrefetcher deltaPrefetcher) {
+        this.deltaPrefetcher = deltaPrefetcher;
+        return this;
+    }
+
     void update(HollowUpdatePlan updatePlan, HollowConsumer.RefreshListener[] refreshListeners,
             Runnable apiInitCallback) throws Throwable {
         // Only fail if double snapshot is configured.
@@ -126,10 +133,13 @@ class HollowDataHolder {
     private void applySnapshotPlan(HollowUpdatePlan updatePlan,
             HollowConsumer.RefreshListener[] refreshListeners,
             Runnable apiInitCallback) throws Throwable {
-        applySnapshotTransition(updatePlan.getSnapshotTransition(), refreshListeners, apiInitCallback);
-            
-        for(HollowConsumer.Blob blob : updatePlan.getDeltaTransitions()) {
-            applyDeltaTransition(blob, true, refreshListeners);
+        /// the deltas are fetched while the snapshot is applied
+        try (DeltaPrefetcher.Transitions deltaTransitions = deltaPrefetcher.prefetch(updatePlan.getDeltaTransitions(), memoryMode)) {
+            applySnapshotTransition(updatePlan.getSnapshotTransition(), refreshListeners, apiInitCallback);
+
+            for(HollowConsumer.Blob blob : updatePlan.getDeltaTransitions()) {
+                applyDeltaTransition(deltaTransitions, blob, true, refreshListeners);
+            }
         }
 
         try {
@@ -169,6 +179,9 @@ class HollowDataHolder {
             }
         } else {
             reader.applyDelta(in);
+            /// a skip delta contains a second delta, from the intermediate state to the destination state
+            if(transition.isSkipDelta())
+                reader.applyDelta(in);
         }
 
         setVersion(transition.getToVersion());
@@ -194,18 +207,15 @@ class HollowDataHolder {
     }
 
     private void applyDeltaOnlyPlan(HollowUpdatePlan updatePlan, HollowConsumer.RefreshListener[] refreshListeners) throws Throwable {
-        for(HollowConsumer.Blob blob : updatePlan) {
-            applyDeltaTransition(blob, false, refreshListeners);
+        try (DeltaPrefetcher.Transitions deltaTransitions = deltaPrefetcher.prefetch(updatePlan.getDeltaTransitions(), memoryMode)) {
+            for(HollowConsumer.Blob blob : updatePlan) {
+                applyDeltaTransition(deltaTransitions, blob, false, refreshListeners);
+            }
         }
     }
 
-    private void applyDeltaTransition(HollowConsumer.Blob blob, boolean isSnapshotPlan, HollowConsumer.RefreshListener[] refreshListeners) throws Throwable {
-        if (!memoryMode.equals(MemoryMode.ON_HEAP)) {
-            LOG.warning("Skipping delta transition in shared-memory mode");
-            return;
-        }
-
-        try (HollowBlobInput in = HollowBlobInput.modeBasedSelector(memoryMode, blob)) {
+    private void applyDeltaTransition(DeltaPrefetcher.Transitions deltaTransitions, HollowConsumer.Blob blob, boolean isSnapshotPlan, HollowConsumer.RefreshListener[] refreshListeners) throws Throwable {
+        try (HollowBlobInput in = deltaTransitions.open(blob)) {
             applyStateEngineTransition(in, blob, refreshListeners);
 
             if(objLongevityConfig.enableLongLivedObjectSupport()) {
@@ -18,6 +18,8 @@ package com.netflix.hollow.api.client;
 
 import com.netflix.hollow.api.consumer.HollowConsumer;
 import com.netflix.hollow.core.HollowConstants;
+import java.util.List;
+import java.util.function.LongFunction;
 
 /**
  * The HollowUpdatePlanner defines the logic responsible for interacting with a {@link HollowBlobRetriever} 
@@ -131,12 +133,24 @@ public class HollowUpdatePlanner {
         return plan;
     }
 
+    /**
+     * Follows the forward deltas, and the skip deltas which span several of them, until the desired version is reached.
+     * A skip delta is applied as two deltas, so is counted as two deltas towards {@code maxDeltas}.
+     */
     private long applyForwardDeltasToPlan(long currentVersion, long desiredVersion, HollowUpdatePlan plan, int maxDeltas) {
         int transitionCounter = 0;
+        LongFunction<List<HollowConsumer.Blob>> skipDeltas = maxDeltas >= 2 ? transitionCreator.skipDeltaBlobLookup(currentVersion, desiredVersion) : null;
 
         while(currentVersion < desiredVersion && transitionCounter < maxDeltas) {
-            currentVersion = includeNextDelta(plan, currentVersion, desiredVersion);
-            transitionCounter++;
+            HollowConsumer.Blob skipDelta = maxDeltas - transitionCounter >= 2 ? furthestSkipDelta(skipDeltas, currentVersion, desiredVersion) : null;
+            if(skipDelta != null) {
+                plan.add(skipDelta);
+                currentVersion = skipDelta.getToVersion();
+                transitionCounter += 2;
+            } else {
+                currentVersion = includeNextDelta(plan, currentVersion, desiredVersion);
+                transitionCounter++;
+            }
         }
         return currentVersion;
     };
@@ -172,6 +186,21 @@ public class HollowUpdatePlanner {
         return HollowConstants.VERSION_LATEST;
     }
 
+    /**
+     * Returns the skip delta which will take us furthest without taking us *after* the desired version.  Each skip delta
+     * costs the application of two deltas, however many deltas it spans, so the furthest is preferred.
+     */
+    private HollowConsumer.Blob furthestSkipDelta(LongFunction<List<HollowConsumer.Blob>> skipDeltas, long currentVersion, long desiredVersion) {
+        HollowConsumer.Blob furthest = null;
+
+        for(HollowConsumer.Blob skipDelta : skipDeltas.apply(currentVersion)) {
+            if(skipDelta.getToVersion() <= desiredVersion && (furthest == null || skipDelta.getToVersion() > furthest.getToVersion()))
+                furthest = skipDelta;
+        }
+
+        return furthest;
+    }
+
     private long includeNextReverseDelta(HollowUpdatePlan plan, long currentVersion) {
         HollowConsumer.Blob transition = transitionCreator.retrieveReverseDeltaBlob(currentVersion);
         if(transition != null) {
@@ -132,6 +132,18 @@ public abstract class AbstractHollowAPIGeneratorBuilder<B extends AbstractHollow
         return getBuilder();
     }
 
+    /**
+     * Generate a flyweight cursor for each type, with which records may be traversed without allocating.
+     *
+     * @param generateCursors true if cursors should be generated
+     * @return this builder
+     * @see com.netflix.hollow.api.objects.cursor.HollowCursor
+     */
+    public B withCursors(boolean generateCursors) {
+        config.setGenerateCursors(generateCursors);
+        return getBuilder();
+    }
+
     public B withDestination(String destinationPath) {
         return withDestination(Paths.get(destinationPath));
     }
@@ -27,6 +27,7 @@ public class CodeGeneratorConfig {
     private boolean useHollowPrimitiveTypes = false;
     private boolean restrictApiToFieldType = false;
     private boolean useVerboseToString = false;
+    private boolean generateCursors = false;
 
     public CodeGeneratorConfig() {}
 
@@ -121,6 +122,14 @@ public class CodeGeneratorConfig {
         this.useVerboseToString = useVerboseToString;
     }
 
+    public boolean isGenerateCursors() {
+        return generateCursors;
+    }
+
+    public void setGenerateCursors(boolean generateCursors) {
+        this.generateCursors = generateCursors;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -134,6 +143,7 @@ public class CodeGeneratorConfig {
         result = prime * result + (useHollowPrimitiveTypes ? 1231 : 1237);
         result = prime * result + (usePackageGrouping ? 1231 : 1237);
         result = prime * result + (useVerboseToString ? 1231 : 1237);
+        result = prime * result + (generateCursors ? 1231 : 1237);
         return result;
     }
 
@@ -170,6 +180,8 @@ public class CodeGeneratorConfig {
             return false;
         if (useVerboseToString != other.useVerboseToString)
             return false;
+        if (generateCursors != other.generateCursors)
+            return false;
         return true;
     }
 
@@ -194,6 +206,8 @@ public class CodeGeneratorConfig {
         builder.append(restrictApiToFieldType);
         builder.append(", useVerboseToString=");
         builder.append(useVerboseToString);
+        builder.append(", generateCursors=");
+        builder.append(generateCursors);
         builder.append("]");
         return builder.toString();
     }
@@ -28,6 +28,7 @@ import com.netflix.hollow.api.codegen.indexes.HollowHashIndexGenerator;
 import com.netflix.hollow.api.codegen.indexes.HollowPrimaryKeyIndexGenerator;
 import com.netflix.hollow.api.codegen.indexes.HollowUniqueKeyIndexGenerator;
 import com.netflix.hollow.api.codegen.indexes.LegacyHollowPrimaryKeyIndexGenerator;
+import com.netflix.hollow.api.codegen.objects.HollowCursorJavaGenerator;
 import com.netflix.hollow.api.codegen.objects.HollowFactoryJavaGenerator;
 import com.netflix.hollow.api.codegen.objects.HollowListJavaGenerator;
 import com.netflix.hollow.api.codegen.objects.HollowMapJavaGenerator;
@@ -386,6 +387,18 @@ public class HollowAPIGenerator {
         config.setRestrictApiToFieldType(restrictApiToFieldType);
     }
 
+    /**
+     * Use this method to specify to generate a flyweight cursor for each type, with which records may be traversed
+     * without allocating.
+     *
+     * Defaults to false to be backwards compatible
+     *
+     * @param generateCursors true if applied.
+     */
+    public void setGenerateCursors(boolean generateCursors) {
+        config.setGenerateCursors(generateCursors);
+    }
+
     /**
      * Generate all files under {@code destinationPath}
      *
@@ -483,6 +496,12 @@ public class HollowAPIGenerator {
                 }
             }
         }
+
+        if (config.isGenerateCursors()) {
+            /// cursors of the primitive types are generated even when the Hollow primitive types are used
+            for(HollowSchema schema : dataset.getSchemas())
+                generateFile(directory, new HollowCursorJavaGenerator(packageName, schema, dataset, config));
+        }
     }
 
     protected void generateSourceFile(HollowJavaFileGenerator generator) throws IOException {
@@ -185,6 +185,10 @@ public class HollowCodeGenerationUtils {
         return sub == null ? classname + classPostfix : sub;
     }
 
+    public static String cursorClassname(String typeName) {
+        return substituteInvalidChars(uppercase(typeName)) + "Cursor";
+    }
+
     public static String delegateInterfaceName(String typeName) {
         return substituteInvalidChars(uppercase(typeName)) + "Delegate";
     }
@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.codegen.objects;
+
+import static com.netflix.hollow.api.codegen.HollowCodeGenerationUtils.cursorClassname;
+import static com.netflix.hollow.api.codegen.HollowCodeGenerationUtils.generateBooleanAccessorMethodName;
+import static com.netflix.hollow.api.codegen.HollowCodeGenerationUtils.substituteInvalidChars;
+import static com.netflix.hollow.api.codegen.HollowCodeGenerationUtils.uppercase;
+
+import com.netflix.hollow.api.codegen.CodeGeneratorConfig;
+import com.netflix.hollow.api.codegen.HollowAPIGenerator;
+import com.netflix.hollow.api.codegen.HollowConsumerJavaFileGenerator;
+import com.netflix.hollow.api.objects.cursor.HollowCursor;
+import com.netflix.hollow.api.objects.cursor.HollowListCursor;
+import com.netflix.hollow.api.objects.cursor.HollowMapCursor;
+import com.netflix.hollow.api.objects.cursor.HollowObjectCursor;
+import com.netflix.hollow.api.objects.cursor.HollowSetCursor;
+import com.netflix.hollow.core.HollowDataset;
+import com.netflix.hollow.core.read.dataaccess.HollowDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowListTypeDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowMapTypeDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowObjectTypeDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowSetTypeDataAccess;
+import com.netflix.hollow.core.schema.HollowListSchema;
+import com.netflix.hollow.core.schema.HollowMapSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowSchema;
+import com.netflix.hollow.core.schema.HollowSetSchema;
+
+/**
+ * This class contains template logic for generating a {@link HollowCursor} for a type.  Not intended for external consumption.
+ *
+ * @see HollowAPIGenerator
+ */
+public class HollowCursorJavaGenerator extends HollowConsumerJavaFileGenerator {
+    public static final String SUB_PACKAGE_NAME = "cursor";
+
+    private final HollowSchema schema;
+    private final String getterPrefix;
+    private final boolean useBooleanFieldErgonomics;
+
+    public HollowCursorJavaGenerator(String packageName, HollowSchema schema, HollowDataset dataset,
+            CodeGeneratorConfig config) {
+        super(packageName, SUB_PACKAGE_NAME, dataset, config);
+
+        this.schema = schema;
+        this.className = cursorClassname(schema.getName());
+        this.getterPrefix = config.getGetterPrefix();
+        this.useBooleanFieldErgonomics = config.isUseBooleanFieldErgonomics();
+    }
+
+    @Override
+    public String generate() {
+        StringBuilder classBuilder = new StringBuilder();
+        appendPackageAndCommonImports(classBuilder);
+
+        switch(schema.getSchemaType()) {
+            case OBJECT:
+                appendObjectCursor(classBuilder, (HollowObjectSchema) schema);
+                break;
+            case LIST:
+                String listElementCursor = cursorClassname(((HollowListSchema) schema).getElementType());
+                appendImports(classBuilder, HollowListCursor.class, HollowListTypeDataAccess.class);
+                appendClassDeclaration(classBuilder, HollowListCursor.class.getSimpleName() + "<" + listElementCursor + ">");
+                appendCollectionCursorBody(classBuilder, HollowListTypeDataAccess.class);
+                appendCursorFactory(classBuilder, "newElementCursor", listElementCursor);
+                break;
+            case SET:
+                String setElementCursor = cursorClassname(((HollowSetSchema) schema).getElementType());
+                appendImports(classBuilder, HollowSetCursor.class, HollowSetTypeDataAccess.class);
+                appendClassDeclaration(classBuilder, HollowSetCursor.class.getSimpleName() + "<" + setElementCursor + ">");
+                appendCollectionCursorBody(classBuilder, HollowSetTypeDataAccess.class);
+                appendCursorFactory(classBuilder, "newElementCursor", setElementCursor);
+                break;
+            case MAP:
+                HollowMapSchema mapSchema = (HollowMapSchema) schema;
+                String keyCursor = cursorClassname(mapSchema.getKeyType());
+                String valueCursor = cursorClassname(mapSchema.getValueType());
+                appendImports(classBuilder, HollowMapCursor.class, HollowMapTypeDataAccess.class);
+                appendClassDeclaration(classBuilder, HollowMapCursor.class.getSimpleName() + "<" + keyCursor + ", " + valueCursor + ">");
+                appendCollectionCursorBody(classBuilder, HollowMapTypeDataAccess.class);
+                appendCursorFactory(classBuilder, "newKeyCursor", keyCursor);
+                appendCursorFactory(classBuilder, "newValueCursor", valueCursor);
+                break;
+        }
+
+        classBuilder.append("}");
+
+        return classBuilder.toString();
+    }
+
+    private void appendImports(StringBuilder classBuilder, Class<?> cursorClass, Class<?> typeDataAccessClass) {
+        classBuilder.append("import " + cursorClass.getName() + ";\n");
+        classBuilder.append("import " + HollowDataAccess.class.getName() + ";\n");
+        classBuilder.append("import " + typeDataAccessClass.getName() + ";\n\n");
+    }
+
+    private void appendClassDeclaration(StringBuilder classBuilder, String superclass) {
+        classBuilder.append("@SuppressWarnings(\"all\")\n");
+        classBuilder.append("public class " + className + " extends " + superclass + " {\n\n");
+    }
+
+    private void appendCollectionCursorBody(StringBuilder classBuilder, Class<?> typeDataAccessClass) {
+        classBuilder.append("    public " + className + "(HollowDataAccess dataAccess) {\n");
+        classBuilder.append("        super(dataAccess, \"" + schema.getName() + "\");\n");
+        classBuilder.append("    }\n\n");
+
+        classBuilder.append("    public " + className + "(" + typeDataAccessClass.getSimpleName() + " typeDataAccess) {\n");
+        classBuilder.append("        super(typeDataAccess);\n");
+        classBuilder.append("    }\n\n");
+
+        appendPositionMethod(classBuilder);
+    }
+
+    private void appendCursorFactory(StringBuilder classBuilder, String methodName, String cursorClassname) {
+        classBuilder.append("    @Override\n");
+        classBuilder.append("    protected " + cursorClassname + " " + methodName + "(HollowDataAccess dataAccess) {\n");
+        classBuilder.append("        return new " + cursorClassname + "(dataAccess);\n");
+        classBuilder.append("    }\n\n");
+    }
+
+    private void appendPositionMethod(StringBuilder classBuilder) {
+        classBuilder.append("    @Override\n");
+        classBuilder.append("    public " + className + " position(int ordinal) {\n");
+        classBuilder.append("        super.position(ordinal);\n");
+        classBuilder.append("        return this;\n");
+        classBuilder.append("    }\n\n");
+    }
+
+    private void appendObjectCursor(StringBuilder classBuilder, HollowObjectSchema schema) {
+        appendImports(classBuilder, HollowObjectCursor.class, HollowObjectTypeDataAccess.class);
+        appendClassDeclaration(classBuilder, HollowObjectCursor.class.getSimpleName());
+
+        StringBuilder fieldNames = new StringBuilder();
+        for(int i=0;i<schema.numFields();i++)
+            fieldNames.append(", \"").append(schema.getFieldName(i)).append("\"");
+
+        boolean hasReferences = false;
+        for(int i=0;i<schema.numFields();i++) {
+            if(schema.getFieldType(i) == HollowObjectSchema.FieldType.REFERENCE) {
+                classBuilder.append("    private " + cursorClassname(schema.getReferencedType(i)) + " " + referenceCursorField(schema, i) + ";\n");
+                hasReferences = true;
+            }
+        }
+        if(hasReferences)
+            classBuilder.append("\n");
+
+        classBuilder.append("    public " + className + "(HollowDataAccess dataAccess) {\n");
+        classBuilder.append("        super(dataAccess, \"" + schema.getName() + "\"" + fieldNames + ");\n");
+        classBuilder.append("    }\n\n");
+
+        classBuilder.append("    public " + className + "(HollowObjectTypeDataAccess typeDataAccess) {\n");
+        classBuilder.append("        super(typeDataAccess" + fieldNames + ");\n");
+        classBuilder.append("    }\n\n");
+
+        appendPositionMethod(classBuilder);
+
+        for(int i=0;i<schema.numFields();i++) {
+            String fieldName = uppercase(substituteInvalidChars(schema.getFieldName(i)));
+            switch(schema.getFieldType(i)) {
+                case BOOLEAN:
+                    String methodName = generateBooleanAccessorMethodName(substituteInvalidChars(schema.getFieldName(i)), useBooleanFieldErgonomics);
+                    appendAccessor(classBuilder, "boolean", methodName, "return Boolean.TRUE.equals(readBoolean(" + i + "));");
+                    break;
+                case BYTES:
+                    appendAccessor(classBuilder, "byte[]", "get" + fieldName, "return readBytes(" + i + ");");
+                    break;
+                case DOUBLE:
+                    appendAccessor(classBuilder, "double", "get" + fieldName, "return readDouble(" + i + ");");
+                    break;
+                case FLOAT:
+                    appendAccessor(classBuilder, "float", "get" + fieldName, "return readFloat(" + i + ");");
+                    break;
+                case INT:
+                    appendAccessor(classBuilder, "int", "get" + fieldName, "return readInt(" + i + ");");
+                    break;
+                case LONG:
+                    appendAccessor(classBuilder, "long", "get" + fieldName, "return readLong(" + i + ");");
+                    break;
+                case STRING:
+                    appendAccessor(classBuilder, "String", "get" + fieldName, "return readString(" + i + ");");
+                    classBuilder.append("    public boolean " + getterPrefix + "is" + fieldName + "Equal(String testValue) {\n");
+                    classBuilder.append("        return isStringFieldEqual(" + i + ", testValue);\n");
+                    classBuilder.append("    }\n\n");
+                    break;
+                case REFERENCE:
+                    String referenceCursor = cursorClassname(schema.getReferencedType(i));
+                    String cursorField = referenceCursorField(schema, i);
+                    appendAccessor(classBuilder, "int", "get" + fieldName + "Ordinal", "return readOrdinal(" + i + ");");
+                    classBuilder.append("    public " + referenceCursor + " " + getterPrefix + "get" + fieldName + "() {\n");
+                    classBuilder.append("        int refOrdinal = readOrdinal(" + i + ");\n");
+                    classBuilder.append("        if(refOrdinal == -1)\n");
+                    classBuilder.append("            return null;\n");
+                    classBuilder.append("        if(" + cursorField + " == null)\n");
+                    classBuilder.append("            " + cursorField + " = new " + referenceCursor + "(typeDataAccess.getDataAccess());\n");
+                    classBuilder.append("        return " + cursorField + ".position(refOrdinal);\n");
+                    classBuilder.append("    }\n\n");
+                    break;
+            }
+        }
+    }
+
+    private void appendAccessor(StringBuilder classBuilder, String returnType, String methodName, String body) {
+        classBuilder.append("    public " + returnType + " " + getterPrefix + methodName + "() {\n");
+        classBuilder.append("        " + body + "\n");
+        classBuilder.append("    }\n\n");
+    }
+
+    private String referenceCursorField(HollowObjectSchema schema, int fieldNum) {
+        return substituteInvalidChars(schema.getFieldName(fieldNum)) + "Cursor";
+    }
+}
@@ -32,6 +32,7 @@ import com.netflix.hollow.api.metrics.HollowConsumerMetrics;
 import com.netflix.hollow.api.metrics.HollowMetricsCollector;
 import com.netflix.hollow.core.HollowConstants;
 import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.memory.encoding.BlockCodec;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.filter.HollowFilterConfig;
 import com.netflix.hollow.core.read.filter.TypeFilter;
@@ -51,6 +52,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
 import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -109,6 +111,10 @@ import java.util.logging.Logger;
  * <dd>The Executor which will be used to perform updates when {@link #triggerAsyncRefresh()} is called.  This will
  * default to a new fixed thread pool with a single refresh thread.</dd>
  *
+ * <dt>A delta prefetch depth</dt>
+ * <dd>The number of delta transitions which are fetched ahead of the transition being applied when an update requires
+ * several transitions.  This defaults to 0, in which case each transition is fetched as it is applied.</dd>
+ *
  * </dl>
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
@@ -195,6 +201,7 @@ public class HollowConsumer {
                 metrics,
                 builder.metricsCollector);
         updater.setFilter(builder.typeFilter);
+        updater.setDeltaPrefetch(builder.deltaPrefetchDepth, builder.deltaPrefetchMaxBufferedBytes);
         this.announcementWatcher = builder.announcementWatcher;
         this.refreshExecutor = builder.refreshExecutor;
         this.refreshLock = new ReentrantReadWriteLock();
@@ -462,6 +469,36 @@ public class HollowConsumer {
          * @return the blob of the reverse delta
          */
         HollowConsumer.Blob retrieveReverseDeltaBlob(long currentVersion);
+
+        /**
+         * Returns the skip delta transitions which can be applied to the specified version identifier.  A skip delta
+         * transitions directly to a version several versions after the specified version, and is applied in place of
+         * the deltas between the two versions.
+         * <p>
+         * By default no skip deltas are available.
+         *
+         * @param currentVersion the current version
+         * @return the blobs of the skip deltas, each of type {@link Blob.BlobType#SKIP_DELTA}, or an empty list
+         * @see com.netflix.hollow.api.producer.HollowProducer.Builder#withSkipDeltas(int...)
+         */
+        default List<HollowConsumer.Blob> retrieveSkipDeltaBlobs(long currentVersion) {
+            return Collections.emptyList();
+        }
+
+        /**
+         * Returns a lookup of the skip delta transitions which can be applied to each version from the current
+         * version up to the desired version, with which a single update is planned.  A retriever for which listing
+         * the available blobs is expensive may list them once for the lookup rather than once for each version.
+         * <p>
+         * By default each lookup calls {@link #retrieveSkipDeltaBlobs(long)}.
+         *
+         * @param currentVersion the current version
+         * @param desiredVersion the desired version
+         * @return a function returning the skip delta transitions which can be applied to a version
+         */
+        default LongFunction<List<HollowConsumer.Blob>> skipDeltaBlobLookup(long currentVersion, long desiredVersion) {
+            return this::retrieveSkipDeltaBlobs;
+        }
     }
 
     /**
@@ -482,7 +519,7 @@ public class HollowConsumer {
 
         private final long fromVersion;
         private final long toVersion;
-        private final BlobType blobType;
+        private BlobType blobType;
 
         /**
          * Instantiate a snapshot to a specified data state version.
@@ -511,6 +548,24 @@ public class HollowConsumer {
                 this.blobType = BlobType.DELTA;
         }
 
+        /**
+         * Instantiate a blob of the specified type from one data state version to another.  This is used to
+         * instantiate a skip delta, whose type cannot be derived from its versions.
+         *
+         * @param fromVersion the version to start the transition from
+         * @param toVersion the version to end the transition at
+         * @param blobType the type of the blob
+         * @throws IllegalArgumentException if the type is inconsistent with the versions
+         */
+        public Blob(long fromVersion, long toVersion, BlobType blobType) {
+            this(fromVersion, toVersion);
+
+            if (blobType != this.blobType && !(blobType == BlobType.SKIP_DELTA && this.blobType == BlobType.DELTA))
+                throw new IllegalArgumentException("A " + blobType.getType() + " blob cannot transition from version "
+                        + fromVersion + " to version " + toVersion);
+            this.blobType = blobType;
+        }
+
         /**
          * Implementations will define how to retrieve the actual blob data for this specific transition from a data store.
          * <p>
@@ -527,12 +582,16 @@ public class HollowConsumer {
         }
 
         /**
-         * Blobs can be of types {@code SNAPSHOT}, {@code DELTA} or {@code REVERSE_DELTA}.
+         * Blobs can be of types {@code SNAPSHOT}, {@code DELTA}, {@code REVERSE_DELTA} or {@code SKIP_DELTA}.
+         * <p>
+         * A {@code SKIP_DELTA} is a forward delta spanning several versions.  It contains two consecutive deltas,
+         * which are applied one after the other.
          */
         public enum BlobType {
             SNAPSHOT("snapshot"),
             DELTA("delta"),
-            REVERSE_DELTA("reversedelta");
+            REVERSE_DELTA("reversedelta"),
+            SKIP_DELTA("skipdelta");
 
             private final String type;
             BlobType(String type) {
@@ -556,6 +615,10 @@ public class HollowConsumer {
             return !isSnapshot() && !isReverseDelta();
         }
 
+        public boolean isSkipDelta() {
+            return blobType == BlobType.SKIP_DELTA;
+        }
+
         public long getFromVersion() {
             return fromVersion;
         }
@@ -957,6 +1020,8 @@ public class HollowConsumer {
     @PublicSpi
     public static class Builder<B extends HollowConsumer.Builder<B>> {
 
+        private static final long DEFAULT_DELTA_PREFETCH_MAX_BUFFERED_BYTES = 256L << 20;
+
         protected HollowConsumer.BlobRetriever blobRetriever = null;
         protected HollowConsumer.AnnouncementWatcher announcementWatcher = null;
         /**
@@ -973,9 +1038,12 @@ public class HollowConsumer {
         protected HollowConsumer.ObjectLongevityDetector objectLongevityDetector = ObjectLongevityDetector.DEFAULT_DETECTOR;
         protected File localBlobStoreDir = null;
         protected boolean useExistingStaleSnapshot;
+        protected BlockCodec localBlobCodec = null;
         protected Executor refreshExecutor = null;
         protected MemoryMode memoryMode = MemoryMode.ON_HEAP;
         protected HollowMetricsCollector<HollowConsumerMetrics> metricsCollector;
+        protected int deltaPrefetchDepth = 0;
+        protected long deltaPrefetchMaxBufferedBytes = DEFAULT_DELTA_PREFETCH_MAX_BUFFERED_BYTES;
 
         public B withBlobRetriever(HollowConsumer.BlobRetriever blobRetriever) {
             this.blobRetriever = blobRetriever;
@@ -1018,6 +1086,25 @@ public class HollowConsumer {
             return (B)this;
         }
 
+        /**
+         * Provide a directory that will be used to cache blobs, in which the cached copies of blobs are compressed.
+         *
+         * The copies are written in the block compressed format, in which blocks of each blob are compressed
+         * independently, so they may still be loaded with random access in the
+         * {@link MemoryMode#SHARED_MEMORY_LAZY} mode.
+         *
+         * @param localBlobStoreDir the directory used to store cached blobs. This will be created
+         *   if it does not already exist.
+         * @param useExistingStaleSnapshot see {@link #withLocalBlobStore(File, boolean)}
+         * @param localBlobCodec the codec with which to compress the blocks of cached blobs
+         */
+        public B withLocalBlobStore(File localBlobStoreDir, boolean useExistingStaleSnapshot, BlockCodec localBlobCodec) {
+            this.localBlobStoreDir = localBlobStoreDir;
+            this.useExistingStaleSnapshot = useExistingStaleSnapshot;
+            this.localBlobCodec = localBlobCodec;
+            return (B)this;
+        }
+
         public B withAnnouncementWatcher(HollowConsumer.AnnouncementWatcher announcementWatcher) {
             this.announcementWatcher = announcementWatcher;
             return (B)this;
@@ -1148,6 +1235,38 @@ public class HollowConsumer {
             return (B)this;
         }
 
+        /**
+         * Fetch up to {@code prefetchDepth} delta transitions ahead of the transition being applied, buffering up to
+         * 256 MiB of fetched transitions.
+         *
+         * @param prefetchDepth the number of transitions to fetch ahead, or 0 to fetch each transition as it is applied
+         * @return this builder
+         * @see #withDeltaPrefetch(int, long)
+         */
+        public B withDeltaPrefetch(int prefetchDepth) {
+            return withDeltaPrefetch(prefetchDepth, DEFAULT_DELTA_PREFETCH_MAX_BUFFERED_BYTES);
+        }
+
+        /**
+         * Fetch up to {@code prefetchDepth} delta transitions ahead of the transition being applied, when an update
+         * requires several transitions (for example, when this consumer has fallen several versions behind).  Each
+         * transition is fetched on its own thread while the preceding transitions are applied.
+         * <p>
+         * Unless this consumer is in {@link MemoryMode#SHARED_MEMORY_LAZY} mode, the fetched transitions are buffered
+         * on heap until they are applied, and no further transitions are fetched while more than
+         * {@code maxBufferedBytes} are buffered.  In shared memory mode each transition's file is retrieved instead.
+         *
+         * @param prefetchDepth the number of transitions to fetch ahead, or 0 to fetch each transition as it is applied
+         * @param maxBufferedBytes the number of bytes of fetched transitions beyond which no further transitions are
+         * fetched until the buffered transitions have been applied
+         * @return this builder
+         */
+        public B withDeltaPrefetch(int prefetchDepth, long maxBufferedBytes) {
+            this.deltaPrefetchDepth = prefetchDepth;
+            this.deltaPrefetchMaxBufferedBytes = maxBufferedBytes;
+            return (B)this;
+        }
+
         @Deprecated
         public B withHashCodeFinder(HollowObjectHashCodeFinder hashCodeFinder) {
             this.hashCodeFinder = hashCodeFinder;
@@ -1167,13 +1286,17 @@ public class HollowConsumer {
             BlobRetriever blobRetriever = this.blobRetriever;
             if (localBlobStoreDir != null) {
                 this.blobRetriever = new HollowFilesystemBlobRetriever(
-                        localBlobStoreDir.toPath(), blobRetriever, useExistingStaleSnapshot);
+                        localBlobStoreDir.toPath(), blobRetriever, useExistingStaleSnapshot, localBlobCodec);
             }
 
             if (refreshExecutor == null) {
                 refreshExecutor = newSingleThreadExecutor(r -> daemonThread(r, getClass(), "refresh"));
             }
 
+            if (deltaPrefetchDepth < 0 || deltaPrefetchMaxBufferedBytes <= 0) {
+                throw new IllegalArgumentException("The delta prefetch depth must be non-negative, and its buffer size positive");
+            }
+
             if (!memoryMode.consumerSupported()) {
                 throw new UnsupportedOperationException("Cinder Consumer in " + memoryMode + " mode is not supported");
             }
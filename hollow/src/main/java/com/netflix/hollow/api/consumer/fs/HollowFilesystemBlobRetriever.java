@@ -20,7 +20,10 @@ import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 import com.netflix.hollow.api.consumer.HollowConsumer;
 import com.netflix.hollow.core.HollowConstants;
-import java.io.BufferedInputStream;
+import com.netflix.hollow.core.memory.encoding.BlockCodec;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedBlob;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedInputStream;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -28,12 +31,18 @@ import java.io.OutputStream;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.LongFunction;
 
 public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriever {
     private final Path blobStorePath;
     private final HollowConsumer.BlobRetriever fallbackBlobRetriever;
     private final boolean useExistingStaleSnapshot;
+    private final BlockCodec localBlobCodec;
 
     /**
      * A new HollowFilesystemBlobRetriever which is not backed by a remote store.
@@ -74,9 +83,29 @@ public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriev
      */
     public HollowFilesystemBlobRetriever(Path blobStorePath, HollowConsumer.BlobRetriever fallbackBlobRetriever,
             boolean useExistingStaleSnapshot) {
+        this(blobStorePath, fallbackBlobRetriever, useExistingStaleSnapshot, null);
+    }
+
+    /**
+     * A new HollowFileSystemBlobRetriever which is backed by a remote store, and which keeps compressed copies of the
+     * blobs copied from the remote store.  The copies are written in the block compressed format, which may be read
+     * with random access, so they may be loaded in any memory mode.
+     *
+     * @param blobStorePath          The directory from which to retrieve blobs, if available
+     * @param fallbackBlobRetriever  The remote blob retriever from which to retrieve blobs if they are not already
+     *                               available on the filesystem.
+     * @param useExistingStaleSnapshot  If true and a snapshot blob is requested then if there exists a local snapshot
+     *                               blob present for the desired version then that snapshot blob is returned and
+     *                               the fallback blob retriever (if present) is not queried.
+     * @param localBlobCodec         The codec with which to compress the blocks of the copies of remote blobs, or
+     *                               null to copy remote blobs uncompressed.
+     */
+    public HollowFilesystemBlobRetriever(Path blobStorePath, HollowConsumer.BlobRetriever fallbackBlobRetriever,
+            boolean useExistingStaleSnapshot, BlockCodec localBlobCodec) {
         this.blobStorePath = blobStorePath;
         this.fallbackBlobRetriever = fallbackBlobRetriever;
         this.useExistingStaleSnapshot = useExistingStaleSnapshot;
+        this.localBlobCodec = localBlobCodec;
 
         try {
             if(!Files.exists(this.blobStorePath)){
@@ -124,7 +153,7 @@ public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriev
         if(fallbackBlobRetriever != null) {
             HollowConsumer.Blob remoteBlob = fallbackBlobRetriever.retrieveSnapshotBlob(desiredVersion);
             if(remoteBlob != null && (filesystemBlob == null || remoteBlob.getToVersion() != filesystemBlob.getToVersion()))
-                return new BlobForBackupToFilesystem(remoteBlob, blobStorePath.resolve("snapshot-" + remoteBlob.getToVersion()));
+                return new BlobForBackupToFilesystem(remoteBlob, localBlobCodec, blobStorePath.resolve("snapshot-" + remoteBlob.getToVersion()));
         }
         
         return filesystemBlob;
@@ -148,7 +177,7 @@ public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriev
         if(fallbackBlobRetriever != null) {
             HollowConsumer.Blob remoteBlob = fallbackBlobRetriever.retrieveDeltaBlob(currentVersion);
             if(remoteBlob != null)
-                return new BlobForBackupToFilesystem(remoteBlob, blobStorePath.resolve("delta-" + remoteBlob.getFromVersion() + "-" + remoteBlob.getToVersion()));
+                return new BlobForBackupToFilesystem(remoteBlob, localBlobCodec, blobStorePath.resolve("delta-" + remoteBlob.getFromVersion() + "-" + remoteBlob.getToVersion()));
         }
         
         return null;
@@ -171,11 +200,58 @@ public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriev
         if(fallbackBlobRetriever != null) {
             HollowConsumer.Blob remoteBlob = fallbackBlobRetriever.retrieveReverseDeltaBlob(currentVersion);
             if(remoteBlob != null)
-                return new BlobForBackupToFilesystem(remoteBlob, blobStorePath.resolve("reversedelta-" + remoteBlob.getFromVersion() + "-" + remoteBlob.getToVersion()));
+                return new BlobForBackupToFilesystem(remoteBlob, localBlobCodec, blobStorePath.resolve("reversedelta-" + remoteBlob.getFromVersion() + "-" + remoteBlob.getToVersion()));
         }
         
         return null;
     }
+
+    @Override
+    public List<HollowConsumer.Blob> retrieveSkipDeltaBlobs(long currentVersion) {
+        return skipDeltaBlobLookup(currentVersion, currentVersion + 1).apply(currentVersion);
+    }
+
+    /**
+     * The skip deltas in the directory are listed once for the lookup.  The fallback blob retriever is consulted
+     * for a version only if there are no skip deltas in the directory for that version.
+     */
+    @Override
+    public LongFunction<List<HollowConsumer.Blob>> skipDeltaBlobLookup(long currentVersion, long desiredVersion) {
+        Map<Long, List<HollowConsumer.Blob>> localSkipDeltas = new HashMap<>();
+
+        try(DirectoryStream<Path> directoryStream = Files.newDirectoryStream(blobStorePath, "skipdelta-*")) {
+            for (Path path : directoryStream) {
+                /// a skip delta which is being backed up has a unique suffix
+                String[] versions = path.getFileName().toString().substring("skipdelta-".length()).split("-");
+                if(versions.length != 2)
+                    continue;
+                long originVersion = Long.parseLong(versions[0]);
+                if(originVersion >= currentVersion && originVersion < desiredVersion) {
+                    long destinationVersion = Long.parseLong(versions[1]);
+                    localSkipDeltas.computeIfAbsent(originVersion, v -> new ArrayList<>()).add(new FilesystemBlob(
+                            path, originVersion, destinationVersion, HollowConsumer.Blob.BlobType.SKIP_DELTA));
+                }
+            }
+        } catch(IOException ex) {
+            throw new RuntimeException("Error listing skip delta files; path=" + blobStorePath, ex);
+        }
+
+        LongFunction<List<HollowConsumer.Blob>> remoteSkipDeltas = fallbackBlobRetriever == null
+                ? null : fallbackBlobRetriever.skipDeltaBlobLookup(currentVersion, desiredVersion);
+
+        return version -> {
+            List<HollowConsumer.Blob> skipDeltas = localSkipDeltas.get(version);
+            if(skipDeltas != null)
+                return skipDeltas;
+
+            skipDeltas = new ArrayList<>();
+            if(remoteSkipDeltas != null) {
+                for(HollowConsumer.Blob remoteBlob : remoteSkipDeltas.apply(version))
+                    skipDeltas.add(new BlobForBackupToFilesystem(remoteBlob, localBlobCodec, blobStorePath.resolve("skipdelta-" + remoteBlob.getFromVersion() + "-" + remoteBlob.getToVersion())));
+            }
+            return skipDeltas;
+        };
+    }
     
     private static class FilesystemBlob extends HollowConsumer.Blob {
 
@@ -202,9 +278,14 @@ public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriev
             this.path = deltaPath;
         }
 
+        FilesystemBlob(Path deltaPath, long fromVersion, long toVersion, BlobType blobType) {
+            super(fromVersion, toVersion, blobType);
+            this.path = deltaPath;
+        }
+
         @Override
         public InputStream getInputStream() throws IOException {
-            return new BufferedInputStream(Files.newInputStream(path));
+            return BlockCompressedInputStream.decompressIfBlockCompressed(Files.newInputStream(path));
         }
 
         @Override
@@ -217,39 +298,37 @@ public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriev
     private static class BlobForBackupToFilesystem extends HollowConsumer.Blob {
         
         private final HollowConsumer.Blob remoteBlob;
+        private final BlockCodec localBlobCodec;
         private final Path path;
 
-        BlobForBackupToFilesystem(HollowConsumer.Blob remoteBlob, Path destinationPath) {
-            super(remoteBlob.getFromVersion(), remoteBlob.getToVersion());
+        BlobForBackupToFilesystem(HollowConsumer.Blob remoteBlob, BlockCodec localBlobCodec, Path destinationPath) {
+            super(remoteBlob.getFromVersion(), remoteBlob.getToVersion(), remoteBlob.getBlobType());
             this.path = destinationPath;
             this.remoteBlob = remoteBlob;
+            this.localBlobCodec = localBlobCodec;
         }
 
         @Override
         public InputStream getInputStream() throws IOException {
-
-            Path tempPath = path.resolveSibling(path.getName(path.getNameCount()-1) + "-" + UUID.randomUUID().toString());
-            try(
-                    InputStream is = remoteBlob.getInputStream();
-                    OutputStream os = Files.newOutputStream(tempPath)
-            ) {
-                byte buf[] = new byte[4096];
-                int n;
-                while (-1 != (n = is.read(buf)))
-                    os.write(buf, 0, n);
-            }
-            Files.move(tempPath, path, REPLACE_EXISTING);
-
-            return new BufferedInputStream(Files.newInputStream(path));
+            copyToFilesystem();
+            return BlockCompressedInputStream.decompressIfBlockCompressed(Files.newInputStream(path));
         }
 
 
         @Override
         public File getFile() throws IOException {
+            copyToFilesystem();
+            return path.toFile();
+        }
+
+        private void copyToFilesystem() throws IOException {
             Path tempPath = path.resolveSibling(path.getName(path.getNameCount()-1) + "-" + UUID.randomUUID().toString());
             try(
                     InputStream is = remoteBlob.getInputStream();
-                    OutputStream os = Files.newOutputStream(tempPath)
+                    OutputStream os = localBlobCodec == null
+                            ? Files.newOutputStream(tempPath)
+                            : new BlockCompressedOutputStream(Files.newOutputStream(tempPath), localBlobCodec,
+                                    BlockCompressedBlob.DEFAULT_LOG2_OF_BLOCK_SIZE)
             ) {
                 byte buf[] = new byte[4096];
                 int n;
@@ -257,8 +336,6 @@ public class HollowFilesystemBlobRetriever implements HollowConsumer.BlobRetriev
                     os.write(buf, 0, n);
             }
             Files.move(tempPath, path, REPLACE_EXISTING);
-
-            return path.toFile();
         }
     }
 }
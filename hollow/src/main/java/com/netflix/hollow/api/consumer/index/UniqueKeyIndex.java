@@ -29,6 +29,7 @@ import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowSchema;
 import com.netflix.hollow.core.write.objectmapper.HollowObjectTypeMapper;
 import com.netflix.hollow.core.write.objectmapper.HollowTypeMapper;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -167,6 +168,39 @@ public class UniqueKeyIndex<T extends HollowObject, Q>
         return uniqueTypeExtractor.extract(api, ordinal);
     }
 
+    /**
+     * Finds the unique objects, instances of the unique type, for each of a batch of keys.
+     * <p>
+     * All keys in the batch are matched against the same state of the index, and this is more efficient than
+     * calling {@link #findMatch(Object)} for each key.
+     *
+     * @param keys the keys
+     * @return the unique objects, in the same order as the keys, with null for each key that is not present
+     */
+    public List<T> findMatches(List<? extends Q> keys) {
+        HollowPrimaryKeyIndex hpki = this.hpki;
+        HollowAPI api = this.api;
+
+        Object[][] keyArrays = new Object[keys.size()][];
+        for (int i = 0; i < keyArrays.length; i++) {
+            Q key = keys.get(i);
+            Object[] keyArray = new Object[matchFields.size()];
+            for (int j = 0; j < keyArray.length; j++) {
+                keyArray[j] = matchFields.get(j).extract(key);
+            }
+            keyArrays[i] = keyArray;
+        }
+
+        int[] ordinals = new int[keyArrays.length];
+        hpki.getMatchingOrdinals(keyArrays, ordinals);
+
+        List<T> matches = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            matches.add(ordinal == -1 ? null : uniqueTypeExtractor.extract(api, ordinal));
+        }
+        return matches;
+    }
+
     // HollowConsumer.RefreshListener
 
     @Override public void refreshStarted(long currentVersion, long requestedVersion) {
@@ -18,6 +18,7 @@ package com.netflix.hollow.api.metrics;
 
 import com.netflix.hollow.api.producer.HollowProducer;
 import com.netflix.hollow.api.producer.HollowProducerListener;
+import com.netflix.hollow.api.producer.ReadStateIndexes;
 import com.netflix.hollow.api.producer.Status;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -34,6 +35,9 @@ public class HollowProducerMetrics extends HollowMetrics {
     private int deltasFailed = 0;
     private int reverseDeltasCompleted = 0;
     private int reverseDeltasFailed = 0;
+    private long indexHits = 0;
+    private long indexBuilds = 0;
+    private long indexBuildTimeNanos = 0;
 
     /**
      * Updates the producer metrics:
@@ -66,11 +70,21 @@ public class HollowProducerMetrics extends HollowMetrics {
         if(readState != null) {
             HollowReadStateEngine hollowReadStateEngine = readState.getStateEngine();
             super.update(hollowReadStateEngine, version);
+            updateIndexMetrics(readState.getIndexes());
         } else {
             super.update(version);
         }
     }
 
+    private void updateIndexMetrics(ReadStateIndexes indexes) {
+        if(indexes == null)
+            return;
+
+        indexHits = indexes.getNumHits();
+        indexBuilds = indexes.getNumBuilds();
+        indexBuildTimeNanos = indexes.getBuildTimeNanos();
+    }
+
     public void updateBlobTypeMetrics(HollowProducerListener.PublishStatus publishStatus) {
         Status.StatusType st = publishStatus.getStatus() == HollowProducerListener.Status.SUCCESS
                 ? Status.StatusType.SUCCESS
@@ -138,4 +152,26 @@ public class HollowProducerMetrics extends HollowMetrics {
     public int getReverseDeltasFailed() {
         return reverseDeltasFailed;
     }
+
+    /**
+     * @return the number of requests for the indexes of the state engine of the last successful cycle which were
+     * served by an index which had already been built
+     */
+    public long getIndexHits() {
+        return indexHits;
+    }
+
+    /**
+     * @return the number of indexes which have been built for the state engine of the last successful cycle
+     */
+    public long getIndexBuilds() {
+        return indexBuilds;
+    }
+
+    /**
+     * @return the time spent building the indexes of the state engine of the last successful cycle, in nanoseconds
+     */
+    public long getIndexBuildTimeNanos() {
+        return indexBuildTimeNanos;
+    }
 }
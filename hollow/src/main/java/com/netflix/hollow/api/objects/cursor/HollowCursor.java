@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.objects.cursor;
+
+import static com.netflix.hollow.core.HollowConstants.ORDINAL_NONE;
+
+import com.netflix.hollow.core.read.dataaccess.HollowTypeDataAccess;
+
+/**
+ * A flyweight over the records of a type, which is positioned at one record at a time.
+ * <p>
+ * Unlike a {@link com.netflix.hollow.api.objects.HollowRecord}, a cursor is mutable and is repositioned rather than
+ * instantiated for each record, and the cursors it returns for the records it references are its own, repositioned
+ * by each call.  A graph of records may therefore be traversed without allocating.  A cursor, and the cursors it
+ * returns, must be confined to a single thread, and a cursor returned by a cursor is only valid until the next call
+ * which returns a cursor for the same field.
+ * <p>
+ * Cursors for the types of a data model are generated by the {@link com.netflix.hollow.api.codegen.HollowAPIGenerator}.
+ */
+public abstract class HollowCursor {
+
+    protected int ordinal = ORDINAL_NONE;
+
+    /**
+     * Position this cursor at a record.
+     *
+     * @param ordinal the ordinal of the record
+     * @return this cursor
+     */
+    public HollowCursor position(int ordinal) {
+        this.ordinal = ordinal;
+        return this;
+    }
+
+    /**
+     * @return the ordinal of the record at which this cursor is positioned, or -1 if it has not been positioned
+     */
+    public final int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * @return the data access of the type of this cursor
+     */
+    public abstract HollowTypeDataAccess getTypeDataAccess();
+
+}
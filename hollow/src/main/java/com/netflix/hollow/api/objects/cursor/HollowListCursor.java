@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.objects.cursor;
+
+import com.netflix.hollow.core.read.dataaccess.HollowDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowListTypeDataAccess;
+
+/**
+ * A {@link HollowCursor} over the records of a LIST type.
+ *
+ * @param <E> the type of the cursor over the elements
+ */
+public abstract class HollowListCursor<E extends HollowCursor> extends HollowCursor {
+
+    protected final HollowListTypeDataAccess typeDataAccess;
+    private E elementCursor;
+
+    protected HollowListCursor(HollowDataAccess dataAccess, String typeName) {
+        this((HollowListTypeDataAccess) dataAccess.getTypeDataAccess(typeName));
+    }
+
+    protected HollowListCursor(HollowListTypeDataAccess typeDataAccess) {
+        if(typeDataAccess == null)
+            throw new IllegalArgumentException("The type of the cursor is not present in the data");
+        this.typeDataAccess = typeDataAccess;
+    }
+
+    @Override
+    public HollowListCursor<E> position(int ordinal) {
+        this.ordinal = ordinal;
+        return this;
+    }
+
+    @Override
+    public HollowListTypeDataAccess getTypeDataAccess() {
+        return typeDataAccess;
+    }
+
+    /**
+     * @return the number of elements in the list
+     */
+    public int size() {
+        return typeDataAccess.size(ordinal);
+    }
+
+    /**
+     * @param index the index of the element
+     * @return the ordinal of the element at the index
+     */
+    public int getElementOrdinal(int index) {
+        return typeDataAccess.getElementOrdinal(ordinal, index);
+    }
+
+    /**
+     * @param index the index of the element
+     * @return the element cursor of this cursor, positioned at the element at the index
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if(elementCursor == null)
+            elementCursor = newElementCursor(typeDataAccess.getDataAccess());
+        return (E) elementCursor.position(getElementOrdinal(index));
+    }
+
+    /**
+     * @param dataAccess the data access
+     * @return a new cursor over the element type
+     */
+    protected abstract E newElementCursor(HollowDataAccess dataAccess);
+
+}
@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.objects.cursor;
+
+import static com.netflix.hollow.core.HollowConstants.ORDINAL_NONE;
+
+import com.netflix.hollow.core.memory.encoding.HashCodes;
+import com.netflix.hollow.core.read.dataaccess.HollowDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowMapTypeDataAccess;
+
+/**
+ * A {@link HollowCursor} over the records of a MAP type.  The entries of the map at which the cursor is positioned
+ * are iterated with {@link #next()}:
+ * <pre>
+ *     while(map.next())
+ *         process(map.key(), map.value());
+ * </pre>
+ *
+ * @param <K> the type of the cursor over the keys
+ * @param <V> the type of the cursor over the values
+ */
+public abstract class HollowMapCursor<K extends HollowCursor, V extends HollowCursor> extends HollowCursor {
+
+    protected final HollowMapTypeDataAccess typeDataAccess;
+    private K keyCursor;
+    private V valueCursor;
+
+    private int numBuckets;
+    private int currentBucket;
+    private int keyOrdinal;
+    private int valueOrdinal;
+
+    protected HollowMapCursor(HollowDataAccess dataAccess, String typeName) {
+        this((HollowMapTypeDataAccess) dataAccess.getTypeDataAccess(typeName));
+    }
+
+    protected HollowMapCursor(HollowMapTypeDataAccess typeDataAccess) {
+        if(typeDataAccess == null)
+            throw new IllegalArgumentException("The type of the cursor is not present in the data");
+        this.typeDataAccess = typeDataAccess;
+    }
+
+    /**
+     * Position this cursor at a map, before its first entry.
+     */
+    @Override
+    public HollowMapCursor<K, V> position(int ordinal) {
+        this.ordinal = ordinal;
+        this.numBuckets = HashCodes.hashTableSize(typeDataAccess.size(ordinal));
+        this.currentBucket = -1;
+        this.keyOrdinal = ORDINAL_NONE;
+        this.valueOrdinal = ORDINAL_NONE;
+        return this;
+    }
+
+    @Override
+    public HollowMapTypeDataAccess getTypeDataAccess() {
+        return typeDataAccess;
+    }
+
+    /**
+     * @return the number of entries in the map
+     */
+    public int size() {
+        return typeDataAccess.size(ordinal);
+    }
+
+    /**
+     * Advance to the next entry of the map.
+     *
+     * @return true if there is a next entry, false if all entries have been iterated
+     */
+    public boolean next() {
+        while(++currentBucket < numBuckets) {
+            long bucket = typeDataAccess.relativeBucket(ordinal, currentBucket);
+            keyOrdinal = (int)(bucket >>> 32);
+            valueOrdinal = (int)bucket;
+            if(keyOrdinal != ORDINAL_NONE)
+                return true;
+        }
+        currentBucket = numBuckets;
+        keyOrdinal = ORDINAL_NONE;
+        valueOrdinal = ORDINAL_NONE;
+        return false;
+    }
+
+    /**
+     * @return the ordinal of the key of the current entry
+     */
+    public int getKeyOrdinal() {
+        return keyOrdinal;
+    }
+
+    /**
+     * @return the ordinal of the value of the current entry
+     */
+    public int getValueOrdinal() {
+        return valueOrdinal;
+    }
+
+    /**
+     * @return the key cursor of this cursor, positioned at the key of the current entry
+     */
+    @SuppressWarnings("unchecked")
+    public K key() {
+        if(keyCursor == null)
+            keyCursor = newKeyCursor(typeDataAccess.getDataAccess());
+        return (K) keyCursor.position(keyOrdinal);
+    }
+
+    /**
+     * @return the value cursor of this cursor, positioned at the value of the current entry
+     */
+    public V value() {
+        return positionValue(valueOrdinal);
+    }
+
+    /**
+     * Find the value of an entry of the map by the hash key of its key.  The map type must be hashed.
+     *
+     * @param hashKey the values of the fields of the hash key
+     * @return the value cursor of this cursor, positioned at the value of the matching entry, or null if no entry
+     * matches
+     */
+    public V findValue(Object... hashKey) {
+        int matchOrdinal = typeDataAccess.findValue(ordinal, hashKey);
+        return matchOrdinal == ORDINAL_NONE ? null : positionValue(matchOrdinal);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V positionValue(int ordinal) {
+        if(valueCursor == null)
+            valueCursor = newValueCursor(typeDataAccess.getDataAccess());
+        return (V) valueCursor.position(ordinal);
+    }
+
+    /**
+     * @param dataAccess the data access
+     * @return a new cursor over the key type
+     */
+    protected abstract K newKeyCursor(HollowDataAccess dataAccess);
+
+    /**
+     * @param dataAccess the data access
+     * @return a new cursor over the value type
+     */
+    protected abstract V newValueCursor(HollowDataAccess dataAccess);
+
+}
@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.objects.cursor;
+
+import static com.netflix.hollow.core.HollowConstants.ORDINAL_NONE;
+
+import com.netflix.hollow.core.read.dataaccess.HollowDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowObjectTypeDataAccess;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+
+/**
+ * A {@link HollowCursor} over the records of an OBJECT type.
+ * <p>
+ * The fields read by a generated cursor are resolved against the schema of the data being read when the cursor is
+ * created, so a field which is not present in the data reads as null.
+ * <p>
+ * The first read of a fixed-length field after the cursor is positioned reads all of the fixed-length fields of the
+ * record with {@link HollowObjectTypeDataAccess#readFields(int, int[], long[])}, so the record is read with a single
+ * consistency check, and the values are returned by the following reads until the cursor is positioned again.
+ */
+public abstract class HollowObjectCursor extends HollowCursor {
+
+    protected final HollowObjectTypeDataAccess typeDataAccess;
+    private final int[] fieldIndexes;
+    private final int[] valueSlots;
+    private final int[] fixedLengthFieldIndexes;
+    private final long[] values;
+    private boolean valuesRead;
+
+    /**
+     * @param dataAccess the data access
+     * @param typeName the name of the OBJECT type
+     * @param fieldNames the names of the fields read by this cursor, identified by their positions in this array
+     */
+    protected HollowObjectCursor(HollowDataAccess dataAccess, String typeName, String... fieldNames) {
+        this((HollowObjectTypeDataAccess) dataAccess.getTypeDataAccess(typeName), fieldNames);
+    }
+
+    /**
+     * @param typeDataAccess the data access of the OBJECT type
+     * @param fieldNames the names of the fields read by this cursor, identified by their positions in this array
+     */
+    protected HollowObjectCursor(HollowObjectTypeDataAccess typeDataAccess, String... fieldNames) {
+        if(typeDataAccess == null)
+            throw new IllegalArgumentException("The type of the cursor is not present in the data");
+
+        this.typeDataAccess = typeDataAccess;
+        this.fieldIndexes = new int[fieldNames.length];
+        HollowObjectSchema schema = typeDataAccess.getSchema();
+        for(int i=0;i<fieldNames.length;i++)
+            fieldIndexes[i] = schema.getPosition(fieldNames[i]);
+
+        /// the fixed-length fields are read together, into the slot of each field
+        this.valueSlots = new int[fieldNames.length];
+        int numFixedLengthFields = 0;
+        for(int i=0;i<fieldNames.length;i++) {
+            valueSlots[i] = -1;
+            if(fieldIndexes[i] != -1 && isFixedLength(schema.getFieldType(fieldIndexes[i])))
+                valueSlots[i] = numFixedLengthFields++;
+        }
+        this.fixedLengthFieldIndexes = new int[numFixedLengthFields];
+        for(int i=0;i<fieldNames.length;i++) {
+            if(valueSlots[i] != -1)
+                fixedLengthFieldIndexes[valueSlots[i]] = fieldIndexes[i];
+        }
+        this.values = new long[numFixedLengthFields];
+    }
+
+    @Override
+    public HollowObjectCursor position(int ordinal) {
+        this.ordinal = ordinal;
+        this.valuesRead = false;
+        return this;
+    }
+
+    @Override
+    public HollowObjectTypeDataAccess getTypeDataAccess() {
+        return typeDataAccess;
+    }
+
+    protected final boolean isNull(int field) {
+        int fieldIndex = fieldIndexes[field];
+        return fieldIndex == -1 || typeDataAccess.isNull(ordinal, fieldIndex);
+    }
+
+    protected final int readOrdinal(int field) {
+        int slot = valueSlots[field];
+        return slot == -1 ? ORDINAL_NONE : (int)readValue(slot);
+    }
+
+    protected final int readInt(int field) {
+        int slot = valueSlots[field];
+        return slot == -1 ? Integer.MIN_VALUE : (int)readValue(slot);
+    }
+
+    protected final long readLong(int field) {
+        int slot = valueSlots[field];
+        return slot == -1 ? Long.MIN_VALUE : readValue(slot);
+    }
+
+    protected final float readFloat(int field) {
+        int slot = valueSlots[field];
+        return slot == -1 ? Float.NaN : Float.intBitsToFloat((int)readValue(slot));
+    }
+
+    protected final double readDouble(int field) {
+        int slot = valueSlots[field];
+        return slot == -1 ? Double.NaN : Double.longBitsToDouble(readValue(slot));
+    }
+
+    protected final Boolean readBoolean(int field) {
+        int slot = valueSlots[field];
+        if(slot == -1)
+            return null;
+        long value = readValue(slot);
+        return value == -1 ? null : value == 1 ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+    protected final String readString(int field) {
+        int fieldIndex = fieldIndexes[field];
+        return fieldIndex == -1 ? null : typeDataAccess.readString(ordinal, fieldIndex);
+    }
+
+    protected final boolean isStringFieldEqual(int field, String testValue) {
+        int fieldIndex = fieldIndexes[field];
+        if(fieldIndex == -1)
+            return testValue == null;
+        return typeDataAccess.isStringFieldEqual(ordinal, fieldIndex, testValue);
+    }
+
+    protected final byte[] readBytes(int field) {
+        int fieldIndex = fieldIndexes[field];
+        return fieldIndex == -1 ? null : typeDataAccess.readBytes(ordinal, fieldIndex);
+    }
+
+    private long readValue(int slot) {
+        if(!valuesRead) {
+            typeDataAccess.readFields(ordinal, fixedLengthFieldIndexes, values);
+            valuesRead = true;
+        }
+        return values[slot];
+    }
+
+    private static boolean isFixedLength(FieldType fieldType) {
+        return fieldType != FieldType.STRING && fieldType != FieldType.BYTES;
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.objects.cursor;
+
+import static com.netflix.hollow.core.HollowConstants.ORDINAL_NONE;
+
+import com.netflix.hollow.core.memory.encoding.HashCodes;
+import com.netflix.hollow.core.read.dataaccess.HollowDataAccess;
+import com.netflix.hollow.core.read.dataaccess.HollowSetTypeDataAccess;
+
+/**
+ * A {@link HollowCursor} over the records of a SET type.  The elements of the set at which the cursor is positioned
+ * are iterated with {@link #next()}:
+ * <pre>
+ *     while(set.next())
+ *         process(set.element());
+ * </pre>
+ *
+ * @param <E> the type of the cursor over the elements
+ */
+public abstract class HollowSetCursor<E extends HollowCursor> extends HollowCursor {
+
+    protected final HollowSetTypeDataAccess typeDataAccess;
+    private E elementCursor;
+
+    private int numBuckets;
+    private int currentBucket;
+    private int elementOrdinal;
+
+    protected HollowSetCursor(HollowDataAccess dataAccess, String typeName) {
+        this((HollowSetTypeDataAccess) dataAccess.getTypeDataAccess(typeName));
+    }
+
+    protected HollowSetCursor(HollowSetTypeDataAccess typeDataAccess) {
+        if(typeDataAccess == null)
+            throw new IllegalArgumentException("The type of the cursor is not present in the data");
+        this.typeDataAccess = typeDataAccess;
+    }
+
+    /**
+     * Position this cursor at a set, before its first element.
+     */
+    @Override
+    public HollowSetCursor<E> position(int ordinal) {
+        this.ordinal = ordinal;
+        this.numBuckets = HashCodes.hashTableSize(typeDataAccess.size(ordinal));
+        this.currentBucket = -1;
+        this.elementOrdinal = ORDINAL_NONE;
+        return this;
+    }
+
+    @Override
+    public HollowSetTypeDataAccess getTypeDataAccess() {
+        return typeDataAccess;
+    }
+
+    /**
+     * @return the number of elements in the set
+     */
+    public int size() {
+        return typeDataAccess.size(ordinal);
+    }
+
+    /**
+     * Advance to the next element of the set.
+     *
+     * @return true if there is a next element, false if all elements have been iterated
+     */
+    public boolean next() {
+        while(++currentBucket < numBuckets) {
+            elementOrdinal = typeDataAccess.relativeBucketValue(ordinal, currentBucket);
+            if(elementOrdinal != ORDINAL_NONE)
+                return true;
+        }
+        currentBucket = numBuckets;
+        elementOrdinal = ORDINAL_NONE;
+        return false;
+    }
+
+    /**
+     * @return the ordinal of the current element
+     */
+    public int getElementOrdinal() {
+        return elementOrdinal;
+    }
+
+    /**
+     * @return the element cursor of this cursor, positioned at the current element
+     */
+    public E element() {
+        return positionElement(elementOrdinal);
+    }
+
+    /**
+     * Find an element of the set by its hash key.  The set type must be hashed.
+     *
+     * @param hashKey the values of the fields of the hash key
+     * @return the element cursor of this cursor, positioned at the matching element, or null if no element matches
+     */
+    public E findElement(Object... hashKey) {
+        int matchOrdinal = typeDataAccess.findElement(ordinal, hashKey);
+        return matchOrdinal == ORDINAL_NONE ? null : positionElement(matchOrdinal);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E positionElement(int ordinal) {
+        if(elementCursor == null)
+            elementCursor = newElementCursor(typeDataAccess.getDataAccess());
+        return (E) elementCursor.position(ordinal);
+    }
+
+    /**
+     * @param dataAccess the data access
+     * @return a new cursor over the element type
+     */
+    protected abstract E newElementCursor(HollowDataAccess dataAccess);
+
+}
@@ -17,7 +17,9 @@
 package com.netflix.hollow.api.producer;
 
 import static com.netflix.hollow.api.producer.ProducerListenerSupport.ProducerListeners;
+import static com.netflix.hollow.core.util.Threads.daemonThread;
 import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.stream.Collectors.toList;
 
 import com.netflix.hollow.api.consumer.HollowConsumer;
@@ -28,33 +30,44 @@ import com.netflix.hollow.api.producer.enforcer.SingleProducerEnforcer;
 import com.netflix.hollow.api.producer.fs.HollowFilesystemBlobStager;
 import com.netflix.hollow.api.producer.listener.CycleListener;
 import com.netflix.hollow.api.producer.listener.HollowProducerEventListener;
+import com.netflix.hollow.api.producer.listener.IntegrityCheckListener;
 import com.netflix.hollow.api.producer.validation.ValidationResult;
 import com.netflix.hollow.api.producer.validation.ValidationStatus;
 import com.netflix.hollow.api.producer.validation.ValidationStatusException;
 import com.netflix.hollow.api.producer.validation.ValidatorListener;
 import com.netflix.hollow.core.HollowConstants;
+import com.netflix.hollow.core.HollowDataset;
 import com.netflix.hollow.core.HollowStateEngine;
 import com.netflix.hollow.core.read.HollowBlobInput;
 import com.netflix.hollow.core.read.engine.HollowBlobHeaderReader;
 import com.netflix.hollow.core.read.engine.HollowBlobReader;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.schema.HollowSchema;
+import com.netflix.hollow.core.schema.SimpleHollowDataset;
 import com.netflix.hollow.core.util.HollowObjectHashCodeFinder;
 import com.netflix.hollow.core.util.HollowWriteStateCreator;
+import com.netflix.hollow.core.util.SimultaneousExecutor;
 import com.netflix.hollow.core.write.HollowBlobWriter;
 import com.netflix.hollow.core.write.HollowWriteStateEngine;
 import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
 import com.netflix.hollow.core.write.objectmapper.RecordPrimaryKey;
 import com.netflix.hollow.tools.checksum.HollowChecksum;
+import com.netflix.hollow.tools.patch.delta.HollowStateDeltaPatcher;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -81,6 +94,13 @@ abstract class AbstractHollowProducer {
     long lastSuccessfulCycle = 0;
     final HollowObjectHashCodeFinder hashCodeFinder;
     final boolean doIntegrityCheck;
+    final boolean pipelinedIntegrityCheck;
+    final boolean recordChecksums;
+    final boolean recordSnapshotLengths;
+    final List<SkipDeltaAnchor> skipDeltaAnchors;
+    final Executor skipDeltaPublishExecutor;
+    /// completes once the skip deltas spanning to the current state have been published
+    CompletableFuture<Void> skipDeltasPublished = CompletableFuture.completedFuture(null);
 
     boolean isInitialized;
 
@@ -93,7 +113,7 @@ abstract class AbstractHollowProducer {
                 new VersionMinterWithCounter(), null, 0,
                 DEFAULT_TARGET_MAX_TYPE_SHARD_SIZE, null,
                 new DummyBlobStorageCleaner(), new BasicSingleProducerEnforcer(),
-                null, true);
+                null, true, false, false, false, new int[0], null);
     }
 
     // The only constructor should be that which accepts a builder
@@ -105,7 +125,8 @@ abstract class AbstractHollowProducer {
                 b.versionMinter, b.snapshotPublishExecutor,
                 b.numStatesBetweenSnapshots, b.targetMaxTypeShardSize,
                 b.metricsCollector, b.blobStorageCleaner, b.singleProducerEnforcer,
-                b.hashCodeFinder, b.doIntegrityCheck);
+                b.hashCodeFinder, b.doIntegrityCheck, b.pipelinedIntegrityCheck,
+                b.recordChecksums, b.recordSnapshotLengths, b.numStatesPerSkipDelta, b.skipDeltaPublishExecutor);
     }
 
     private AbstractHollowProducer(
@@ -121,7 +142,12 @@ abstract class AbstractHollowProducer {
             HollowProducer.BlobStorageCleaner blobStorageCleaner,
             SingleProducerEnforcer singleProducerEnforcer,
             HollowObjectHashCodeFinder hashCodeFinder,
-            boolean doIntegrityCheck) {
+            boolean doIntegrityCheck,
+            boolean pipelinedIntegrityCheck,
+            boolean recordChecksums,
+            boolean recordSnapshotLengths,
+            int[] numStatesPerSkipDelta,
+            Executor skipDeltaPublishExecutor) {
         this.publisher = publisher;
         this.announcer = announcer;
         this.versionMinter = versionMinter;
@@ -131,11 +157,21 @@ abstract class AbstractHollowProducer {
         this.numStatesBetweenSnapshots = numStatesBetweenSnapshots;
         this.hashCodeFinder = hashCodeFinder;
         this.doIntegrityCheck = doIntegrityCheck;
+        this.pipelinedIntegrityCheck = pipelinedIntegrityCheck;
+        this.recordChecksums = recordChecksums;
+        this.recordSnapshotLengths = recordSnapshotLengths;
+        this.skipDeltaAnchors = Arrays.stream(numStatesPerSkipDelta).distinct()
+                .mapToObj(SkipDeltaAnchor::new).collect(toList());
+        this.skipDeltaPublishExecutor = skipDeltaPublishExecutor != null || skipDeltaAnchors.isEmpty()
+                ? skipDeltaPublishExecutor
+                : newSingleThreadExecutor(r -> daemonThread(r, getClass(), "skip-delta"));
 
         HollowWriteStateEngine writeEngine = hashCodeFinder == null
                 ? new HollowWriteStateEngine()
                 : new HollowWriteStateEngine(hashCodeFinder);
         writeEngine.setTargetMaxTypeShardSize(targetMaxTypeShardSize);
+        writeEngine.setMaintainRecordChecksums(recordChecksums);
+        writeEngine.setRecordSnapshotLengths(recordSnapshotLengths);
 
         this.objectMapper = new HollowObjectMapper(writeEngine);
         if (hashCodeFinder != null) {
@@ -273,6 +309,8 @@ abstract class AbstractHollowProducer {
                 HollowWriteStateEngine writeEngine = hashCodeFinder == null
                         ? new HollowWriteStateEngine()
                         : new HollowWriteStateEngine(hashCodeFinder);
+                writeEngine.setMaintainRecordChecksums(recordChecksums);
+                writeEngine.setRecordSnapshotLengths(recordSnapshotLengths);
                 HollowWriteStateCreator.populateStateEngineWithTypeWriteStates(writeEngine, schemas);
                 HollowObjectMapper newObjectMapper = new HollowObjectMapper(writeEngine);
                 if (hashCodeFinder != null) {
@@ -373,7 +411,13 @@ abstract class AbstractHollowProducer {
                 // 3a. Publish, run checks & validation, then announce new state consumers
                 publish(listeners, toVersion, artifacts);
 
+                // The current state is about to be changed, so the skip deltas spanning to it must be complete
+                skipDeltasPublished.join();
+
                 ReadStateHelper candidate = readStates.roundtrip(toVersion);
+                if (doIntegrityCheck && recordChecksums) {
+                    candidate.pending().getStateEngine().setMaintainRecordChecksums(true);
+                }
                 cycleStatus.readState(candidate.pending());
                 candidate = doIntegrityCheck ? 
                         checkIntegrity(listeners, candidate, artifacts, schemaChangedFromPriorVersion) :
@@ -385,6 +429,7 @@ abstract class AbstractHollowProducer {
                     announce(listeners, candidate.pending());
 
                     readStates = candidate.commit();
+                    readStates.current().getIndexes().endCycle();
                     cycleStatus.readState(readStates.current()).success();
                 } catch (Throwable th) {
                     if (artifacts.hasReverseDelta()) {
@@ -394,6 +439,9 @@ abstract class AbstractHollowProducer {
                     throw th;
                 }
                 lastSuccessfulCycle = toVersion;
+
+                // 3c. Publish any skip deltas which span to the new state, while the next cycle begins
+                publishSkipDeltasAsync(listeners, artifacts, schemaChangedFromPriorVersion);
             } else {
                 // 3b. Nothing to do; reset the effects of Step 2
                 // Return the lastSucessfulCycle to the caller thereby
@@ -529,7 +577,7 @@ abstract class AbstractHollowProducer {
             listeners.fireIncrementalPopulateComplete(incrementalPopulateStatus);
         }
 
-        return new HollowIncrementalCyclePopulator(events, 1.0);
+        return new HollowIncrementalCyclePopulator(new InMemoryMutationStore(events), 1.0);
     }
 
     /*
@@ -579,8 +627,12 @@ abstract class AbstractHollowProducer {
 
     private HollowProducer.Blob stageBlob(ProducerListeners listeners, HollowProducer.Blob blob)
             throws IOException {
+        return stageBlob(listeners, blob, new HollowBlobWriter(getWriteEngine()));
+    }
+
+    private HollowProducer.Blob stageBlob(ProducerListeners listeners, HollowProducer.Blob blob, HollowBlobWriter writer)
+            throws IOException {
         Status.PublishBuilder builder = new Status.PublishBuilder();
-        HollowBlobWriter writer = new HollowBlobWriter(getWriteEngine());
         try {
             builder.blob(blob);
             blob.write(writer);
@@ -656,6 +708,94 @@ abstract class AbstractHollowProducer {
         }
     }
 
+    /*
+     * Publish the skip deltas spanning to the new state on the skip delta executor.  The snapshot of the new state
+     * is retained until they are published, and the next cycle waits for them before it changes the new state.
+     */
+    private void publishSkipDeltasAsync(ProducerListeners listeners, Artifacts artifacts, boolean schemaChanged) {
+        if (skipDeltaAnchors.isEmpty()) {
+            return;
+        }
+
+        HollowProducer.ReadState current = readStates.current();
+        artifacts.retainSnapshot();
+        try {
+            skipDeltasPublished = CompletableFuture.runAsync(() -> {
+                try {
+                    publishSkipDeltas(listeners, artifacts, current, schemaChanged);
+                } finally {
+                    artifacts.releaseSnapshot();
+                }
+            }, skipDeltaPublishExecutor);
+        } catch (RejectedExecutionException e) {
+            log.log(Level.WARNING, "Unable to publish skip deltas to version " + current.getVersion(), e);
+            artifacts.releaseSnapshot();
+            skipDeltaAnchors.forEach(SkipDeltaAnchor::reset);
+        }
+    }
+
+    /*
+     * Publish a skip delta for each span which has reached the new state, and start any span which has not yet
+     * started from the new state's snapshot.  A skip delta which cannot be published does not fail the cycle;
+     * its span is restarted instead.
+     */
+    private void publishSkipDeltas(
+            ProducerListeners listeners, Artifacts artifacts, HollowProducer.ReadState current, boolean schemaChanged) {
+        for (SkipDeltaAnchor anchor : skipDeltaAnchors) {
+            try {
+                if (schemaChanged) {
+                    anchor.reset();
+                }
+
+                if (!anchor.isAnchored()) {
+                    if (artifacts.snapshot != null) {
+                        HollowReadStateEngine stateEngine = new HollowReadStateEngine();
+                        readSnapshot(artifacts.snapshot, stateEngine);
+                        anchor.anchor(current.getVersion(), stateEngine);
+                    }
+                } else if (++anchor.numStatesSinceAnchor >= anchor.numStates) {
+                    publishSkipDelta(listeners, anchor, current);
+                }
+            } catch (Throwable th) {
+                log.log(Level.WARNING, "Unable to publish a skip delta spanning " + anchor.numStates
+                        + " states to version " + current.getVersion(), th);
+                anchor.reset();
+            }
+        }
+    }
+
+    private void publishSkipDelta(ProducerListeners listeners, SkipDeltaAnchor anchor, HollowProducer.ReadState current)
+            throws IOException {
+        HollowReadStateEngine anchorStateEngine = anchor.stateEngine;
+        HollowReadStateEngine currentStateEngine = current.getStateEngine();
+
+        HollowStateDeltaPatcher patcher = new HollowStateDeltaPatcher(anchorStateEngine, currentStateEngine);
+        patcher.getStateEngine().addHeaderTags(currentStateEngine.getHeaderTags());
+
+        HollowProducer.Blob blob = stageBlob(listeners,
+                blobStager.openSkipDelta(anchor.version, current.getVersion()), new SkipDeltaWriter(patcher));
+        try {
+            // The anchored state is moved to the current state, verifying the skip delta before it is published
+            try (HollowBlobInput in = HollowBlobInput.serial(blob.newInputStream())) {
+                HollowBlobReader reader = new HollowBlobReader(anchorStateEngine, new HollowBlobHeaderReader());
+                reader.applyDelta(in);
+                reader.applyDelta(in);
+            }
+
+            HollowChecksum anchorChecksum = HollowChecksum.forStateEngineWithCommonSchemas(anchorStateEngine, currentStateEngine);
+            HollowChecksum currentChecksum = HollowChecksum.forStateEngineWithCommonSchemas(currentStateEngine, anchorStateEngine);
+            if (!anchorChecksum.equals(currentChecksum)) {
+                throw new IllegalStateException("Skip delta from version " + anchor.version
+                        + " to version " + current.getVersion() + " failed the integrity check");
+            }
+
+            publishBlob(listeners, blob);
+            anchor.anchor(current.getVersion(), anchorStateEngine);
+        } finally {
+            blob.cleanup();
+        }
+    }
+
     /**
      * Given these read states
      *
@@ -667,6 +807,9 @@ abstract class AbstractHollowProducer {
      *   - S(cur).apply(forwardDelta).checksum == S(pnd).checksum
      *   - S(pnd).apply(reverseDelta).checksum == S(cur).checksum
      *
+     * If the producer maintains record checksums, and S(cur) maintains them too, then each state is instead
+     * verified against the record checksums published in the header of the blob last read into it.
+     *
      * @return S(cur) and S(pnd)
      */
     private ReadStateHelper checkIntegrity(
@@ -675,39 +818,36 @@ abstract class AbstractHollowProducer {
         Status.StageWithStateBuilder status = listeners.fireIntegrityCheckStart(readStates.pending());
         try {
             ReadStateHelper result = readStates;
+            long version = readStates.pending().getVersion();
             HollowReadStateEngine pending = readStates.pending().getStateEngine();
-            readSnapshot(artifacts.snapshot, pending);
 
-            if (readStates.hasCurrent()) {
+            if (!readStates.hasCurrent()) {
+                integrityCheckStep(listeners, version, IntegrityCheckListener.Step.READ_SNAPSHOT, () -> {
+                    readSnapshot(artifacts.snapshot, pending);
+                    return null;
+                });
+                verifyRecordChecksums(pending, HollowProducer.Blob.Type.SNAPSHOT);
+            } else {
                 HollowReadStateEngine current = readStates.current().getStateEngine();
 
-                log.info("CHECKSUMS");
-                HollowChecksum currentChecksum = HollowChecksum.forStateEngineWithCommonSchemas(current, pending);
-                log.info("  CUR        " + currentChecksum);
+                if (artifacts.hasDelta() && !artifacts.hasReverseDelta()) {
+                    throw new IllegalStateException("Both a delta and reverse delta are required");
+                }
 
-                HollowChecksum pendingChecksum = HollowChecksum.forStateEngineWithCommonSchemas(pending, current);
-                log.info("         PND " + pendingChecksum);
+                boolean verifyRecordChecksums = recordChecksums && current.isMaintainRecordChecksums();
 
-                if (artifacts.hasDelta()) {
-                    if (!artifacts.hasReverseDelta()) {
-                        throw new IllegalStateException("Both a delta and reverse delta are required");
-                    }
-
-                    // FIXME: timt: future cycles will fail unless both deltas validate
-                    applyDelta(artifacts.delta, current);
-                    HollowChecksum forwardChecksum = HollowChecksum.forStateEngineWithCommonSchemas(current, pending);
-                    //out.format("  CUR => PND %s\n", forwardChecksum);
-                    if (!forwardChecksum.equals(pendingChecksum)) {
-                        throw new HollowProducer.ChecksumValidationException(HollowProducer.Blob.Type.DELTA);
-                    }
+                // FIXME: timt: future cycles will fail unless both deltas validate
+                if (verifyRecordChecksums && !schemaChangedFromPriorVersion) {
+                    checkIntegrityWithRecordChecksums(listeners, version, current, pending, artifacts);
+                } else if (pipelinedIntegrityCheck) {
+                    checkIntegrityPipelined(listeners, version, current, pending, artifacts);
+                } else {
+                    checkIntegritySequential(listeners, version, current, pending, artifacts);
+                }
 
-                    applyDelta(artifacts.reverseDelta, pending);
-                    HollowChecksum reverseChecksum = HollowChecksum.forStateEngineWithCommonSchemas(pending, current);
-                    //out.format("  CUR <= PND %s\n", reverseChecksum);
-                    if (!reverseChecksum.equals(currentChecksum)) {
-                        throw new HollowProducer.ChecksumValidationException(HollowProducer.Blob.Type.REVERSE_DELTA);
-                    }
-                    if (!schemaChangedFromPriorVersion) {
+                if (artifacts.hasDelta()) {
+                    /// a state which does not maintain record checksums is replaced by the pending state, which does
+                    if (!schemaChangedFromPriorVersion && (verifyRecordChecksums || !recordChecksums)) {
                         // optimization - they have identical schemas, so just swap them
                         log.log(Level.FINE, "current and pending have identical schemas, swapping");
                         result = readStates.swap();
@@ -728,7 +868,174 @@ abstract class AbstractHollowProducer {
             listeners.fireIntegrityCheckComplete(status);
         }
     }
-    
+
+    /**
+     * Performs the same checks as {@link #checkIntegritySequential}, verifying each state against the record checksums
+     * published in the header of the blob last read into it rather than checksumming every record of both states.
+     */
+    private void checkIntegrityWithRecordChecksums(
+            ProducerListeners listeners, long version,
+            HollowReadStateEngine current, HollowReadStateEngine pending, Artifacts artifacts) throws Exception {
+        integrityCheckStep(listeners, version, IntegrityCheckListener.Step.READ_SNAPSHOT, () -> {
+            readSnapshot(artifacts.snapshot, pending);
+            return null;
+        });
+        verifyRecordChecksums(pending, HollowProducer.Blob.Type.SNAPSHOT);
+
+        if (artifacts.hasDelta()) {
+            integrityCheckStep(listeners, version, IntegrityCheckListener.Step.APPLY_DELTA, () -> {
+                applyDelta(artifacts.delta, current);
+                return null;
+            });
+            verifyRecordChecksums(current, HollowProducer.Blob.Type.DELTA);
+
+            integrityCheckStep(listeners, version, IntegrityCheckListener.Step.APPLY_REVERSE_DELTA, () -> {
+                applyDelta(artifacts.reverseDelta, pending);
+                return null;
+            });
+            verifyRecordChecksums(pending, HollowProducer.Blob.Type.REVERSE_DELTA);
+        }
+    }
+
+    private void verifyRecordChecksums(HollowReadStateEngine stateEngine, HollowProducer.Blob.Type blobType) {
+        Set<String> mismatchedTypes = stateEngine.getRecordChecksumMismatches();
+        if (!mismatchedTypes.isEmpty()) {
+            log.warning("Record checksums of " + blobType + " do not match for types " + mismatchedTypes);
+            throw new HollowProducer.ChecksumValidationException(blobType);
+        }
+    }
+
+    private void checkIntegritySequential(
+            ProducerListeners listeners, long version,
+            HollowReadStateEngine current, HollowReadStateEngine pending, Artifacts artifacts) throws Exception {
+        integrityCheckStep(listeners, version, IntegrityCheckListener.Step.READ_SNAPSHOT, () -> {
+            readSnapshot(artifacts.snapshot, pending);
+            return null;
+        });
+
+        log.info("CHECKSUMS");
+        HollowChecksum currentChecksum = integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_CURRENT,
+                () -> HollowChecksum.forStateEngineWithCommonSchemas(current, pending));
+        log.info("  CUR        " + currentChecksum);
+
+        HollowChecksum pendingChecksum = integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_PENDING,
+                () -> HollowChecksum.forStateEngineWithCommonSchemas(pending, current));
+        log.info("         PND " + pendingChecksum);
+
+        if (artifacts.hasDelta()) {
+            integrityCheckStep(listeners, version, IntegrityCheckListener.Step.APPLY_DELTA, () -> {
+                applyDelta(artifacts.delta, current);
+                return null;
+            });
+            HollowChecksum forwardChecksum = integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_DELTA,
+                    () -> HollowChecksum.forStateEngineWithCommonSchemas(current, pending));
+            //out.format("  CUR => PND %s\n", forwardChecksum);
+            if (!forwardChecksum.equals(pendingChecksum)) {
+                throw new HollowProducer.ChecksumValidationException(HollowProducer.Blob.Type.DELTA);
+            }
+
+            integrityCheckStep(listeners, version, IntegrityCheckListener.Step.APPLY_REVERSE_DELTA, () -> {
+                applyDelta(artifacts.reverseDelta, pending);
+                return null;
+            });
+            HollowChecksum reverseChecksum = integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_REVERSE_DELTA,
+                    () -> HollowChecksum.forStateEngineWithCommonSchemas(pending, current));
+            //out.format("  CUR <= PND %s\n", reverseChecksum);
+            if (!reverseChecksum.equals(currentChecksum)) {
+                throw new HollowProducer.ChecksumValidationException(HollowProducer.Blob.Type.REVERSE_DELTA);
+            }
+        }
+    }
+
+    /**
+     * Performs the same checks as {@link #checkIntegritySequential}, running the independent steps concurrently:
+     *
+     * 1. Read the snapshot into S(pnd) and checksum it, while checksumming S(cur)
+     * 2. Apply the forward delta to S(cur) and checksum it, while applying the reverse delta to S(pnd) and checksumming it
+     *
+     * Each checksum is taken with the schemas common to S(cur) and S(pnd).  The schemas of S(pnd) are those of the
+     * write state engine, from which the snapshot was written, so no step needs to wait on another state to be read.
+     */
+    private void checkIntegrityPipelined(
+            ProducerListeners listeners, long version,
+            HollowReadStateEngine current, HollowReadStateEngine pending, Artifacts artifacts) throws Exception {
+        HollowDataset currentSchemas = new SimpleHollowDataset(current.getSchemas());
+        HollowDataset pendingSchemas = new SimpleHollowDataset(getWriteEngine().getSchemas());
+
+        SimultaneousExecutor executor = new SimultaneousExecutor(2, getClass(), "integrity-check");
+        try {
+            Future<HollowChecksum> pendingChecksumFuture = executor.submit(() -> {
+                integrityCheckStep(listeners, version, IntegrityCheckListener.Step.READ_SNAPSHOT, () -> {
+                    readSnapshot(artifacts.snapshot, pending);
+                    return null;
+                });
+                return integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_PENDING,
+                        () -> HollowChecksum.forStateEngineWithCommonSchemas(pending, currentSchemas));
+            });
+            Future<HollowChecksum> currentChecksumFuture = executor.submit(() ->
+                    integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_CURRENT,
+                            () -> HollowChecksum.forStateEngineWithCommonSchemas(current, pendingSchemas)));
+
+            log.info("CHECKSUMS");
+            HollowChecksum currentChecksum = getIntegrityCheckResult(currentChecksumFuture);
+            log.info("  CUR        " + currentChecksum);
+            HollowChecksum pendingChecksum = getIntegrityCheckResult(pendingChecksumFuture);
+            log.info("         PND " + pendingChecksum);
+
+            if (artifacts.hasDelta()) {
+                Future<HollowChecksum> forwardChecksumFuture = executor.submit(() -> {
+                    integrityCheckStep(listeners, version, IntegrityCheckListener.Step.APPLY_DELTA, () -> {
+                        applyDelta(artifacts.delta, current);
+                        return null;
+                    });
+                    return integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_DELTA,
+                            () -> HollowChecksum.forStateEngineWithCommonSchemas(current, pendingSchemas));
+                });
+                Future<HollowChecksum> reverseChecksumFuture = executor.submit(() -> {
+                    integrityCheckStep(listeners, version, IntegrityCheckListener.Step.APPLY_REVERSE_DELTA, () -> {
+                        applyDelta(artifacts.reverseDelta, pending);
+                        return null;
+                    });
+                    return integrityCheckStep(listeners, version, IntegrityCheckListener.Step.CHECKSUM_REVERSE_DELTA,
+                            () -> HollowChecksum.forStateEngineWithCommonSchemas(pending, currentSchemas));
+                });
+
+                HollowChecksum forwardChecksum = getIntegrityCheckResult(forwardChecksumFuture);
+                HollowChecksum reverseChecksum = getIntegrityCheckResult(reverseChecksumFuture);
+                if (!forwardChecksum.equals(pendingChecksum)) {
+                    throw new HollowProducer.ChecksumValidationException(HollowProducer.Blob.Type.DELTA);
+                }
+                if (!reverseChecksum.equals(currentChecksum)) {
+                    throw new HollowProducer.ChecksumValidationException(HollowProducer.Blob.Type.REVERSE_DELTA);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private <T> T integrityCheckStep(
+            ProducerListeners listeners, long version, IntegrityCheckListener.Step step, Callable<T> task) throws Exception {
+        long start = currentTimeMillis();
+        T result = task.call();
+        listeners.fireIntegrityCheckStep(step, version, Duration.ofMillis(currentTimeMillis() - start));
+        return result;
+    }
+
+    private static <T> T getIntegrityCheckResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
     private ReadStateHelper noIntegrityCheck(ReadStateHelper readStates, Artifacts artifacts) throws IOException {
         ReadStateHelper result = readStates;
 
@@ -819,6 +1126,7 @@ abstract class AbstractHollowProducer {
 
         boolean cleanupCalled;
         boolean snapshotPublishComplete;
+        boolean snapshotRetained;
 
         synchronized void cleanup() {
             cleanupCalled = true;
@@ -841,8 +1149,18 @@ abstract class AbstractHollowProducer {
             cleanupSnapshot();
         }
 
+        synchronized void retainSnapshot() {
+            snapshotRetained = true;
+        }
+
+        synchronized void releaseSnapshot() {
+            snapshotRetained = false;
+
+            cleanupSnapshot();
+        }
+
         private void cleanupSnapshot() {
-            if (cleanupCalled && snapshotPublishComplete && snapshot != null) {
+            if (cleanupCalled && snapshotPublishComplete && !snapshotRetained && snapshot != null) {
                 snapshot.cleanup();
                 snapshot = null;
             }
@@ -857,6 +1175,36 @@ abstract class AbstractHollowProducer {
         }
     }
 
+    /*
+     * The state from which the next skip delta of a span will transition.
+     */
+    static final class SkipDeltaAnchor {
+        final int numStates;
+        long version;
+        HollowReadStateEngine stateEngine;
+        int numStatesSinceAnchor;
+
+        SkipDeltaAnchor(int numStates) {
+            this.numStates = numStates;
+        }
+
+        boolean isAnchored() {
+            return stateEngine != null;
+        }
+
+        void anchor(long version, HollowReadStateEngine stateEngine) {
+            this.version = version;
+            this.stateEngine = stateEngine;
+            this.numStatesSinceAnchor = 0;
+        }
+
+        void reset() {
+            this.version = HollowConstants.VERSION_NONE;
+            this.stateEngine = null;
+            this.numStatesSinceAnchor = 0;
+        }
+    }
+
     /**
      * This Dummy blob storage cleaner does nothing
      */
@@ -0,0 +1,447 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import com.netflix.hollow.core.HollowDataset;
+import com.netflix.hollow.core.index.key.PrimaryKey;
+import com.netflix.hollow.core.memory.ArrayByteData;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+import com.netflix.hollow.core.schema.HollowSchema;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import com.netflix.hollow.core.write.objectmapper.RecordPrimaryKey;
+import com.netflix.hollow.core.write.objectmapper.flatrecords.FlatRecord;
+import com.netflix.hollow.core.write.objectmapper.flatrecords.FlatRecordWriter;
+import com.netflix.hollow.core.write.objectmapper.flatrecords.HollowSchemaIdentifierMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pending mutations of a {@link HollowIncrementalProducer}, which are held as serialized {@link FlatRecord}s
+ * rather than as the objects which were added.
+ * <p>
+ * The mutation of each primary key replaces any prior mutation of the key.  Serialized mutations are held in memory
+ * until they exceed {@code maxInMemoryBytes}, at which point they are appended to a file and read from the file when
+ * the mutations are populated into the next cycle.  The primary keys, and the location of each key's mutation, are
+ * held in memory.  The file is truncated once the mutations are cleared.
+ * <p>
+ * The file is only appended to, so a mutation which replaces a spilled mutation of the same key leaves the spilled
+ * mutation's bytes in the file until the mutations are cleared, which they are by each cycle that publishes them.
+ * The dead bytes are included in {@link #getSpilledBytes()}, so that frequently modified keys bring a scheduled cycle
+ * forward rather than growing the file without bound.
+ * <p>
+ * Mutations are read from the store as {@link HollowIncrementalCyclePopulator#DELETE_RECORD}, a {@link FlatRecord},
+ * or an {@link HollowIncrementalCyclePopulator.AddIfAbsent} of a {@link FlatRecord}.
+ */
+final class FlatRecordMutationStore implements MutationStore {
+    private static final byte ADD_OR_MODIFY = 0;
+    private static final byte ADD_IF_ABSENT = 1;
+
+    private final HollowObjectMapper objectMapper;
+    private final SchemaIdentifierMapper schemaIdMapper;
+    private final ThreadLocal<FlatRecordWriter> writers;
+    private final long maxInMemoryBytes;
+    private final File file;
+    private final FileChannel channel;
+
+    /// the value of each key is DELETE_RECORD, a byte[] holding the kind followed by the serialized record, or
+    /// a Long holding the position of the record in the file shifted left by one with the kind in the lowest bit
+    private final ConcurrentHashMap<RecordPrimaryKey, Object> mutations;
+    private final AtomicLong inMemoryBytes;
+    private long fileLength;
+
+    /**
+     * @param objectMapper the object mapper of the producer
+     * @param spillDirectory the directory in which to create the file to which mutations are spilled
+     * @param maxInMemoryBytes the number of bytes of serialized mutations beyond which mutations are spilled
+     * @throws IOException if the file could not be created
+     */
+    FlatRecordMutationStore(HollowObjectMapper objectMapper, File spillDirectory, long maxInMemoryBytes) throws IOException {
+        if(maxInMemoryBytes < 0)
+            throw new IllegalArgumentException("maxInMemoryBytes must be non-negative");
+
+        this.objectMapper = objectMapper;
+        this.schemaIdMapper = new SchemaIdentifierMapper(objectMapper.getStateEngine());
+        this.writers = ThreadLocal.withInitial(() -> new FlatRecordWriter(objectMapper.getStateEngine(), schemaIdMapper));
+        this.maxInMemoryBytes = maxInMemoryBytes;
+        this.file = File.createTempFile("hollow-mutations-", ".tmp", spillDirectory);
+        this.file.deleteOnExit();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.mutations = new ConcurrentHashMap<>();
+        this.inMemoryBytes = new AtomicLong();
+    }
+
+    @Override
+    public void put(RecordPrimaryKey key, Object mutation) {
+        Object location = serialize(mutation);
+        Object prior = mutations.put(key, location);
+        accountFor(location, prior);
+    }
+
+    @Override
+    public boolean putIfAbsent(RecordPrimaryKey key, Object mutation) {
+        if(mutations.containsKey(key))
+            return false;
+
+        Object location = serialize(mutation);
+        if(mutations.putIfAbsent(key, location) != null)
+            return false;
+
+        accountFor(location, null);
+        return true;
+    }
+
+    @Override
+    public Object get(RecordPrimaryKey key) {
+        Object location = mutations.get(key);
+        return location == null ? null : deserialize(location);
+    }
+
+    @Override
+    public boolean containsKey(RecordPrimaryKey key) {
+        return mutations.containsKey(key);
+    }
+
+    @Override
+    public void remove(RecordPrimaryKey key) {
+        Object location = mutations.remove(key);
+        if(location != null)
+            accountFor(null, location);
+    }
+
+    @Override
+    public int size() {
+        return mutations.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        mutations.clear();
+        inMemoryBytes.set(0);
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fileLength = 0;
+    }
+
+    /**
+     * Discard the mutations, and close and delete the file to which they are spilled.
+     */
+    @Override
+    public synchronized void close() {
+        mutations.clear();
+        inMemoryBytes.set(0);
+        fileLength = 0;
+        try {
+            channel.close();
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long countDeletes() {
+        long deletes = 0;
+        for(Object location : mutations.values()) {
+            if(location == HollowIncrementalCyclePopulator.DELETE_RECORD)
+                deletes++;
+        }
+        return deletes;
+    }
+
+    @Override
+    public long getNumBytes() {
+        return getInMemoryBytes() + getSpilledBytes();
+    }
+
+    /**
+     * @return the number of bytes of serialized mutations held in memory
+     */
+    long getInMemoryBytes() {
+        return inMemoryBytes.get();
+    }
+
+    /**
+     * @return the number of bytes which have been spilled to the file, including those of mutations which have since
+     * been replaced
+     */
+    synchronized long getSpilledBytes() {
+        return fileLength;
+    }
+
+    @Override
+    public Iterable<RecordPrimaryKey> keys() {
+        return mutations.keySet();
+    }
+
+    @Override
+    public Iterator<Mutation> iterator() {
+        Iterator<Map.Entry<RecordPrimaryKey, Object>> iter = mutations.entrySet().iterator();
+        return new Iterator<Mutation>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public Mutation next() {
+                Map.Entry<RecordPrimaryKey, Object> entry = iter.next();
+                return new SerializedMutation(entry.getKey(), entry.getValue());
+            }
+        };
+    }
+
+    /**
+     * A mutation of the store, whose value is read each time it is requested.
+     */
+    private final class SerializedMutation implements Mutation {
+        private final RecordPrimaryKey key;
+        private final Object location;
+
+        SerializedMutation(RecordPrimaryKey key, Object location) {
+            this.key = key;
+            this.location = location;
+        }
+
+        @Override
+        public RecordPrimaryKey getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean isAddIfAbsent() {
+            return kindOf(location) == ADD_IF_ABSENT;
+        }
+
+        @Override
+        public Object getValue() {
+            return deserialize(location);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private Object serialize(Object value) {
+        if(value == HollowIncrementalCyclePopulator.DELETE_RECORD)
+            return HollowIncrementalCyclePopulator.DELETE_RECORD;
+
+        byte kind = ADD_OR_MODIFY;
+        if(value instanceof HollowIncrementalCyclePopulator.AddIfAbsent) {
+            kind = ADD_IF_ABSENT;
+            value = ((HollowIncrementalCyclePopulator.AddIfAbsent) value).obj;
+        }
+
+        if(value instanceof FlatRecord)
+            return withKind(kind, ((FlatRecord) value).toArray());
+
+        FlatRecordWriter writer = writers.get();
+        writer.reset();
+        objectMapper.writeFlat(value, writer);
+        try {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            writer.writeTo(os);
+            return withKind(kind, os.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.reset();
+        }
+    }
+
+    private static byte[] withKind(byte kind, byte[] record) {
+        byte[] bytes = new byte[record.length + 1];
+        bytes[0] = kind;
+        System.arraycopy(record, 0, bytes, 1, record.length);
+        return bytes;
+    }
+
+    @SuppressWarnings("deprecation")
+    private Object deserialize(Object location) {
+        if(location == HollowIncrementalCyclePopulator.DELETE_RECORD)
+            return HollowIncrementalCyclePopulator.DELETE_RECORD;
+
+        byte[] bytes = location instanceof byte[] ? (byte[]) location : readFromFile((Long) location >>> 1);
+        byte[] record = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 1, record, 0, record.length);
+
+        FlatRecord flatRecord = new FlatRecord(new ArrayByteData(record), schemaIdMapper);
+        return bytes[0] == ADD_IF_ABSENT ? new HollowIncrementalCyclePopulator.AddIfAbsent(flatRecord) : flatRecord;
+    }
+
+    private static byte kindOf(Object location) {
+        if(location instanceof byte[])
+            return ((byte[]) location)[0];
+        if(location instanceof Long)
+            return (byte)((Long) location & 1);
+        return ADD_OR_MODIFY;
+    }
+
+    private void accountFor(Object added, Object removed) {
+        long delta = 0;
+        if(added instanceof byte[])
+            delta += ((byte[]) added).length;
+        if(removed instanceof byte[])
+            delta -= ((byte[]) removed).length;
+
+        if(inMemoryBytes.addAndGet(delta) > maxInMemoryBytes)
+            spill();
+    }
+
+    /**
+     * Append the mutations held in memory to the file.  Concurrent mutations of a key which is being spilled take
+     * precedence over the spilled mutation.
+     */
+    private synchronized void spill() {
+        if(inMemoryBytes.get() <= maxInMemoryBytes)
+            return;
+
+        try {
+            List<RecordPrimaryKey> keys = new ArrayList<>();
+            List<byte[]> records = new ArrayList<>();
+            int batchBytes = 0;
+
+            for(Map.Entry<RecordPrimaryKey, Object> entry : mutations.entrySet()) {
+                if(entry.getValue() instanceof byte[]) {
+                    byte[] bytes = (byte[]) entry.getValue();
+                    keys.add(entry.getKey());
+                    records.add(bytes);
+                    batchBytes += 4 + bytes.length;
+
+                    if(batchBytes >= 1 << 20) {
+                        append(keys, records, batchBytes);
+                        batchBytes = 0;
+                    }
+                }
+            }
+
+            append(keys, records, batchBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(List<RecordPrimaryKey> keys, List<byte[]> records, int batchBytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(batchBytes);
+        for(byte[] bytes : records)
+            buf.putInt(bytes.length).put(bytes);
+        buf.flip();
+
+        long position = fileLength;
+        while(buf.hasRemaining())
+            fileLength += channel.write(buf, fileLength);
+
+        /// records are readable from the file before their keys refer to the file
+        for(int i=0;i<keys.size();i++) {
+            byte[] bytes = records.get(i);
+            if(mutations.replace(keys.get(i), bytes, (position << 1) | bytes[0]))
+                inMemoryBytes.addAndGet(-bytes.length);
+            position += 4 + bytes.length;
+        }
+
+        keys.clear();
+        records.clear();
+    }
+
+    private byte[] readFromFile(long position) {
+        try {
+            ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+            readFully(lengthBuf, position);
+            ByteBuffer buf = ByteBuffer.allocate(lengthBuf.getInt(0));
+            readFully(buf, position + 4);
+            return buf.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while(buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position());
+            if(n < 0)
+                throw new IOException("Unexpected end of mutation file " + file);
+        }
+    }
+
+    /**
+     * Identifies the schemas of the producer's data model by the order in which they are first serialized, so that
+     * the identifiers of serialized mutations remain valid as types are added to the data model.
+     */
+    private static class SchemaIdentifierMapper implements HollowSchemaIdentifierMapper {
+        private final HollowDataset dataset;
+        private final List<HollowSchema> schemas;
+        private final Map<String, Integer> schemaIds;
+
+        SchemaIdentifierMapper(HollowDataset dataset) {
+            this.dataset = dataset;
+            this.schemas = new ArrayList<>();
+            this.schemaIds = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public synchronized HollowSchema getSchema(int identifier) {
+            return schemas.get(identifier);
+        }
+
+        @Override
+        public FieldType[] getPrimaryKeyFieldTypes(int identifier) {
+            HollowSchema schema = getSchema(identifier);
+            if(schema.getSchemaType() != HollowSchema.SchemaType.OBJECT)
+                return null;
+
+            PrimaryKey primaryKey = ((HollowObjectSchema) schema).getPrimaryKey();
+            if(primaryKey == null)
+                return null;
+
+            FieldType[] fieldTypes = new FieldType[primaryKey.numFields()];
+            for(int i=0;i<fieldTypes.length;i++)
+                fieldTypes[i] = primaryKey.getFieldType(dataset, i);
+            return fieldTypes;
+        }
+
+        @Override
+        public int getSchemaId(HollowSchema schema) {
+            Integer id = schemaIds.get(schema.getName());
+            if(id != null)
+                return id;
+
+            synchronized(this) {
+                id = schemaIds.get(schema.getName());
+                if(id == null) {
+                    id = schemas.size();
+                    schemas.add(schema);
+                    schemaIds.put(schema.getName(), id);
+                }
+                return id;
+            }
+        }
+    }
+}
@@ -28,15 +28,14 @@ import com.netflix.hollow.core.write.objectmapper.RecordPrimaryKey;
 import com.netflix.hollow.core.write.objectmapper.flatrecords.FlatRecord;
 import com.netflix.hollow.core.write.objectmapper.flatrecords.FlatRecordDumper;
 import com.netflix.hollow.tools.traverse.TransitiveSetTraverser;
-import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Used by HollowIncrementalProducer for Delta-Based Producer Input
@@ -50,10 +49,11 @@ public class HollowIncrementalCyclePopulator implements HollowProducer.Populator
     public static final Object DELETE_RECORD = new Object();
 
     private final double threadsPerCpu;
-    private final Map<RecordPrimaryKey, Object> mutations;
-    
+    private final MutationStore mutations;
+    /// the keys of AddIfAbsent mutations whose records are present in the prior state
+    private final Set<RecordPrimaryKey> foundAddIfAbsentKeys = ConcurrentHashMap.newKeySet();
 
-    HollowIncrementalCyclePopulator(Map<RecordPrimaryKey, Object> mutations, double threadsPerCpu) {
+    HollowIncrementalCyclePopulator(MutationStore mutations, double threadsPerCpu) {
         this.mutations = mutations;
         this.threadsPerCpu = threadsPerCpu;
     }
@@ -66,6 +66,7 @@ public class HollowIncrementalCyclePopulator implements HollowProducer.Populator
     }
 
     private void removeRecords(HollowProducer.WriteState newState) {
+        foundAddIfAbsentKeys.clear();
         if (newState.getPriorState() != null) {
             Collection<String> types = findTypesWithRemovedRecords(newState.getPriorState());
             Map<String, BitSet> recordsToRemove = markRecordsToRemove(newState.getPriorState(), types);
@@ -75,7 +76,7 @@ public class HollowIncrementalCyclePopulator implements HollowProducer.Populator
 
     private Set<String> findTypesWithRemovedRecords(HollowProducer.ReadState readState) {
         Set<String> typesWithRemovedRecords = new HashSet<>();
-        for(RecordPrimaryKey key : mutations.keySet()) {
+        for(RecordPrimaryKey key : mutations.keys()) {
             if(!typesWithRemovedRecords.contains(key.getType())) {
                 HollowTypeReadState typeState = readState.getStateEngine().getTypeState(key.getType());
                 if(typeState != null) {
@@ -91,32 +92,34 @@ public class HollowIncrementalCyclePopulator implements HollowProducer.Populator
 
         Map<String, BitSet> recordsToRemove = new HashMap<>();
         for(String type : types) {
-            recordsToRemove.put(type, markTypeRecordsToRemove(priorStateEngine, type));
+            recordsToRemove.put(type, markTypeRecordsToRemove(priorState, type));
         }
 
         TransitiveSetTraverser.addTransitiveMatches(priorStateEngine, recordsToRemove);
-        TransitiveSetTraverser.removeReferencedOutsideClosure(priorStateEngine, recordsToRemove);
+        TransitiveSetTraverser.removeReferencedOutsideClosure(priorStateEngine, recordsToRemove, priorState.getIndexes().getReverseReferenceIndex(types));
 
         return recordsToRemove;
     }
 
-    private BitSet markTypeRecordsToRemove(HollowReadStateEngine priorStateEngine, final String type) {
-        HollowTypeReadState priorReadState = priorStateEngine.getTypeState(type);
+    private BitSet markTypeRecordsToRemove(HollowProducer.ReadState priorState, final String type) {
+        HollowTypeReadState priorReadState = priorState.getStateEngine().getTypeState(type);
         HollowSchema schema = priorReadState.getSchema();
         int populatedOrdinals = priorReadState.getPopulatedOrdinals().length();
         if(schema.getSchemaType() == HollowSchema.SchemaType.OBJECT) {
-            final HollowPrimaryKeyIndex idx = new HollowPrimaryKeyIndex(priorStateEngine, ((HollowObjectSchema) schema).getPrimaryKey()); ///TODO: Should we scan instead?  Can we create this once and do delta updates?
+            final HollowPrimaryKeyIndex idx = priorState.getIndexes().getPrimaryKeyIndex(((HollowObjectSchema) schema).getPrimaryKey());
 
             ThreadSafeBitSet typeRecordsToRemove = new ThreadSafeBitSet(ThreadSafeBitSet.DEFAULT_LOG2_SEGMENT_SIZE_IN_BITS, populatedOrdinals);
             SimultaneousExecutor executor = new SimultaneousExecutor(threadsPerCpu, getClass(), "mark-type-records-to-remove");
-            for(final Map.Entry<RecordPrimaryKey, Object> entry : mutations.entrySet()) {
+            Iterator<MutationStore.Mutation> iter = mutations.iterator();
+            while(iter.hasNext()) {
+                final MutationStore.Mutation mutation = iter.next();
                 executor.execute(() -> {
-                    if(entry.getKey().getType().equals(type)) {
-                        int priorOrdinal = idx.getMatchingOrdinal(entry.getKey().getKey());
+                    if(mutation.getKey().getType().equals(type)) {
+                        int priorOrdinal = idx.getMatchingOrdinal(mutation.getKey().getKey());
 
                         if(priorOrdinal != -1) {
-                            if(entry.getValue() instanceof AddIfAbsent)
-                                ((AddIfAbsent)entry.getValue()).wasFound = true;
+                            if(mutation.isAddIfAbsent())
+                                foundAddIfAbsentKeys.add(mutation.getKey());
                             else
                                 typeRecordsToRemove.set(priorOrdinal);
                         }
@@ -150,26 +153,32 @@ public class HollowIncrementalCyclePopulator implements HollowProducer.Populator
     }
 
     private void addRecords(final HollowProducer.WriteState newState) {
-        List<Map.Entry<RecordPrimaryKey, Object>> entryList = new ArrayList<>(mutations.entrySet());
-        
-        AtomicInteger nextMutation = new AtomicInteger(0);
+        /// the mutations are taken from a shared iterator rather than copied into a list, so that each mutation,
+        /// which may be read from a file, is released once it has been added
+        Iterator<MutationStore.Mutation> mutationIter = mutations.iterator();
 
         // @@@ Use parallel stream
         SimultaneousExecutor executor = new SimultaneousExecutor(threadsPerCpu, getClass(), "add-records");
         for(int i=0;i<executor.getCorePoolSize();i++) {
             executor.execute(() -> {
                 FlatRecordDumper flatRecordDumper = null;
-                int currentMutationIdx = nextMutation.getAndIncrement();
-                
-                while(currentMutationIdx < entryList.size()) {
-                    Object currentMutation = entryList.get(currentMutationIdx).getValue();
-
-                    if(currentMutation instanceof AddIfAbsent) {
-                        AddIfAbsent aia = (AddIfAbsent) currentMutation;
-                        if(aia.wasFound)
+
+                while(true) {
+                    MutationStore.Mutation mutation;
+                    synchronized(mutationIter) {
+                        if(!mutationIter.hasNext())
+                            break;
+                        mutation = mutationIter.next();
+                    }
+                    Object currentMutation;
+
+                    if(mutation.isAddIfAbsent()) {
+                        if(foundAddIfAbsentKeys.contains(mutation.getKey()))
                             currentMutation = DELETE_RECORD;
                         else
-                            currentMutation = aia.obj;
+                            currentMutation = ((AddIfAbsent) mutation.getValue()).obj;
+                    } else {
+                        currentMutation = mutation.getValue();
                     }
 
                     if(currentMutation != DELETE_RECORD) {
@@ -181,8 +190,6 @@ public class HollowIncrementalCyclePopulator implements HollowProducer.Populator
                             newState.add(currentMutation);
                         }
                     }
-                    
-                    currentMutationIdx = nextMutation.getAndIncrement();
                 }
 
             });
@@ -196,12 +203,10 @@ public class HollowIncrementalCyclePopulator implements HollowProducer.Populator
     }
 
     static final class AddIfAbsent {
-        private final Object obj;
-        private boolean wasFound;
+        final Object obj;
 
         public AddIfAbsent(Object obj) {
             this.obj = obj;
-            this.wasFound = false;
         }
 
     }
@@ -22,16 +22,25 @@ import static com.netflix.hollow.api.producer.HollowIncrementalCyclePopulator.DE
 import com.netflix.hollow.api.consumer.HollowConsumer;
 import com.netflix.hollow.api.consumer.HollowConsumer.BlobRetriever;
 import com.netflix.hollow.api.consumer.fs.HollowFilesystemAnnouncementWatcher;
+import com.netflix.hollow.api.producer.metrics.ProducerMetricsReporting;
 import com.netflix.hollow.core.util.SimultaneousExecutor;
 import com.netflix.hollow.core.write.objectmapper.RecordPrimaryKey;
 import com.netflix.hollow.core.write.objectmapper.flatrecords.FlatRecord;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * Warning: This is a BETA API and is subject to breaking changes.
@@ -41,11 +50,16 @@ import java.util.concurrent.ConcurrentHashMap;
 @Deprecated
 public class HollowIncrementalProducer {
 
-    private static final long FAILED_VERSION = Long.MIN_VALUE;
+    static final long FAILED_VERSION = Long.MIN_VALUE;
 
     private final HollowProducer producer;
-    private final ConcurrentHashMap<RecordPrimaryKey, Object> mutations;
-    private final HollowProducer.Populator populator;
+    private final Supplier<MutationStore> mutationsFactory;
+    /// mutations are added while holding the read lock, and taken by a cycle while holding the write lock
+    private final ReadWriteLock mutationsLock;
+    private volatile MutationStore mutations;
+    /// the mutations taken by the last successful cycle, cleared for reuse by the next cycle
+    private MutationStore spareMutations;
+    private MicroBatchCycleScheduler scheduler;
     private final ProducerListenerSupport listeners;
     private final Map<String, Object> cycleMetadata;
     private final Class<?>[] dataModel;
@@ -64,9 +78,14 @@ public class HollowIncrementalProducer {
     }
 
     protected HollowIncrementalProducer(HollowProducer producer, double threadsPerCpu, HollowConsumer.AnnouncementWatcher announcementWatcher, HollowConsumer.BlobRetriever blobRetriever, List<IncrementalCycleListener> listeners, Class<?>... classes) {
+        this(producer, InMemoryMutationStore::new, threadsPerCpu, announcementWatcher, blobRetriever, listeners, classes);
+    }
+
+    HollowIncrementalProducer(HollowProducer producer, Supplier<MutationStore> mutationsFactory, double threadsPerCpu, HollowConsumer.AnnouncementWatcher announcementWatcher, HollowConsumer.BlobRetriever blobRetriever, List<IncrementalCycleListener> listeners, Class<?>... classes) {
         this.producer = producer;
-        this.mutations = new ConcurrentHashMap<RecordPrimaryKey, Object>();
-        this.populator = new HollowIncrementalCyclePopulator(mutations, threadsPerCpu);
+        this.mutationsFactory = mutationsFactory;
+        this.mutationsLock = new ReentrantReadWriteLock();
+        this.mutations = mutationsFactory.get();
         this.dataModel = classes;
         this.announcementWatcher = announcementWatcher;
         this.blobRetriever = blobRetriever;
@@ -97,12 +116,12 @@ public class HollowIncrementalProducer {
 
     public void addOrModify(Object obj) {
         RecordPrimaryKey pk = extractRecordPrimaryKey(obj);
-        mutations.put(pk, obj);
+        putMutation(pk, obj);
     }
     
     public void addIfAbsent(Object obj) {
         RecordPrimaryKey pk = extractRecordPrimaryKey(obj);
-        mutations.putIfAbsent(pk, new AddIfAbsent(obj));
+        putMutationIfAbsent(pk, new AddIfAbsent(obj));
     }
 
     public void addOrModify(Collection<Object> objList) {
@@ -113,12 +132,12 @@ public class HollowIncrementalProducer {
     
     public void addOrModify(FlatRecord flatRecord) {
         RecordPrimaryKey pk = flatRecord.getRecordPrimaryKey();
-        mutations.put(pk, flatRecord);
+        putMutation(pk, flatRecord);
     }
     
     public void addIfAbsent(FlatRecord flatRecord) {
         RecordPrimaryKey pk = flatRecord.getRecordPrimaryKey();
-        mutations.putIfAbsent(pk, new AddIfAbsent(flatRecord));
+        putMutationIfAbsent(pk, new AddIfAbsent(flatRecord));
     }
 
     public void addOrModifyInParallel(Collection<Object> objList) {
@@ -156,11 +175,43 @@ public class HollowIncrementalProducer {
     }
 
     public void delete(RecordPrimaryKey key) {
-        mutations.put(key, DELETE_RECORD);
+        putMutation(key, DELETE_RECORD);
     }
 
     public void discard(RecordPrimaryKey key) {
-        mutations.remove(key);
+        mutationsLock.readLock().lock();
+        try {
+            mutations.remove(key);
+        } finally {
+            mutationsLock.readLock().unlock();
+        }
+    }
+
+    private void putMutation(RecordPrimaryKey key, Object mutation) {
+        if (scheduler != null)
+            scheduler.awaitCapacity(mutations.containsKey(key));
+
+        mutationsLock.readLock().lock();
+        try {
+            mutations.put(key, mutation);
+            if (scheduler != null)
+                scheduler.mutationAdded();
+        } finally {
+            mutationsLock.readLock().unlock();
+        }
+    }
+
+    private void putMutationIfAbsent(RecordPrimaryKey key, Object mutation) {
+        if (scheduler != null)
+            scheduler.awaitCapacity(mutations.containsKey(key));
+
+        mutationsLock.readLock().lock();
+        try {
+            if (mutations.putIfAbsent(key, mutation) && scheduler != null)
+                scheduler.mutationAdded();
+        } finally {
+            mutationsLock.readLock().unlock();
+        }
     }
 
     public void clearChanges() {
@@ -171,6 +222,67 @@ public class HollowIncrementalProducer {
         return this.mutations.size() > 0;
     }
 
+    int numPendingMutations() {
+        return mutations.size();
+    }
+
+    /**
+     * @return the number of bytes of the pending mutations, or 0 if the mutations are not serialized
+     */
+    long numPendingMutationBytes() {
+        return mutations.getNumBytes();
+    }
+
+    /**
+     * Starts running cycles on a dedicated thread, as configured by {@link Builder#withMaxBatchLatency(long, TimeUnit)}.
+     * The data model should be initialized, or the prior state restored, before scheduled cycles are started.
+     * <p>
+     * If scheduled cycles stop because of an unexpected failure, the failure is reported to
+     * {@link IncrementalCycleListener#onCycleFail}, and the addition of mutations throws an
+     * {@code IllegalStateException} until scheduled cycles are started again or stopped.
+     */
+    public void startScheduledCycles() {
+        if (scheduler == null)
+            throw new IllegalStateException("Scheduled cycles require a maximum batch latency");
+        scheduler.start();
+    }
+
+    /**
+     * Stops running scheduled cycles, waiting for a running cycle to complete.  Mutations which are pending remain
+     * pending, and may be published by {@link #runCycle()}.
+     *
+     * @throws InterruptedException if interrupted while waiting for a running cycle to complete
+     */
+    public void stopScheduledCycles() throws InterruptedException {
+        if (scheduler != null)
+            scheduler.stop();
+    }
+
+    /**
+     * Discards the pending mutations and releases the resources which hold them, such as the file to which
+     * mutations are spilled.  Scheduled cycles should be stopped before the producer is closed, and the producer may
+     * not be used once closed.
+     */
+    public synchronized void close() {
+        mutationsLock.writeLock().lock();
+        try {
+            mutations.close();
+            if (spareMutations != null) {
+                spareMutations.close();
+                spareMutations = null;
+            }
+        } finally {
+            mutationsLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called when scheduled cycles stop because of an unexpected failure.
+     */
+    void scheduledCyclesFailed(Throwable cause) {
+        listeners.fireIncrementalCycleFail(cause, 0, 0, new HashMap<String, Object>(cycleMetadata));
+    }
+
     public void addCycleMetadata(String key, Object value) {
         this.cycleMetadata.put(key, value);
     }
@@ -201,38 +313,74 @@ public class HollowIncrementalProducer {
 
     /**
      * Runs a Hollow Cycle, if successful, cleans the mutations map.
+     * <p>
+     * The cycle publishes the mutations which are pending when it begins.  Mutations which are added while the
+     * cycle runs are pending for the next cycle.
      *
      * @return the version of the cycle if successful, otherwise the {@link #FAILED_VERSION}
      * @since 2.9.9
      */
-    public long runCycle() {
-        long recordsRemoved = countRecordsToRemove();
-        long recordsAddedOrModified = this.mutations.values().size() - recordsRemoved;
+    public synchronized long runCycle() {
+        MutationStore cycleMutations;
+        MicroBatchCycleScheduler.MutationArrivals arrivals = null;
+
+        mutationsLock.writeLock().lock();
         try {
-            long version = producer.runCycle(populator);
+            cycleMutations = mutations;
+            mutations = spareMutations != null ? spareMutations : mutationsFactory.get();
+            spareMutations = null;
+            if (scheduler != null)
+                arrivals = scheduler.mutationsTaken();
+        } finally {
+            mutationsLock.writeLock().unlock();
+        }
+
+        long recordsRemoved = cycleMutations.countDeletes();
+        long recordsAddedOrModified = cycleMutations.size() - recordsRemoved;
+        boolean published = false;
+        try {
+            long version = producer.runCycle(new HollowIncrementalCyclePopulator(cycleMutations, threadsPerCpu));
             if(version == lastSucessfulCycle) {
                 return version;
             }
             listeners.fireIncrementalCycleComplete(version, recordsAddedOrModified, recordsRemoved, new HashMap<String, Object>(cycleMetadata));
             //Only clean changes when the version is new.
-            clearChanges();
+            published = true;
             lastSucessfulCycle = version;
+            if (arrivals != null)
+                scheduler.mutationsAnnounced(arrivals, version);
             return version;
         } catch (Exception e) {
             listeners.fireIncrementalCycleFail(e, recordsAddedOrModified, recordsRemoved, new HashMap<String, Object>(cycleMetadata));
             return FAILED_VERSION;
         } finally {
+            if (!published)
+                restoreMutations(cycleMutations, arrivals);
+            cycleMutations.clear();
+            spareMutations = cycleMutations;
             clearCycleMetadata();
         }
     }
 
-    private long countRecordsToRemove() {
-        long recordsToRemove = 0L;
-        Collection<Object> records = mutations.values();
-        for (Object record : records) {
-            if (record == HollowIncrementalCyclePopulator.DELETE_RECORD) recordsToRemove++;
+    /**
+     * Make the mutations taken by a cycle which did not publish them pending again.  Mutations of the same records
+     * which were added since the cycle began are applied after the restored mutations.
+     */
+    private void restoreMutations(MutationStore cycleMutations, MicroBatchCycleScheduler.MutationArrivals arrivals) {
+        mutationsLock.writeLock().lock();
+        try {
+            Iterator<MutationStore.Mutation> iter = cycleMutations.iterator();
+            while (iter.hasNext()) {
+                MutationStore.Mutation mutation = iter.next();
+                Object laterMutation = mutations.get(mutation.getKey());
+                if (laterMutation == null || laterMutation instanceof AddIfAbsent)
+                    mutations.put(mutation.getKey(), mutation.getValue());
+            }
+            if (arrivals != null)
+                scheduler.mutationsRestored(arrivals);
+        } finally {
+            mutationsLock.writeLock().unlock();
         }
-        return recordsToRemove;
     }
 
     private RecordPrimaryKey extractRecordPrimaryKey(Object obj) {
@@ -253,6 +401,13 @@ public class HollowIncrementalProducer {
         protected HollowConsumer.BlobRetriever blobRetriever;
         protected Class<?>[] dataModel;
         protected List<IncrementalCycleListener> listeners = new ArrayList<IncrementalCycleListener>();
+        protected File mutationSpillDirectory;
+        protected long maxInMemoryMutationBytes;
+        protected int maxBatchMutations;
+        protected long maxBatchBytes;
+        protected long maxBatchLatencyNanos;
+        protected int maxPendingMutations;
+        protected ProducerMetricsReporting metricsReporting;
 
         public B withProducer(HollowProducer producer) {
             this.producer = producer;
@@ -290,14 +445,114 @@ public class HollowIncrementalProducer {
             return (B) this;
         }
 
+        /**
+         * Hold pending mutations as serialized {@link FlatRecord}s rather than as the added objects, and spill the
+         * serialized mutations to a file in the specified directory once they exceed the specified number of bytes.
+         * The primary keys of the pending mutations are always held in memory.
+         *
+         * @param directory the directory in which to create the file to which mutations are spilled
+         * @param maxInMemoryBytes the number of bytes of serialized mutations held in memory before spilling
+         * @return this builder
+         */
+        public B withMutationSpillDirectory(File directory, long maxInMemoryBytes) {
+            this.mutationSpillDirectory = directory;
+            this.maxInMemoryMutationBytes = maxInMemoryBytes;
+            return (B) this;
+        }
+
+        /**
+         * Run cycles on a dedicated thread, once started with {@link HollowIncrementalProducer#startScheduledCycles()},
+         * no later than the specified latency after the oldest pending mutation was added.
+         *
+         * @param maxLatency the latency after which the oldest pending mutation triggers a cycle
+         * @param unit the unit of the latency
+         * @return this builder
+         */
+        public B withMaxBatchLatency(long maxLatency, TimeUnit unit) {
+            this.maxBatchLatencyNanos = unit.toNanos(maxLatency);
+            return (B) this;
+        }
+
+        /**
+         * Trigger a scheduled cycle once the specified number of records have pending mutations.
+         *
+         * @param maxMutations the number of records with pending mutations which triggers a cycle
+         * @return this builder
+         */
+        public B withMaxBatchMutations(int maxMutations) {
+            this.maxBatchMutations = maxMutations;
+            return (B) this;
+        }
+
+        /**
+         * Trigger a scheduled cycle once the serialized pending mutations reach the specified number of bytes.  Only
+         * mutations held by {@link #withMutationSpillDirectory(File, long)} are serialized.
+         *
+         * @param maxBytes the number of bytes of serialized pending mutations which triggers a cycle
+         * @return this builder
+         */
+        public B withMaxBatchBytes(long maxBytes) {
+            this.maxBatchBytes = maxBytes;
+            return (B) this;
+        }
+
+        /**
+         * Bound the number of records with pending mutations while cycles are scheduled.  Once the bound is reached,
+         * the addition of a mutation of a record without a pending mutation waits until a cycle begins.
+         *
+         * @param maxPendingMutations the number of records with pending mutations at which additions wait
+         * @return this builder
+         */
+        public B withMaxPendingMutations(int maxPendingMutations) {
+            this.maxPendingMutations = maxPendingMutations;
+            return (B) this;
+        }
+
+        /**
+         * Report the latencies of mutations, from their addition to the announcement of the scheduled cycle which
+         * published them.
+         *
+         * @param metricsReporting the reporting of mutation latency metrics
+         * @return this builder
+         */
+        public B withMetricsReporting(ProducerMetricsReporting metricsReporting) {
+            this.metricsReporting = metricsReporting;
+            return (B) this;
+        }
+
         protected void checkArguments() {
             if (producer == null)
                 throw new IllegalArgumentException("HollowProducer must be specified.");
+            if (mutationSpillDirectory != null && !mutationSpillDirectory.isDirectory())
+                throw new IllegalArgumentException("Mutation spill directory does not exist: " + mutationSpillDirectory);
+            if (maxInMemoryMutationBytes < 0)
+                throw new IllegalArgumentException("maxInMemoryBytes must be non-negative");
+            if (maxBatchLatencyNanos < 0 || maxBatchMutations < 0 || maxBatchBytes < 0 || maxPendingMutations < 0)
+                throw new IllegalArgumentException("Scheduled cycle limits must be non-negative");
+            if (maxBatchLatencyNanos == 0 && (maxBatchMutations > 0 || maxBatchBytes > 0 || maxPendingMutations > 0 || metricsReporting != null))
+                throw new IllegalArgumentException("Scheduled cycles require a maximum batch latency");
         }
 
         public HollowIncrementalProducer build() {
             checkArguments();
-            return new HollowIncrementalProducer(producer, threadsPerCpu, announcementWatcher, blobRetriever, listeners, dataModel);
+            HollowIncrementalProducer incrementalProducer;
+            if (mutationSpillDirectory == null) {
+                incrementalProducer = new HollowIncrementalProducer(producer, threadsPerCpu, announcementWatcher, blobRetriever, listeners, dataModel);
+            } else {
+                Supplier<MutationStore> mutationsFactory = () -> {
+                    try {
+                        return new FlatRecordMutationStore(producer.getObjectMapper(), mutationSpillDirectory, maxInMemoryMutationBytes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+                incrementalProducer = new HollowIncrementalProducer(producer, mutationsFactory, threadsPerCpu, announcementWatcher, blobRetriever, listeners, dataModel);
+            }
+
+            if (maxBatchLatencyNanos > 0)
+                incrementalProducer.scheduler = new MicroBatchCycleScheduler(incrementalProducer, maxBatchMutations,
+                        maxBatchBytes, maxBatchLatencyNanos, maxPendingMutations, metricsReporting);
+            return incrementalProducer;
         }
     }
 
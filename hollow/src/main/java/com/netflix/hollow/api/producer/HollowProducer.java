@@ -26,6 +26,8 @@ import com.netflix.hollow.api.producer.enforcer.SingleProducerEnforcer;
 import com.netflix.hollow.api.producer.fs.HollowFilesystemBlobStager;
 import com.netflix.hollow.api.producer.listener.HollowProducerEventListener;
 import com.netflix.hollow.api.producer.validation.ValidatorListener;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedInputStream;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedOutputStream;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.schema.HollowSchema;
 import com.netflix.hollow.core.util.HollowObjectHashCodeFinder;
@@ -483,6 +485,17 @@ public class HollowProducer extends AbstractHollowProducer {
          * @return the read state engine
          */
         HollowReadStateEngine getStateEngine();
+
+        /**
+         * Returns the indexes of the read state engine.  The read states of a producer share the indexes of their
+         * state engine, which are kept up-to-date across cycles; other implementations return the same indexes on
+         * each call, which are not kept up-to-date.
+         *
+         * @return the indexes
+         */
+        default ReadStateIndexes getIndexes() {
+            return ReadStateIndexes.of(this);
+        }
     }
 
 
@@ -524,6 +537,23 @@ public class HollowProducer extends AbstractHollowProducer {
          * @return a {@link HollowProducer.Blob} representing a snapshot for the {@code version}
          */
         HollowProducer.Blob openReverseDelta(long fromVersion, long toVersion);
+
+        /**
+         * Returns a blob with which a {@code HollowProducer} will write a skip delta from the version specified to
+         * the version specified, i.e. {@code fromVersion => toVersion}, where several states separate the two versions.
+         * <p>
+         * The producer will pass the returned blob back to this publisher when calling {@link Publisher#publish(HollowProducer.Blob)}.
+         * <p>
+         * Skip deltas are only written if the producer is built with {@link Builder#withSkipDeltas(int...)}.
+         *
+         * @param fromVersion the data state this skip delta will transition from
+         * @param toVersion the data state this skip delta will transition to
+         * @return a {@link HollowProducer.Blob} representing a skip delta from {@code fromVersion} to {@code toVersion}
+         * @throws UnsupportedOperationException if this stager does not stage skip deltas
+         */
+        default HollowProducer.Blob openSkipDelta(long fromVersion, long toVersion) {
+            throw new UnsupportedOperationException("Skip deltas are not supported by " + getClass().getName());
+        }
     }
 
     public interface BlobCompressor {
@@ -539,6 +569,24 @@ public class HollowProducer extends AbstractHollowProducer {
             }
         };
 
+        /**
+         * Compresses blobs in the block compressed format, in which blocks of each blob are compressed independently
+         * so that a blob may be read with random access, for example in the
+         * {@link com.netflix.hollow.core.memory.MemoryMode#SHARED_MEMORY_LAZY} mode.  Consumers recognize blobs in
+         * this format, so they need not be configured to decompress them.
+         */
+        BlobCompressor BLOCK_COMPRESSION = new BlobCompressor() {
+            @Override
+            public OutputStream compress(OutputStream os) {
+                return new BlockCompressedOutputStream(os);
+            }
+
+            @Override
+            public InputStream decompress(InputStream is) {
+                return new BlockCompressedInputStream(is);
+            }
+        };
+
         /**
          * This method provides an opportunity to wrap the OutputStream used to write the blob (e.g. with a GZIPOutputStream).
          *
@@ -612,12 +660,17 @@ public class HollowProducer extends AbstractHollowProducer {
         }
 
         /**
-         * Hollow blob types are {@code SNAPSHOT}, {@code DELTA} and {@code REVERSE_DELTA}.
+         * Hollow blob types are {@code SNAPSHOT}, {@code DELTA}, {@code REVERSE_DELTA} and {@code SKIP_DELTA}.
+         * <p>
+         * A {@code SKIP_DELTA} transitions across several states at once, and contains two consecutive deltas: the
+         * first from the origin state to an intermediate state, and the second from the intermediate state to the
+         * destination state.
          */
         public enum Type {
             SNAPSHOT("snapshot"),
             DELTA("delta"),
-            REVERSE_DELTA("reversedelta");
+            REVERSE_DELTA("reversedelta"),
+            SKIP_DELTA("skipdelta");
 
             public final String prefix;
 
@@ -646,6 +699,7 @@ public class HollowProducer extends AbstractHollowProducer {
         BlobStager stager;
         BlobCompressor compressor;
         File stagingDir;
+        boolean parallelSnapshotWrite = false;
         Publisher publisher;
         Announcer announcer;
         List<HollowProducerEventListener> eventListeners = new ArrayList<>();
@@ -658,6 +712,11 @@ public class HollowProducer extends AbstractHollowProducer {
         SingleProducerEnforcer singleProducerEnforcer = new BasicSingleProducerEnforcer();
         HollowObjectHashCodeFinder hashCodeFinder = null;
         boolean doIntegrityCheck = true;
+        boolean pipelinedIntegrityCheck = false;
+        boolean recordChecksums = false;
+        boolean recordSnapshotLengths = false;
+        int[] numStatesPerSkipDelta = new int[0];
+        Executor skipDeltaPublishExecutor = null;
 
         public B withBlobStager(HollowProducer.BlobStager stager) {
             this.stager = stager;
@@ -674,6 +733,21 @@ public class HollowProducer extends AbstractHollowProducer {
             return (B) this;
         }
 
+        /**
+         * Serialize the shards of all types concurrently when writing snapshots, see
+         * {@link HollowBlobWriter#writeSnapshot(java.io.OutputStream, java.nio.file.Path)}.
+         * <p>
+         * The shards are first serialized to temporary files in the blob staging directory.  This option applies
+         * to the default {@link HollowFilesystemBlobStager}, and may not be combined with a custom
+         * {@link BlobStager}.
+         *
+         * @return this builder
+         */
+        public B withParallelSnapshotWrite() {
+            this.parallelSnapshotWrite = true;
+            return (B) this;
+        }
+
         public B withPublisher(HollowProducer.Publisher publisher) {
             this.publisher = publisher;
             return (B) this;
@@ -807,6 +881,86 @@ public class HollowProducer extends AbstractHollowProducer {
             return (B) this;
         }
 
+        /**
+         * Run the independent steps of the integrity check concurrently.  The snapshot is read and checksummed
+         * while the current state is checksummed, and then the delta is verified against the current state while
+         * the reverse delta is verified against the pending state.
+         * <p>
+         * This shortens the integrity check stage at the cost of using more threads, and has no effect if
+         * {@link #noIntegrityCheck()} is specified.
+         *
+         * @return this builder
+         */
+        public B withPipelinedIntegrityCheck() {
+            this.pipelinedIntegrityCheck = true;
+            return (B) this;
+        }
+
+        /**
+         * Maintain a checksum of the records of each type from cycle to cycle, and publish the checksums in the header
+         * of each blob.  Consumers which maintain record checksums may then verify the blobs they read.
+         * <p>
+         * The integrity check then verifies each blob it reads against the checksums in its header, rather than
+         * checksumming every record of the current and pending states.  A full checksum is still taken if the schemas
+         * change, or in the first cycle after a restore.
+         * <p>
+         * Maintaining the checksums costs a checksum of each record added or removed during a cycle.
+         *
+         * @return this builder
+         * @see HollowWriteStateEngine#setMaintainRecordChecksums(boolean)
+         */
+        public B withRecordChecksums() {
+            this.recordChecksums = true;
+            return (B) this;
+        }
+
+        /**
+         * Record the serialized length of each type, and of each of its shards, in snapshots.  Consumers may then skip
+         * the types they filter out without reading them, and populate the shards of each type concurrently.
+         *
+         * @return this builder
+         * @see HollowWriteStateEngine#setRecordSnapshotLengths(boolean)
+         */
+        public B withSnapshotLengths() {
+            this.recordSnapshotLengths = true;
+            return (B) this;
+        }
+
+        /**
+         * Publish skip deltas, with which consumers which have fallen several states behind may skip over
+         * intermediate states.  For each number of states specified, a skip delta is published from a state
+         * to the state that number of states later, and then from that state onwards, and so on.
+         * <p>
+         * Each skip delta is verified before it is published, by applying it to a copy of the state it transitions
+         * from.  The producer retains one such copy for each number of states specified, and so uses additional
+         * memory in proportion to the size of the data and the number of distinct spans.  A span is restarted if the
+         * schemas change, and is started from the next state for which a snapshot is produced.
+         * <p>
+         * Skip deltas are staged with {@link BlobStager#openSkipDelta(long, long)}.  They are published once the
+         * state they span to has been announced, on a dedicated thread unless an executor is specified with
+         * {@link #withSkipDeltaPublishExecutor(Executor)}, and the next cycle waits for them to be published before
+         * it checks its integrity.
+         *
+         * @param numStatesPerSkipDelta the number of states each skip delta spans, each at least 2
+         * @return this builder
+         */
+        public B withSkipDeltas(int... numStatesPerSkipDelta) {
+            this.numStatesPerSkipDelta = numStatesPerSkipDelta.clone();
+            return (B) this;
+        }
+
+        /**
+         * Publish skip deltas on the specified executor rather than on a dedicated thread.
+         *
+         * @param executor the executor on which skip deltas are staged, verified and published
+         * @return this builder
+         * @see #withSkipDeltas(int...)
+         */
+        public B withSkipDeltaPublishExecutor(Executor executor) {
+            this.skipDeltaPublishExecutor = executor;
+            return (B) this;
+        }
+
         protected void checkArguments() {
             if (stager != null && compressor != null) {
                 throw new IllegalArgumentException(
@@ -816,12 +970,23 @@ public class HollowProducer extends AbstractHollowProducer {
                 throw new IllegalArgumentException(
                         "Both a custom BlobStager and a staging directory were specified -- please specify only one of these.");
             }
+            if (stager != null && parallelSnapshotWrite) {
+                throw new IllegalArgumentException(
+                        "Both a custom BlobStager and parallel snapshot writing were specified -- please configure the stager instead.");
+            }
 
             if (this.stager == null) {
                 BlobCompressor compressor = this.compressor != null ? this.compressor : BlobCompressor.NO_COMPRESSION;
                 File stagingDir = this.stagingDir != null ? this.stagingDir : new File(
                         System.getProperty("java.io.tmpdir"));
-                this.stager = new HollowFilesystemBlobStager(stagingDir.toPath(), compressor);
+                this.stager = new HollowFilesystemBlobStager(stagingDir.toPath(), compressor, parallelSnapshotWrite);
+            }
+
+            for (int numStates : numStatesPerSkipDelta) {
+                if (numStates < 2) {
+                    throw new IllegalArgumentException(
+                            "A skip delta must span at least 2 states, numStatesPerSkipDelta=" + numStates);
+                }
             }
         }
 
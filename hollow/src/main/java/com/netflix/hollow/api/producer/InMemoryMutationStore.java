@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import com.netflix.hollow.core.write.objectmapper.RecordPrimaryKey;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the pending mutations of a {@link HollowIncrementalProducer} as the objects which were added.
+ */
+final class InMemoryMutationStore implements MutationStore {
+    private final ConcurrentMap<RecordPrimaryKey, Object> mutations;
+
+    InMemoryMutationStore() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @param mutations the map holding the mutations, which may be populated before the store is created
+     */
+    InMemoryMutationStore(ConcurrentMap<RecordPrimaryKey, Object> mutations) {
+        this.mutations = mutations;
+    }
+
+    @Override
+    public void put(RecordPrimaryKey key, Object mutation) {
+        mutations.put(key, mutation);
+    }
+
+    @Override
+    public boolean putIfAbsent(RecordPrimaryKey key, Object mutation) {
+        return mutations.putIfAbsent(key, mutation) == null;
+    }
+
+    @Override
+    public Object get(RecordPrimaryKey key) {
+        return mutations.get(key);
+    }
+
+    @Override
+    public boolean containsKey(RecordPrimaryKey key) {
+        return mutations.containsKey(key);
+    }
+
+    @Override
+    public void remove(RecordPrimaryKey key) {
+        mutations.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return mutations.size();
+    }
+
+    @Override
+    public void clear() {
+        mutations.clear();
+    }
+
+    @Override
+    public void close() {
+        mutations.clear();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long countDeletes() {
+        long deletes = 0;
+        for(Object mutation : mutations.values()) {
+            if(mutation == HollowIncrementalCyclePopulator.DELETE_RECORD)
+                deletes++;
+        }
+        return deletes;
+    }
+
+    @Override
+    public long getNumBytes() {
+        return 0;
+    }
+
+    @Override
+    public Iterable<RecordPrimaryKey> keys() {
+        return mutations.keySet();
+    }
+
+    @Override
+    public Iterator<Mutation> iterator() {
+        Iterator<Map.Entry<RecordPrimaryKey, Object>> iter = mutations.entrySet().iterator();
+        return new Iterator<Mutation>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public Mutation next() {
+                Map.Entry<RecordPrimaryKey, Object> entry = iter.next();
+                return new InMemoryMutation(entry.getKey(), entry.getValue());
+            }
+        };
+    }
+
+    private static final class InMemoryMutation implements Mutation {
+        private final RecordPrimaryKey key;
+        private final Object value;
+
+        InMemoryMutation(RecordPrimaryKey key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public RecordPrimaryKey getKey() {
+            return key;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean isAddIfAbsent() {
+            return value instanceof HollowIncrementalCyclePopulator.AddIfAbsent;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+}
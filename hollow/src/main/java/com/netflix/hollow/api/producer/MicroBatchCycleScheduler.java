@@ -0,0 +1,322 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import com.netflix.hollow.api.producer.metrics.LatencyHistogram;
+import com.netflix.hollow.api.producer.metrics.MutationLatencyMetrics;
+import com.netflix.hollow.api.producer.metrics.ProducerMetricsReporting;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the cycles of a {@link HollowIncrementalProducer} on a dedicated thread, once the pending mutations reach a
+ * number of mutations or bytes, or once the oldest pending mutation reaches a latency, whichever comes first.
+ * <p>
+ * Mutations which are added while a cycle is running are pending for the next cycle.  Once the number of pending
+ * mutations reaches a bound, the addition of mutations of records which are not already pending waits until a
+ * cycle begins.  The bound is approximate, since concurrent additions may each observe that the bound was not reached.
+ * <p>
+ * If cycles stop because of an unexpected failure, the failure is reported to the producer's listeners, and the
+ * addition of mutations fails until cycles are started again or stopped.
+ */
+final class MicroBatchCycleScheduler {
+    private static final Logger log = Logger.getLogger(MicroBatchCycleScheduler.class.getName());
+
+    @SuppressWarnings("deprecation")
+    private final HollowIncrementalProducer producer;
+    private final int maxBatchMutations;
+    private final long maxBatchBytes;
+    private final long maxBatchLatencyNanos;
+    private final int maxPendingMutations;
+    private final ProducerMetricsReporting metricsReporting;
+    private final LatencyHistogram latencies;
+
+    /// notified when a cycle should be considered, and when the scheduler stops
+    private final Object cycleMonitor = new Object();
+    /// notified when pending mutations are taken by a cycle, and when the scheduler stops
+    private final Object capacityMonitor = new Object();
+
+    private volatile MutationArrivals arrivals;
+    private volatile boolean cycleRequested;
+    private volatile boolean running;
+    private volatile RuntimeException failure;
+    private Thread thread;
+
+    @SuppressWarnings("deprecation")
+    MicroBatchCycleScheduler(HollowIncrementalProducer producer, int maxBatchMutations, long maxBatchBytes,
+            long maxBatchLatencyNanos, int maxPendingMutations, ProducerMetricsReporting metricsReporting) {
+        if(maxBatchLatencyNanos <= 0)
+            throw new IllegalArgumentException("The maximum batch latency must be positive");
+
+        this.producer = producer;
+        this.maxBatchMutations = maxBatchMutations;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchLatencyNanos = maxBatchLatencyNanos;
+        this.maxPendingMutations = maxPendingMutations;
+        this.metricsReporting = metricsReporting;
+        this.latencies = new LatencyHistogram();
+        this.arrivals = new MutationArrivals(System.nanoTime(), maxBatchLatencyNanos);
+    }
+
+    synchronized void start() {
+        if(running)
+            throw new IllegalStateException("Scheduled cycles have already been started");
+
+        running = true;
+        failure = null;
+        thread = new Thread(this::runCycles, "hollow-incremental-cycle-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop running cycles, waiting for a running cycle to complete.  Pending mutations remain pending.
+     */
+    synchronized void stop() throws InterruptedException {
+        failure = null;
+        if(!running)
+            return;
+
+        running = false;
+        notifyScheduler();
+        synchronized(capacityMonitor) {
+            capacityMonitor.notifyAll();
+        }
+        thread.join();
+        thread = null;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Called before the addition of a mutation, waits while the number of pending mutations is at its bound.
+     *
+     * @param wasPending whether the record of the mutation has a pending mutation
+     * @throws IllegalStateException if cycles stopped because of an unexpected failure
+     */
+    void awaitCapacity(boolean wasPending) {
+        checkFailure();
+        if(maxPendingMutations <= 0 || wasPending || producer.numPendingMutations() < maxPendingMutations)
+            return;
+
+        requestCycle();
+        synchronized(capacityMonitor) {
+            try {
+                while(running && producer.numPendingMutations() >= maxPendingMutations)
+                    capacityMonitor.wait();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        RuntimeException failure = this.failure;
+        if(failure != null)
+            throw new IllegalStateException("Scheduled incremental cycles stopped because of a failure", failure);
+    }
+
+    /**
+     * Called after the addition of a mutation, while the pending mutations cannot be taken by a cycle.
+     */
+    void mutationAdded() {
+        boolean first = arrivals.record(System.nanoTime());
+        if(isBatchFull())
+            requestCycle();
+        else if(first)
+            notifyScheduler();
+    }
+
+    /**
+     * Called when the pending mutations are taken by a cycle, while no mutations can be added.
+     *
+     * @return the arrivals of the taken mutations
+     */
+    MutationArrivals mutationsTaken() {
+        MutationArrivals taken = arrivals;
+        arrivals = new MutationArrivals(System.nanoTime(), maxBatchLatencyNanos);
+        cycleRequested = false;
+
+        synchronized(capacityMonitor) {
+            capacityMonitor.notifyAll();
+        }
+        return taken;
+    }
+
+    /**
+     * Called when taken mutations are again pending after a cycle did not publish them, while no mutations can be
+     * added.
+     *
+     * @param restored the arrivals of the restored mutations
+     */
+    void mutationsRestored(MutationArrivals restored) {
+        arrivals.add(restored);
+    }
+
+    /**
+     * Called once a cycle has announced the taken mutations.
+     */
+    void mutationsAnnounced(MutationArrivals announced, long version) {
+        long announcementNanos = System.nanoTime();
+        LatencyHistogram cycleLatencies = new LatencyHistogram();
+        announced.recordLatencies(cycleLatencies, announcementNanos);
+        latencies.add(cycleLatencies);
+
+        if(metricsReporting != null) {
+            metricsReporting.mutationLatencyMetricsReporting(new MutationLatencyMetrics.Builder()
+                    .setVersion(version)
+                    .setNumMutations(cycleLatencies.getCount())
+                    .setCycleLatencies(cycleLatencies)
+                    .setLatencies(latencies.copy())
+                    .build());
+        }
+    }
+
+    private void requestCycle() {
+        if(!cycleRequested) {
+            cycleRequested = true;
+            notifyScheduler();
+        }
+    }
+
+    private void notifyScheduler() {
+        synchronized(cycleMonitor) {
+            cycleMonitor.notifyAll();
+        }
+    }
+
+    private boolean isBatchFull() {
+        return (maxBatchMutations > 0 && producer.numPendingMutations() >= maxBatchMutations)
+                || (maxPendingMutations > 0 && producer.numPendingMutations() >= maxPendingMutations)
+                || (maxBatchBytes > 0 && producer.numPendingMutationBytes() >= maxBatchBytes);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void runCycles() {
+        try {
+            while(running) {
+                synchronized(cycleMonitor) {
+                    long waitNanos = nanosUntilCycle();
+                    while(running && waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(cycleMonitor, waitNanos);
+                        waitNanos = nanosUntilCycle();
+                    }
+                }
+
+                if(running && producer.runCycle() == HollowIncrementalProducer.FAILED_VERSION) {
+                    /// the mutations are pending again, so retry once the oldest of them is overdue again
+                    synchronized(cycleMonitor) {
+                        if(running)
+                            TimeUnit.NANOSECONDS.timedWait(cycleMonitor, maxBatchLatencyNanos);
+                    }
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(RuntimeException e) {
+            log.log(Level.SEVERE, "Scheduled incremental cycles stopped", e);
+            failure = e;
+            running = false;
+            synchronized(capacityMonitor) {
+                capacityMonitor.notifyAll();
+            }
+            producer.scheduledCyclesFailed(e);
+        }
+    }
+
+    /**
+     * @return the nanoseconds until a cycle should run, or {@code Long.MAX_VALUE} if there are no pending mutations
+     */
+    private long nanosUntilCycle() {
+        if(!producer.hasChanges())
+            return Long.MAX_VALUE;
+        if(isBatchFull())
+            return 0;
+        long firstArrivalNanos = arrivals.firstArrivalNanos();
+        if(firstArrivalNanos == Long.MAX_VALUE)   /// the arrival is about to be recorded, which notifies the scheduler
+            return maxBatchLatencyNanos;
+        return firstArrivalNanos + maxBatchLatencyNanos - System.nanoTime();
+    }
+
+    /**
+     * The arrival times of the mutations of a cycle, approximated by the mean arrival time of the mutations which
+     * arrived within each of a fixed number of intervals since the mutations began to be pending.
+     */
+    static final class MutationArrivals {
+        private static final int NUM_INTERVALS = 64;
+
+        private final long startNanos;
+        private final long intervalNanos;
+        private final AtomicLongArray counts;
+        private final AtomicLongArray offsetSums;
+        private final AtomicLong firstArrivalNanos;
+
+        MutationArrivals(long startNanos, long maxBatchLatencyNanos) {
+            this.startNanos = startNanos;
+            this.intervalNanos = Math.max(1, maxBatchLatencyNanos / NUM_INTERVALS);
+            this.counts = new AtomicLongArray(NUM_INTERVALS);
+            this.offsetSums = new AtomicLongArray(NUM_INTERVALS);
+            this.firstArrivalNanos = new AtomicLong(Long.MAX_VALUE);
+        }
+
+        /**
+         * @return whether this is the first arrival
+         */
+        boolean record(long arrivalNanos) {
+            record(arrivalNanos - startNanos, 1);
+            return firstArrivalNanos.get() == Long.MAX_VALUE && firstArrivalNanos.compareAndSet(Long.MAX_VALUE, arrivalNanos);
+        }
+
+        private void record(long offsetNanos, long count) {
+            int interval = (int) Math.max(0, Math.min(NUM_INTERVALS - 1, offsetNanos / intervalNanos));
+            counts.addAndGet(interval, count);
+            offsetSums.addAndGet(interval, offsetNanos * count);
+        }
+
+        long firstArrivalNanos() {
+            return firstArrivalNanos.get();
+        }
+
+        /**
+         * Add arrivals which preceded these arrivals.
+         */
+        void add(MutationArrivals earlier) {
+            for(int i=0;i<NUM_INTERVALS;i++) {
+                long count = earlier.counts.get(i);
+                if(count > 0) {
+                    long meanArrivalNanos = earlier.startNanos + earlier.offsetSums.get(i) / count;
+                    record(meanArrivalNanos - startNanos, count);
+                }
+            }
+            firstArrivalNanos.accumulateAndGet(earlier.firstArrivalNanos(), Math::min);
+        }
+
+        void recordLatencies(LatencyHistogram histogram, long announcementNanos) {
+            for(int i=0;i<NUM_INTERVALS;i++) {
+                long count = counts.get(i);
+                if(count > 0)
+                    histogram.record(announcementNanos - startNanos - offsetSums.get(i) / count, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import com.netflix.hollow.core.write.objectmapper.RecordPrimaryKey;
+import java.util.Iterator;
+
+/**
+ * The pending mutations of a {@link HollowIncrementalProducer}, keyed by the primary key of the mutated record.
+ * <p>
+ * A mutation is {@link HollowIncrementalCyclePopulator#DELETE_RECORD}, an added or modified object or
+ * {@link com.netflix.hollow.core.write.objectmapper.flatrecords.FlatRecord}, or an
+ * {@link HollowIncrementalCyclePopulator.AddIfAbsent} of either.  The mutation of a key replaces any prior mutation
+ * of the key.  Mutations may be added concurrently.
+ */
+interface MutationStore {
+
+    void put(RecordPrimaryKey key, Object mutation);
+
+    /**
+     * @param key the primary key of the mutated record
+     * @param mutation the mutation
+     * @return whether the mutation was added, which it is not if the key already has a mutation
+     */
+    boolean putIfAbsent(RecordPrimaryKey key, Object mutation);
+
+    /**
+     * @param key the primary key of the mutated record
+     * @return the mutation of the key, or null if the key has no mutation
+     */
+    Object get(RecordPrimaryKey key);
+
+    boolean containsKey(RecordPrimaryKey key);
+
+    void remove(RecordPrimaryKey key);
+
+    int size();
+
+    void clear();
+
+    /**
+     * @return the number of mutations which delete a record
+     */
+    long countDeletes();
+
+    /**
+     * @return the number of bytes of the mutations, or 0 if the mutations are not serialized
+     */
+    long getNumBytes();
+
+    Iterable<RecordPrimaryKey> keys();
+
+    /**
+     * The mutations of the store.  The value of each mutation is read when requested, and is not retained by the
+     * mutation, so that iterating the mutations does not hold them all in memory.
+     *
+     * @return an iterator over the mutations of the store
+     */
+    Iterator<Mutation> iterator();
+
+    /**
+     * Discard the mutations and release any resources held by the store, which may not be used once closed.
+     */
+    void close();
+
+    interface Mutation {
+
+        RecordPrimaryKey getKey();
+
+        /**
+         * @return whether the mutation adds the record only if it is absent, which is determined without reading the
+         * mutation's value
+         */
+        boolean isAddIfAbsent();
+
+        Object getValue();
+    }
+}
@@ -255,6 +255,11 @@ final class ProducerListenerSupport extends ListenerSupport {
                     l -> l.onIntegrityCheckComplete(s, readState, version, elapsed));
         }
 
+        void fireIntegrityCheckStep(IntegrityCheckListener.Step step, long version, Duration elapsed) {
+            fire(IntegrityCheckListener.class,
+                    l -> l.onIntegrityCheckStep(step, version, elapsed));
+        }
+
 
         Status.StageWithStateBuilder fireValidationStart(HollowProducer.ReadState readState) {
             long version = readState.getVersion();
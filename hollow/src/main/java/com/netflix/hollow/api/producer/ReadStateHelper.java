@@ -39,6 +39,15 @@ final class ReadStateHelper {
     }
     
     static ReadState newReadState(final long version, final HollowReadStateEngine stateEngine) {
+        return newReadState(version, stateEngine, new ReadStateIndexes(stateEngine, true));
+    }
+
+    /// the indexes of a state engine are kept up-to-date as deltas are applied, so they are shared by all read states of the engine
+    private static ReadState newReadState(long version, ReadState stateWithEngine) {
+        return newReadState(version, stateWithEngine.getStateEngine(), stateWithEngine.getIndexes());
+    }
+
+    private static ReadState newReadState(final long version, final HollowReadStateEngine stateEngine, final ReadStateIndexes indexes) {
         return new HollowProducer.ReadState() {
             @Override
             public long getVersion() {
@@ -49,6 +58,11 @@ final class ReadStateHelper {
             public HollowReadStateEngine getStateEngine() {
                 return stateEngine;
             }
+
+            @Override
+            public ReadStateIndexes getIndexes() {
+                return indexes;
+            }
         };
     }
 
@@ -72,8 +86,8 @@ final class ReadStateHelper {
      * @return
      */
     ReadStateHelper swap() {
-        return new ReadStateHelper(newReadState(current.getVersion(), pending.getStateEngine()),
-                newReadState(pending.getVersion(), current.getStateEngine()));
+        return new ReadStateHelper(newReadState(current.getVersion(), pending),
+                newReadState(pending.getVersion(), current));
     }
 
     ReadStateHelper commit() {
@@ -83,7 +97,7 @@ final class ReadStateHelper {
 
     ReadStateHelper rollback() {
         if(pending == null) throw new IllegalStateException();
-        return new ReadStateHelper(newReadState(current.getVersion(), pending.getStateEngine()), null);
+        return new ReadStateHelper(newReadState(current.getVersion(), pending), null);
     }
 
     ReadState current() {
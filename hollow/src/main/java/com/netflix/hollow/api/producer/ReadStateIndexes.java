@@ -0,0 +1,280 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import com.netflix.hollow.core.index.HollowHashIndex;
+import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
+import com.netflix.hollow.core.index.key.PrimaryKey;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowSchema;
+import com.netflix.hollow.tools.traverse.ReverseReferenceIndex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The indexes of a {@link HollowProducer.ReadState}, which are shared by the validators, listeners and populators
+ * which read the state.
+ * <p>
+ * An index is built the first time it is requested for a type and fields, and the same index is returned by
+ * subsequent requests.  The read states of a producer share the indexes of their state engine, and each index is kept
+ * up-to-date as the producer applies deltas to the state engine, so an index is built once and then reused by the
+ * cycles which follow rather than being rebuilt by each validator on each cycle.
+ * <p>
+ * An index which is not requested during {@link #UNUSED_CYCLES_BEFORE_EVICTION} consecutive cycles of the producer,
+ * such as the index of a validator which has been removed, stops listening for deltas and is released.
+ */
+public final class ReadStateIndexes {
+    /**
+     * The number of consecutive cycles during which an index is not requested before it is evicted.
+     */
+    public static final int UNUSED_CYCLES_BEFORE_EVICTION = 3;
+
+    private static final Map<HollowProducer.ReadState, ReadStateIndexes> UNSHARED_INDEXES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final HollowReadStateEngine stateEngine;
+    private final boolean maintainIndexes;
+    private final Map<List<Object>, Entry> indexes;
+
+    private long cycle;
+    private long numHits;
+    private long numBuilds;
+    private long numEvictions;
+    private long buildTimeNanos;
+
+    /**
+     * Indexes of a state engine which are not kept up-to-date when deltas are applied to the state engine.
+     *
+     * @param stateEngine the state engine
+     */
+    public ReadStateIndexes(HollowReadStateEngine stateEngine) {
+        this(stateEngine, false);
+    }
+
+    /**
+     * @param readState a read state which does not provide its own indexes
+     * @return the indexes of the read state, which are created on the first call for the read state
+     */
+    static ReadStateIndexes of(HollowProducer.ReadState readState) {
+        return UNSHARED_INDEXES.computeIfAbsent(readState, r -> new ReadStateIndexes(r.getStateEngine()));
+    }
+
+    ReadStateIndexes(HollowReadStateEngine stateEngine, boolean maintainIndexes) {
+        this.stateEngine = stateEngine;
+        this.maintainIndexes = maintainIndexes;
+        this.indexes = new HashMap<>();
+    }
+
+    /**
+     * @param type the type
+     * @param fieldPaths the field paths of the key, or none to use the primary key declared by the type's schema
+     * @return an index of the records of the type by the key
+     */
+    public HollowPrimaryKeyIndex getPrimaryKeyIndex(String type, String... fieldPaths) {
+        if(fieldPaths.length != 0)
+            return getPrimaryKeyIndex(new PrimaryKey(type, fieldPaths));
+
+        HollowSchema schema = stateEngine.getSchema(type);
+        if(!(schema instanceof HollowObjectSchema) || ((HollowObjectSchema) schema).getPrimaryKey() == null)
+            throw new IllegalArgumentException("Type " + type + " does not declare a primary key");
+        return getPrimaryKeyIndex(((HollowObjectSchema) schema).getPrimaryKey());
+    }
+
+    /**
+     * @param primaryKey the primary key
+     * @return an index of the records of the primary key's type by the primary key
+     */
+    public synchronized HollowPrimaryKeyIndex getPrimaryKeyIndex(PrimaryKey primaryKey) {
+        List<Object> key = new ArrayList<>();
+        key.add(HollowPrimaryKeyIndex.class);
+        key.add(primaryKey.getType());
+        key.addAll(Arrays.asList(primaryKey.getFieldPaths()));
+
+        List<HollowTypeReadState> typeStates = Collections.singletonList(stateEngine.getTypeState(primaryKey.getType()));
+        Entry entry = getEntry(key, typeStates);
+        if(entry != null)
+            return (HollowPrimaryKeyIndex) entry.index;
+
+        long start = System.nanoTime();
+        HollowPrimaryKeyIndex index = new HollowPrimaryKeyIndex(stateEngine, primaryKey);
+        if(maintainIndexes)
+            index.listenForDeltaUpdates(true);
+        putEntry(key, new Entry(index, typeStates), start);
+        return index;
+    }
+
+    /**
+     * @param type the type
+     * @param selectField the field path of the records returned by a query
+     * @param matchFields the field paths matched by a query
+     * @return an index of the records of the type by the match fields
+     */
+    public synchronized HollowHashIndex getHashIndex(String type, String selectField, String... matchFields) {
+        List<Object> key = new ArrayList<>();
+        key.add(HollowHashIndex.class);
+        key.add(type);
+        key.add(selectField);
+        key.addAll(Arrays.asList(matchFields));
+
+        List<HollowTypeReadState> typeStates = Collections.singletonList(stateEngine.getTypeState(type));
+        Entry entry = getEntry(key, typeStates);
+        if(entry != null)
+            return (HollowHashIndex) entry.index;
+
+        long start = System.nanoTime();
+        HollowHashIndex index = new HollowHashIndex(stateEngine, type, selectField, matchFields);
+        if(maintainIndexes)
+            index.listenForDeltaUpdates();
+        putEntry(key, new Entry(index, typeStates), start);
+        return index;
+    }
+
+    /**
+     * @return an index of the records which reference each record of the state engine
+     */
+    public synchronized ReverseReferenceIndex getReverseReferenceIndex() {
+        List<Object> key = Collections.singletonList(ReverseReferenceIndex.class);
+        return getReverseReferenceIndex(key, null);
+    }
+
+    /**
+     * @param types the types
+     * @return an index of the records which reference each record of the given types, and of the types they
+     * transitively reference
+     */
+    public synchronized ReverseReferenceIndex getReverseReferenceIndex(Collection<String> types) {
+        List<String> reachableTypes = new ArrayList<>(ReverseReferenceIndex.reachableTypes(stateEngine, types));
+        Collections.sort(reachableTypes);
+
+        List<Object> key = new ArrayList<>();
+        key.add(ReverseReferenceIndex.class);
+        key.addAll(reachableTypes);
+        return getReverseReferenceIndex(key, reachableTypes);
+    }
+
+    private ReverseReferenceIndex getReverseReferenceIndex(List<Object> key, List<String> types) {
+        List<HollowTypeReadState> typeStates = new ArrayList<>(stateEngine.getTypeStates());
+        Entry entry = getEntry(key, typeStates);
+        if(entry != null)
+            return (ReverseReferenceIndex) entry.index;
+
+        long start = System.nanoTime();
+        ReverseReferenceIndex index = types == null ? new ReverseReferenceIndex(stateEngine) : new ReverseReferenceIndex(stateEngine, types);
+        if(maintainIndexes)
+            index.listenForDeltaUpdates();
+        putEntry(key, new Entry(index, typeStates), start);
+        return index;
+    }
+
+    /**
+     * @return the number of requests for an index which returned an index which had already been built
+     */
+    public synchronized long getNumHits() {
+        return numHits;
+    }
+
+    /**
+     * @return the number of indexes which have been built
+     */
+    public synchronized long getNumBuilds() {
+        return numBuilds;
+    }
+
+    /**
+     * @return the number of indexes which have been evicted after not being requested for several cycles
+     */
+    public synchronized long getNumEvictions() {
+        return numEvictions;
+    }
+
+    /**
+     * @return the total time spent building indexes, in nanoseconds
+     */
+    public synchronized long getBuildTimeNanos() {
+        return buildTimeNanos;
+    }
+
+    private Entry getEntry(List<Object> key, List<HollowTypeReadState> typeStates) {
+        Entry entry = indexes.get(key);
+        if(entry == null)
+            return null;
+
+        /// the types' read states are replaced if a snapshot is read into the state engine
+        if(!entry.typeStates.equals(typeStates)) {
+            entry.detach();
+            indexes.remove(key);
+            return null;
+        }
+
+        numHits++;
+        entry.lastUsedCycle = cycle;
+        return entry;
+    }
+
+    private void putEntry(List<Object> key, Entry entry, long start) {
+        entry.lastUsedCycle = cycle;
+        indexes.put(key, entry);
+        numBuilds++;
+        buildTimeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Called by the producer at the end of each cycle, to evict the indexes which were not requested during the
+     * last {@link #UNUSED_CYCLES_BEFORE_EVICTION} cycles.
+     */
+    synchronized void endCycle() {
+        cycle++;
+        Iterator<Entry> iter = indexes.values().iterator();
+        while(iter.hasNext()) {
+            Entry entry = iter.next();
+            if(cycle - entry.lastUsedCycle >= UNUSED_CYCLES_BEFORE_EVICTION) {
+                entry.detach();
+                iter.remove();
+                numEvictions++;
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Object index;
+        private final List<HollowTypeReadState> typeStates;
+        private long lastUsedCycle;
+
+        Entry(Object index, List<HollowTypeReadState> typeStates) {
+            this.index = index;
+            this.typeStates = typeStates;
+        }
+
+        void detach() {
+            if(index instanceof HollowPrimaryKeyIndex)
+                ((HollowPrimaryKeyIndex) index).detachFromDeltaUpdates();
+            else if(index instanceof HollowHashIndex)
+                ((HollowHashIndex) index).detachFromDeltaUpdates();
+            else
+                ((ReverseReferenceIndex) index).detachFromDeltaUpdates();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import com.netflix.hollow.core.write.HollowBlobWriter;
+import com.netflix.hollow.tools.patch.delta.HollowStateDeltaPatcher;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a skip delta, which consists of the two deltas of a {@link HollowStateDeltaPatcher}: the first from the
+ * earlier state to an intermediate state, and the second from the intermediate state to the later state.
+ * <p>
+ * A single delta cannot transition across several states, since an ordinal may be removed and then reused for a
+ * different record between the two states, and a consumer must be able to read the records removed by a delta
+ * until it applies the next delta.
+ */
+final class SkipDeltaWriter extends HollowBlobWriter {
+    private final HollowStateDeltaPatcher patcher;
+
+    SkipDeltaWriter(HollowStateDeltaPatcher patcher) {
+        super(patcher.getStateEngine());
+        this.patcher = patcher;
+    }
+
+    @Override
+    public void writeDelta(OutputStream os) throws IOException {
+        patcher.prepareInitialTransition();
+        super.writeDelta(os);
+        patcher.prepareFinalTransition();
+        super.writeDelta(os);
+    }
+}
@@ -18,6 +18,7 @@ package com.netflix.hollow.api.producer.fs;
 
 import static com.netflix.hollow.api.producer.HollowProducer.Blob.Type.DELTA;
 import static com.netflix.hollow.api.producer.HollowProducer.Blob.Type.REVERSE_DELTA;
+import static com.netflix.hollow.api.producer.HollowProducer.Blob.Type.SKIP_DELTA;
 import static com.netflix.hollow.api.producer.HollowProducer.Blob.Type.SNAPSHOT;
 
 import com.netflix.hollow.api.producer.HollowProducer;
@@ -41,6 +42,7 @@ public class HollowFilesystemBlobStager implements BlobStager {
 
     protected Path stagingPath;
     protected BlobCompressor compressor;
+    protected boolean parallelSnapshotWrite;
 
     /**
      * Constructor to create a new HollowFilesystemBlobStager with default disk path (java.io.tmpdir) and no compression for Hollow blobs.
@@ -57,8 +59,25 @@ public class HollowFilesystemBlobStager implements BlobStager {
      * @throws RuntimeException if errors occur when creating the specified path
      */
     public HollowFilesystemBlobStager(Path stagingPath, BlobCompressor compressor) throws RuntimeException {
+        this(stagingPath, compressor, false);
+    }
+
+    /**
+     * Constructor to create a new HollowFilesystemBlobStager with specified disk path and compression for Hollow blobs,
+     * which optionally serializes the shards of snapshots concurrently.
+     * <p>
+     * If parallel snapshot writing is enabled, the shards of a snapshot are first serialized to temporary files in the
+     * staging path, and so the staging path must have room for roughly twice the size of an uncompressed snapshot.
+     *
+     * @param stagingPath the path where to stage blobs
+     * @param compressor the blob compressor
+     * @param parallelSnapshotWrite true if snapshots should be written with {@link HollowBlobWriter#writeSnapshot(OutputStream, Path)}
+     * @throws RuntimeException if errors occur when creating the specified path
+     */
+    public HollowFilesystemBlobStager(Path stagingPath, BlobCompressor compressor, boolean parallelSnapshotWrite) throws RuntimeException {
         this.stagingPath = stagingPath;
         this.compressor = compressor;
+        this.parallelSnapshotWrite = parallelSnapshotWrite;
 
         try {
             if(!Files.exists(stagingPath))
@@ -84,28 +103,35 @@ public class HollowFilesystemBlobStager implements BlobStager {
 
     @Override
     public HollowProducer.Blob openSnapshot(long version) {
-        return new FilesystemBlob(HollowConstants.VERSION_NONE, version, SNAPSHOT, stagingPath, compressor);
+        return new FilesystemBlob(HollowConstants.VERSION_NONE, version, SNAPSHOT, stagingPath, compressor, parallelSnapshotWrite);
     }
 
     @Override
     public HollowProducer.Blob openDelta(long fromVersion, long toVersion){
-        return new FilesystemBlob(fromVersion, toVersion, DELTA, stagingPath, compressor);
+        return new FilesystemBlob(fromVersion, toVersion, DELTA, stagingPath, compressor, false);
     }
 
     @Override
     public HollowProducer.Blob openReverseDelta(long fromVersion, long toVersion) {
-        return new FilesystemBlob(fromVersion, toVersion, REVERSE_DELTA, stagingPath, compressor);
+        return new FilesystemBlob(fromVersion, toVersion, REVERSE_DELTA, stagingPath, compressor, false);
+    }
+
+    @Override
+    public HollowProducer.Blob openSkipDelta(long fromVersion, long toVersion) {
+        return new FilesystemBlob(fromVersion, toVersion, SKIP_DELTA, stagingPath, compressor, false);
     }
 
     public static class FilesystemBlob extends Blob {
 
         protected final Path path;
         private final BlobCompressor compressor;
+        private final boolean parallelSnapshotWrite;
         
-        private FilesystemBlob(long fromVersion, long toVersion, Type type, Path dirPath, BlobCompressor compressor) {
+        private FilesystemBlob(long fromVersion, long toVersion, Type type, Path dirPath, BlobCompressor compressor, boolean parallelSnapshotWrite) {
             super(fromVersion, toVersion, type);
             
             this.compressor = compressor;
+            this.parallelSnapshotWrite = parallelSnapshotWrite;
 
             int randomExtension = new Random().nextInt() & Integer.MAX_VALUE;
 
@@ -115,6 +141,7 @@ public class HollowFilesystemBlobStager implements BlobStager {
                     break;
                 case DELTA:
                 case REVERSE_DELTA:
+                case SKIP_DELTA:
                     this.path = dirPath.resolve(String.format("%s-%d-%d.%s", type.prefix, fromVersion, toVersion, Integer.toHexString(randomExtension)));
                     break;
                 default:
@@ -143,9 +170,13 @@ public class HollowFilesystemBlobStager implements BlobStager {
             try (OutputStream os = new BufferedOutputStream(compressor.compress(Files.newOutputStream(path)))) {
                 switch (type) {
                     case SNAPSHOT:
-                        writer.writeSnapshot(os);
+                        if(parallelSnapshotWrite)
+                            writer.writeSnapshot(os, parent);
+                        else
+                            writer.writeSnapshot(os);
                         break;
                     case DELTA:
+                    case SKIP_DELTA:
                         writer.writeDelta(os);
                         break;
                     case REVERSE_DELTA:
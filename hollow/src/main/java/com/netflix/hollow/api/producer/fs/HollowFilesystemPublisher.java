@@ -52,6 +52,7 @@ public class HollowFilesystemPublisher implements HollowProducer.Publisher {
             break;
         case DELTA:
         case REVERSE_DELTA:
+        case SKIP_DELTA:
             destination = blobStorePath.resolve(String.format("%s-%d-%d", blob.getType().prefix, blob.getFromVersion(), blob.getToVersion()));
             break;
         }
@@ -24,12 +24,32 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 
 public class HollowInMemoryBlobStager implements HollowProducer.BlobStager {
 
+    private final Path parallelSnapshotStagingDir;
+
+    public HollowInMemoryBlobStager() {
+        this(null);
+    }
+
+    /**
+     * Constructor to create a new HollowInMemoryBlobStager which serializes the shards of snapshots concurrently.
+     * <p>
+     * The shards of a snapshot are first serialized to temporary files in the given directory, see
+     * {@link HollowBlobWriter#writeSnapshot(java.io.OutputStream, Path)}.
+     *
+     * @param parallelSnapshotStagingDir the directory in which to serialize the shards of snapshots, or null if
+     * snapshots should be serialized serially
+     */
+    public HollowInMemoryBlobStager(Path parallelSnapshotStagingDir) {
+        this.parallelSnapshotStagingDir = parallelSnapshotStagingDir;
+    }
+
     @Override
     public Blob openSnapshot(long version) {
-        return new InMemoryBlob(HollowConstants.VERSION_NONE, version, Blob.Type.SNAPSHOT);
+        return new InMemoryBlob(HollowConstants.VERSION_NONE, version, Blob.Type.SNAPSHOT, parallelSnapshotStagingDir);
     }
 
     @Override
@@ -41,13 +61,24 @@ public class HollowInMemoryBlobStager implements HollowProducer.BlobStager {
     public Blob openReverseDelta(long fromVersion, long toVersion) {
         return new InMemoryBlob(fromVersion, toVersion, Blob.Type.REVERSE_DELTA);
     }
+
+    @Override
+    public Blob openSkipDelta(long fromVersion, long toVersion) {
+        return new InMemoryBlob(fromVersion, toVersion, Blob.Type.SKIP_DELTA);
+    }
     
     public static class InMemoryBlob extends Blob {
 
+        private final Path parallelSnapshotStagingDir;
         private byte[] data;
         
         protected InMemoryBlob(long fromVersion, long toVersion, Type type) {
+            this(fromVersion, toVersion, type, null);
+        }
+
+        protected InMemoryBlob(long fromVersion, long toVersion, Type type, Path parallelSnapshotStagingDir) {
             super(fromVersion, toVersion, type);
+            this.parallelSnapshotStagingDir = parallelSnapshotStagingDir;
         }
 
         @Override
@@ -55,9 +86,13 @@ public class HollowInMemoryBlobStager implements HollowProducer.BlobStager {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             switch(type) {
             case SNAPSHOT:
-                writer.writeSnapshot(baos);
+                if(parallelSnapshotStagingDir != null)
+                    writer.writeSnapshot(baos, parallelSnapshotStagingDir);
+                else
+                    writer.writeSnapshot(baos);
                 break;
             case DELTA:
+            case SKIP_DELTA:
                 writer.writeDelta(baos);
                 break;
             case REVERSE_DELTA:
@@ -47,4 +47,51 @@ public interface IntegrityCheckListener extends HollowProducerEventListener {
      * @param elapsed duration of the integrity check stage in {@code unit} units
      */
     void onIntegrityCheckComplete(Status status, HollowProducer.ReadState readState, long version, Duration elapsed);
+
+    /**
+     * Called after a step of the integrity check stage completes normally.
+     * <p>
+     * The steps of a pipelined integrity check (see {@link HollowProducer.Builder#withPipelinedIntegrityCheck()})
+     * run concurrently, in which case this method may be called concurrently from different threads.
+     *
+     * @param step the step which completed
+     * @param version version being checked
+     * @param elapsed duration of the step
+     */
+    default void onIntegrityCheckStep(Step step, long version, Duration elapsed) {
+    }
+
+    /**
+     * The steps of the integrity check stage.
+     */
+    enum Step {
+        /**
+         * The snapshot is read into the pending state.
+         */
+        READ_SNAPSHOT,
+        /**
+         * The current state is checksummed.
+         */
+        CHECKSUM_CURRENT,
+        /**
+         * The pending state is checksummed.
+         */
+        CHECKSUM_PENDING,
+        /**
+         * The delta is applied to the current state.
+         */
+        APPLY_DELTA,
+        /**
+         * The current state is checksummed after the delta was applied.
+         */
+        CHECKSUM_DELTA,
+        /**
+         * The reverse delta is applied to the pending state.
+         */
+        APPLY_REVERSE_DELTA,
+        /**
+         * The pending state is checksummed after the reverse delta was applied.
+         */
+        CHECKSUM_REVERSE_DELTA
+    }
 }
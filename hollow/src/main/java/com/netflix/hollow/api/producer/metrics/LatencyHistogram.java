@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A histogram of latencies, in nanoseconds, whose buckets subdivide each power of two into eight, such that
+ * percentiles are reported within 12.5% of the recorded latencies.
+ * <p>
+ * This class is not thread safe.  Histograms which are reported are not modified after they are reported.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts;
+    private long count;
+    private long maxNanos;
+
+    public LatencyHistogram() {
+        this.counts = new long[(64 - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS];
+    }
+
+    /**
+     * Record occurrences of a latency.  Negative latencies are recorded as zero.
+     *
+     * @param nanos the latency in nanoseconds
+     * @param occurrences the number of occurrences of the latency
+     */
+    public void record(long nanos, long occurrences) {
+        if(nanos < 0)
+            nanos = 0;
+        counts[bucketOf(nanos)] += occurrences;
+        count += occurrences;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Record all of the latencies recorded in another histogram.
+     *
+     * @param other the other histogram
+     */
+    public void add(LatencyHistogram other) {
+        for(int i=0;i<counts.length;i++)
+            counts[i] += other.counts[i];
+        count += other.count;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @param unit the unit of the returned latency
+     * @return the latency at or below which the specified percentage of the recorded latencies fall, or 0 if no
+     * latencies were recorded
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        if(percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        if(count == 0)
+            return 0;
+
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long cumulative = 0;
+        for(int i=0;i<counts.length;i++) {
+            cumulative += counts[i];
+            if(cumulative >= target)
+                return unit.convert(Math.min(upperBoundOf(i), maxNanos), TimeUnit.NANOSECONDS);
+        }
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static int bucketOf(long nanos) {
+        if(nanos < SUB_BUCKETS)
+            return (int) nanos;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if(bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long lowerBound = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer.metrics;
+
+/**
+ * The latencies from the addition of mutations to a {@code HollowIncrementalProducer} until the announcement of the
+ * version which includes them.
+ */
+public class MutationLatencyMetrics {
+
+    private long version;                                   // version which was announced
+    private long numMutations;                              // mutations added to the cycle, including mutations which replaced prior mutations of the same record
+    private LatencyHistogram cycleLatencies;                // latencies of the mutations of the announced cycle
+    private LatencyHistogram latencies;                     // latencies of the mutations of all cycles announced by the scheduler
+
+    public long getVersion() {
+        return version;
+    }
+    public long getNumMutations() {
+        return numMutations;
+    }
+    public LatencyHistogram getCycleLatencies() {
+        return cycleLatencies;
+    }
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    private MutationLatencyMetrics(Builder builder) {
+        this.version = builder.version;
+        this.numMutations = builder.numMutations;
+        this.cycleLatencies = builder.cycleLatencies;
+        this.latencies = builder.latencies;
+    }
+
+    public static final class Builder {
+        private long version;
+        private long numMutations;
+        private LatencyHistogram cycleLatencies;
+        private LatencyHistogram latencies;
+
+        public Builder setVersion(long version) {
+            this.version = version;
+            return this;
+        }
+        public Builder setNumMutations(long numMutations) {
+            this.numMutations = numMutations;
+            return this;
+        }
+        public Builder setCycleLatencies(LatencyHistogram cycleLatencies) {
+            this.cycleLatencies = cycleLatencies;
+            return this;
+        }
+        public Builder setLatencies(LatencyHistogram latencies) {
+            this.latencies = latencies;
+            return this;
+        }
+
+        public MutationLatencyMetrics build() {
+            return new MutationLatencyMetrics(this);
+        }
+    }
+}
@@ -29,4 +29,8 @@ public interface ProducerMetricsReporting {
     default void announcementMetricsReporting(AnnouncementMetrics announcementMetrics) {
         // no-op
     }
+
+    default void mutationLatencyMetricsReporting(MutationLatencyMetrics mutationLatencyMetrics) {
+        // no-op
+    }
 }
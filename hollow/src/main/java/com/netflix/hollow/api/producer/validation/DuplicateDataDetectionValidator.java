@@ -18,10 +18,7 @@ package com.netflix.hollow.api.producer.validation;
 
 import com.netflix.hollow.api.producer.HollowProducer;
 import com.netflix.hollow.api.producer.HollowProducer.ReadState;
-import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
 import com.netflix.hollow.core.index.key.PrimaryKey;
-import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
-import com.netflix.hollow.core.read.engine.HollowTypeReadState;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowSchema;
 import com.netflix.hollow.core.schema.HollowSchema.SchemaType;
@@ -149,7 +146,7 @@ public class DuplicateDataDetectionValidator implements ValidatorListener {
         String fieldPaths = Arrays.toString(primaryKey.getFieldPaths());
         vrb.detail(FIELD_PATH_NAME, fieldPaths);
 
-        Collection<Object[]> duplicateKeys = getDuplicateKeys(readState.getStateEngine(), primaryKey);
+        Collection<Object[]> duplicateKeys = readState.getIndexes().getPrimaryKeyIndex(primaryKey).getDuplicateKeys();
         if (!duplicateKeys.isEmpty()) {
             String message = String.format(DUPLICATE_KEYS_FOUND_ERRRO_MSG_FORMAT, dataTypeName, fieldPaths,
                     duplicateKeysToString(duplicateKeys));
@@ -159,15 +156,6 @@ public class DuplicateDataDetectionValidator implements ValidatorListener {
         return vrb.passed();
     }
 
-    private Collection<Object[]> getDuplicateKeys(HollowReadStateEngine stateEngine, PrimaryKey primaryKey) {
-        HollowTypeReadState typeState = stateEngine.getTypeState(dataTypeName);
-        HollowPrimaryKeyIndex hollowPrimaryKeyIndex = typeState.getListener(HollowPrimaryKeyIndex.class);
-        if (hollowPrimaryKeyIndex == null) {
-            hollowPrimaryKeyIndex = new HollowPrimaryKeyIndex(stateEngine, primaryKey);
-        }
-        return hollowPrimaryKeyIndex.getDuplicateKeys();
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -103,7 +103,7 @@ public class ObjectModificationValidator<A extends HollowAPI, T extends HollowOb
         HollowObjectTypeReadState objectTypeState = (HollowObjectTypeReadState) typeState;
         PrimaryKey key = objectTypeState.getSchema().getPrimaryKey();
         // this is guaranteed to give us items from the most recent cycle, not the last one
-        HollowPrimaryKeyIndex index = new HollowPrimaryKeyIndex(readState.getStateEngine(), key);
+        HollowPrimaryKeyIndex index = readState.getIndexes().getPrimaryKeyIndex(key);
         int fromOrdinal = removedAndModified.nextSetBit(0);
         while (fromOrdinal != HollowConstants.ORDINAL_NONE) {
             Object[] candidateKey = index.getRecordKey(fromOrdinal);
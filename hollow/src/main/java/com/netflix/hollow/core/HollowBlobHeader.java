@@ -19,6 +19,7 @@ package com.netflix.hollow.core;
 import com.netflix.hollow.core.schema.HollowSchema;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -36,6 +37,14 @@ import java.util.Objects;
  *          
  *      <dt>Blob Format Version</dt>
  *      <dd>A 32-bit value used to identify the format of the hollow blob.</dd>
+ *
+ *      <dt>Record Checksums</dt>
+ *      <dd>The order-independent checksum of the records of each type in the destination state, which may be maintained
+ *          incrementally by a consumer to verify its state.</dd>
+ *
+ *      <dt>Type Directory</dt>
+ *      <dd>The serialized length of each type in a snapshot, in the order in which the types appear in the blob, which
+ *          allows a consumer to skip the types it excludes without reading them.</dd>
  *      
  * </dl>
  * 
@@ -46,11 +55,19 @@ public class HollowBlobHeader {
 
     public static final int HOLLOW_BLOB_VERSION_HEADER = 1030;
 
+    /**
+     * Identifies, and versions, the serialized length of each shard recorded in the forwards-compatibility bytes of
+     * a type in a snapshot.  Forwards-compatibility bytes which do not begin with this tag are skipped.
+     */
+    public static final int SHARD_LENGTHS_TAG = 0x48534C01;
+
     private Map<String, String> headerTags = new HashMap<String, String>();
     private List<HollowSchema> schemas = new ArrayList<HollowSchema>();
     private long originRandomizedTag;
     private long destinationRandomizedTag;
     private int blobFormatVersion = HOLLOW_BLOB_VERSION_HEADER;
+    private Map<String, Long> recordChecksums = new HashMap<String, Long>();
+    private Map<String, Long> typeLengths = new LinkedHashMap<String, Long>();
 
     public Map<String, String> getHeaderTags() {
         return headerTags;
@@ -92,6 +109,34 @@ public class HollowBlobHeader {
         return blobFormatVersion;
     }
 
+    /**
+     * @return the checksum of the records of each type in the destination state, keyed by type name.  Empty if
+     * the blob was produced by a version of hollow which did not publish record checksums.
+     * @see com.netflix.hollow.tools.checksum.HollowRecordChecksum
+     */
+    public Map<String, Long> getRecordChecksums() {
+        return recordChecksums;
+    }
+
+    public void setRecordChecksums(Map<String, Long> recordChecksums) {
+        this.recordChecksums = recordChecksums;
+    }
+
+    /**
+     * @return the serialized length in bytes of each type in the blob, from the start of its schema to the end of its
+     * data, keyed by type name and iterated in the order in which the types appear in the blob.  Empty if the blob is
+     * not a snapshot written with
+     * {@link com.netflix.hollow.core.write.HollowWriteStateEngine#setRecordSnapshotLengths(boolean)} enabled, or was
+     * produced by a version of hollow which did not publish a type directory.
+     */
+    public Map<String, Long> getTypeLengths() {
+        return typeLengths;
+    }
+
+    public void setTypeLengths(Map<String, Long> typeLengths) {
+        this.typeLengths = typeLengths;
+    }
+
     @Override
     public boolean equals(Object other) {
         if(other instanceof HollowBlobHeader) {
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.index;
+
+import com.netflix.hollow.core.memory.encoding.FixedLengthElementArray;
+
+/**
+ * A {@link FixedLengthElementArray} which shares the segments of the array of a prior index state, and copies a
+ * segment the first time it is written, so that the prior state is never observed to change.  Patching a table
+ * then costs a copy of the segments which are written rather than a copy of the whole table.
+ * <p>
+ * Only the segments which hold the bits of the prior array which may be read are shared; its remaining segments
+ * are written without being copied.
+ * <p>
+ * Not intended for external consumption.
+ */
+class CopyOnWriteFixedLengthElementArray extends FixedLengthElementArray {
+
+    private final boolean[] copiedSegments;
+    private int numCopiedSegments;
+
+    /**
+     * @param from the array of the prior state
+     * @param sharedBits the number of bits of the prior array which may be read
+     * @param numBits the number of bits in this array
+     */
+    CopyOnWriteFixedLengthElementArray(FixedLengthElementArray from, long sharedBits, long numBits) {
+        super(from, numBits);
+        this.copiedSegments = new boolean[segments.length];
+        long sharedLongs = ((sharedBits - 1) >>> 6) + 1;
+        int numSharedSegments = sharedBits == 0 ? 0 : (int)((sharedLongs - 1) >>> log2OfSegmentSize) + 1;
+        for(int i=numSharedSegments;i<segments.length;i++)
+            copiedSegments[i] = true;
+    }
+
+    private CopyOnWriteFixedLengthElementArray(CopyOnWriteFixedLengthElementArray from, long numBits) {
+        super(from, numBits);
+        this.copiedSegments = new boolean[segments.length];
+        this.numCopiedSegments = from.numCopiedSegments;
+        for(int i=0;i<segments.length;i++)
+            copiedSegments[i] = i >= from.copiedSegments.length || from.copiedSegments[i];
+    }
+
+    /**
+     * @param numBits the number of bits in the grown array
+     * @return an array which takes over the segments of this array, and which must be written instead of this array
+     */
+    CopyOnWriteFixedLengthElementArray grow(long numBits) {
+        return new CopyOnWriteFixedLengthElementArray(this, numBits);
+    }
+
+    /**
+     * @return the number of shared segments which have been copied
+     */
+    int getNumCopiedSegments() {
+        return numCopiedSegments;
+    }
+
+    @Override
+    public void set(long index, long value) {
+        int segmentIndex = (int)(index >> log2OfSegmentSize);
+        copySegment(segmentIndex);
+        /// the first long of a segment is duplicated at the end of the prior segment
+        if((index & bitmask) == 0 && segmentIndex != 0)
+            copySegment(segmentIndex - 1);
+        super.set(index, value);
+    }
+
+    @Override
+    public void increment(long index, long increment) {
+        int segmentIndex = (int)(index >>> (log2OfSegmentSize + 6));
+        copySegment(segmentIndex);
+        if(segmentIndex != 0)
+            copySegment(segmentIndex - 1);
+        if(segmentIndex + 1 < segments.length)
+            copySegment(segmentIndex + 1);
+        super.increment(index, increment);
+    }
+
+    private void copySegment(int segmentIndex) {
+        if(!copiedSegments[segmentIndex]) {
+            segments[segmentIndex] = segments[segmentIndex].clone();
+            copiedSegments[segmentIndex] = true;
+            numCopiedSegments++;
+        }
+    }
+}
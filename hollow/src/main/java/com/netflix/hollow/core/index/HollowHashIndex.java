@@ -26,6 +26,9 @@ import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.engine.HollowTypeReadState;
 import com.netflix.hollow.core.read.engine.HollowTypeStateListener;
 import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.util.IntList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A HollowHashIndex is used for indexing non-primary-key data.  This type of index can map multiple keys to a single matching record, and/or
@@ -36,6 +39,7 @@ import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
  * <i>actors</i>, each elements contained therein, and finally each actors <i>actorId</i> field.
  */
 public class HollowHashIndex implements HollowTypeStateListener {
+    private static final Logger LOG = Logger.getLogger(HollowHashIndex.class.getName());
 
     private volatile HollowHashIndexState hashStateVolatile;
 
@@ -45,6 +49,9 @@ public class HollowHashIndex implements HollowTypeStateListener {
     private final String selectField;
     private final String[] matchFields;
 
+    private final IntList removedOrdinals = new IntList();
+    private final IntList addedOrdinals = new IntList();
+
     /**
      * Define a {@link HollowHashIndex}.
      *
@@ -203,17 +210,57 @@ public class HollowHashIndex implements HollowTypeStateListener {
     }
 
     @Override
-    public void beginUpdate() { }
+    public void beginUpdate() {
+        removedOrdinals.clear();
+        addedOrdinals.clear();
+    }
 
     @Override
-    public void addedOrdinal(int ordinal) { }
+    public void addedOrdinal(int ordinal) {
+        addedOrdinals.add(ordinal);
+    }
 
     @Override
-    public void removedOrdinal(int ordinal) { }
+    public void removedOrdinal(int ordinal) {
+        removedOrdinals.add(ordinal);
+    }
 
+    /**
+     * Applies the records added and removed by the delta to the index, if possible, otherwise recreates the index entirely.
+     * <p>
+     * The index is rebuilt if the changes exceed 10% of the indexed records, if the select field is not the indexed
+     * type itself, or if the delta requires the tables of the index to grow.
+     */
     @Override
-    public void endUpdate() {
-       reindexHashIndex();
+    public synchronized void endUpdate() {
+        if(removedOrdinals.size() == 0 && addedOrdinals.size() == 0)
+            return;
+
+        if(shouldPerformDeltaUpdate()) {
+            try {
+                HollowHashIndexDeltaUpdater updater = new HollowHashIndexDeltaUpdater(hashStateVolatile);
+                if(updater.canUpdate()) {
+                    HollowHashIndexState updatedState = updater.update(removedOrdinals, addedOrdinals);
+                    if(updatedState != null) {
+                        this.hashStateVolatile = updatedState;
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOG.log(Level.SEVERE, "Delta update of index failed.  Performing a full reindex", e);
+            }
+        }
+
+        reindexHashIndex();
+    }
+
+    private boolean shouldPerformDeltaUpdate() {
+        int populatedCardinality = typeState.getPopulatedOrdinals().cardinality();
+        return removedOrdinals.size() + addedOrdinals.size() <= populatedCardinality * 0.1d;
+    }
+
+    HollowHashIndexState getHashState() {
+        return hashStateVolatile;
     }
 
     public HollowReadStateEngine getStateEngine() {
@@ -246,6 +293,11 @@ public class HollowHashIndex implements HollowTypeStateListener {
         private final int bitsPerSelectTableSize;
         private final int bitsPerSelectTablePointer;
 
+        private final HollowPreindexer preindexer;
+        private final int matchCount;
+        private final long selectTableBuckets;
+        private final long liveSelectTableBuckets;
+
         public HollowHashIndexState(HollowHashIndexBuilder builder) {
             matchHashTable = builder.getFinalMatchHashTable();
             selectHashArray = builder.getFinalSelectHashArray();
@@ -258,6 +310,33 @@ public class HollowHashIndex implements HollowTypeStateListener {
             bitsPerSelectTableSize = builder.getFinalBitsPerSelectTableSize();
             bitsPerSelectTablePointer = builder.getFinalBitsPerSelectTablePointer();
             bitsPerSelectHashEntry = builder.getBitsPerSelectHashEntry();
+            preindexer = builder.getPreindexer();
+            matchCount = builder.getMatchCount();
+            selectTableBuckets = builder.getFinalSelectTableBuckets();
+            liveSelectTableBuckets = selectTableBuckets;
+        }
+
+        /**
+         * Create the state resulting from patching the tables of a previous state during a delta update.  The
+         * layout of the tables (the bits per field of match and select entries) is unchanged.
+         */
+        HollowHashIndexState(HollowHashIndexState from, FixedLengthElementArray matchHashTable, FixedLengthElementArray selectHashArray,
+                int matchCount, long selectTableBuckets, long liveSelectTableBuckets) {
+            this.matchHashTable = matchHashTable;
+            this.selectHashArray = selectHashArray;
+            this.matchFields = from.matchFields;
+            this.matchHashMask = from.matchHashMask;
+            this.bitsPerMatchHashKey = from.bitsPerMatchHashKey;
+            this.bitsPerMatchHashEntry = from.bitsPerMatchHashEntry;
+            this.bitsPerTraverserField = from.bitsPerTraverserField;
+            this.offsetPerTraverserField = from.offsetPerTraverserField;
+            this.bitsPerSelectTableSize = from.bitsPerSelectTableSize;
+            this.bitsPerSelectTablePointer = from.bitsPerSelectTablePointer;
+            this.bitsPerSelectHashEntry = from.bitsPerSelectHashEntry;
+            this.preindexer = from.preindexer;
+            this.matchCount = matchCount;
+            this.selectTableBuckets = selectTableBuckets;
+            this.liveSelectTableBuckets = liveSelectTableBuckets;
         }
 
         public FixedLengthElementArray getSelectHashArray() {
@@ -303,5 +382,28 @@ public class HollowHashIndex implements HollowTypeStateListener {
         public int getBitsPerSelectTablePointer() {
             return bitsPerSelectTablePointer;
         }
+
+        HollowPreindexer getPreindexer() {
+            return preindexer;
+        }
+
+        int getMatchCount() {
+            return matchCount;
+        }
+
+        /**
+         * @return the number of buckets in the select table which have been allocated to matches, including
+         * buckets abandoned by delta updates.
+         */
+        long getSelectTableBuckets() {
+            return selectTableBuckets;
+        }
+
+        /**
+         * @return the number of buckets in the select table which are referenced by a match.
+         */
+        long getLiveSelectTableBuckets() {
+            return liveSelectTableBuckets;
+        }
     }
 }
@@ -50,6 +50,7 @@ public class HollowHashIndexBuilder {
     private int finalBitsPerMatchHashEntry;
     private int finalBitsPerSelectTableSize;
     private int finalBitsPerSelectTablePointer;
+    private long finalSelectTableBuckets;
 
     private GrowingSegmentedLongArray matchIndexHashAndSizeArray;
     private FixedLengthElementArray intermediateMatchHashTable;
@@ -170,7 +171,9 @@ public class HollowHashIndexBuilder {
         long totalNumberOfSelectBuckets = totalNumberOfSelectBucketsAndBitsRequiredForSelectTableSize & 0xFFFFFFFFFFFFFFL;
         long totalNumberOfMatchBuckets = HashCodes.hashTableSize(matchCount);
 
-        int bitsPerFinalSelectBucketPointer = bitsRequiredToRepresentValue(totalNumberOfSelectBuckets);
+        /// one more bit than required, so that delta updates may relocate select tables to the end of the select array
+        /// until half of it has been abandoned, at which point the index is rebuilt
+        int bitsPerFinalSelectBucketPointer = bitsRequiredToRepresentValue(totalNumberOfSelectBuckets * 2);
         int bitsPerSelectTableSize = (int)(totalNumberOfSelectBucketsAndBitsRequiredForSelectTableSize >>> 56);
         int finalBitsPerMatchHashEntry = bitsPerMatchHashKey + bitsPerSelectTableSize + bitsPerFinalSelectBucketPointer;
 
@@ -239,6 +242,7 @@ public class HollowHashIndexBuilder {
         this.finalBitsPerSelectTablePointer = bitsPerFinalSelectBucketPointer;
         this.finalBitsPerSelectTableSize = bitsPerSelectTableSize;
         this.finalMatchHashMask = finalMatchHashMask;
+        this.finalSelectTableBuckets = totalNumberOfSelectBuckets;
     }
 
     private void growIntermediateHashTable() {
@@ -439,6 +443,18 @@ public class HollowHashIndexBuilder {
         return finalSelectHashArray;
     }
 
+    public long getFinalSelectTableBuckets() {
+        return finalSelectTableBuckets;
+    }
+
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    public HollowPreindexer getPreindexer() {
+        return preindexer;
+    }
+
     public HollowHashIndexField getSelectField() {
         return preindexer.getSelectFieldSpec();
     }
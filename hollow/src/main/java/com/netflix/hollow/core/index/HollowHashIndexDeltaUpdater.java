@@ -0,0 +1,535 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.index;
+
+import static com.netflix.hollow.core.memory.FixedLengthData.bitsRequiredToRepresentValue;
+
+import com.netflix.hollow.core.HollowConstants;
+import com.netflix.hollow.core.index.traversal.HollowIndexerValueTraverser;
+import com.netflix.hollow.core.memory.encoding.HashCodes;
+import com.netflix.hollow.core.read.HollowReadFieldUtils;
+import com.netflix.hollow.core.read.dataaccess.HollowObjectTypeDataAccess;
+import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.read.engine.PopulatedOrdinalListener;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.util.IntList;
+import java.util.BitSet;
+
+/**
+ * Applies the records added to and removed from the indexed type during a delta to the match and select tables of
+ * a {@link HollowHashIndex.HollowHashIndexState}, rather than rebuilding them with the {@link HollowHashIndexBuilder}.
+ * <p>
+ * The tables of the prior state may still be read by in-flight queries and outstanding {@link HollowHashIndexResult}s,
+ * so the updated tables share the segments of the prior tables, and a segment is copied the first time it is patched
+ * (see {@link CopyOnWriteFixedLengthElementArray}).  The layout of the tables is never changed: if the delta
+ * requires wider entries, a larger match table, or more select table space than may be addressed, then the update
+ * is abandoned and the index should be rebuilt.
+ * <p>
+ * Only indexes which select the records of the indexed type itself (a select field of "") may be updated, since
+ * for such indexes each record contributes exactly its own ordinal to the select set of each of its matches.
+ * <p>
+ * Not intended for external consumption.
+ */
+class HollowHashIndexDeltaUpdater {
+
+    private final HollowHashIndex.HollowHashIndexState from;
+    private final HollowPreindexer preindexer;
+    private final HollowIndexerValueTraverser traverser;
+    private final HollowIndexerValueTraverser repointTraverser;
+
+    private final int[] bitsPerTraverserField;
+    private final int[] offsetPerTraverserField;
+    private final int bitsPerMatchHashKey;
+    private final int bitsPerMatchHashEntry;
+    private final int bitsPerSelectTableSize;
+    private final int bitsPerSelectTablePointer;
+    private final int bitsPerSelectHashEntry;
+    private final int matchHashMask;
+    private final BitSet[] populatedOrdinalsPerTraverserField;
+    private final BitSet populatedSelectOrdinals;
+
+    private CopyOnWriteFixedLengthElementArray matchHashTable;
+    private CopyOnWriteFixedLengthElementArray selectHashArray;
+    private long selectHashArrayCapacity;
+    private long selectTableBuckets;
+    private long liveSelectTableBuckets;
+    private int matchCount;
+
+    HollowHashIndexDeltaUpdater(HollowHashIndex.HollowHashIndexState from) {
+        this.from = from;
+        this.preindexer = from.getPreindexer();
+        this.traverser = preindexer.getTraverser();
+
+        String[] baseFields = new String[traverser.getNumFieldPaths()];
+        for(int i=0;i<baseFields.length;i++)
+            baseFields[i] = traverser.getFieldPath(i);
+        HollowTypeReadState typeState = preindexer.getTypeState();
+        this.repointTraverser = new HollowIndexerValueTraverser(typeState.getStateEngine(), typeState.getSchema().getName(), baseFields);
+
+        this.bitsPerTraverserField = from.getBitsPerTraverserField();
+        this.offsetPerTraverserField = from.getOffsetPerTraverserField();
+        this.bitsPerMatchHashKey = from.getBitsPerMatchHashKey();
+        this.bitsPerMatchHashEntry = from.getBitsPerMatchHashEntry();
+        this.bitsPerSelectTableSize = from.getBitsPerSelectTableSize();
+        this.bitsPerSelectTablePointer = from.getBitsPerSelectTablePointer();
+        this.bitsPerSelectHashEntry = from.getBitsPerSelectHashEntry();
+        this.matchHashMask = from.getMatchHashMask();
+
+        this.populatedOrdinalsPerTraverserField = new BitSet[preindexer.getNumMatchTraverserFields()];
+        for(int i=0;i<populatedOrdinalsPerTraverserField.length;i++)
+            populatedOrdinalsPerTraverserField[i] = populatedOrdinals((HollowTypeReadState)traverser.getFieldTypeDataAccess(i));
+        this.populatedSelectOrdinals = populatedOrdinals(typeState);
+    }
+
+    /**
+     * @return whether the tables of the prior state can accommodate the current state of the indexed types.
+     */
+    boolean canUpdate() {
+        int selectFieldIdx = preindexer.getSelectFieldSpec().getBaseIteratorFieldIdx();
+        if(!"".equals(traverser.getFieldPath(selectFieldIdx)) || preindexer.getSelectFieldSpec().getSchemaFieldPositionPath().length != 0)
+            return false;
+
+        for(int i=0;i<traverser.getNumFieldPaths();i++) {
+            int maxOrdinalForTypeState = ((HollowTypeReadState)traverser.getFieldTypeDataAccess(i)).maxOrdinal();
+            if(bitsRequiredToRepresentValue(maxOrdinalForTypeState + 1) > bitsPerTraverserField[i])
+                return false;
+        }
+
+        for(BitSet populatedOrdinals : populatedOrdinalsPerTraverserField) {
+            if(populatedOrdinals == null)
+                return false;
+        }
+
+        /// if more than half of the select table has been abandoned, a rebuild will compact it.
+        return populatedSelectOrdinals != null && from.getLiveSelectTableBuckets() * 2 >= from.getSelectTableBuckets();
+    }
+
+    /**
+     * Apply the removed and then the added records of the indexed type to the tables of the prior state, copying
+     * only the segments of the tables which are patched.
+     *
+     * @param removedOrdinals the ordinals removed from the indexed type
+     * @param addedOrdinals the ordinals added to the indexed type
+     * @return the updated state, or null if the tables cannot accommodate the delta and the index must be rebuilt
+     */
+    HollowHashIndex.HollowHashIndexState update(IntList removedOrdinals, IntList addedOrdinals) {
+        long matchHashTableBits = ((long)matchHashMask + 1) * bitsPerMatchHashEntry;
+        matchHashTable = new CopyOnWriteFixedLengthElementArray(from.getMatchHashTable(), matchHashTableBits, matchHashTableBits);
+
+        selectTableBuckets = from.getSelectTableBuckets();
+        liveSelectTableBuckets = from.getLiveSelectTableBuckets();
+        matchCount = from.getMatchCount();
+        selectHashArrayCapacity = selectTableBuckets + (selectTableBuckets >>> 4) + 16;
+        selectHashArray = new CopyOnWriteFixedLengthElementArray(from.getSelectHashArray(), selectTableBuckets * bitsPerSelectHashEntry, selectHashArrayCapacity * bitsPerSelectHashEntry);
+
+        for(int i=0;i<removedOrdinals.size();i++) {
+            int ordinal = removedOrdinals.get(i);
+            traverser.traverse(ordinal);
+
+            for(int j=0;j<traverser.getNumMatches();j++) {
+                long matchBucket = findMatchBucket(traverser, j, getMatchHash(traverser, j));
+                /// not found if an earlier match of this record had an equal key and emptied its select table
+                if(matchBucket != -1)
+                    removeSelectOrdinal(matchBucket, ordinal);
+            }
+        }
+
+        for(int i=0;i<addedOrdinals.size();i++) {
+            int ordinal = addedOrdinals.get(i);
+            traverser.traverse(ordinal);
+
+            for(int j=0;j<traverser.getNumMatches();j++) {
+                int matchHash = getMatchHash(traverser, j);
+                long matchBucket = findMatchBucket(traverser, j, matchHash);
+                boolean added = matchBucket == -1 ? addMatch(j, matchHash, ordinal) : addSelectOrdinal(matchBucket, ordinal);
+                if(!added)
+                    return null;
+            }
+        }
+
+        return new HollowHashIndex.HollowHashIndexState(from, matchHashTable, selectHashArray, matchCount, selectTableBuckets, liveSelectTableBuckets);
+    }
+
+    private void removeSelectOrdinal(long matchBucket, int selectOrdinal) {
+        long matchBucketBit = matchBucket * bitsPerMatchHashEntry;
+        int selectSize = getSelectTableSize(matchBucketBit);
+        long selectPointer = getSelectTablePointer(matchBucketBit);
+        int selectBuckets = HashCodes.hashTableSize(selectSize);
+        int selectBucketMask = selectBuckets - 1;
+
+        int selectBucket = HashCodes.hashInt(selectOrdinal) & selectBucketMask;
+        int bucketOrdinal = getSelectOrdinal(selectPointer + selectBucket);
+        while(bucketOrdinal != selectOrdinal) {
+            if(bucketOrdinal == HollowConstants.ORDINAL_NONE)
+                return;
+            selectBucket = (selectBucket + 1) & selectBucketMask;
+            bucketOrdinal = getSelectOrdinal(selectPointer + selectBucket);
+        }
+
+        int newSelectSize = selectSize - 1;
+        int newSelectBuckets = HashCodes.hashTableSize(newSelectSize);
+
+        if(newSelectSize == 0) {
+            clearSelectOrdinal(selectPointer + selectBucket);
+            liveSelectTableBuckets -= selectBuckets;
+            removeMatch(matchBucket);
+            matchCount--;
+            return;
+        }
+
+        if(newSelectBuckets == selectBuckets) {
+            /// backward shift deletion, so that no probe sequence is broken by the emptied bucket
+            clearSelectOrdinal(selectPointer + selectBucket);
+            int emptyBucket = selectBucket;
+            selectBucket = (selectBucket + 1) & selectBucketMask;
+            int moveOrdinal = getSelectOrdinal(selectPointer + selectBucket);
+            while(moveOrdinal != HollowConstants.ORDINAL_NONE) {
+                int naturalBucket = HashCodes.hashInt(moveOrdinal) & selectBucketMask;
+                if(!bucketInRange(emptyBucket, selectBucket, naturalBucket)) {
+                    setSelectOrdinal(selectPointer + emptyBucket, moveOrdinal);
+                    clearSelectOrdinal(selectPointer + selectBucket);
+                    emptyBucket = selectBucket;
+                }
+                selectBucket = (selectBucket + 1) & selectBucketMask;
+                moveOrdinal = getSelectOrdinal(selectPointer + selectBucket);
+            }
+        } else {
+            /// the select table shrinks in place; the tail of its buckets is abandoned
+            clearSelectOrdinal(selectPointer + selectBucket);
+            int[] remainingOrdinals = drainSelectTable(selectPointer, selectBuckets, newSelectSize);
+            fillSelectTable(selectPointer, newSelectBuckets, remainingOrdinals, remainingOrdinals.length);
+            liveSelectTableBuckets -= selectBuckets - newSelectBuckets;
+        }
+
+        matchHashTable.clearElementValue(matchBucketBit + bitsPerMatchHashKey, bitsPerSelectTableSize);
+        matchHashTable.setElementValue(matchBucketBit + bitsPerMatchHashKey, bitsPerSelectTableSize, newSelectSize);
+
+        if(!isMatchKeyPopulated(matchBucketBit))
+            repointMatchKey(matchBucketBit, selectPointer, newSelectBuckets);
+    }
+
+    private boolean addSelectOrdinal(long matchBucket, int selectOrdinal) {
+        long matchBucketBit = matchBucket * bitsPerMatchHashEntry;
+        int selectSize = getSelectTableSize(matchBucketBit);
+        long selectPointer = getSelectTablePointer(matchBucketBit);
+        int selectBuckets = HashCodes.hashTableSize(selectSize);
+        int selectBucketMask = selectBuckets - 1;
+
+        int selectBucket = HashCodes.hashInt(selectOrdinal) & selectBucketMask;
+        int bucketOrdinal = getSelectOrdinal(selectPointer + selectBucket);
+        while(bucketOrdinal != HollowConstants.ORDINAL_NONE) {
+            if(bucketOrdinal == selectOrdinal)
+                return true;
+            selectBucket = (selectBucket + 1) & selectBucketMask;
+            bucketOrdinal = getSelectOrdinal(selectPointer + selectBucket);
+        }
+
+        int newSelectSize = selectSize + 1;
+        if(bitsRequiredToRepresentValue(newSelectSize) > bitsPerSelectTableSize)
+            return false;
+
+        int newSelectBuckets = HashCodes.hashTableSize(newSelectSize);
+        if(newSelectBuckets == selectBuckets) {
+            setSelectOrdinal(selectPointer + selectBucket, selectOrdinal);
+        } else {
+            /// the select table outgrew its buckets, relocate it to the end of the select array
+            long newSelectPointer = allocateSelectTable(newSelectBuckets);
+            if(newSelectPointer == -1)
+                return false;
+
+            int[] ordinals = drainSelectTable(selectPointer, selectBuckets, newSelectSize);
+            ordinals[selectSize] = selectOrdinal;
+            fillSelectTable(newSelectPointer, newSelectBuckets, ordinals, newSelectSize);
+            liveSelectTableBuckets -= selectBuckets;
+
+            matchHashTable.clearElementValue(matchBucketBit + bitsPerMatchHashKey + bitsPerSelectTableSize, bitsPerSelectTablePointer);
+            matchHashTable.setElementValue(matchBucketBit + bitsPerMatchHashKey + bitsPerSelectTableSize, bitsPerSelectTablePointer, newSelectPointer);
+        }
+
+        matchHashTable.clearElementValue(matchBucketBit + bitsPerMatchHashKey, bitsPerSelectTableSize);
+        matchHashTable.setElementValue(matchBucketBit + bitsPerMatchHashKey, bitsPerSelectTableSize, newSelectSize);
+        return true;
+    }
+
+    private boolean addMatch(int matchIdx, int matchHash, int selectOrdinal) {
+        if(HashCodes.hashTableSize(matchCount + 1) > matchHashMask + 1)
+            return false;
+
+        long selectPointer = allocateSelectTable(HashCodes.hashTableSize(1));
+        if(selectPointer == -1)
+            return false;
+        fillSelectTable(selectPointer, HashCodes.hashTableSize(1), new int[] { selectOrdinal }, 1);
+
+        long matchBucket = matchHash & matchHashMask;
+        long matchBucketBit = matchBucket * bitsPerMatchHashEntry;
+        while(!isMatchBucketEmpty(matchBucketBit)) {
+            matchBucket = (matchBucket + 1) & matchHashMask;
+            matchBucketBit = matchBucket * bitsPerMatchHashEntry;
+        }
+
+        setMatchKey(matchBucketBit, traverser, matchIdx);
+        matchHashTable.setElementValue(matchBucketBit + bitsPerMatchHashKey, bitsPerSelectTableSize, 1);
+        matchHashTable.setElementValue(matchBucketBit + bitsPerMatchHashKey + bitsPerSelectTableSize, bitsPerSelectTablePointer, selectPointer);
+        matchCount++;
+        return true;
+    }
+
+    /**
+     * Remove the match in the given bucket, shifting back any subsequent matches in its probe sequence.
+     */
+    private void removeMatch(long matchBucket) {
+        clearMatchBucket(matchBucket * bitsPerMatchHashEntry);
+
+        long emptyBucket = matchBucket;
+        long bucket = (matchBucket + 1) & matchHashMask;
+        while(!isMatchBucketEmpty(bucket * bitsPerMatchHashEntry)) {
+            long naturalBucket = getStoredMatchHash(bucket * bitsPerMatchHashEntry) & matchHashMask;
+            if(!bucketInRange(emptyBucket, bucket, naturalBucket)) {
+                matchHashTable.copyBits(matchHashTable, bucket * bitsPerMatchHashEntry, emptyBucket * bitsPerMatchHashEntry, bitsPerMatchHashEntry);
+                clearMatchBucket(bucket * bitsPerMatchHashEntry);
+                emptyBucket = bucket;
+            }
+            bucket = (bucket + 1) & matchHashMask;
+        }
+    }
+
+    /**
+     * The key of a match is the ordinals visited by the first record which produced it.  If the records referenced
+     * by those ordinals were removed, their data will not survive the next delta, so the key is replaced with the
+     * ordinals visited by a remaining record with the same match.
+     */
+    private void repointMatchKey(long matchBucketBit, long selectPointer, int selectBuckets) {
+        int selectOrdinal = HollowConstants.ORDINAL_NONE;
+        for(int i=0;i<selectBuckets && selectOrdinal == HollowConstants.ORDINAL_NONE;i++) {
+            int bucketOrdinal = getSelectOrdinal(selectPointer + i);
+            if(bucketOrdinal != HollowConstants.ORDINAL_NONE && populatedSelectOrdinals.get(bucketOrdinal))
+                selectOrdinal = bucketOrdinal;
+        }
+
+        /// the remaining records are pending removal later in this delta
+        if(selectOrdinal == HollowConstants.ORDINAL_NONE)
+            return;
+
+        repointTraverser.traverse(selectOrdinal);
+        for(int i=0;i<repointTraverser.getNumMatches();i++) {
+            if(matchIsEqual(repointTraverser, i, matchBucketBit)) {
+                for(int j=0;j<preindexer.getNumMatchTraverserFields();j++)
+                    matchHashTable.clearElementValue(matchBucketBit + offsetPerTraverserField[j], bitsPerTraverserField[j]);
+                setMatchKey(matchBucketBit, repointTraverser, i);
+                return;
+            }
+        }
+
+        throw new IllegalStateException("Selected ordinal " + selectOrdinal + " does not produce the match it was selected by");
+    }
+
+    private boolean isMatchKeyPopulated(long matchBucketBit) {
+        for(int i=0;i<populatedOrdinalsPerTraverserField.length;i++) {
+            int ordinal = (int)matchHashTable.getElementValue(matchBucketBit + offsetPerTraverserField[i], bitsPerTraverserField[i]) - 1;
+            if(ordinal != HollowConstants.ORDINAL_NONE && !populatedOrdinalsPerTraverserField[i].get(ordinal))
+                return false;
+        }
+        return true;
+    }
+
+    private void setMatchKey(long matchBucketBit, HollowIndexerValueTraverser traverser, int matchIdx) {
+        for(int i=0;i<preindexer.getNumMatchTraverserFields();i++)
+            matchHashTable.setElementValue(matchBucketBit + offsetPerTraverserField[i], bitsPerTraverserField[i], traverser.getMatchOrdinal(matchIdx, i) + 1);
+    }
+
+    private long findMatchBucket(HollowIndexerValueTraverser traverser, int matchIdx, int matchHash) {
+        long bucket = matchHash & matchHashMask;
+        long bucketBit = bucket * bitsPerMatchHashEntry;
+        while(!isMatchBucketEmpty(bucketBit)) {
+            if(matchIsEqual(traverser, matchIdx, bucketBit))
+                return bucket;
+            bucket = (bucket + 1) & matchHashMask;
+            bucketBit = bucket * bitsPerMatchHashEntry;
+        }
+        return -1;
+    }
+
+    private boolean isMatchBucketEmpty(long matchBucketBit) {
+        return matchHashTable.getElementValue(matchBucketBit, bitsPerTraverserField[0]) == 0;
+    }
+
+    private void clearMatchBucket(long matchBucketBit) {
+        for(int bit=0;bit<bitsPerMatchHashEntry;bit+=56)
+            matchHashTable.clearElementValue(matchBucketBit + bit, Math.min(56, bitsPerMatchHashEntry - bit));
+    }
+
+    private int getSelectTableSize(long matchBucketBit) {
+        return (int)matchHashTable.getElementValue(matchBucketBit + bitsPerMatchHashKey, bitsPerSelectTableSize);
+    }
+
+    private long getSelectTablePointer(long matchBucketBit) {
+        return matchHashTable.getElementValue(matchBucketBit + bitsPerMatchHashKey + bitsPerSelectTableSize, bitsPerSelectTablePointer);
+    }
+
+    /**
+     * @return the pointer to the newly allocated buckets at the end of the select array, or -1 if the pointer cannot be represented.
+     */
+    private long allocateSelectTable(int buckets) {
+        long selectPointer = selectTableBuckets;
+        if(bitsRequiredToRepresentValue(selectPointer) > bitsPerSelectTablePointer)
+            return -1;
+
+        long requiredCapacity = selectPointer + buckets;
+        if(requiredCapacity > selectHashArrayCapacity) {
+            long newCapacity = Math.max(requiredCapacity, selectHashArrayCapacity + (selectHashArrayCapacity >>> 1));
+            selectHashArray = selectHashArray.grow(newCapacity * bitsPerSelectHashEntry);
+            selectHashArrayCapacity = newCapacity;
+        }
+
+        selectTableBuckets += buckets;
+        liveSelectTableBuckets += buckets;
+        return selectPointer;
+    }
+
+    /**
+     * Clear the select table buckets and return their ordinals in an array of the given capacity.
+     */
+    private int[] drainSelectTable(long selectPointer, int selectBuckets, int capacity) {
+        int[] ordinals = new int[capacity];
+        int numOrdinals = 0;
+        for(int i=0;i<selectBuckets;i++) {
+            int ordinal = getSelectOrdinal(selectPointer + i);
+            if(ordinal != HollowConstants.ORDINAL_NONE) {
+                ordinals[numOrdinals++] = ordinal;
+                clearSelectOrdinal(selectPointer + i);
+            }
+        }
+        return ordinals;
+    }
+
+    private void fillSelectTable(long selectPointer, int selectBuckets, int[] ordinals, int numOrdinals) {
+        int selectBucketMask = selectBuckets - 1;
+        for(int i=0;i<numOrdinals;i++) {
+            int selectBucket = HashCodes.hashInt(ordinals[i]) & selectBucketMask;
+            while(getSelectOrdinal(selectPointer + selectBucket) != HollowConstants.ORDINAL_NONE)
+                selectBucket = (selectBucket + 1) & selectBucketMask;
+            setSelectOrdinal(selectPointer + selectBucket, ordinals[i]);
+        }
+    }
+
+    private int getSelectOrdinal(long selectBucket) {
+        return (int)selectHashArray.getElementValue(selectBucket * bitsPerSelectHashEntry, bitsPerSelectHashEntry) - 1;
+    }
+
+    private void setSelectOrdinal(long selectBucket, int ordinal) {
+        selectHashArray.setElementValue(selectBucket * bitsPerSelectHashEntry, bitsPerSelectHashEntry, ordinal + 1);
+    }
+
+    private void clearSelectOrdinal(long selectBucket) {
+        selectHashArray.clearElementValue(selectBucket * bitsPerSelectHashEntry, bitsPerSelectHashEntry);
+    }
+
+    private boolean bucketInRange(long fromBucket, long toBucket, long testBucket) {
+        if(toBucket > fromBucket) {
+            return testBucket > fromBucket && testBucket <= toBucket;
+        } else {
+            return testBucket > fromBucket || testBucket <= toBucket;
+        }
+    }
+
+    private boolean matchIsEqual(HollowIndexerValueTraverser traverser, int matchIdx, long matchBucketBit) {
+        for(int i=0;i<preindexer.getMatchFieldSpecs().length;i++) {
+            HollowHashIndexField field = preindexer.getMatchFieldSpecs()[i];
+            int matchOrdinal = traverser.getMatchOrdinal(matchIdx, field.getBaseIteratorFieldIdx());
+            int hashOrdinal = (int)matchHashTable.getElementValue(matchBucketBit + offsetPerTraverserField[field.getBaseIteratorFieldIdx()], bitsPerTraverserField[field.getBaseIteratorFieldIdx()]) - 1;
+
+            HollowTypeReadState readState = field.getBaseDataAccess();
+            int[] fieldPath = field.getSchemaFieldPositionPath();
+
+            if(fieldPath.length == 0) {
+                if(matchOrdinal != hashOrdinal)
+                    return false;
+            } else {
+                for(int j=0;j<fieldPath.length - 1;j++) {
+                    HollowObjectTypeReadState objectAccess = (HollowObjectTypeReadState)readState;
+                    readState = objectAccess.getSchema().getReferencedTypeState(fieldPath[j]);
+                    if(matchOrdinal != HollowConstants.ORDINAL_NONE) {
+                        matchOrdinal = objectAccess.readOrdinal(matchOrdinal, fieldPath[j]);
+                    }
+                    if(hashOrdinal != HollowConstants.ORDINAL_NONE) {
+                        hashOrdinal = objectAccess.readOrdinal(hashOrdinal, fieldPath[j]);
+                    }
+                }
+
+                if(matchOrdinal != hashOrdinal) {
+                    HollowObjectTypeReadState objectAccess = (HollowObjectTypeReadState)readState;
+                    int fieldIdx = fieldPath[fieldPath.length-1];
+                    if(matchOrdinal == HollowConstants.ORDINAL_NONE || hashOrdinal == HollowConstants.ORDINAL_NONE
+                            || !HollowReadFieldUtils.fieldsAreEqual(objectAccess, matchOrdinal, fieldIdx, objectAccess, hashOrdinal, fieldIdx))
+                        return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private int getMatchHash(HollowIndexerValueTraverser traverser, int matchIdx) {
+        int matchHash = 0;
+
+        for(int i=0;i<preindexer.getMatchFieldSpecs().length;i++) {
+            HollowHashIndexField field = preindexer.getMatchFieldSpecs()[i];
+            int ordinal = traverser.getMatchOrdinal(matchIdx, field.getBaseIteratorFieldIdx());
+            matchHash ^= fieldHash(field, ordinal);
+        }
+
+        return matchHash;
+    }
+
+    private int getStoredMatchHash(long matchBucketBit) {
+        int matchHash = 0;
+
+        for(int i=0;i<preindexer.getMatchFieldSpecs().length;i++) {
+            HollowHashIndexField field = preindexer.getMatchFieldSpecs()[i];
+            int ordinal = (int)matchHashTable.getElementValue(matchBucketBit + offsetPerTraverserField[field.getBaseIteratorFieldIdx()], bitsPerTraverserField[field.getBaseIteratorFieldIdx()]) - 1;
+            matchHash ^= fieldHash(field, ordinal);
+        }
+
+        return matchHash;
+    }
+
+    private int fieldHash(HollowHashIndexField field, int ordinal) {
+        HollowTypeReadState readState = field.getBaseDataAccess();
+        int[] fieldPath = field.getSchemaFieldPositionPath();
+
+        if(fieldPath.length == 0)
+            return HashCodes.hashInt(ordinal);
+
+        for(int j=0;j<fieldPath.length-1;j++) {
+            HollowObjectTypeReadState objectAccess = (HollowObjectTypeReadState)readState;
+            readState = objectAccess.getSchema().getReferencedTypeState(fieldPath[j]);
+            ordinal = objectAccess.readOrdinal(ordinal, fieldPath[j]);
+            // Cannot find nested ordinal for null parent
+            if(ordinal == HollowConstants.ORDINAL_NONE) {
+                break;
+            }
+        }
+
+        int fieldHashCode = ordinal == HollowConstants.ORDINAL_NONE ? HollowConstants.ORDINAL_NONE : HollowReadFieldUtils.fieldHashCode((HollowObjectTypeDataAccess) readState, ordinal, fieldPath[fieldPath.length-1]);
+        return HashCodes.hashInt(fieldHashCode);
+    }
+
+    private static BitSet populatedOrdinals(HollowTypeReadState typeState) {
+        PopulatedOrdinalListener listener = typeState.getListener(PopulatedOrdinalListener.class);
+        return listener == null ? null : listener.getPopulatedOrdinals();
+    }
+}
@@ -18,8 +18,6 @@ package com.netflix.hollow.core.index;
 
 import static java.util.Objects.requireNonNull;
 
-import com.netflix.hollow.core.memory.encoding.FixedLengthElementArray;
-import com.netflix.hollow.core.memory.encoding.FixedLengthMultipleOccurrenceElementArray;
 import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
 import com.netflix.hollow.core.memory.pool.WastefulRecycler;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
@@ -27,32 +25,38 @@ import com.netflix.hollow.core.read.engine.HollowTypeStateListener;
 import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
 import com.netflix.hollow.core.read.iterator.HollowOrdinalIterator;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
-import java.util.ArrayDeque;
+import com.netflix.hollow.core.util.IntList;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Queue;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * This class builds a prefix index. A prefix index can be used to build applications like auto-complete, spell checker.
+ * <p>
+ * The index is a character trie encoded in fixed length element arrays.  When listening for delta updates, the index
+ * is updated with the keys of the added and removed ordinals rather than rebuilt.  Two copies of the trie are then
+ * kept: queries are served by one copy while the other is brought up to date with the changes of the last two updates,
+ * after which the copies are swapped.  A copy is only brought up to date once the queries which were reading it have
+ * completed.
  */
 public class HollowPrefixIndex implements HollowTypeStateListener {
 
     private final FieldPath fieldPath;
     private final HollowReadStateEngine readStateEngine;
     private final String type;
-    private final int estimatedMaxStringDuplicates;
 
-    private volatile TST prefixIndexVolatile;
+    private volatile PrefixTrie prefixIndexVolatile;
     private ArraySegmentRecycler memoryRecycle;
 
-    private int totalWords;
-    private int averageWordLen;
-    private int maxOrdinalOfType;
+    // the copy of the trie which is not serving queries, and the changes of the last update which it is missing
+    private PrefixTrie standbyPrefixIndex;
+    private Changes standbyPendingChanges;
 
-    private boolean buildIndexOnUpdate;
+    private final BitSet addedOrdinals;
+    private final BitSet removedOrdinals;
 
     /**
      * This constructor defaults the estimatedMaxStringDuplicates to 4. If you expect a large
@@ -82,7 +86,8 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
      * @param estimatedMaxStringDuplicates The estimated number of strings that are duplicated
      *                                     across instances of your type. Note that this means an
      *                                     exactly matching string, not a prefix match. This
-     *                                     parameter affects the efficiency of the index building.
+     *                                     parameter affects the initial size of the index, which
+     *                                     grows as needed.
      */
     @SuppressWarnings("WeakerAccess")
     public HollowPrefixIndex(HollowReadStateEngine readStateEngine, String type, String fieldPath,
@@ -99,25 +104,24 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
 
         this.readStateEngine = readStateEngine;
         this.type = type;
-        this.estimatedMaxStringDuplicates = estimatedMaxStringDuplicates;
         this.fieldPath = new FieldPath(readStateEngine, type, fieldPath);
         if (!this.fieldPath.getLastFieldType().equals(HollowObjectSchema.FieldType.STRING))
             throw new IllegalArgumentException("Field path should lead to a string type");
 
         // create memory recycle for using shared memory pools.
         memoryRecycle = WastefulRecycler.DEFAULT_INSTANCE;
-        buildIndexOnUpdate = true;
-        initialize();
+        addedOrdinals = new BitSet();
+        removedOrdinals = new BitSet();
+        initialize(estimatedMaxStringDuplicates);
     }
 
-    // initialize field positions and field paths.
-    private void initialize() {
+    // estimate the size of the index, and build it.
+    private void initialize(int estimatedMaxStringDuplicates) {
 
         String lastRefType = this.fieldPath.getLastRefTypeInPath();
 
         // get all cardinality to estimate size of array bits needed.
-        totalWords = readStateEngine.getTypeState(lastRefType).getPopulatedOrdinals().cardinality();
-        averageWordLen = 0;
+        int totalWords = readStateEngine.getTypeState(lastRefType).getPopulatedOrdinals().cardinality();
         double avg = 0;
         HollowObjectTypeReadState objectTypeReadState = (HollowObjectTypeReadState) readStateEngine.getTypeState(lastRefType);
         BitSet keyBitSet = objectTypeReadState.getPopulatedOrdinals();
@@ -126,44 +130,32 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
             avg += ((double) objectTypeReadState.readString(ordinal, 0).length()) / ((double) objectTypeReadState.maxOrdinal());
             ordinal = keyBitSet.nextSetBit(ordinal + 1);
         }
-        averageWordLen = (int) Math.ceil(avg);
+        int averageWordLen = (int) Math.ceil(avg);
 
         HollowObjectTypeReadState valueState = (HollowObjectTypeReadState) readStateEngine.getTypeDataAccess(type);
-        maxOrdinalOfType = valueState.maxOrdinal();
+        int numRecords = valueState.getPopulatedOrdinals().cardinality();
 
-        // initialize the prefix index.
-        build();
-    }
-
-    private void build() {
+        // the index holds an entry for each key of each record
+        long estimatedNumEntries = Math.min((long) totalWords * estimatedMaxStringDuplicates, Math.max(totalWords, numRecords));
+        PrefixTrie trie = new PrefixTrie(memoryRecycle, estimateNumNodes(totalWords, averageWordLen),
+                estimatedNumEntries, valueState.maxOrdinal());
 
-        if (!buildIndexOnUpdate) return;
-        // tell memory recycler to use current tst's long arrays next time when long array is requested.
-        // note reuse only happens once swap is called and bits are reset
-        TST current = prefixIndexVolatile;
-        if (current != null) current.recycleMemory(memoryRecycle);
-
-        long estimatedNumberOfNodes = estimateNumNodes(totalWords, averageWordLen);
-        TST tst = new TST(estimatedNumberOfNodes, estimatedMaxStringDuplicates, maxOrdinalOfType,
-                memoryRecycle);
-        BitSet ordinals = readStateEngine.getTypeState(type).getPopulatedOrdinals();
-        int ordinal = ordinals.nextSetBit(0);
+        BitSet ordinals = valueState.getPopulatedOrdinals();
+        ordinal = ordinals.nextSetBit(0);
         while (ordinal != -1) {
-            for (String key : getKeys(ordinal)) {
-                tst.insert(key, ordinal);
+            for (String key : getDistinctKeys(ordinal)) {
+                trie.insert(key, ordinal);
             }
             ordinal = ordinals.nextSetBit(ordinal + 1);
         }
 
-        prefixIndexVolatile = tst;
-        // safe to return previous long arrays on next request for long array.
-        memoryRecycle.swap();
-        buildIndexOnUpdate = false;
+        prefixIndexVolatile = trie;
     }
 
     /**
      * Estimates the total number of nodes that will required to create the index.
      * Override this method if lower/higher estimate is needed compared to the default implementation.
+     * The index grows as needed if the estimate is exceeded.
      *
      * @param totalWords the total number of words
      * @param averageWordLen the average word length
@@ -181,6 +173,9 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
      *     String[] tokens = keys[0].split(" ")
      *     return tokens;
      * }</pre>
+     * <p>
+     * When listening for delta updates, this method is also invoked for removed ordinals, and must return the same
+     * keys as it did when the ordinal was added.
      *
      * @param ordinal ordinal of the parent type.
      * @return keys to index.
@@ -194,6 +189,13 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
         return stringValues;
     }
 
+    private Set<String> getDistinctKeys(int ordinal) {
+        String[] keys = getKeys(ordinal);
+        Set<String> distinctKeys = new HashSet<>(keys.length);
+        Collections.addAll(distinctKeys, keys);
+        return distinctKeys;
+    }
+
     /**
      * Query the index to find all the ordinals that match the given prefix. Example -
      * <pre>{@code
@@ -205,19 +207,51 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
      * }</pre>
      * <p>
      * For larger data sets, querying smaller prefixes will be longer than querying for prefixes that are longer.
+     * Use {@link #findKeysWithPrefix(String, int)} to bound the cost of such queries.
      *
      * @param prefix findKeysWithPrefix prefix.
      * @return An instance of HollowOrdinalIterator to iterate over ordinals that match the given findKeysWithPrefix.
      */
     @SuppressWarnings("WeakerAccess")
     public HollowOrdinalIterator findKeysWithPrefix(String prefix) {
-        TST current;
-        HollowOrdinalIterator it;
-        do {
-            current = prefixIndexVolatile;
-            it = current.findKeysWithPrefix(prefix);
-        } while (current != this.prefixIndexVolatile);
-        return it;
+        return findKeysWithPrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Query the index to find the ordinals of the first keys, in key order, that match the given prefix.  The trie is
+     * traversed only until {@code maxOrdinals} distinct ordinals have been found, so the cost of the query is bounded
+     * by the number of ordinals requested rather than by the number of keys that match the prefix.
+     * <p>
+     * Keys are ordered by character, so a key is ordered before any longer key of which it is a prefix.  The
+     * ordinals of records with the same key are returned in no particular order.
+     *
+     * @param prefix the prefix
+     * @param maxOrdinals the maximum number of ordinals to return
+     * @return An instance of HollowOrdinalIterator to iterate over at most maxOrdinals ordinals that match the given
+     * prefix, in key order.
+     */
+    public HollowOrdinalIterator findKeysWithPrefix(String prefix, int maxOrdinals) {
+        if (prefix == null) throw new IllegalArgumentException("Cannot findKeysWithPrefix null prefix");
+        if (maxOrdinals < 0) throw new IllegalArgumentException("maxOrdinals cannot be < 0");
+        String key = prefix.toLowerCase();
+
+        PrefixTrie current = acquireTrie();
+        final int[] result;
+        try {
+            result = current.findOrdinals(key, maxOrdinals);
+        } finally {
+            current.readers.decrementAndGet();
+        }
+
+        return new HollowOrdinalIterator() {
+            private int i = 0;
+
+            @Override
+            public int next() {
+                if (i < result.length) return result[i++];
+                return NO_MORE_ORDINALS;
+            }
+        };
     }
 
     /**
@@ -228,19 +262,34 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
      */
     public boolean contains(String key) {
         if (key == null) throw new IllegalArgumentException("key cannot be null");
-        TST current;
-        boolean result;
-        do {
-            current = prefixIndexVolatile;
-            result = current.contains(key);
-        } while (current != this.prefixIndexVolatile);
-        return result;
+        PrefixTrie current = acquireTrie();
+        try {
+            return current.contains(key);
+        } finally {
+            current.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Register a query as a reader of the trie serving queries.  The caller must decrement the trie's readers once
+     * the query completes.  A reader is only registered with a trie which is still serving queries after the
+     * registration, so once a trie which has been swapped out has no readers, no query can read it.
+     */
+    PrefixTrie acquireTrie() {
+        while (true) {
+            PrefixTrie current = prefixIndexVolatile;
+            current.readers.incrementAndGet();
+            if (current == prefixIndexVolatile)
+                return current;
+            current.readers.decrementAndGet();
+        }
     }
 
     /**
      * Use this method to keep the index updated with delta changes on the read state engine.
      * Remember to call detachFromDeltaUpdates to stop the delta changes.
-     * NOTE: Each delta updates creates a new prefix index and swaps the new with current.
+     * NOTE: While listening for delta updates the index keeps a second copy of its trie, which is updated with the
+     * changes of each delta and then swapped with the copy serving queries.
      */
     @SuppressWarnings("WeakerAccess")
     public void listenForDeltaUpdates() {
@@ -253,254 +302,83 @@ public class HollowPrefixIndex implements HollowTypeStateListener {
     @SuppressWarnings("WeakerAccess")
     public void detachFromDeltaUpdates() {
         readStateEngine.getTypeState(type).removeListener(this);
+        standbyPrefixIndex = null;
+        standbyPendingChanges = null;
     }
 
     @Override
     public void beginUpdate() {
-        // before delta is applied -> no action to be taken
+        addedOrdinals.clear();
+        removedOrdinals.clear();
     }
 
     @Override
     public void addedOrdinal(int ordinal) {
-        buildIndexOnUpdate = true;
+        addedOrdinals.set(ordinal);
     }
 
     @Override
     public void removedOrdinal(int ordinal) {
-        buildIndexOnUpdate = true;
+        removedOrdinals.set(ordinal);
     }
 
     @Override
     public void endUpdate() {
-        // pass 1 for delta support - rebuild the tree and swap the new tree with the one that is serving the queries.
-        // next pass -  improve the index build time or add support for remove method.
-        initialize();
-    }
-
-    private static class TST {
-
-        private enum NodeType {
-            Left, Right, Middle
-        }
-
-        // each node segment can be thought of as 16 bit key and bits to hold index of its children
-        private int bitsPerNode;
-        private int bitsPerKey;
-        private int bitsForChildPointer;
-        private int bitsPerOrdinal;
-
-        // helper offsets
-        private long leftChildOffset;
-        private long middleChildOffset;
-        private long rightChildOffset;
-        private long isLeafNodeFlagOffset;
-
-        private long maxNodes;
-        private FixedLengthElementArray nodes;
-        private FixedLengthMultipleOccurrenceElementArray ordinalSet;
-        private long indexTracker;
-
-        /**
-         * Create new prefix index. Represents a ternary search tree.
-         *
-         * @param estimatedNumNodes estimate number of max nodes that will created.
-         * @param estimatedMaxStringDuplicates estimated number string duplicates across all nodes
-         * @param maxOrdinalValue  max ordinal that can be referenced
-         * @param memoryRecycler   to reuse arrays from memory pool
-         */
-        private TST(long estimatedNumNodes, int estimatedMaxStringDuplicates, int maxOrdinalValue,
-                ArraySegmentRecycler memoryRecycler) {
-
-            // best guess
-            maxNodes = estimatedNumNodes;
-
-            // bits for pointers in a single node:
-            bitsPerKey = 16;// key
-            bitsForChildPointer = 64 - Long.numberOfLeadingZeros(maxNodes);// a child pointer
-            bitsPerOrdinal = maxOrdinalValue == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(maxOrdinalValue);
-
-            // bits to represent one node
-            bitsPerNode = bitsPerKey + (3 * bitsForChildPointer) + 1;
-
-            nodes = new FixedLengthElementArray(memoryRecycler, bitsPerNode * maxNodes);
-            ordinalSet = new FixedLengthMultipleOccurrenceElementArray(memoryRecycler,
-                    maxNodes, bitsPerOrdinal, estimatedMaxStringDuplicates);
-            indexTracker = 0;
-
-            // initialize offsets
-            leftChildOffset = bitsPerKey;// after first 16 bits in node is first left child offset.
-            middleChildOffset = leftChildOffset + bitsForChildPointer;
-            rightChildOffset = middleChildOffset + bitsForChildPointer;
-            isLeafNodeFlagOffset = rightChildOffset + bitsForChildPointer;
-        }
-
-        // tell memory recycler to use these long array on next long array request from memory ONLY AFTER swap is called on memory recycler
-        private void recycleMemory(ArraySegmentRecycler memoryRecycler) {
-            nodes.destroy(memoryRecycler);
-            ordinalSet.destroy();
-        }
-
-        private long getChildOffset(NodeType nodeType) {
-            long offset;
-            if (nodeType.equals(NodeType.Left)) offset = leftChildOffset;
-            else if (nodeType.equals(NodeType.Middle)) offset = middleChildOffset;
-            else offset = rightChildOffset;
-            return offset;
-        }
-
-        private long getChildIndex(long currentNode, NodeType nodeType) {
-            long offset = getChildOffset(nodeType);
-            return nodes.getElementValue((currentNode * bitsPerNode) + offset, bitsForChildPointer);
-        }
-
-        private void setChildIndex(long currentNode, NodeType nodeType, long indexForNode) {
-            long offset = getChildOffset(nodeType);
-            nodes.setElementValue((currentNode * bitsPerNode) + offset, bitsForChildPointer, indexForNode);
-        }
-
-        private void setKey(long index, char ch) {
-            nodes.setElementValue(index * bitsPerNode, bitsPerKey, ch);
-        }
-
-        private long getKey(long nodeIndex) {
-            return nodes.getElementValue(nodeIndex * bitsPerNode, bitsPerKey);
-        }
-
-        private boolean isLeafNode(long nodeIndex) {
-            return nodes.getElementValue((nodeIndex * bitsPerNode) + isLeafNodeFlagOffset, 1) == 1;
-        }
-
-        private void addOrdinal(long nodeIndex, long ordinal) {
-            ordinalSet.addElement(nodeIndex, ordinal);
-            nodes.setElementValue((nodeIndex * bitsPerNode) + isLeafNodeFlagOffset, 1, 1);
-        }
-
-        private Set<Integer> getOrdinals(long nodeIndex) {
-            return ordinalSet.getElements(nodeIndex).stream()
-                    .map(Long::intValue).collect(Collectors.toSet());
+        // the keys of removed ordinals are read now, while the removed records are still present in the type state.
+        Changes changes = new Changes();
+
+        PrefixTrie standby = standbyPrefixIndex;
+        if (standby == null) {
+            standby = prefixIndexVolatile.copy();
+        } else {
+            // the standby copy last served queries before the previous update, so wait for queries which were
+            // still reading it to complete before modifying it.
+            while (standby.readers.get() != 0)
+                Thread.yield();
+            // it is missing the previous update's changes.
+            if (standbyPendingChanges != null)
+                standbyPendingChanges.applyTo(standby);
         }
+        changes.applyTo(standby);
 
-        /**
-         * Insert into ternary search tree for the given key and ordinal.
-         */
-        private void insert(String key, int ordinal) {
-            if (key == null) throw new IllegalArgumentException("Null key cannot be indexed");
-            long currentNodeIndex = 0;
-            int keyIndex = 0;
-
-            while (keyIndex < key.length()) {
-
-                char ch = key.charAt(keyIndex);
-                if (getKey(currentNodeIndex) == 0) {
-                    setKey(currentNodeIndex, ch);
-                    indexTracker++;
-                    if (indexTracker >= maxNodes)
-                        throw new IllegalStateException("Index Tracker reached max capacity. Try with larger estimate of number of nodes");
-                }
-
-                long keyAtCurrentNode = getKey(currentNodeIndex);
-                if (ch < keyAtCurrentNode) {
-                    long leftIndex = getChildIndex(currentNodeIndex, NodeType.Left);
-                    if (leftIndex == 0) leftIndex = indexTracker;
-                    setChildIndex(currentNodeIndex, NodeType.Left, leftIndex);
-                    currentNodeIndex = leftIndex;
-                } else if (ch > keyAtCurrentNode) {
-                    long rightIndex = getChildIndex(currentNodeIndex, NodeType.Right);
-                    if (rightIndex == 0) rightIndex = indexTracker;
-                    setChildIndex(currentNodeIndex, NodeType.Right, rightIndex);
-                    currentNodeIndex = rightIndex;
-                } else {
-                    keyIndex++;
-                    if (keyIndex < key.length()) {
-                        long midIndex = getChildIndex(currentNodeIndex, NodeType.Middle);
-                        if (midIndex == 0) midIndex = indexTracker;
-                        setChildIndex(currentNodeIndex, NodeType.Middle, midIndex);
-                        currentNodeIndex = midIndex;
-                    }
-                }
-            }
-            addOrdinal(currentNodeIndex, ordinal);
-        }
+        standbyPrefixIndex = prefixIndexVolatile;
+        standbyPendingChanges = changes;
+        prefixIndexVolatile = standby;
+    }
 
-        /**
-         * This functions checks if the given key exists in the trie.
-         *
-         * @return index of the node that findNodeWithKey the last character of the key, if not found then returns -1.
-         */
-        private long findNodeWithKey(String key) {
-            long index = -1;
-
-            boolean atRoot = true;
-            long currentNodeIndex = 0;
-            int keyIndex = 0;
-
-            while (true) {
-                if (currentNodeIndex == 0 && !atRoot) break;
-                long currentValue = getKey(currentNodeIndex);
-                char ch = key.charAt(keyIndex);
-                if (ch < currentValue) currentNodeIndex = getChildIndex(currentNodeIndex, NodeType.Left);
-                else if (ch > currentValue) currentNodeIndex = getChildIndex(currentNodeIndex, NodeType.Right);
-                else {
-                    if (keyIndex == (key.length() - 1)) {
-                        index = currentNodeIndex;
-                        break;
-                    }
-                    currentNodeIndex = getChildIndex(currentNodeIndex, NodeType.Middle);
-                    keyIndex++;
+    /**
+     * The keys of the ordinals added and removed by an update.
+     */
+    private class Changes {
+        private final BitSet removed;
+        private final List<String> removedKeys;
+        private final List<String> addedKeys;
+        private final IntList addedKeyOrdinals;
+
+        private Changes() {
+            this.removed = (BitSet) removedOrdinals.clone();
+            this.removedKeys = new ArrayList<>();
+            this.addedKeys = new ArrayList<>();
+            this.addedKeyOrdinals = new IntList();
+
+            Set<String> distinctRemovedKeys = new HashSet<>();
+            for (int ordinal = removed.nextSetBit(0); ordinal != -1; ordinal = removed.nextSetBit(ordinal + 1))
+                distinctRemovedKeys.addAll(getDistinctKeys(ordinal));
+            removedKeys.addAll(distinctRemovedKeys);
+
+            for (int ordinal = addedOrdinals.nextSetBit(0); ordinal != -1; ordinal = addedOrdinals.nextSetBit(ordinal + 1)) {
+                for (String key : getDistinctKeys(ordinal)) {
+                    addedKeys.add(key);
+                    addedKeyOrdinals.add(ordinal);
                 }
-                if (atRoot) atRoot = false;
             }
-            return index;
         }
 
-        private boolean contains(String key) {
-            long nodeIndex = findNodeWithKey(key);
-            return nodeIndex >= 0 && isLeafNode(nodeIndex);
-        }
-
-        /**
-         * Find all the ordinals that match the given prefix.
-         */
-        private HollowOrdinalIterator findKeysWithPrefix(String prefix) {
-            if (prefix == null) throw new IllegalArgumentException("Cannot findKeysWithPrefix null prefix");
-            final Set<Integer> ordinals = new HashSet<>();
-            long currentNodeIndex = findNodeWithKey(prefix.toLowerCase());
-
-            if (currentNodeIndex >= 0) {
-
-                if (isLeafNode(currentNodeIndex))
-                    ordinals.addAll(getOrdinals(currentNodeIndex));
-
-                // go to all leaf nodes from current node mid pointer
-                long subTree = getChildIndex(currentNodeIndex, NodeType.Middle);
-                if (subTree != 0) {
-                    Queue<Long> queue = new ArrayDeque<>();
-                    queue.add(subTree);
-                    while (!queue.isEmpty()) {
-                        long nodeIndex = queue.remove();
-                        long left = getChildIndex(nodeIndex, NodeType.Left);
-                        long mid = getChildIndex(nodeIndex, NodeType.Middle);
-                        long right = getChildIndex(nodeIndex, NodeType.Right);
-
-                        if (left == 0 && mid == 0 && right == 0) {
-                            if (isLeafNode(nodeIndex)) ordinals.addAll(getOrdinals(nodeIndex));
-                        }
-                        if (left != 0) queue.add(left);
-                        if (mid != 0) queue.add(mid);
-                        if (right != 0) queue.add(right);
-                    }
-                }
-            }
-
-            return new HollowOrdinalIterator() {
-                private Iterator<Integer> it = ordinals.iterator();
-
-                @Override
-                public int next() {
-                    if (it.hasNext()) return it.next();
-                    return NO_MORE_ORDINALS;
-                }
-            };
+        private void applyTo(PrefixTrie trie) {
+            for (String key : removedKeys)
+                trie.remove(key, removed);
+            for (int i = 0; i < addedKeys.size(); i++)
+                trie.insert(addedKeys.get(i), addedKeyOrdinals.get(i));
         }
     }
 }
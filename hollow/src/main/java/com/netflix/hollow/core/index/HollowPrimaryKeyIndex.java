@@ -62,6 +62,7 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
     private final BitSet specificOrdinalsToIndex;
 
     private volatile PrimaryKeyIndexHashTable hashTableVolatile;
+    private boolean allowDeltaUpdate = ALLOW_DELTA_UPDATE;
 
     public HollowPrimaryKeyIndex(HollowReadStateEngine stateEngine, String type, String... fieldPaths) {
         this(stateEngine, WastefulRecycler.DEFAULT_INSTANCE, type, fieldPaths);
@@ -137,6 +138,22 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
         typeState.addListener(this);
     }
 
+    /**
+     * Once called, this HollowPrimaryKeyIndex will be kept up-to-date when deltas are applied to the indexed state engine.
+     * <p>
+     * If {@code allowDeltaUpdate} is true, the records added and removed by a delta which removes few records are
+     * updated in place, rather than reindexing all of the records of the type.  Otherwise, the index is updated
+     * in place only if enabled by the {@code com.netflix.hollow.core.index.HollowPrimaryKeyIndex.allowDeltaUpdate}
+     * system property.
+     *
+     * @param allowDeltaUpdate whether the index may be updated in place
+     * @see #listenForDeltaUpdates()
+     */
+    public void listenForDeltaUpdates(boolean allowDeltaUpdate) {
+        this.allowDeltaUpdate = allowDeltaUpdate || ALLOW_DELTA_UPDATE;
+        listenForDeltaUpdates();
+    }
+
     /**
      * Once called, this HollowPrimaryKeyIndex will no longer be kept up-to-date when deltas are applied to the indexed state engine.
      * <p>
@@ -302,6 +319,166 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
         return ordinal;
     }
 
+    /**
+     * Query an index with a single INT or REFERENCE field for each of a batch of keys.  The ordinal of the record
+     * matching <code>keys[i]</code>, otherwise -1 if the key is not present, is placed in <code>ordinals[i]</code>.
+     * <p>
+     * All keys in the batch are matched against the same state of the index, even if the index is concurrently
+     * updated by a delta.
+     *
+     * @param keys the field keys
+     * @param ordinals the array in which to place the matching ordinals, at least as long as the keys
+     * @throws IllegalArgumentException if the index does not have a single INT or REFERENCE field, or if the
+     * ordinals array is shorter than the keys
+     */
+    public void getMatchingOrdinals(final int[] keys, int[] ordinals) {
+        validateBatch(keys.length, ordinals.length, FieldType.INT, FieldType.REFERENCE);
+
+        getMatchingOrdinals(keys.length, new BatchKeys() {
+            public int hashCode(int keyIdx) {
+                return intKeyHashCode(keys[keyIdx]);
+            }
+
+            public boolean matches(int keyIdx, int ordinal) {
+                return keyDeriver.intKeyMatches(keys[keyIdx], ordinal, 0);
+            }
+        }, ordinals);
+    }
+
+    /**
+     * Query an index with a single LONG field for each of a batch of keys.  The ordinal of the record
+     * matching <code>keys[i]</code>, otherwise -1 if the key is not present, is placed in <code>ordinals[i]</code>.
+     * <p>
+     * All keys in the batch are matched against the same state of the index, even if the index is concurrently
+     * updated by a delta.
+     *
+     * @param keys the field keys
+     * @param ordinals the array in which to place the matching ordinals, at least as long as the keys
+     * @throws IllegalArgumentException if the index does not have a single LONG field, or if the
+     * ordinals array is shorter than the keys
+     */
+    public void getMatchingOrdinals(final long[] keys, int[] ordinals) {
+        validateBatch(keys.length, ordinals.length, FieldType.LONG, FieldType.LONG);
+
+        getMatchingOrdinals(keys.length, new BatchKeys() {
+            public int hashCode(int keyIdx) {
+                return HashCodes.hashInt(HollowReadFieldUtils.longHashCode(keys[keyIdx]));
+            }
+
+            public boolean matches(int keyIdx, int ordinal) {
+                return keyDeriver.longKeyMatches(keys[keyIdx], ordinal, 0);
+            }
+        }, ordinals);
+    }
+
+    /**
+     * Query an index with a single STRING field for each of a batch of keys.  The ordinal of the record
+     * matching <code>keys[i]</code>, otherwise -1 if the key is not present, is placed in <code>ordinals[i]</code>.
+     * <p>
+     * All keys in the batch are matched against the same state of the index, even if the index is concurrently
+     * updated by a delta.
+     *
+     * @param keys the field keys
+     * @param ordinals the array in which to place the matching ordinals, at least as long as the keys
+     * @throws IllegalArgumentException if the index does not have a single STRING field, or if the
+     * ordinals array is shorter than the keys
+     */
+    public void getMatchingOrdinals(final String[] keys, int[] ordinals) {
+        validateBatch(keys.length, ordinals.length, FieldType.STRING, FieldType.STRING);
+
+        getMatchingOrdinals(keys.length, new BatchKeys() {
+            public int hashCode(int keyIdx) {
+                return HashCodes.hashCode(keys[keyIdx]);
+            }
+
+            public boolean matches(int keyIdx, int ordinal) {
+                return keyDeriver.keyMatches(keys[keyIdx], ordinal, 0);
+            }
+        }, ordinals);
+    }
+
+    /**
+     * Query an index with any number of fields for each of a batch of keys.  The ordinal of the record
+     * matching the field keys <code>keys[i]</code>, otherwise -1 if the key is not present, is placed in
+     * <code>ordinals[i]</code>.
+     * <p>
+     * All keys in the batch are matched against the same state of the index, even if the index is concurrently
+     * updated by a delta.
+     *
+     * @param keys the field keys of each key
+     * @param ordinals the array in which to place the matching ordinals, at least as long as the keys
+     * @throws IllegalArgumentException if the ordinals array is shorter than the keys
+     */
+    public void getMatchingOrdinals(final Object[][] keys, int[] ordinals) {
+        if(ordinals.length < keys.length)
+            throw new IllegalArgumentException("The ordinals array is shorter than the keys array");
+
+        getMatchingOrdinals(keys.length, new BatchKeys() {
+            public int hashCode(int keyIdx) {
+                int hashCode = 0;
+                if(keys[keyIdx].length == fieldPathIndexes.length) {
+                    for(int i=0;i<keys[keyIdx].length;i++)
+                        hashCode ^= keyHashCode(keys[keyIdx][i], i);
+                }
+                return hashCode;
+            }
+
+            /// a key with the wrong number of fields matches no record
+            public boolean matches(int keyIdx, int ordinal) {
+                return keyDeriver.keyMatches(ordinal, keys[keyIdx]);
+            }
+        }, ordinals);
+    }
+
+    /**
+     * The keys of a batch query, which are hashed and matched by their index in the batch.
+     */
+    private interface BatchKeys {
+        int hashCode(int keyIdx);
+
+        boolean matches(int keyIdx, int ordinal);
+    }
+
+    private void getMatchingOrdinals(int numKeys, BatchKeys keys, int[] ordinals) {
+        PrimaryKeyIndexHashTable hashTable;
+
+        do {
+            hashTable = this.hashTableVolatile;
+            if(hashTable.bitsPerElement == 0) {
+                Arrays.fill(ordinals, 0, numKeys, -1);
+                continue;
+            }
+
+            /// all keys are hashed before any are probed, so that the reads of independent buckets are not
+            /// separated by the hashing of each key
+            for(int i=0;i<numKeys;i++)
+                ordinals[i] = keys.hashCode(i);
+
+            for(int i=0;i<numKeys;i++) {
+                int bucket = ordinals[i] & hashTable.hashMask;
+                int ordinal = readOrdinal(hashTable, bucket);
+                while(ordinal != -1 && !keys.matches(i, ordinal)) {
+                    bucket = (bucket + 1) & hashTable.hashMask;
+                    ordinal = readOrdinal(hashTable, bucket);
+                }
+                ordinals[i] = ordinal;
+            }
+        } while(hashTableVolatile != hashTable);
+    }
+
+    private void validateBatch(int numKeys, int numOrdinals, FieldType fieldType, FieldType alternateFieldType) {
+        if(fieldTypes.length != 1 || (fieldTypes[0] != fieldType && fieldTypes[0] != alternateFieldType))
+            throw new IllegalArgumentException("Cannot query an index with fields " + Arrays.toString(fieldTypes) + " with " + fieldType + " keys");
+        if(numOrdinals < numKeys)
+            throw new IllegalArgumentException("The ordinals array is shorter than the keys array");
+    }
+
+    private int intKeyHashCode(int key) {
+        if(fieldTypes[0] == FieldType.REFERENCE)
+            return HashCodes.hashInt(key);
+        return HashCodes.hashInt(HollowReadFieldUtils.intHashCode(key));
+    }
+
     private int readOrdinal(PrimaryKeyIndexHashTable hashTable, int bucket) {
         return (int)hashTable.hashTable.getElementValue((long)hashTable.bitsPerElement * (long)bucket, hashTable.bitsPerElement) - 1;
     }
@@ -389,13 +566,13 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
         int bitsPerElement = (32 - Integer.numberOfLeadingZeros(typeState.maxOrdinal() + 1));
 
         PrimaryKeyIndexHashTable hashTable = hashTableVolatile;
-        if(ALLOW_DELTA_UPDATE
+        if(allowDeltaUpdate
                 && hashTableSize == hashTable.hashTableSize
                 && bitsPerElement == hashTable.bitsPerElement
                 && shouldPerformDeltaUpdate()) {
             try {
                 deltaUpdate(hashTableSize, bitsPerElement);
-            } catch (OrdinalNotFoundException e) {
+            } catch (DeltaUpdateException e) {
                 /*
                 It has been observed that delta updates can result in CPU spinning attempting to find
                 a previous ordinal to remove.  It's not clear what the cause of the issue is but it does
@@ -409,7 +586,8 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
                 This approach does not protect against the case where the index is corrupt and not yet
                 detected, until a further update.  In such cases it may be possible for clients, in the interim
                 of a forced reindex, to operate on a corrupt index: queries may incorrectly return no match.  As such
-                delta update of the index have been disabled by default.
+                delta update of the index have been disabled by default.  To narrow that window, the number of
+                entries of the updated hash table is checked against the number of populated ordinals.
                  */
                 LOG.log(Level.SEVERE, "Delta update of index failed.  Performing a full reindex", e);
                 reindex();
@@ -419,7 +597,17 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
         }
     }
 
-    private static class OrdinalNotFoundException extends IllegalStateException {
+    private static class DeltaUpdateException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        DeltaUpdateException(String s) {
+            super(s);
+        }
+    }
+
+    private static class OrdinalNotFoundException extends DeltaUpdateException {
+        private static final long serialVersionUID = 1L;
+
         OrdinalNotFoundException(String s) {
             super(s);
         }
@@ -451,6 +639,7 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
         FixedLengthElementArray hashedArray = new FixedLengthElementArray(memoryRecycler, (long)hashTableSize * (long)bitsPerElement);
 
         int hashMask = hashTableSize - 1;
+        int numEntries = 0;
 
         int ordinal = ordinals.nextSetBit(0);
         while(ordinal != ORDINAL_NONE) {
@@ -461,11 +650,12 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
                 bucket = (bucket + 1) & hashMask;
 
             hashedArray.setElementValue((long)bucket * (long)bitsPerElement, bitsPerElement, ordinal + 1);
+            numEntries++;
 
             ordinal = ordinals.nextSetBit(ordinal + 1);
         }
 
-        setHashTable(new PrimaryKeyIndexHashTable(hashedArray, hashTableSize, hashMask, bitsPerElement));
+        setHashTable(new PrimaryKeyIndexHashTable(hashedArray, hashTableSize, hashMask, bitsPerElement, numEntries));
 
         memoryRecycler.swap();
     }
@@ -473,7 +663,6 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
     private void deltaUpdate(int hashTableSize, int bitsPerElement) {
         // For a delta update hashTableVolatile cannot be null
         PrimaryKeyIndexHashTable hashTable = hashTableVolatile;
-        hashTable.hashTable.destroy(memoryRecycler);
 
         PopulatedOrdinalListener listener = typeState.getListener(PopulatedOrdinalListener.class);
         BitSet prevOrdinals = listener.getPreviousOrdinals();
@@ -483,6 +672,24 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
         FixedLengthElementArray hashedArray = new FixedLengthElementArray(memoryRecycler, totalBitsInHashTable);
         hashedArray.copyBits(hashTable.hashTable, 0, 0, totalBitsInHashTable);
 
+        int numEntries;
+        try {
+            numEntries = updateHashTable(hashedArray, hashTableSize, bitsPerElement, prevOrdinals, ordinals, hashTable.numEntries);
+        } catch (DeltaUpdateException e) {
+            /// the current hash table is destroyed by the reindex which follows
+            hashedArray.destroy(memoryRecycler);
+            throw e;
+        }
+
+        /// segments destroyed are not reused before the recycler is swapped, so the current hash table may be read
+        /// until the updated hash table replaces it
+        hashTable.hashTable.destroy(memoryRecycler);
+        setHashTable(new PrimaryKeyIndexHashTable(hashedArray, hashTableSize, hashTableSize - 1, bitsPerElement, numEntries));
+
+        memoryRecycler.swap();
+    }
+
+    private int updateHashTable(FixedLengthElementArray hashedArray, int hashTableSize, int bitsPerElement, BitSet prevOrdinals, BitSet ordinals, int numEntries) {
         int hashMask = hashTableSize - 1;
 
         int prevOrdinal = prevOrdinals.nextSetBit(0);
@@ -493,6 +700,7 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
                 int bucket = findOrdinalBucket(bitsPerElement, hashedArray, hashCode, hashMask, prevOrdinal);
 
                 hashedArray.clearElementValue((long)bucket * (long)bitsPerElement, bitsPerElement);
+                numEntries--;
                 int emptyBucket = bucket;
                 bucket = (bucket + 1) & hashMask;
                 int moveOrdinal = (int)hashedArray.getElementValue((long)bucket * (long)bitsPerElement, bitsPerElement) - 1;
@@ -529,14 +737,19 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
                 }
 
                 hashedArray.setElementValue((long)bucket * (long)bitsPerElement, bitsPerElement, ordinal + 1);
+                numEntries++;
             }
 
             ordinal = ordinals.nextSetBit(ordinal + 1);
         }
 
-        setHashTable(new PrimaryKeyIndexHashTable(hashedArray, hashTableSize, hashMask, bitsPerElement));
+        /// a hash table which has drifted from the populated ordinals is detected, without scanning the table, by
+        /// comparing the running count of its entries with the number of populated ordinals
+        int numOrdinals = ordinals.cardinality();
+        if(numEntries != numOrdinals)
+            throw new DeltaUpdateException(String.format("Hash table has %d entries for %d populated ordinals", numEntries, numOrdinals));
 
-        memoryRecycler.swap();
+        return numEntries;
     }
 
     private int findOrdinalBucket(int bitsPerElement, FixedLengthElementArray hashedArray, int hashCode, int hashMask, int prevOrdinal) {
@@ -658,12 +871,14 @@ public class HollowPrimaryKeyIndex implements HollowTypeStateListener {
         private final int hashTableSize;
         private final int hashMask;
         private final int bitsPerElement;
+        private final int numEntries;
 
-        public PrimaryKeyIndexHashTable(FixedLengthElementArray hashTable, int hashTableSize, int hashMask, int bitsPerElement) {
+        public PrimaryKeyIndexHashTable(FixedLengthElementArray hashTable, int hashTableSize, int hashMask, int bitsPerElement, int numEntries) {
             this.hashTable = hashTable;
             this.hashTableSize = hashTableSize;
             this.hashMask = hashMask;
             this.bitsPerElement = bitsPerElement;
+            this.numEntries = numEntries;
         }
     }
 }
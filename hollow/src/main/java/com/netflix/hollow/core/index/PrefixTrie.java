@@ -0,0 +1,388 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.index;
+
+import com.netflix.hollow.core.memory.encoding.FixedLengthElementArray;
+import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
+import com.netflix.hollow.core.util.IntList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A character trie mapping keys to the ordinals of the records with those keys, which may be updated in place as
+ * keys are added and removed.  Not thread safe; a trie must not be read while it is being updated.
+ * <p>
+ * Each node is a fixed length element in a {@link FixedLengthElementArray}, consisting of the node's character, a
+ * pointer to its first child, a pointer to its next sibling, and a pointer to the first entry of its list of ordinals.
+ * The children of a node are linked in character order.  Each entry is a fixed length element in a second array,
+ * consisting of an ordinal and a pointer to the next entry.  The widths of the pointers and ordinals are sized to the
+ * capacity of the trie, and the trie is re-encoded with wider elements when its capacity is exceeded.
+ * <p>
+ * The root node is at index 0, and entry 0 is unused, so that a pointer of 0 indicates no node or entry.  Removed
+ * nodes and entries are kept in free lists, linked through their sibling and next entry pointers, for reuse.
+ */
+class PrefixTrie {
+
+    private static final int BITS_PER_KEY = 16;
+    private static final long ROOT = 0;
+    private static final long NONE = 0;
+
+    private final ArraySegmentRecycler memoryRecycler;
+
+    private long nodeCapacity;
+    private long entryCapacity;
+
+    private int bitsPerNodePointer;
+    private int bitsPerEntryPointer;
+    private int bitsPerOrdinal;
+    private int bitsPerNode;
+    private int bitsPerEntry;
+
+    private FixedLengthElementArray nodes;
+    private FixedLengthElementArray entries;
+
+    private long numNodes;
+    private long numEntries;
+    private long freeNodes;
+    private long freeEntries;
+
+    /// the number of queries reading this trie, maintained by the owner of the trie
+    final AtomicInteger readers = new AtomicInteger();
+
+    /**
+     * @param memoryRecycler the memory recycler from which to allocate the trie
+     * @param nodeCapacity the initial number of nodes of the trie
+     * @param entryCapacity the initial number of (key, ordinal) entries of the trie
+     * @param maxOrdinal the initial maximum ordinal which may be added to the trie
+     */
+    PrefixTrie(ArraySegmentRecycler memoryRecycler, long nodeCapacity, long entryCapacity, int maxOrdinal) {
+        this.memoryRecycler = memoryRecycler;
+        this.nodeCapacity = Math.max(nodeCapacity, 2);
+        this.entryCapacity = Math.max(entryCapacity, 2);
+
+        this.bitsPerNodePointer = 64 - Long.numberOfLeadingZeros(this.nodeCapacity - 1);
+        this.bitsPerEntryPointer = 64 - Long.numberOfLeadingZeros(this.entryCapacity - 1);
+        this.bitsPerOrdinal = Math.max(32 - Integer.numberOfLeadingZeros(maxOrdinal), 1);
+        this.bitsPerNode = BITS_PER_KEY + (2 * bitsPerNodePointer) + bitsPerEntryPointer;
+        this.bitsPerEntry = bitsPerOrdinal + bitsPerEntryPointer;
+
+        this.nodes = new FixedLengthElementArray(memoryRecycler, this.nodeCapacity * bitsPerNode);
+        this.entries = new FixedLengthElementArray(memoryRecycler, this.entryCapacity * bitsPerEntry);
+
+        this.numNodes = 1;
+        this.numEntries = 1;
+    }
+
+    /**
+     * @return a copy of this trie, which may be updated independently of this trie
+     */
+    PrefixTrie copy() {
+        PrefixTrie copy = new PrefixTrie(memoryRecycler, nodeCapacity, entryCapacity, (1 << bitsPerOrdinal) - 1);
+        copy.nodes.copyBits(nodes, 0, 0, numNodes * bitsPerNode);
+        copy.entries.copyBits(entries, 0, 0, numEntries * bitsPerEntry);
+        copy.numNodes = numNodes;
+        copy.numEntries = numEntries;
+        copy.freeNodes = freeNodes;
+        copy.freeEntries = freeEntries;
+        return copy;
+    }
+
+    /**
+     * Add an ordinal for a key.  An ordinal should be added at most once for the same key.
+     *
+     * @param key the key
+     * @param ordinal the ordinal of the record with the key
+     */
+    void insert(String key, int ordinal) {
+        if (key == null) throw new IllegalArgumentException("Null key cannot be indexed");
+        if (ordinal >= (1L << bitsPerOrdinal))
+            resize(nodeCapacity, entryCapacity, ordinal);
+
+        long node = ROOT;
+        for (int i = 0; i < key.length(); i++)
+            node = findOrAddChild(node, key.charAt(i));
+
+        long entry = allocateEntry();
+        setEntryOrdinal(entry, ordinal);
+        setNextEntry(entry, head(node));
+        setHead(node, entry);
+    }
+
+    /**
+     * Remove the removed ordinals from a key, and any nodes which no longer lead to a key.
+     *
+     * @param key the key
+     * @param removedOrdinals the ordinals to remove
+     */
+    void remove(String key, BitSet removedOrdinals) {
+        long[] path = new long[key.length() + 1];
+        long node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            node = findChild(node, key.charAt(i));
+            if (node == NONE)
+                return;
+            path[i + 1] = node;
+        }
+
+        long previous = NONE;
+        long entry = head(node);
+        while (entry != NONE) {
+            long next = nextEntry(entry);
+            if (removedOrdinals.get(entryOrdinal(entry))) {
+                if (previous == NONE) setHead(node, next);
+                else setNextEntry(previous, next);
+                freeEntry(entry);
+            } else {
+                previous = entry;
+            }
+            entry = next;
+        }
+
+        for (int i = key.length(); i > 0 && head(path[i]) == NONE && firstChild(path[i]) == NONE; i--)
+            removeChild(path[i - 1], path[i]);
+    }
+
+    /**
+     * @param key the key
+     * @return whether any ordinal has been added for the key
+     */
+    boolean contains(String key) {
+        long node = findNode(key);
+        return node != -1 && head(node) != NONE;
+    }
+
+    /**
+     * Find the distinct ordinals of the keys beginning with a prefix, in key order, stopping once the maximum number
+     * of ordinals has been found.  Ordinals of the same key are in no particular order.
+     *
+     * @param prefix the prefix
+     * @param maxOrdinals the maximum number of ordinals to find
+     * @return the ordinals
+     */
+    int[] findOrdinals(String prefix, int maxOrdinals) {
+        long prefixNode = findNode(prefix);
+        if (prefixNode == -1 || maxOrdinals == 0)
+            return new int[0];
+
+        IntList ordinals = new IntList();
+        BitSet found = new BitSet();
+        if (collectOrdinals(prefixNode, maxOrdinals, found, ordinals))
+            return ordinals.arrayCopyOfRange(0, ordinals.size());
+
+        /// visit the descendants of the prefix node in pre-order, which is key order
+        long[] ancestors = new long[16];
+        int depth = 0;
+        long node = firstChild(prefixNode);
+        while (node != NONE) {
+            if (collectOrdinals(node, maxOrdinals, found, ordinals))
+                break;
+
+            long child = firstChild(node);
+            if (child != NONE) {
+                if (depth == ancestors.length)
+                    ancestors = Arrays.copyOf(ancestors, depth * 2);
+                ancestors[depth++] = node;
+                node = child;
+            } else {
+                while (nextSibling(node) == NONE && depth > 0)
+                    node = ancestors[--depth];
+                node = nextSibling(node);
+            }
+        }
+
+        return ordinals.arrayCopyOfRange(0, ordinals.size());
+    }
+
+    private boolean collectOrdinals(long node, int maxOrdinals, BitSet found, IntList ordinals) {
+        for (long entry = head(node); entry != NONE; entry = nextEntry(entry)) {
+            int ordinal = entryOrdinal(entry);
+            if (!found.get(ordinal)) {
+                found.set(ordinal);
+                ordinals.add(ordinal);
+                if (ordinals.size() == maxOrdinals)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private long findNode(String key) {
+        long node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            node = findChild(node, key.charAt(i));
+            if (node == NONE)
+                return -1;
+        }
+        return node;
+    }
+
+    private long findChild(long node, char ch) {
+        long child = firstChild(node);
+        while (child != NONE) {
+            long key = key(child);
+            if (key == ch)
+                return child;
+            if (key > ch)
+                return NONE;
+            child = nextSibling(child);
+        }
+        return NONE;
+    }
+
+    private long findOrAddChild(long node, char ch) {
+        long previous = NONE;
+        long child = firstChild(node);
+        while (child != NONE && key(child) < ch) {
+            previous = child;
+            child = nextSibling(child);
+        }
+        if (child != NONE && key(child) == ch)
+            return child;
+
+        long added = allocateNode();
+        setKey(added, ch);
+        setFirstChild(added, NONE);
+        setNextSibling(added, child);
+        setHead(added, NONE);
+        if (previous == NONE) setFirstChild(node, added);
+        else setNextSibling(previous, added);
+        return added;
+    }
+
+    private void removeChild(long node, long child) {
+        long next = nextSibling(child);
+        long sibling = firstChild(node);
+        if (sibling == child) {
+            setFirstChild(node, next);
+        } else {
+            while (nextSibling(sibling) != child)
+                sibling = nextSibling(sibling);
+            setNextSibling(sibling, next);
+        }
+        setNextSibling(child, freeNodes);
+        freeNodes = child;
+    }
+
+    private long allocateNode() {
+        if (freeNodes != NONE) {
+            long node = freeNodes;
+            freeNodes = nextSibling(node);
+            return node;
+        }
+        if (numNodes == nodeCapacity)
+            resize(nodeCapacity * 2, entryCapacity, (1 << bitsPerOrdinal) - 1);
+        return numNodes++;
+    }
+
+    private long allocateEntry() {
+        if (freeEntries != NONE) {
+            long entry = freeEntries;
+            freeEntries = nextEntry(entry);
+            return entry;
+        }
+        if (numEntries == entryCapacity)
+            resize(nodeCapacity, entryCapacity * 2, (1 << bitsPerOrdinal) - 1);
+        return numEntries++;
+    }
+
+    private void freeEntry(long entry) {
+        setNextEntry(entry, freeEntries);
+        freeEntries = entry;
+    }
+
+    /**
+     * Re-encode the trie with elements wide enough for the given capacities.  The indexes of the nodes and entries
+     * are unchanged.
+     */
+    private void resize(long nodeCapacity, long entryCapacity, int maxOrdinal) {
+        PrefixTrie resized = new PrefixTrie(memoryRecycler, nodeCapacity, entryCapacity, maxOrdinal);
+        for (long node = 0; node < numNodes; node++) {
+            resized.setKey(node, key(node));
+            resized.setFirstChild(node, firstChild(node));
+            resized.setNextSibling(node, nextSibling(node));
+            resized.setHead(node, head(node));
+        }
+        for (long entry = 1; entry < numEntries; entry++) {
+            resized.setEntryOrdinal(entry, entryOrdinal(entry));
+            resized.setNextEntry(entry, nextEntry(entry));
+        }
+
+        this.nodeCapacity = resized.nodeCapacity;
+        this.entryCapacity = resized.entryCapacity;
+        this.bitsPerNodePointer = resized.bitsPerNodePointer;
+        this.bitsPerEntryPointer = resized.bitsPerEntryPointer;
+        this.bitsPerOrdinal = resized.bitsPerOrdinal;
+        this.bitsPerNode = resized.bitsPerNode;
+        this.bitsPerEntry = resized.bitsPerEntry;
+        this.nodes = resized.nodes;
+        this.entries = resized.entries;
+    }
+
+    private long key(long node) {
+        return nodes.getElementValue(node * bitsPerNode, BITS_PER_KEY);
+    }
+
+    private long firstChild(long node) {
+        return nodes.getElementValue(node * bitsPerNode + BITS_PER_KEY, bitsPerNodePointer);
+    }
+
+    private long nextSibling(long node) {
+        return nodes.getElementValue(node * bitsPerNode + BITS_PER_KEY + bitsPerNodePointer, bitsPerNodePointer);
+    }
+
+    private long head(long node) {
+        return nodes.getElementValue(node * bitsPerNode + BITS_PER_KEY + (2 * bitsPerNodePointer), bitsPerEntryPointer);
+    }
+
+    private int entryOrdinal(long entry) {
+        return (int) entries.getElementValue(entry * bitsPerEntry, bitsPerOrdinal);
+    }
+
+    private long nextEntry(long entry) {
+        return entries.getElementValue(entry * bitsPerEntry + bitsPerOrdinal, bitsPerEntryPointer);
+    }
+
+    private void setKey(long node, long ch) {
+        set(nodes, node * bitsPerNode, BITS_PER_KEY, ch);
+    }
+
+    private void setFirstChild(long node, long child) {
+        set(nodes, node * bitsPerNode + BITS_PER_KEY, bitsPerNodePointer, child);
+    }
+
+    private void setNextSibling(long node, long sibling) {
+        set(nodes, node * bitsPerNode + BITS_PER_KEY + bitsPerNodePointer, bitsPerNodePointer, sibling);
+    }
+
+    private void setHead(long node, long entry) {
+        set(nodes, node * bitsPerNode + BITS_PER_KEY + (2 * bitsPerNodePointer), bitsPerEntryPointer, entry);
+    }
+
+    private void setEntryOrdinal(long entry, long ordinal) {
+        set(entries, entry * bitsPerEntry, bitsPerOrdinal, ordinal);
+    }
+
+    private void setNextEntry(long entry, long next) {
+        set(entries, entry * bitsPerEntry + bitsPerOrdinal, bitsPerEntryPointer, next);
+    }
+
+    private static void set(FixedLengthElementArray array, long index, int bitsPerElement, long value) {
+        array.clearElementValue(index, bitsPerElement);
+        array.setElementValue(index, bitsPerElement, value);
+    }
+}
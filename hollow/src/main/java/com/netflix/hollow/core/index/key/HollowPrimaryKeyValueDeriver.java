@@ -19,7 +19,6 @@ package com.netflix.hollow.core.index.key;
 import com.netflix.hollow.core.read.HollowReadFieldUtils;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
-import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
 import java.util.Arrays;
 
@@ -76,18 +75,9 @@ public class HollowPrimaryKeyValueDeriver {
     }
     
     public boolean keyMatches(Object key, int ordinal, int fieldIdx) {
-        HollowObjectTypeReadState typeState = this.typeState;
-        HollowObjectSchema schema = typeState.getSchema();
-
-        int lastFieldPath = fieldPathIndexes[fieldIdx].length - 1;
-        for(int i=0;i<lastFieldPath;i++) {
-            int fieldPosition = fieldPathIndexes[fieldIdx][i];
-            ordinal = typeState.readOrdinal(ordinal, fieldPosition);
-            typeState = (HollowObjectTypeReadState) schema.getReferencedTypeState(fieldPosition);
-            schema = typeState.getSchema();
-        }
-
-        int lastFieldIdx = fieldPathIndexes[fieldIdx][lastFieldPath];
+        HollowObjectTypeReadState typeState = fieldTypeState(fieldIdx);
+        ordinal = fieldRecordOrdinal(ordinal, fieldIdx);
+        int lastFieldIdx = lastFieldPosition(fieldIdx);
 
         switch(fieldTypes[fieldIdx]) {
             case BOOLEAN:
@@ -116,6 +106,41 @@ public class HollowPrimaryKeyValueDeriver {
         throw new IllegalArgumentException("I don't know how to compare a " + fieldTypes[fieldIdx]);
     }
     
+    /**
+     * Determine whether or not the specified ordinal contains the provided INT or REFERENCE key value
+     * for a field, without boxing the key value.
+     *
+     * @param key the key value
+     * @param ordinal the ordinal
+     * @param fieldIdx the index of the field in the primary key
+     * @return true if the ordinal contains the key value
+     */
+    public boolean intKeyMatches(int key, int ordinal, int fieldIdx) {
+        HollowObjectTypeReadState typeState = fieldTypeState(fieldIdx);
+        ordinal = fieldRecordOrdinal(ordinal, fieldIdx);
+        int lastFieldIdx = lastFieldPosition(fieldIdx);
+
+        if(fieldTypes[fieldIdx] == FieldType.REFERENCE)
+            return typeState.readOrdinal(ordinal, lastFieldIdx) == key;
+        return typeState.readInt(ordinal, lastFieldIdx) == key;
+    }
+
+    /**
+     * Determine whether or not the specified ordinal contains the provided LONG key value
+     * for a field, without boxing the key value.
+     *
+     * @param key the key value
+     * @param ordinal the ordinal
+     * @param fieldIdx the index of the field in the primary key
+     * @return true if the ordinal contains the key value
+     */
+    public boolean longKeyMatches(long key, int ordinal, int fieldIdx) {
+        HollowObjectTypeReadState typeState = fieldTypeState(fieldIdx);
+        ordinal = fieldRecordOrdinal(ordinal, fieldIdx);
+
+        return typeState.readLong(ordinal, lastFieldPosition(fieldIdx)) == key;
+    }
+
     /**
      * Retrieve the primary key value for the specified ordinal.
      *
@@ -132,20 +157,46 @@ public class HollowPrimaryKeyValueDeriver {
     }
 
     private Object readValue(int ordinal, int fieldIdx) {
+        HollowObjectTypeReadState typeState = fieldTypeState(fieldIdx);
+        ordinal = fieldRecordOrdinal(ordinal, fieldIdx);
+
+        return HollowReadFieldUtils.fieldValueObject(typeState, ordinal, lastFieldPosition(fieldIdx));
+    }
+    
+    /**
+     * @return the ordinal of the record which holds the last field of the path of a primary key field, reached by
+     * following the references of the path from the specified record
+     */
+    private int fieldRecordOrdinal(int ordinal, int fieldIdx) {
         HollowObjectTypeReadState typeState = this.typeState;
-        HollowObjectSchema schema = typeState.getSchema();
 
         int lastFieldPath = fieldPathIndexes[fieldIdx].length - 1;
-        for (int i = 0; i < lastFieldPath; i++) {
+        for(int i=0;i<lastFieldPath;i++) {
             int fieldPosition = fieldPathIndexes[fieldIdx][i];
             ordinal = typeState.readOrdinal(ordinal, fieldPosition);
-            typeState = (HollowObjectTypeReadState) schema.getReferencedTypeState(fieldPosition);
-            schema = typeState.getSchema();
+            typeState = (HollowObjectTypeReadState) typeState.getSchema().getReferencedTypeState(fieldPosition);
         }
 
-        return HollowReadFieldUtils.fieldValueObject(typeState, ordinal, fieldPathIndexes[fieldIdx][lastFieldPath]);
+        return ordinal;
     }
-    
+
+    /**
+     * @return the type state of the record which holds the last field of the path of a primary key field
+     */
+    private HollowObjectTypeReadState fieldTypeState(int fieldIdx) {
+        HollowObjectTypeReadState typeState = this.typeState;
+
+        int lastFieldPath = fieldPathIndexes[fieldIdx].length - 1;
+        for(int i=0;i<lastFieldPath;i++)
+            typeState = (HollowObjectTypeReadState) typeState.getSchema().getReferencedTypeState(fieldPathIndexes[fieldIdx][i]);
+
+        return typeState;
+    }
+
+    private int lastFieldPosition(int fieldIdx) {
+        return fieldPathIndexes[fieldIdx][fieldPathIndexes[fieldIdx].length - 1];
+    }
+
     public int[][] getFieldPathIndexes() {
         return fieldPathIndexes;
     }
@@ -21,7 +21,9 @@ import com.netflix.hollow.core.memory.encoding.VarInt;
 import com.netflix.hollow.core.memory.pool.WastefulRecycler;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * This data structure maps byte sequences to ordinals.  This is a hash table.
@@ -32,6 +34,17 @@ import java.util.concurrent.atomic.AtomicLongArray;
  * The high 29 bits in the key represents the ordinal.  The low 35 bits represents the pointer to the start position
  * of the byte sequence in the ByteDataBuffer.  Each byte sequence is preceded by a variable-length integer
  * (see {@link VarInt}), indicating the length of the sequence.<p>
+ * <p>
+ * New byte sequences are added without mutual exclusion.  Each thread appends byte sequences to its own region of the
+ * ByteDataBuffer, then claims an empty bucket with a compare-and-set of a pending key which points to the sequence.  Only
+ * the thread which claims the bucket assigns an ordinal, after which the pending key is replaced with the final key.
+ * A thread which encounters a pending key for an equal byte sequence waits for its ordinal to be assigned, or for the
+ * claiming thread to fail, in which case the failure is also thrown to the waiting thread.  Growing the key array
+ * excludes concurrent additions.<p>
+ * <p>
+ * A byte sequence appended by a thread which then finds an equal sequence already present is reclaimed, by rewinding
+ * the thread's region.  The unused remainder of each thread's region, at most 16KB per adding thread, is not
+ * reclaimed until the byte data is next compacted, and until then is included in {@link #getDataSize()}.<p>
  *
  * @author dkoszewnik
  */
@@ -45,6 +58,14 @@ public class ByteArrayOrdinalMap {
     private static final long ORDINAL_MASK = (1L << BITS_PER_ORDINAL) - 1;
     private static final long MAX_BYTE_DATA_LENGTH = 1L << BITS_PER_POINTER;
 
+    /// A key for a byte sequence which has been added, but not yet assigned an ordinal
+    private static final long PENDING_ORDINAL_KEY_BITS = ORDINAL_MASK << BITS_PER_POINTER;
+    /// The highest ordinal bits are reserved for pending keys
+    private static final int MAX_ORDINAL = (int) ORDINAL_MASK - 1;
+
+    private static final int MIN_APPEND_REGION_LENGTH = 256;
+    private static final int MAX_APPEND_REGION_LENGTH = 16384;
+
     /// Thread safety:  We need volatile access semantics to the individual elements in the
     /// pointersAndOrdinals array.
     /// Ordinal is the high 29 bits.  Pointer to byte data is the low 35 bits.
@@ -52,8 +73,15 @@ public class ByteArrayOrdinalMap {
     private volatile AtomicLongArray pointersAndOrdinals;
     private final ByteDataArray byteData;
     private final FreeOrdinalTracker freeOrdinalTracker;
-    private int size;
-    private int sizeBeforeGrow;
+    private final AtomicInteger size;
+    private volatile int sizeBeforeGrow;
+
+    /// Additions share the read lock, growing the key array takes the write lock
+    private final StampedLock growLock;
+    private final ThreadLocal<AppendRegion> appendRegions;
+    /// Incremented when the byte data is compacted, invalidating all previously reserved append regions
+    private volatile int appendRegionGeneration;
+    private volatile boolean ordinalAssignmentFailed;
 
     private BitSet unusedPreviousOrdinals;
 
@@ -78,7 +106,9 @@ public class ByteArrayOrdinalMap {
         this.byteData = new ByteDataArray(WastefulRecycler.DEFAULT_INSTANCE);
         this.pointersAndOrdinals = emptyKeyArray(size);
         this.sizeBeforeGrow = (int) (((float) size) * 0.7); /// 70% load factor
-        this.size = 0;
+        this.size = new AtomicInteger(0);
+        this.growLock = new StampedLock();
+        this.appendRegions = new ThreadLocal<AppendRegion>();
     }
 
     private static int bucketSize(int x) {
@@ -116,67 +146,188 @@ public class ByteArrayOrdinalMap {
         return ordinal != -1 ? ordinal : assignOrdinal(serializedRepresentation, hash, preferredOrdinal);
     }
 
-    /// acquire the lock before writing.
-    private synchronized int assignOrdinal(ByteDataArray serializedRepresentation, int hash, int preferredOrdinal) {
-        if (preferredOrdinal < -1 || preferredOrdinal > ORDINAL_MASK) {
+    private int assignOrdinal(ByteDataArray serializedRepresentation, int hash, int preferredOrdinal) {
+        if (preferredOrdinal < -1 || preferredOrdinal > MAX_ORDINAL) {
             throw new IllegalArgumentException(String.format(
                     "The given preferred ordinal %s is out of bounds and not within the closed interval [-1, %s]",
-                    preferredOrdinal, ORDINAL_MASK));
-        }
-        if (size > sizeBeforeGrow) {
-            growKeyArray();
+                    preferredOrdinal, MAX_ORDINAL));
         }
 
-        /// check to make sure that after acquiring the lock, the element still does not exist.
-        /// this operation is akin to double-checked locking which is 'fixed' with the JSR 133 memory model in JVM >= 1.5.
-        /// Note that this also requires pointersAndOrdinals be volatile so resizes are also visible
-        AtomicLongArray pao = pointersAndOrdinals;
+        while (true) {
+            if (size.get() > sizeBeforeGrow) {
+                growKeyArrayIfNecessary();
+            }
 
+            long stamp = growLock.readLock();
+            try {
+                AtomicLongArray pao = pointersAndOrdinals;
+
+                /// reserve space for the new key, such that at least one bucket always remains empty.
+                /// the reservation is released if the byte sequence turns out to be present.
+                if (size.incrementAndGet() < pao.length()) {
+                    if (preferredOrdinal == -1) {
+                        return assignOrdinal(pao, serializedRepresentation, hash, -1);
+                    }
+
+                    /// a preferred ordinal is only assigned to a single byte sequence, assignments of preferred ordinals are serialized
+                    synchronized (this) {
+                        return assignOrdinal(pao, serializedRepresentation, hash, preferredOrdinal);
+                    }
+                }
+                size.decrementAndGet();
+            } finally {
+                growLock.unlockRead(stamp);
+            }
+        }
+    }
+
+    private int assignOrdinal(AtomicLongArray pao, ByteDataArray serializedRepresentation, int hash, int preferredOrdinal) {
         int modBitmask = pao.length() - 1;
         int bucket = hash & modBitmask;
-        long key = pao.get(bucket);
+        long pointer = -1;
+
+        while (true) {
+            long key = pao.get(bucket);
+
+            if (key == EMPTY_BUCKET_VALUE) {
+                /// the byte sequence is appended before the bucket is claimed, so that any thread which observes
+                /// the pending key may compare the sequence.  If the bucket is not claimed, the sequence is reused
+                /// for the next empty bucket, and if an equal sequence is found instead it is reclaimed when compacted.
+                if (pointer == -1) {
+                    pointer = append(serializedRepresentation);
+                }
+
+                if (pao.compareAndSet(bucket, EMPTY_BUCKET_VALUE, PENDING_ORDINAL_KEY_BITS | pointer)) {
+                    /// threads waiting on the pending key must not wait forever if the ordinal is never assigned
+                    boolean assigned = false;
+                    try {
+                        int ordinal = findFreeOrdinal(preferredOrdinal);
+                        if (ordinal > MAX_ORDINAL) {
+                            throw new IllegalStateException(String.format(
+                                    "Ordinal cannot be assigned. The to be assigned ordinal, %s, is greater than the maximum supported ordinal value of %s",
+                                    ordinal, MAX_ORDINAL));
+                        }
+
+                        /// this set on the AtomicLongArray has volatile semantics (i.e. behaves like a monitor release).
+                        /// Any other thread reading this element in the AtomicLongArray will have visibility to all memory writes this thread has made up to this point.
+                        /// This means the entire byte sequence is guaranteed to be visible to any thread which reads the pointer to that data.
+                        pao.set(bucket, ((long) ordinal << BITS_PER_POINTER) | pointer);
+                        assigned = true;
+                        return ordinal;
+                    } finally {
+                        if (!assigned) {
+                            ordinalAssignmentFailed = true;
+                        }
+                    }
+                }
+
+                /// another thread claimed the bucket, which must be compared
+                continue;
+            }
 
-        while (key != EMPTY_BUCKET_VALUE) {
             if (compare(serializedRepresentation, key)) {
-                return (int) (key >>> BITS_PER_POINTER);
+                size.decrementAndGet();
+                if (pointer != -1) {
+                    reclaimAppended(pointer);
+                }
+                return awaitOrdinal(pao, bucket, key);
             }
 
             bucket = (bucket + 1) & modBitmask;
+        }
+    }
+
+    /**
+     * Wait for the ordinal of a key to be assigned, if the key is pending.
+     */
+    private int awaitOrdinal(AtomicLongArray pao, int bucket, long key) {
+        while ((key & PENDING_ORDINAL_KEY_BITS) == PENDING_ORDINAL_KEY_BITS) {
+            if (ordinalAssignmentFailed) {
+                throw new IllegalStateException("Ordinal cannot be assigned, ordinal assignment failed in another thread");
+            }
+            Thread.yield();
             key = pao.get(bucket);
         }
 
-        /// the ordinal for this object still does not exist in the list, even after the lock has been acquired.
-        /// it is up to this thread to add it at the current bucket position.
-        int ordinal = findFreeOrdinal(preferredOrdinal);
-        if (ordinal > ORDINAL_MASK) {
-            throw new IllegalStateException(String.format(
-                    "Ordinal cannot be assigned. The to be assigned ordinal, %s, is greater than the maximum supported ordinal value of %s",
-                    ordinal, ORDINAL_MASK));
+        return (int) (key >>> BITS_PER_POINTER);
+    }
+
+    /**
+     * Append a byte sequence, preceded by its length, to the current thread's region of the byte data.
+     *
+     * @return the pointer to the appended sequence
+     */
+    private long append(ByteDataArray serializedRepresentation) {
+        int length = (int) serializedRepresentation.length();
+        int lengthWithSize = VarInt.sizeOfVInt(length) + length;
+
+        AppendRegion region = appendRegions.get();
+        if (region == null) {
+            region = new AppendRegion();
+            appendRegions.set(region);
+        }
+        if (region.generation != appendRegionGeneration || region.position + lengthWithSize > region.end) {
+            reserveAppendRegion(region, lengthWithSize);
         }
 
-        long pointer = byteData.length();
+        SegmentedByteArray arr = byteData.getUnderlyingArray();
+        long pointer = region.position;
 
-        VarInt.writeVInt(byteData, (int) serializedRepresentation.length());
-        /// Copying might cause a resize to the segmented array held by byteData
-        /// A reading thread may observe a null value for a segment during the creation
-        /// of a new segments array (see SegmentedByteArray.ensureCapacity).
-        serializedRepresentation.copyTo(byteData);
-        if (byteData.length() > MAX_BYTE_DATA_LENGTH) {
-            throw new IllegalStateException(String.format(
-                    "The number of bytes for the serialized representations, %s, is too large and is greater than the maximum of %s bytes",
-                    byteData.length(), MAX_BYTE_DATA_LENGTH));
+        /// the region is exclusive to this thread, so the length is written directly rather than through byteData
+        byte[] encodedLength = new byte[5];
+        int sizeOfLength = VarInt.writeVInt(encodedLength, 0, length);
+        for (int i = 0; i < sizeOfLength; i++) {
+            arr.set(pointer + i, encodedLength[i]);
         }
+        arr.copy(serializedRepresentation.getUnderlyingArray(), 0, pointer + sizeOfLength, length);
 
-        key = ((long) ordinal << BITS_PER_POINTER) | pointer;
+        region.position += lengthWithSize;
+        region.lastPointer = pointer;
+        return pointer;
+    }
+
+    /**
+     * Reclaim a byte sequence appended by the current thread, which was not referenced by any key because an equal
+     * sequence was found.  The sequence is the last appended to the thread's region, unless the region was since
+     * replaced, in which case it is reclaimed when the byte data is compacted.
+     */
+    private void reclaimAppended(long pointer) {
+        AppendRegion region = appendRegions.get();
+        if (region.lastPointer == pointer && region.generation == appendRegionGeneration) {
+            region.position = pointer;
+            region.lastPointer = -1;
+        }
+    }
 
-        size++;
+    private void reserveAppendRegion(AppendRegion region, int minLength) {
+        int generation = appendRegionGeneration;
+        if (region.generation != generation) {
+            region.generation = generation;
+            region.regionLength = MIN_APPEND_REGION_LENGTH;
+        } else {
+            /// threads which add many byte sequences reserve progressively larger regions
+            region.regionLength = Math.min(region.regionLength << 1, MAX_APPEND_REGION_LENGTH);
+        }
 
-        /// this set on the AtomicLongArray has volatile semantics (i.e. behaves like a monitor release).
-        /// Any other thread reading this element in the AtomicLongArray will have visibility to all memory writes this thread has made up to this point.
-        /// This means the entire byte sequence is guaranteed to be visible to any thread which reads the pointer to that data.
-        pao.set(bucket, key);
+        int regionLength = Math.max(region.regionLength, minLength);
+
+        synchronized (byteData) {
+            long start = byteData.length();
+            if (start + regionLength > MAX_BYTE_DATA_LENGTH) {
+                throw new IllegalStateException(String.format(
+                        "The number of bytes for the serialized representations, %s, is too large and is greater than the maximum of %s bytes",
+                        start + regionLength, MAX_BYTE_DATA_LENGTH));
+            }
 
-        return ordinal;
+            /// Allocating segments might cause a resize to the segmented array held by byteData
+            /// A reading thread may observe a null value for a segment during the creation
+            /// of a new segments array (see SegmentedByteArray.ensureCapacity).
+            byteData.getUnderlyingArray().ensureCapacity(start, start + regionLength);
+            byteData.setPosition(start + regionLength);
+
+            region.position = start;
+            region.end = start + regionLength;
+        }
     }
 
     /**
@@ -202,12 +353,12 @@ public class ByteArrayOrdinalMap {
      * @param ordinal the ordinal
      */
     public void put(ByteDataArray serializedRepresentation, int ordinal) {
-        if (ordinal < 0 || ordinal > ORDINAL_MASK) {
+        if (ordinal < 0 || ordinal > MAX_ORDINAL) {
             throw new IllegalArgumentException(String.format(
                     "The given ordinal %s is out of bounds and not within the closed interval [0, %s]",
-                    ordinal, ORDINAL_MASK));
+                    ordinal, MAX_ORDINAL));
         }
-        if (size > sizeBeforeGrow) {
+        if (size.get() > sizeBeforeGrow) {
             growKeyArray();
         }
 
@@ -236,7 +387,7 @@ public class ByteArrayOrdinalMap {
 
         key = ((long) ordinal << BITS_PER_POINTER) | pointer;
 
-        size++;
+        size.incrementAndGet();
 
         pao.set(bucket, key);
     }
@@ -307,7 +458,7 @@ public class ByteArrayOrdinalMap {
         // size increase may break this invariant
         while (key != EMPTY_BUCKET_VALUE) {
             if (compare(serializedRepresentation, key)) {
-                return (int) (key >>> BITS_PER_POINTER);
+                return awaitOrdinal(pao, bucket, key);
             }
 
             bucket = (bucket + 1) & modBitmask;
@@ -359,7 +510,7 @@ public class ByteArrayOrdinalMap {
      * @param usedOrdinals a bit set representing the ordinals which are currently referenced by any image.
      */
     public void compact(ThreadSafeBitSet usedOrdinals) {
-        long[] populatedReverseKeys = new long[size];
+        long[] populatedReverseKeys = new long[size.get()];
 
         int counter = 0;
         AtomicLongArray pao = pointersAndOrdinals;
@@ -407,7 +558,8 @@ public class ByteArrayOrdinalMap {
             pao.lazySet(i, EMPTY_BUCKET_VALUE);
         }
         populateNewHashArray(pao, populatedReverseKeys);
-        size = usedOrdinals.cardinality();
+        size.set(usedOrdinals.cardinality());
+        appendRegionGeneration++;
 
         pointersByOrdinal = null;
         unusedPreviousOrdinals = null;
@@ -487,6 +639,20 @@ public class ByteArrayOrdinalMap {
         }
     }
 
+    /**
+     * Grow the key array if it is still necessary once concurrent additions are excluded.
+     */
+    private void growKeyArrayIfNecessary() {
+        long stamp = growLock.writeLock();
+        try {
+            if (size.get() > sizeBeforeGrow) {
+                growKeyArray();
+            }
+        } finally {
+            growLock.unlockWrite(stamp);
+        }
+    }
+
     /**
      * Grow the key array.  All of the values in the current array must be re-hashed and added to the new array.
      */
@@ -508,7 +674,7 @@ public class ByteArrayOrdinalMap {
 
         AtomicLongArray newKeys = emptyKeyArray(newSize);
 
-        long[] valuesToAdd = new long[size];
+        long[] valuesToAdd = new long[size.get()];
 
         int counter = 0;
 
@@ -603,4 +769,15 @@ public class ByteArrayOrdinalMap {
         return (int) (pointerAndOrdinal >>> BITS_PER_POINTER);
     }
 
-}
\ No newline at end of file
+    /**
+     * A region of the byte data reserved by a single thread, to which it appends byte sequences.
+     */
+    private static class AppendRegion {
+        private int generation = -1;
+        private int regionLength;
+        private long position;
+        private long end;
+        private long lastPointer = -1;
+    }
+
+}
@@ -2,21 +2,34 @@ package com.netflix.hollow.core.memory;
 
 import com.netflix.hollow.core.memory.encoding.EncodedLongBuffer;
 import com.netflix.hollow.core.memory.encoding.FixedLengthElementArray;
+import com.netflix.hollow.core.memory.encoding.OffHeapFixedLengthElementArray;
 import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
 import com.netflix.hollow.core.read.HollowBlobInput;
 import java.io.IOException;
-import java.util.logging.Logger;
 
 public class FixedLengthDataFactory {
 
-    private static final Logger LOG = Logger.getLogger(FixedLengthDataFactory.class.getName());
-
     public static FixedLengthData get(HollowBlobInput in, MemoryMode memoryMode, ArraySegmentRecycler memoryRecycler) throws IOException {
 
         if (memoryMode.equals(MemoryMode.ON_HEAP)) {
             return FixedLengthElementArray.newFrom(in, memoryRecycler);
         } else if (memoryMode.equals(MemoryMode.SHARED_MEMORY_LAZY)) {
             return EncodedLongBuffer.newFrom(in);
+        } else if (memoryMode.equals(MemoryMode.OFF_HEAP)) {
+            return OffHeapFixedLengthElementArray.newFrom(in);
+        } else {
+            throw new UnsupportedOperationException("Memory mode " + memoryMode.name() + " not supported");
+        }
+    }
+
+    public static FixedLengthData allocate(long numBits, MemoryMode memoryMode, ArraySegmentRecycler memoryRecycler) {
+
+        if (memoryMode.equals(MemoryMode.ON_HEAP)) {
+            return new FixedLengthElementArray(memoryRecycler, numBits);
+        } else if (memoryMode.equals(MemoryMode.OFF_HEAP)) {
+            return new OffHeapFixedLengthElementArray(numBits);
+        } else if (memoryMode.equals(MemoryMode.SHARED_MEMORY_LAZY)) {
+            return new OffHeapFixedLengthElementArray(numBits, OffHeapSegmentAllocator.SHARED_MEMORY_DELTA_ALLOCATOR);
         } else {
             throw new UnsupportedOperationException("Memory mode " + memoryMode.name() + " not supported");
         }
@@ -26,7 +39,9 @@ public class FixedLengthDataFactory {
         if (fld instanceof FixedLengthElementArray) {
             ((FixedLengthElementArray) fld).destroy(memoryRecycler);
         } else if (fld instanceof EncodedLongBuffer) {
-            LOG.warning("Destroy operation is a no-op in shared memory mode");
+            /// the mapping is released once the buffer is no longer reachable
+        } else if (fld instanceof OffHeapFixedLengthElementArray) {
+            ((OffHeapFixedLengthElementArray) fld).destroy(memoryRecycler);
         } else {
             throw new UnsupportedOperationException("Unknown type");
         }
@@ -17,6 +17,7 @@
 package com.netflix.hollow.core.memory;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A stack of unused ordinals.<p>
@@ -25,6 +26,9 @@ import java.util.Arrays;
  * 
  * The goal is to ensure the "holes" generated by removing unused ordinals during server processing are reused in subsequent cycles,
  * instead of growing the "ordinal space" indefinitely.
+ * <p>
+ * {@link #getFreeOrdinal()} may be called concurrently by multiple threads.  All other operations must not be called
+ * concurrently with any other operation.
  *
  * @author dkoszewnik
  *
@@ -32,8 +36,8 @@ import java.util.Arrays;
 public class FreeOrdinalTracker {
 
     private int freeOrdinals[];
-    private int size;
-    private int nextEmptyOrdinal;
+    private final AtomicInteger size;
+    private final AtomicInteger nextEmptyOrdinal;
 
     public FreeOrdinalTracker() {
         this(0);
@@ -41,18 +45,24 @@ public class FreeOrdinalTracker {
 
     private FreeOrdinalTracker(int nextEmptyOrdinal) {
         this.freeOrdinals = new int[64];
-        this.nextEmptyOrdinal = nextEmptyOrdinal;
-        this.size = 0;
+        this.nextEmptyOrdinal = new AtomicInteger(nextEmptyOrdinal);
+        this.size = new AtomicInteger(0);
     }
 
     /**
+     * This operation is thread-safe.
+     *
      * @return either an ordinal which was previously deallocated, or the next empty, previously unallocated ordinal in the sequence 0-n
      */
     public int getFreeOrdinal() {
-        if(size == 0)
-            return nextEmptyOrdinal++;
+        while(true) {
+            int currentSize = size.get();
+            if(currentSize == 0)
+                return nextEmptyOrdinal.getAndIncrement();
 
-        return freeOrdinals[--size];
+            if(size.compareAndSet(currentSize, currentSize - 1))
+                return freeOrdinals[currentSize - 1];
+        }
     }
 
     /**
@@ -61,12 +71,13 @@ public class FreeOrdinalTracker {
      * @param ordinal the ordinal
      */
     public void returnOrdinalToPool(int ordinal) {
-        if(size == freeOrdinals.length) {
+        int currentSize = size.get();
+        if(currentSize == freeOrdinals.length) {
             freeOrdinals = Arrays.copyOf(freeOrdinals, freeOrdinals.length * 3 / 2);
         }
 
-        freeOrdinals[size] = ordinal;
-        size++;
+        freeOrdinals[currentSize] = ordinal;
+        size.set(currentSize + 1);
     }
 
     /**
@@ -75,13 +86,14 @@ public class FreeOrdinalTracker {
      * @param nextEmptyOrdinal the next empty ordinal
      */
     public void setNextEmptyOrdinal(int nextEmptyOrdinal) {
-        this.nextEmptyOrdinal = nextEmptyOrdinal;
+        this.nextEmptyOrdinal.set(nextEmptyOrdinal);
     }
 
     /**
      * Ensure that all future ordinals are returned in ascending order.
      */
     public void sort() {
+        int size = this.size.get();
         Arrays.sort(freeOrdinals, 0, size);
 
         /// reverse the ordering
@@ -97,8 +109,8 @@ public class FreeOrdinalTracker {
      * Resets the FreeOrdinalTracker to its initial state.
      */
     public void reset() {
-        size = 0;
-        nextEmptyOrdinal = 0;
+        size.set(0);
+        nextEmptyOrdinal.set(0);
     }
 
 }
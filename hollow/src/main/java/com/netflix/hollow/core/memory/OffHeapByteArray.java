@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory;
+
+import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import sun.misc.Unsafe;
+
+/**
+ * The {@link MemoryMode#OFF_HEAP} counterpart of {@link SegmentedByteArray}, which backs the {@link ByteData}
+ * interface with direct (native) {@code ByteBuffer} segments rather than with pooled {@code byte[]} segments on the
+ * JVM heap.  In {@link MemoryMode#SHARED_MEMORY_LAZY}, it holds the data produced by applying a delta, with segments
+ * memory-mapped from scratch files (see {@link OffHeapSegmentAllocator}).<p>
+ *
+ * Segment length is always a power of two so that the location of a given index can be found with mask and shift
+ * operations.  Segments are allocated as bytes are written, so that the array can grow without copying memory.<p>
+ *
+ * As for {@link com.netflix.hollow.core.memory.encoding.OffHeapFixedLengthElementArray}, native memory is freed by the
+ * memory recycler some time after {@link #destroy(ArraySegmentRecycler)} rather than immediately.
+ */
+@SuppressWarnings("restriction")
+public class OffHeapByteArray implements VariableLengthData {
+
+    private static final Unsafe unsafe = HollowUnsafeHandle.getUnsafe();
+
+    private ByteBuffer[] segments;
+    private final int log2OfSegmentSize;
+    private final int bitmask;
+    private final OffHeapSegmentAllocator segmentAllocator;
+
+    public OffHeapByteArray() {
+        this(OffHeapSegmentAllocator.DIRECT);
+    }
+
+    public OffHeapByteArray(OffHeapSegmentAllocator segmentAllocator) {
+        this(segmentAllocator.getLog2OfByteSegmentSize(), segmentAllocator);
+    }
+
+    OffHeapByteArray(int log2OfSegmentSize, OffHeapSegmentAllocator segmentAllocator) {
+        this.segments = new ByteBuffer[2];
+        this.log2OfSegmentSize = log2OfSegmentSize;
+        this.bitmask = (1 << log2OfSegmentSize) - 1;
+        this.segmentAllocator = segmentAllocator;
+    }
+
+    /**
+     * Set the byte at the given index to the specified value
+     * @param index the index
+     * @param value the byte value
+     */
+    public void set(long index, byte value) {
+        int segmentIndex = (int)(index >>> log2OfSegmentSize);
+        ensureCapacity(segmentIndex);
+        segments[segmentIndex].put((int)(index & bitmask), value);
+    }
+
+    @Override
+    public byte get(long index) {
+        return segments[(int)(index >>> log2OfSegmentSize)].get((int)(index & bitmask));
+    }
+
+    @Override
+    public void copy(ByteData src, long srcPos, long destPos, long length) {
+        if(src instanceof OffHeapByteArray) {
+            copy((OffHeapByteArray) src, srcPos, destPos, length);
+            return;
+        }
+
+        for(long i=0;i<length;i++) {
+            set(destPos++, src.get(srcPos++));
+        }
+    }
+
+    /**
+     * For an OffHeapByteArray, this is a faster copy implementation, which copies whole ranges of segments at a time.
+     *
+     * @param src the source data
+     * @param srcPos the position to begin copying from the source data
+     * @param destPos the position to begin writing in this array
+     * @param length the length of the data to copy
+     */
+    public void copy(OffHeapByteArray src, long srcPos, long destPos, long length) {
+        while(length > 0) {
+            int destSegment = (int)(destPos >>> log2OfSegmentSize);
+            int destSegmentPos = (int)(destPos & bitmask);
+            int srcSegmentPos = (int)(srcPos & src.bitmask);
+
+            int bytesToCopy = (int) Math.min(length, Math.min(bitmask + 1 - destSegmentPos, src.bitmask + 1 - srcSegmentPos));
+
+            ensureCapacity(destSegment);
+
+            /// the positions are set through Buffer, which declares them on JDK 8
+            ByteBuffer from = src.segments[(int)(srcPos >>> src.log2OfSegmentSize)].duplicate();
+            ((Buffer) from).limit(srcSegmentPos + bytesToCopy);
+            ((Buffer) from).position(srcSegmentPos);
+            ByteBuffer to = segments[destSegment].duplicate();
+            ((Buffer) to).position(destSegmentPos);
+            to.put(from);
+
+            srcPos += bytesToCopy;
+            destPos += bytesToCopy;
+            length -= bytesToCopy;
+        }
+    }
+
+    @Override
+    public void orderedCopy(VariableLengthData src, long srcPos, long destPos, long length) {
+        /// make all prior writes visible to any thread which sees the copied bytes
+        unsafe.storeFence();
+        copy(src, srcPos, destPos, length);
+    }
+
+    @Override
+    public void loadFrom(HollowBlobInput is, long length) throws IOException {
+        int segmentSize = 1 << log2OfSegmentSize;
+        int segment = 0;
+
+        byte scratch[] = new byte[segmentSize];
+
+        while(length > 0) {
+            ensureCapacity(segment);
+            long bytesToCopy = Math.min(segmentSize, length);
+            long bytesCopied = 0;
+            while(bytesCopied < bytesToCopy) {
+                bytesCopied += is.read(scratch, (int)bytesCopied, (int)(bytesToCopy - bytesCopied));
+            }
+            ByteBuffer to = segments[segment++].duplicate();
+            to.put(scratch, 0, (int)bytesCopied);
+            length -= bytesCopied;
+        }
+    }
+
+    /**
+     * Ensures that the segment at segmentIndex exists
+     *
+     * @param segmentIndex the segment index
+     */
+    private void ensureCapacity(int segmentIndex) {
+        while(segmentIndex >= segments.length) {
+            segments = Arrays.copyOf(segments, segments.length * 3 / 2);
+        }
+
+        if(segments[segmentIndex] == null) {
+            segments[segmentIndex] = segmentAllocator.allocate(1 << log2OfSegmentSize);
+        }
+    }
+
+    public void destroy(ArraySegmentRecycler memoryRecycler) {
+        memoryRecycler.recycleOffHeapSegments(segments);
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for(int i=0;i<segments.length;i++) {
+            if(segments[i] != null)
+                size += segments[i].capacity();
+        }
+
+        return size;
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import sun.misc.Unsafe;
+
+/**
+ * Allocates the zero-filled segments of {@link OffHeapByteArray} and
+ * {@link com.netflix.hollow.core.memory.encoding.OffHeapFixedLengthElementArray}.
+ * <p>
+ * The {@link #DIRECT} allocator backs {@link MemoryMode#OFF_HEAP} data with direct buffers.  The
+ * {@link #mappedFiles(File)} allocator backs the data produced by applying a delta in
+ * {@link MemoryMode#SHARED_MEMORY_LAZY}, with segments which are memory-mapped from scratch files, so that, like a
+ * mapped snapshot, the data resides in the page cache rather than in the memory of the JVM.
+ * <p>
+ * Applying a delta to a type writes all of the type's data, not only the changed records, to new segments.  The
+ * data of a type is therefore only shared with other consumers of the same snapshot on the host until the type's
+ * first delta, after which each consumer holds a private copy of the type in its scratch mappings.
+ * <p>
+ * The segments of destroyed data are handed to the {@link com.netflix.hollow.core.memory.pool.ArraySegmentRecycler}
+ * of the state engine, which {@link #free(ByteBuffer) frees} them at the start of a later delta, once no reader may
+ * still be reading them (see {@link com.netflix.hollow.core.memory.pool.RecyclingRecycler}).
+ */
+@SuppressWarnings("restriction")
+public abstract class OffHeapSegmentAllocator {
+
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    /**
+     * The system property which specifies the directory of the scratch files of the
+     * {@link #SHARED_MEMORY_DELTA_ALLOCATOR}.  Defaults to {@code java.io.tmpdir}.
+     */
+    public static final String SHARED_MEMORY_DELTA_DIRECTORY_PROPERTY = "com.netflix.hollow.core.memory.sharedMemoryDeltaDirectory";
+
+    public static final OffHeapSegmentAllocator DIRECT = new DirectSegmentAllocator();
+
+    public static final OffHeapSegmentAllocator SHARED_MEMORY_DELTA_ALLOCATOR = mappedFiles(new File(
+            System.getProperty(SHARED_MEMORY_DELTA_DIRECTORY_PROPERTY, System.getProperty("java.io.tmpdir"))));
+
+    /**
+     * Each segment is mapped from its own scratch file, which is unlinked as soon as it has been mapped, so that
+     * no files remain in the directory once the segments are no longer reachable.  The scratch files are sparse,
+     * so pages of a segment which are never written occupy neither disk nor memory.
+     * <p>
+     * The segments are mapped read-write and shared, so the OS writes their dirty pages back to the scratch files,
+     * which uses disk bandwidth and space in the directory, but allows the pages to be evicted under memory pressure.
+     * A segment is not unmapped when the data it backs is destroyed, since a reader may still be reading the
+     * destroyed data, but when it is freed by the memory recycler.  Each segment consumes one of the memory
+     * mappings which the OS permits a process ({@code vm.max_map_count} on Linux), so a consumer applying deltas to a
+     * large dataset may need a larger limit.
+     *
+     * @param directory the directory in which to create the scratch files
+     * @return an allocator of segments which are memory-mapped from scratch files in the directory
+     */
+    public static OffHeapSegmentAllocator mappedFiles(File directory) {
+        return new MappedFileSegmentAllocator(directory);
+    }
+
+    /**
+     * @return the log2 of the segment size, in bytes, of an {@link OffHeapByteArray}
+     */
+    public abstract int getLog2OfByteSegmentSize();
+
+    /**
+     * @param capacity the capacity of the segment, in bytes
+     * @return a new, zero-filled segment
+     */
+    public abstract ByteBuffer allocate(int capacity);
+
+    /**
+     * Frees the native memory of a segment, or unmaps the segment if it is memory-mapped.  The segment, and any data
+     * it backs, must not be read afterwards.
+     * <p>
+     * On Java 8, a buffer cannot be freed explicitly, and its memory is instead released once it is garbage collected.
+     *
+     * @param segment a segment returned by {@link #allocate(int)}
+     */
+    public static void free(ByteBuffer segment) {
+        if(INVOKE_CLEANER == null)
+            return;
+
+        try {
+            INVOKE_CLEANER.invokeExact(segment);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        Unsafe unsafe = HollowUnsafeHandle.getUnsafe();
+        if(unsafe == null)
+            return null;
+
+        try {
+            return MethodHandles.lookup().findVirtual(Unsafe.class, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class)).bindTo(unsafe);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            /// Unsafe.invokeCleaner was added in Java 9
+            return null;
+        }
+    }
+
+    private static class DirectSegmentAllocator extends OffHeapSegmentAllocator {
+
+        @Override
+        public int getLog2OfByteSegmentSize() {
+            return 16;
+        }
+
+        @Override
+        public ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+    }
+
+    private static class MappedFileSegmentAllocator extends OffHeapSegmentAllocator {
+
+        private final File directory;
+
+        MappedFileSegmentAllocator(File directory) {
+            this.directory = directory;
+        }
+
+        /// segments are cheap to over-allocate, since unwritten pages are never materialized, but each one
+        /// consumes a memory mapping, of which the OS permits a limited number per process
+        @Override
+        public int getLog2OfByteSegmentSize() {
+            return 24;
+        }
+
+        @Override
+        public ByteBuffer allocate(int capacity) {
+            try {
+                File file = File.createTempFile("hollow-delta-", ".segment", directory);
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(capacity);
+                    return raf.getChannel().map(READ_WRITE, 0, capacity);
+                } finally {
+                    /// the mapping remains valid after the file is closed and unlinked
+                    if(!file.delete())
+                        file.deleteOnExit();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to map a segment in " + directory, e);
+            }
+        }
+    }
+}
@@ -261,6 +261,18 @@ public class SegmentedByteArray implements VariableLengthData {
         }
     }
 
+    /**
+     * Ensures that the segments for all indices in the given range exist, so that the range may subsequently be
+     * written without allocating segments.
+     *
+     * @param fromIndex the first index in the range, inclusive
+     * @param toIndex the last index in the range, exclusive
+     */
+    void ensureCapacity(long fromIndex, long toIndex) {
+        for(long segmentIndex = fromIndex >>> log2OfSegmentSize; segmentIndex <= (toIndex - 1) >>> log2OfSegmentSize; segmentIndex++)
+            ensureCapacity((int)segmentIndex);
+    }
+
     /**
      * Ensures that the segment at segmentIndex exists
      *
@@ -21,6 +21,7 @@ import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
 import com.netflix.hollow.core.read.HollowBlobInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import sun.misc.Unsafe;
 
 /**
@@ -63,6 +64,27 @@ public class SegmentedLongArray {
         this.segments = segments;
     }
 
+    /**
+     * Create an array which shares the segments of another array, rather than copying them.  Segments beyond those
+     * of the other array are newly allocated.  A subclass which is written to must copy a shared segment before
+     * writing to it, since the other array would otherwise observe the write.
+     *
+     * @param shareFrom the array whose segments are shared
+     * @param numLongs the number of longs in this array
+     */
+    protected SegmentedLongArray(SegmentedLongArray shareFrom, long numLongs) {
+        this.log2OfSegmentSize = shareFrom.log2OfSegmentSize;
+        this.bitmask = shareFrom.bitmask;
+        int numSegments = (int)((numLongs - 1) >>> log2OfSegmentSize) + 1;
+        long[][] segments = Arrays.copyOf(shareFrom.segments, numSegments);
+
+        for(int i=shareFrom.segments.length;i<numSegments;i++) {
+            segments[i] = new long[(1 << log2OfSegmentSize) + 1];
+        }
+
+        this.segments = segments;
+    }
+
     /**
      * Set the long at the given index to the specified value
      *
@@ -1,12 +1,10 @@
 package com.netflix.hollow.core.memory;
 
 import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
-import java.util.logging.Logger;
+import com.netflix.hollow.core.memory.pool.WastefulRecycler;
 
 public class VariableLengthDataFactory {
 
-    private static final Logger LOG = Logger.getLogger(VariableLengthDataFactory.class.getName());
-
     public static VariableLengthData get(MemoryMode memoryMode, ArraySegmentRecycler memoryRecycler) {
 
         if (memoryMode.equals(MemoryMode.ON_HEAP)) {
@@ -15,16 +13,41 @@ public class VariableLengthDataFactory {
         } else if (memoryMode.equals(MemoryMode.SHARED_MEMORY_LAZY)) {
             /// list pointer array
             return new EncodedByteBuffer();
+        } else if (memoryMode.equals(MemoryMode.OFF_HEAP)) {
+            return new OffHeapByteArray();
         } else {
             throw new UnsupportedOperationException("Memory mode " + memoryMode.name() + " not supported");
         }
     }
 
+    /**
+     * Returns a new, writable {@code VariableLengthData} to which the data resulting from a delta may be copied.
+     * In shared-memory mode, the data is memory-mapped from scratch files, see {@link OffHeapSegmentAllocator}.
+     *
+     * @param memoryMode the memory mode
+     * @param memoryRecycler the memory recycler
+     * @return a new, writable {@code VariableLengthData}
+     */
+    public static VariableLengthData allocate(MemoryMode memoryMode, ArraySegmentRecycler memoryRecycler) {
+
+        if (memoryMode.equals(MemoryMode.SHARED_MEMORY_LAZY)) {
+            return new OffHeapByteArray(OffHeapSegmentAllocator.SHARED_MEMORY_DELTA_ALLOCATOR);
+        } else {
+            return get(memoryMode, memoryRecycler);
+        }
+    }
+
     public static void destroy(VariableLengthData vld) {
+        destroy(vld, WastefulRecycler.DEFAULT_INSTANCE);
+    }
+
+    public static void destroy(VariableLengthData vld, ArraySegmentRecycler memoryRecycler) {
         if (vld instanceof SegmentedByteArray) {
             ((SegmentedByteArray) vld).destroy();
         } else if (vld instanceof EncodedByteBuffer) {
-            LOG.warning("Destroy operation is a no-op in shared memory mode");
+            /// the mapping is released once the buffer is no longer reachable
+        } else if (vld instanceof OffHeapByteArray) {
+            ((OffHeapByteArray) vld).destroy(memoryRecycler);
         } else {
             throw new UnsupportedOperationException("Unknown type");
         }
@@ -16,6 +16,9 @@ import java.nio.channels.FileChannel;
  *
  * This class is not thread safe, but it *is* safe to share the underlying Byte Buffers for parallel reads</p>
  *
+ * <p>A blob in the block compressed format is instead read through the decompressed blocks of a
+ * {@link BlockCompressedBlob}, in which case the blocks take the place of the {@code MappedByteBuffer}s.</p>
+ *
  * <p>The largest blob size supported is ~2 exobytes. Presumably other limits in Hollow or practical limits
  * are reached before encountering this limit.</p>
  *
@@ -27,6 +30,7 @@ public final class BlobByteBuffer {
     public static final int MAX_SINGLE_BUFFER_CAPACITY = 1 << 30;   // largest, positive power-of-two int
 
     private final ByteBuffer[] spine;   // array of MappedByteBuffers
+    private final BlockCompressedBlob blocks;   // decompressed blocks, if the blob is block compressed
     private final long capacity;        // in bytes
     private final int shift;
     private final int mask;
@@ -38,11 +42,16 @@ public final class BlobByteBuffer {
     }
 
     private BlobByteBuffer(long capacity, int shift, int mask, ByteBuffer[] spine, long position) {
+        this(capacity, shift, mask, spine, null, position);
+    }
+
+    private BlobByteBuffer(long capacity, int shift, int mask, ByteBuffer[] spine, BlockCompressedBlob blocks, long position) {
 
-        if (!spine[0].order().equals(ByteOrder.BIG_ENDIAN)) {
+        if (spine != null && !spine[0].order().equals(ByteOrder.BIG_ENDIAN)) {
             throw new UnsupportedOperationException("Little endian memory layout is not supported");
         }
 
+        this.blocks = blocks;
         this.capacity = capacity;
         this.shift = shift;
         this.mask = mask;
@@ -60,7 +69,7 @@ public final class BlobByteBuffer {
      * @return a new {@code BlobByteBuffer} which is view on the current {@code BlobByteBuffer}
      */
     public BlobByteBuffer duplicate() {
-        return new BlobByteBuffer(this.capacity, this.shift, this.mask, this.spine, this.position);
+        return new BlobByteBuffer(this.capacity, this.shift, this.mask, this.spine, this.blocks, this.position);
     }
 
     /**
@@ -110,6 +119,21 @@ public final class BlobByteBuffer {
         return new BlobByteBuffer(size, shift, mask, spine);
     }
 
+    /**
+     * View the decompressed contents of a block compressed blob, each block of which is decompressed when it is
+     * first read.
+     * @param blob the block compressed blob
+     * @return BlobByteBuffer over the decompressed contents of the blob
+     */
+    public static BlobByteBuffer blockCompressed(BlockCompressedBlob blob) {
+        if (blob.length() == 0) {
+            throw new IllegalStateException("File to be mmap-ed has no data");
+        }
+        int shift = blob.getLog2OfBlockSize();
+        int mask = (1 << shift) - 1;
+        return new BlobByteBuffer(blob.length(), shift, mask, null, blob, 0);
+    }
+
     /**
      * Return position in bytes.
      * @return position in bytes
@@ -140,6 +164,9 @@ public final class BlobByteBuffer {
         if (index < capacity) {
             int spineIndex = (int)(index >>> (shift));
             int bufferIndex = (int)(index & mask);
+            if (blocks != null) {
+                return blocks.block(spineIndex)[bufferIndex];
+            }
             return spine[spineIndex].get(bufferIndex);
         }
         else {
@@ -162,6 +189,21 @@ public final class BlobByteBuffer {
         int alignmentOffset = (int)(startByteIndex - this.position()) % Long.BYTES;
         long nextAlignedPos = startByteIndex - alignmentOffset + Long.BYTES;
 
+        if (blocks != null) {
+            // the bytes of the long are read from within the two 8-byte words either side of nextAlignedPos, which
+            // are usually in the same decompressed block, in which case the block is looked up once
+            long firstIndex = nextAlignedPos - Long.BYTES;
+            long lastIndex = nextAlignedPos + Long.BYTES - 1;
+            if (firstIndex >= 0 && lastIndex < capacity && (firstIndex >>> shift) == (lastIndex >>> shift)) {
+                byte[] block = blocks.block((int)(firstIndex >>> shift));
+                long value = 0;
+                for (int i = 0; i < Long.BYTES; i ++ ) {
+                    value |= ((long) (block[(int)(bigEndian(startByteIndex + i, nextAlignedPos) & mask)] & 0xff)) << (i * 8);
+                }
+                return value;
+            }
+        }
+
         byte[] bytes = new byte[Long.BYTES];
         for (int i = 0; i < Long.BYTES; i ++ ) {
             bytes[i] = getByte(bigEndian(startByteIndex + i, nextAlignedPos));
@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory.encoding;
+
+import java.io.IOException;
+
+/**
+ * Compresses and decompresses the blocks of a block compressed blob.
+ * <p>
+ * The name of the codec is recorded in each blob, and is used to find the codec with which to read the blob.  The
+ * {@link #DEFLATE} codec is always available; other codecs are found with a {@link java.util.ServiceLoader}.
+ *
+ * @see BlockCompressedOutputStream
+ * @see BlockCompressedBlob
+ */
+public interface BlockCodec {
+
+    /**
+     * Compresses blocks with {@link java.util.zip.Deflater}, favouring speed over compression ratio.
+     */
+    BlockCodec DEFLATE = new DeflateBlockCodec();
+
+    /**
+     * @return the name of the codec, which is recorded in the blobs it compresses
+     */
+    String getName();
+
+    /**
+     * Compress a block.
+     *
+     * @param data the uncompressed block
+     * @param length the length of the uncompressed block
+     * @return the compressed block
+     * @throws IOException if the block could not be compressed
+     */
+    byte[] compress(byte[] data, int length) throws IOException;
+
+    /**
+     * Decompress a block.
+     *
+     * @param compressed the compressed block
+     * @param compressedLength the length of the compressed block
+     * @param data the array into which to decompress the block
+     * @param length the length of the uncompressed block
+     * @throws IOException if the block could not be decompressed
+     */
+    void decompress(byte[] compressed, int compressedLength, byte[] data, int length) throws IOException;
+}
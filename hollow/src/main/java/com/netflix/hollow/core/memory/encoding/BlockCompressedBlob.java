@@ -0,0 +1,358 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory.encoding;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A blob in the block compressed format written by {@link BlockCompressedOutputStream}, which is read with random
+ * access.
+ * <p>
+ * The compressed file is memory mapped, and each block is decompressed when it is first read.  Decompressed blocks
+ * are retained up to a maximum number of blocks, beyond which the least recently read block is evicted, and are
+ * looked up without locking.  A {@link BlobByteBuffer} over the decompressed
+ * blob is provided by {@link BlobByteBuffer#blockCompressed(BlockCompressedBlob)}, and a {@link Reader} reads the
+ * decompressed blob serially from any position.
+ * <p>
+ * Blocks may be read concurrently.  Like a memory mapped blob, the mapping remains valid after the file is closed,
+ * for as long as the blob is reachable.
+ */
+public final class BlockCompressedBlob {
+
+    static final int MAGIC = 0x48424c4b;
+    public static final int DEFAULT_LOG2_OF_BLOCK_SIZE = 20;
+    public static final int DEFAULT_MAX_CACHED_BLOCKS = 64;
+
+    private static final int TRAILER_LENGTH = 12;
+    private static final int LOG2_OF_MAPPED_CHUNK_SIZE = 30;
+
+    private final ByteBuffer[] mappedChunks;
+    private final long mappedSize;
+    private final BlockCodec codec;
+    private final int log2OfBlockSize;
+    private final long length;
+    private final long[] blockOffsets;
+    private final AtomicReferenceArray<byte[]> decompressedBlocks;
+
+    /// the time of the last read of each block, by a clock which only advances when a block is decompressed, so
+    /// that reads of a retained block only write its time once between decompressions.  The clock advances before
+    /// and after the decompressed block is stamped, which orders the block after the blocks read before it and
+    /// before the blocks read after it.
+    private final AtomicLongArray blockReads;
+    private volatile long readClock;
+
+    /// the indexes of the retained blocks, guarded by this array
+    private final int[] retainedBlockIndexes;
+    private int numRetainedBlocks;
+
+    private BlockCompressedBlob(ByteBuffer[] mappedChunks, int maxCachedBlocks) throws IOException {
+        this.mappedChunks = mappedChunks;
+        ByteBuffer lastChunk = mappedChunks[mappedChunks.length - 1];
+        this.mappedSize = ((long)(mappedChunks.length - 1) << LOG2_OF_MAPPED_CHUNK_SIZE) + lastChunk.capacity();
+
+        DataInputStream header = new DataInputStream(new MappedInputStream(0));
+        if(header.readInt() != MAGIC)
+            throw new IOException("Not a block compressed blob");
+        this.codec = codecNamed(header.readUTF());
+        this.log2OfBlockSize = header.readByte();
+
+        DataInputStream trailer = new DataInputStream(new MappedInputStream(mappedSize - TRAILER_LENGTH));
+        long indexOffset = trailer.readLong();
+        if(trailer.readInt() != MAGIC)
+            throw new IOException("Block compressed blob is truncated");
+
+        DataInputStream index = new DataInputStream(new MappedInputStream(indexOffset));
+        this.length = index.readLong();
+        this.blockOffsets = new long[index.readInt()];
+        for(int i=0;i<blockOffsets.length;i++)
+            blockOffsets[i] = index.readLong();
+
+        this.decompressedBlocks = new AtomicReferenceArray<>(blockOffsets.length);
+        this.blockReads = new AtomicLongArray(blockOffsets.length);
+        this.retainedBlockIndexes = new int[Math.min(maxCachedBlocks, Math.max(blockOffsets.length, 1))];
+    }
+
+    /**
+     * @param file the file
+     * @return whether the file is a block compressed blob
+     * @throws IOException if the file could not be read
+     */
+    public static boolean isBlockCompressed(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return raf.length() >= 4 && raf.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Open a block compressed blob, retaining up to {@link #DEFAULT_MAX_CACHED_BLOCKS} decompressed blocks.
+     *
+     * @param file the block compressed file
+     * @return the blob
+     * @throws IOException if the file could not be read, or is not a block compressed blob
+     */
+    public static BlockCompressedBlob open(File file) throws IOException {
+        return open(file, DEFAULT_MAX_CACHED_BLOCKS);
+    }
+
+    /**
+     * @param file the block compressed file
+     * @param maxCachedBlocks the maximum number of decompressed blocks to retain
+     * @return the blob
+     * @throws IOException if the file could not be read, or is not a block compressed blob
+     */
+    public static BlockCompressedBlob open(File file, int maxCachedBlocks) throws IOException {
+        if(maxCachedBlocks < 1)
+            throw new IllegalArgumentException("maxCachedBlocks must be positive");
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            int chunkSize = 1 << LOG2_OF_MAPPED_CHUNK_SIZE;
+            ByteBuffer[] mappedChunks = new ByteBuffer[(int)((size - 1) >>> LOG2_OF_MAPPED_CHUNK_SIZE) + 1];
+            for(int i=0;i<mappedChunks.length;i++) {
+                long pos = (long)i * chunkSize;
+                mappedChunks[i] = channel.map(READ_ONLY, pos, Math.min(chunkSize, size - pos));
+            }
+            return new BlockCompressedBlob(mappedChunks, maxCachedBlocks);
+        }
+    }
+
+    /**
+     * @return the decompressed length of the blob, in bytes
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return the log2 of the decompressed size of each block
+     */
+    public int getLog2OfBlockSize() {
+        return log2OfBlockSize;
+    }
+
+    /**
+     * @return a reader positioned at the start of the decompressed blob
+     */
+    public Reader newReader() {
+        return new Reader();
+    }
+
+    /**
+     * Get a decompressed block, decompressing it if it is not retained.
+     *
+     * @param blockIndex the index of the block
+     * @return the decompressed block, which must not be modified
+     */
+    byte[] block(int blockIndex) {
+        byte[] data = decompressedBlocks.get(blockIndex);
+        if(data != null) {
+            long time = readClock;
+            if(blockReads.get(blockIndex) != time)
+                blockReads.lazySet(blockIndex, time);
+            return data;
+        }
+
+        /// a block may be decompressed by more than one thread at once, in which case all use the first retained
+        try {
+            data = decompress(blockIndex);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to decompress block " + blockIndex, e);
+        }
+
+        synchronized(retainedBlockIndexes) {
+            byte[] retained = decompressedBlocks.get(blockIndex);
+            if(retained != null)
+                return retained;
+
+            if(numRetainedBlocks < retainedBlockIndexes.length) {
+                retainedBlockIndexes[numRetainedBlocks++] = blockIndex;
+            } else {
+                /// evict the least recently read block
+                int lruSlot = 0;
+                for(int i=1;i<numRetainedBlocks;i++) {
+                    if(blockReads.get(retainedBlockIndexes[i]) < blockReads.get(retainedBlockIndexes[lruSlot]))
+                        lruSlot = i;
+                }
+                decompressedBlocks.set(retainedBlockIndexes[lruSlot], null);
+                retainedBlockIndexes[lruSlot] = blockIndex;
+            }
+
+            long time = readClock;
+            blockReads.set(blockIndex, time + 1);
+            readClock = time + 2;
+            decompressedBlocks.set(blockIndex, data);
+        }
+
+        return data;
+    }
+
+    private byte[] decompress(int blockIndex) throws IOException {
+        DataInputStream in = new DataInputStream(new MappedInputStream(blockOffsets[blockIndex]));
+        int compressedLength = in.readInt();
+        int uncompressedLength = in.readInt();
+        byte[] compressed = new byte[compressedLength];
+        in.readFully(compressed);
+
+        byte[] data = new byte[uncompressedLength];
+        codec.decompress(compressed, compressedLength, data, uncompressedLength);
+        return data;
+    }
+
+    static BlockCodec codecNamed(String name) throws IOException {
+        if(BlockCodec.DEFLATE.getName().equals(name))
+            return BlockCodec.DEFLATE;
+        for(BlockCodec codec : ServiceLoader.load(BlockCodec.class)) {
+            if(codec.getName().equals(name))
+                return codec;
+        }
+        throw new IOException("No BlockCodec named " + name + " is available");
+    }
+
+    /**
+     * Reads the compressed file from an offset.
+     */
+    private class MappedInputStream extends InputStream {
+        private long position;
+
+        MappedInputStream(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public int read() {
+            if(position >= mappedSize)
+                return -1;
+            ByteBuffer chunk = mappedChunks[(int)(position >>> LOG2_OF_MAPPED_CHUNK_SIZE)];
+            return chunk.get((int)(position++ & ((1 << LOG2_OF_MAPPED_CHUNK_SIZE) - 1))) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(len == 0)
+                return 0;
+            if(position >= mappedSize)
+                return -1;
+
+            ByteBuffer chunk = mappedChunks[(int)(position >>> LOG2_OF_MAPPED_CHUNK_SIZE)].duplicate();
+            int chunkPosition = (int)(position & ((1 << LOG2_OF_MAPPED_CHUNK_SIZE) - 1));
+            int n = Math.min(len, chunk.capacity() - chunkPosition);
+            chunk.position(chunkPosition);
+            chunk.get(b, off, n);
+            position += n;
+            return n;
+        }
+    }
+
+    /**
+     * Reads the decompressed blob serially from a position which may be changed.  Not thread safe, but any number of
+     * readers may read the same blob concurrently.
+     */
+    public final class Reader extends InputStream {
+        private final DataInputStream dataInput;
+        private final int blockMask;
+        private long position;
+
+        private Reader() {
+            this.dataInput = new DataInputStream(this);
+            this.blockMask = (1 << log2OfBlockSize) - 1;
+        }
+
+        /**
+         * @return the blob read by this reader
+         */
+        public BlockCompressedBlob getBlob() {
+            return BlockCompressedBlob.this;
+        }
+
+        @Override
+        public int read() {
+            if(position >= length)
+                return -1;
+            byte[] block = block((int)(position >>> log2OfBlockSize));
+            return block[(int)(position++ & blockMask)] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(len == 0)
+                return 0;
+            if(position >= length)
+                return -1;
+
+            byte[] block = block((int)(position >>> log2OfBlockSize));
+            int blockPosition = (int)(position & blockMask);
+            int n = Math.min(len, block.length - blockPosition);
+            System.arraycopy(block, blockPosition, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, length - position));
+            position += skipped;
+            return skipped;
+        }
+
+        public void seek(long pos) {
+            if(pos < 0)
+                throw new IllegalArgumentException("invalid position; position=" + pos);
+            this.position = pos;
+        }
+
+        public long getFilePointer() {
+            return position;
+        }
+
+        public short readShort() throws IOException {
+            return dataInput.readShort();
+        }
+
+        public int readInt() throws IOException {
+            return dataInput.readInt();
+        }
+
+        public long readLong() throws IOException {
+            return dataInput.readLong();
+        }
+
+        public String readUTF() throws IOException {
+            return dataInput.readUTF();
+        }
+
+        /**
+         * @return a reader of the same blob, at the position of this reader
+         */
+        public Reader duplicate() {
+            Reader reader = new Reader();
+            reader.position = position;
+            return reader;
+        }
+    }
+}
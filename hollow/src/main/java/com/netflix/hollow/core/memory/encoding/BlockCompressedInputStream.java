@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory.encoding;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a blob in the block compressed format written by {@link BlockCompressedOutputStream} serially, decompressing
+ * one block at a time.  The block index at the end of the blob is not read.
+ */
+public class BlockCompressedInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private BlockCodec codec;
+    private byte[] compressed;
+    private byte[] block;
+    private int blockLength;
+    private int blockPosition;
+    private boolean headerRead;
+    private boolean ended;
+
+    /**
+     * @param in the block compressed stream
+     */
+    public BlockCompressedInputStream(InputStream in) {
+        this.in = new DataInputStream(in);
+        this.compressed = new byte[0];
+        this.block = new byte[0];
+    }
+
+    /**
+     * Decompress a stream if it is in the block compressed format.
+     *
+     * @param is a stream, which may be block compressed
+     * @return a stream of the decompressed blob if the stream is block compressed, otherwise a stream of the same
+     * bytes as the given stream
+     * @throws IOException if the stream could not be read
+     */
+    public static InputStream decompressIfBlockCompressed(InputStream is) throws IOException {
+        BufferedInputStream bis = is instanceof BufferedInputStream ? (BufferedInputStream) is : new BufferedInputStream(is);
+
+        bis.mark(4);
+        int magic = 0;
+        int numBytes = 0;
+        int b;
+        while(numBytes < 4 && (b = bis.read()) != -1) {
+            magic = (magic << 8) | b;
+            numBytes++;
+        }
+        bis.reset();
+
+        if(numBytes == 4 && magic == BlockCompressedBlob.MAGIC)
+            return new BlockCompressedInputStream(bis);
+        return bis;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(blockPosition == blockLength && !nextBlock())
+            return -1;
+        return block[blockPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0)
+            return 0;
+        if(blockPosition == blockLength && !nextBlock())
+            return -1;
+
+        int n = Math.min(len, blockLength - blockPosition);
+        System.arraycopy(block, blockPosition, b, off, n);
+        blockPosition += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return blockLength - blockPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean nextBlock() throws IOException {
+        if(!headerRead) {
+            headerRead = true;
+            if(in.readInt() != BlockCompressedBlob.MAGIC)
+                throw new IOException("Not a block compressed blob");
+            codec = BlockCompressedBlob.codecNamed(in.readUTF());
+            in.readByte();
+        }
+        if(ended)
+            return false;
+
+        int compressedLength = in.readInt();
+        if(compressedLength < 0) {
+            ended = true;
+            return false;
+        }
+        int uncompressedLength = in.readInt();
+
+        if(compressed.length < compressedLength)
+            compressed = new byte[compressedLength];
+        in.readFully(compressed, 0, compressedLength);
+
+        if(block.length < uncompressedLength)
+            block = new byte[uncompressedLength];
+        codec.decompress(compressed, compressedLength, block, uncompressedLength);
+
+        blockLength = uncompressedLength;
+        blockPosition = 0;
+        return true;
+    }
+}
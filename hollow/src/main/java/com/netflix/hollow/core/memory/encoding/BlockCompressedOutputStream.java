@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory.encoding;
+
+import com.netflix.hollow.core.util.LongList;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a blob in the block compressed format, which may be read with random access through a
+ * {@link BlockCompressedBlob}, or serially through a {@link BlockCompressedInputStream}.
+ * <p>
+ * The blob is divided into blocks of a fixed, power of two, uncompressed size, each of which is compressed
+ * independently.  The format is:
+ * <pre>
+ *     header:  magic (int), codec name (UTF), log2 of the block size (byte)
+ *     blocks:  compressed length (int), uncompressed length (int), compressed bytes -- for each block
+ *              -1 (int)
+ *     index:   uncompressed length of the blob (long), number of blocks (int), offset of each block (long)
+ *     trailer: offset of the index (long), magic (int)
+ * </pre>
+ * Only the last block may be shorter than the block size.  Since the index follows the blocks, the blob may be
+ * written to a stream.
+ */
+public class BlockCompressedOutputStream extends OutputStream {
+
+    private final DataOutputStream out;
+    private final BlockCodec codec;
+    private final int log2OfBlockSize;
+    private final byte[] block;
+    private final LongList blockOffsets;
+
+    private int blockLength;
+    private long uncompressedLength;
+    private long position;
+    private boolean headerWritten;
+    private boolean closed;
+
+    /**
+     * Write a block compressed blob with the {@link BlockCodec#DEFLATE} codec and blocks of 1MB.
+     *
+     * @param out the stream to which to write the compressed blob
+     */
+    public BlockCompressedOutputStream(OutputStream out) {
+        this(out, BlockCodec.DEFLATE, BlockCompressedBlob.DEFAULT_LOG2_OF_BLOCK_SIZE);
+    }
+
+    /**
+     * @param out the stream to which to write the compressed blob
+     * @param codec the codec with which to compress each block
+     * @param log2OfBlockSize the log2 of the uncompressed size of each block, between 10 (1KB) and 26 (64MB)
+     */
+    public BlockCompressedOutputStream(OutputStream out, BlockCodec codec, int log2OfBlockSize) {
+        if(log2OfBlockSize < 10 || log2OfBlockSize > 26)
+            throw new IllegalArgumentException("log2OfBlockSize must be between 10 and 26");
+
+        this.out = new DataOutputStream(out);
+        this.codec = codec;
+        this.log2OfBlockSize = log2OfBlockSize;
+        this.block = new byte[1 << log2OfBlockSize];
+        this.blockOffsets = new LongList();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[blockLength++] = (byte) b;
+        if(blockLength == block.length)
+            writeBlock();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while(len > 0) {
+            int n = Math.min(len, block.length - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+            if(blockLength == block.length)
+                writeBlock();
+        }
+    }
+
+    /**
+     * Flush the compressed blocks.  A partially filled block is not written until it is filled, or the stream is
+     * closed, since only the last block may be shorter than the block size.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed)
+            return;
+        closed = true;
+
+        writeHeaderIfNecessary();
+        if(blockLength > 0)
+            writeBlock();
+        out.writeInt(-1);
+        position += 4;
+
+        long indexOffset = position;
+        out.writeLong(uncompressedLength);
+        out.writeInt(blockOffsets.size());
+        for(int i=0;i<blockOffsets.size();i++)
+            out.writeLong(blockOffsets.get(i));
+
+        out.writeLong(indexOffset);
+        out.writeInt(BlockCompressedBlob.MAGIC);
+        out.close();
+    }
+
+    private void writeBlock() throws IOException {
+        writeHeaderIfNecessary();
+
+        byte[] compressed = codec.compress(block, blockLength);
+        blockOffsets.add(position);
+        out.writeInt(compressed.length);
+        out.writeInt(blockLength);
+        out.write(compressed);
+        position += 8 + compressed.length;
+
+        uncompressedLength += blockLength;
+        blockLength = 0;
+    }
+
+    private void writeHeaderIfNecessary() throws IOException {
+        if(headerWritten)
+            return;
+        headerWritten = true;
+
+        int start = out.size();
+        out.writeInt(BlockCompressedBlob.MAGIC);
+        out.writeUTF(codec.getName());
+        out.writeByte(log2OfBlockSize);
+        position += out.size() - start;
+    }
+}
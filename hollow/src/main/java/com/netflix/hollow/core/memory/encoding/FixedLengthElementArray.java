@@ -62,6 +62,19 @@ public class FixedLengthElementArray extends SegmentedLongArray implements Fixed
         this.byteBitmask = (1 << log2OfSegmentSizeInBytes) - 1;
     }
 
+    /**
+     * Create an array which shares the segments of another array.
+     *
+     * @param shareFrom the array whose segments are shared
+     * @param numBits the number of bits in this array
+     * @see SegmentedLongArray#SegmentedLongArray(SegmentedLongArray, long)
+     */
+    protected FixedLengthElementArray(FixedLengthElementArray shareFrom, long numBits) {
+        super(shareFrom, ((numBits - 1) >>> 6) + 1);
+        this.log2OfSegmentSizeInBytes = log2OfSegmentSize + 3;
+        this.byteBitmask = (1 << log2OfSegmentSizeInBytes) - 1;
+    }
+
     @Override
     public void clearElementValue(long index, int bitsPerElement) {
         long whichLong = index >>> 6;
@@ -0,0 +1,249 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory.encoding;
+
+import com.netflix.hollow.core.memory.FixedLengthData;
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.memory.OffHeapSegmentAllocator;
+import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@link MemoryMode#OFF_HEAP} counterpart of {@link FixedLengthElementArray}, which stores a bit string in direct
+ * (native) {@code ByteBuffer} segments rather than in pooled {@code long[]} segments on the JVM heap.  In
+ * {@link MemoryMode#SHARED_MEMORY_LAZY}, the same layout is used for the data produced by applying a delta, with
+ * segments memory-mapped from scratch files (see {@link OffHeapSegmentAllocator}).
+ * <p>
+ * The layout mirrors that of {@link FixedLengthElementArray}: each segment is allocated with one long of padding,
+ * and the padding long of a segment duplicates the first long of the subsequent segment, so that an unaligned read
+ * of an element value of 60-bits or less never crosses a segment boundary.  Longs are stored in little-endian byte
+ * order, so that an unaligned read at a byte index returns the bits of the bit string starting at that byte.
+ * <p>
+ * {@link #destroy(ArraySegmentRecycler)} does not free native memory immediately, since a reader may still be retrying
+ * a read of the destroyed data after a delta transition.  It hands the segments to the memory recycler instead, which
+ * frees them at the start of a later delta, once they have been held for the recycler's grace period (see
+ * {@link com.netflix.hollow.core.memory.pool.RecyclingRecycler}).  Direct memory is bounded by
+ * {@code -XX:MaxDirectMemorySize}, which should therefore allow for the data of two states, plus the data destroyed by
+ * the deltas applied within one grace period, since a multi-delta update plan destroys data faster than it is freed.
+ */
+public class OffHeapFixedLengthElementArray implements FixedLengthData {
+
+    static final int LOG2_OF_SEGMENT_SIZE = 20;
+
+    private final ByteBuffer[] segments;
+    private final int log2OfSegmentSize;
+    private final int bitmask;
+    private final int log2OfSegmentSizeInBytes;
+    private final int byteBitmask;
+
+    public OffHeapFixedLengthElementArray(long numBits) {
+        this(numBits, OffHeapSegmentAllocator.DIRECT);
+    }
+
+    public OffHeapFixedLengthElementArray(long numBits, OffHeapSegmentAllocator segmentAllocator) {
+        this(numBits, LOG2_OF_SEGMENT_SIZE, segmentAllocator);
+    }
+
+    OffHeapFixedLengthElementArray(long numBits, int log2OfSegmentSize, OffHeapSegmentAllocator segmentAllocator) {
+        long numLongs = numBits == 0 ? 0 : ((numBits - 1) >>> 6) + 1;
+        int segmentSize = 1 << log2OfSegmentSize;
+        int numSegments = (int) ((numLongs + segmentSize - 1) >>> log2OfSegmentSize);
+
+        this.segments = new ByteBuffer[numSegments];
+        this.log2OfSegmentSize = log2OfSegmentSize;
+        this.bitmask = segmentSize - 1;
+        this.log2OfSegmentSizeInBytes = log2OfSegmentSize + 3;
+        this.byteBitmask = (1 << log2OfSegmentSizeInBytes) - 1;
+
+        for(int i=0;i<numSegments;i++) {
+            /// only the last segment may be shorter than the segment size, so that small arrays are not padded out
+            long longsInSegment = Math.min(segmentSize, numLongs - ((long) i << log2OfSegmentSize));
+            segments[i] = segmentAllocator.allocate((int) (longsInSegment + 1) * 8).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Set the long at the given index to the specified value
+     *
+     * @param index the index (eg. the long at index 0 occupies bytes 0-7, long at index 1 occupies bytes 8-15, etc.)
+     * @param value the long value
+     */
+    public void set(long index, long value) {
+        int segmentIndex = (int) (index >>> log2OfSegmentSize);
+        int longInSegment = (int) (index & bitmask);
+        segments[segmentIndex].putLong(longInSegment << 3, value);
+
+        /// duplicate the longs here so that we can read faster.
+        if(longInSegment == 0 && segmentIndex != 0)
+            segments[segmentIndex - 1].putLong((bitmask + 1) << 3, value);
+    }
+
+    /**
+     * Get the value of the long at the specified index.
+     *
+     * @param index the index (eg. the long at index 0 occupies bytes 0-7, long at index 1 occupies bytes 8-15, etc.)
+     * @return the long value
+     */
+    public long get(long index) {
+        return segments[(int) (index >>> log2OfSegmentSize)].getLong((int) (index & bitmask) << 3);
+    }
+
+    @Override
+    public void clearElementValue(long index, int bitsPerElement) {
+        long whichLong = index >>> 6;
+        int whichBit = (int) (index & 0x3F);
+
+        long mask = ((1L << bitsPerElement) - 1);
+
+        set(whichLong, get(whichLong) & ~(mask << whichBit));
+
+        int bitsRemaining = 64 - whichBit;
+
+        if (bitsRemaining < bitsPerElement)
+            set(whichLong + 1, get(whichLong + 1) & ~(mask >>> bitsRemaining));
+    }
+
+    @Override
+    public void setElementValue(long index, int bitsPerElement, long value) {
+        long whichLong = index >>> 6;
+        int whichBit = (int) (index & 0x3F);
+
+        set(whichLong, get(whichLong) | (value << whichBit));
+
+        int bitsRemaining = 64 - whichBit;
+
+        if (bitsRemaining < bitsPerElement)
+            set(whichLong + 1, get(whichLong + 1) | (value >>> bitsRemaining));
+    }
+
+    @Override
+    public long getElementValue(long index, int bitsPerElement) {
+        return getElementValue(index, bitsPerElement, ((1L << bitsPerElement) - 1));
+    }
+
+    @Override
+    public long getElementValue(long index, int bitsPerElement, long mask) {
+        long whichByte = index >>> 3;
+        int whichBit = (int) (index & 0x07);
+
+        ByteBuffer segment = segments[(int) (whichByte >>> log2OfSegmentSizeInBytes)];
+        long l = segment.getLong((int) (whichByte & byteBitmask)) >>> whichBit;
+
+        return l & mask;
+    }
+
+    @Override
+    public long getLargeElementValue(long index, int bitsPerElement) {
+        long mask = bitsPerElement == 64 ? -1 : ((1L << bitsPerElement) - 1);
+        return getLargeElementValue(index, bitsPerElement, mask);
+    }
+
+    @Override
+    public long getLargeElementValue(long index, int bitsPerElement, long mask) {
+        long whichLong = index >>> 6;
+        int whichBit = (int) (index & 0x3F);
+
+        long l = get(whichLong) >>> whichBit;
+
+        int bitsRemaining = 64 - whichBit;
+
+        if (bitsRemaining < bitsPerElement) {
+            whichLong++;
+            l |= get(whichLong) << bitsRemaining;
+        }
+
+        return l & mask;
+    }
+
+    @Override
+    public void copyBits(FixedLengthData copyFrom, long sourceStartBit, long destStartBit, long numBits) {
+        if(numBits == 0)
+            return;
+
+        if ((destStartBit & 63) != 0) {
+            int fillBits = (int) Math.min(64 - (destStartBit & 63), numBits);
+            long fillValue = copyFrom.getLargeElementValue(sourceStartBit, fillBits);
+            setElementValue(destStartBit, fillBits, fillValue);
+
+            destStartBit += fillBits;
+            sourceStartBit += fillBits;
+            numBits -= fillBits;
+        }
+
+        long currentWriteLong = destStartBit >>> 6;
+
+        while (numBits >= 64) {
+            long l = copyFrom.getLargeElementValue(sourceStartBit, 64, -1);
+            set(currentWriteLong, l);
+            numBits -= 64;
+            sourceStartBit += 64;
+            currentWriteLong++;
+        }
+
+        if (numBits != 0) {
+            destStartBit = currentWriteLong << 6;
+
+            long fillValue = copyFrom.getLargeElementValue(sourceStartBit, (int) numBits);
+            setElementValue(destStartBit, (int) numBits, fillValue);
+        }
+    }
+
+    @Override
+    public void incrementMany(long startBit, long increment, long bitsBetweenIncrements, int numIncrements) {
+        long endBit = startBit + (bitsBetweenIncrements * numIncrements);
+        for(; startBit<endBit; startBit += bitsBetweenIncrements) {
+            increment(startBit, increment);
+        }
+    }
+
+    public void increment(long index, long increment) {
+        long whichByte = index >>> 3;
+        int whichBit = (int) (index & 0x07);
+
+        int whichSegment = (int) (whichByte >>> log2OfSegmentSizeInBytes);
+        int byteInSegment = (int) (whichByte & byteBitmask);
+
+        ByteBuffer segment = segments[whichSegment];
+        segment.putLong(byteInSegment, segment.getLong(byteInSegment) + (increment << whichBit));
+
+        /// update the fencepost longs
+        if(byteInSegment > bitmask * 8 && (whichSegment + 1) < segments.length)
+            segments[whichSegment + 1].putLong(0, segment.getLong((bitmask + 1) << 3));
+        if(byteInSegment < 8 && whichSegment > 0)
+            segments[whichSegment - 1].putLong((bitmask + 1) << 3, segment.getLong(0));
+    }
+
+    public void destroy(ArraySegmentRecycler memoryRecycler) {
+        memoryRecycler.recycleOffHeapSegments(segments);
+    }
+
+    public static OffHeapFixedLengthElementArray newFrom(HollowBlobInput in) throws IOException {
+        long numLongs = VarInt.readVLong(in);
+        return newFrom(in, numLongs);
+    }
+
+    public static OffHeapFixedLengthElementArray newFrom(HollowBlobInput in, long numLongs) throws IOException {
+        OffHeapFixedLengthElementArray arr = new OffHeapFixedLengthElementArray(numLongs * 64);
+        for(long i=0;i<numLongs;i++) {
+            arr.set(i, in.readLong());
+        }
+        return arr;
+    }
+}
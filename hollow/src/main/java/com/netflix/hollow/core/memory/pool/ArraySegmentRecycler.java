@@ -16,8 +16,10 @@
  */
 package com.netflix.hollow.core.memory.pool;
 
+import com.netflix.hollow.core.memory.OffHeapSegmentAllocator;
 import com.netflix.hollow.core.memory.SegmentedByteArray;
 import com.netflix.hollow.core.memory.SegmentedLongArray;
+import java.nio.ByteBuffer;
 
 /**
 * An ArraySegmentRecycler is a memory pool.
@@ -27,6 +29,8 @@ import com.netflix.hollow.core.memory.SegmentedLongArray;
 * When a long array or a byte array is required in Hollow, it will stitch together pooled array 
 * segments as a {@link SegmentedByteArray} or {@link SegmentedLongArray}.  
 * These classes encapsulate the details of treating segmented arrays as contiguous ranges of values.
+* <p>
+* The segments of destroyed off-heap data are not reused, but are held by the pool until they can be freed.
 */
 public interface ArraySegmentRecycler {
 
@@ -44,4 +48,22 @@ public interface ArraySegmentRecycler {
 
     public void swap();
 
+    /**
+     * Holds the segments of destroyed off-heap data until {@link #freeRecycledOffHeapSegments()} determines that no
+     * reader may still read them.  By default, the segments are not held, and their native memory is released once
+     * they are garbage collected.
+     *
+     * @param segments the segments, some of which may be null
+     */
+    default void recycleOffHeapSegments(ByteBuffer[] segments) {
+    }
+
+    /**
+     * {@link OffHeapSegmentAllocator#free(ByteBuffer) Frees} the recycled off-heap segments which no reader may still
+     * read.  This is called at the start of each delta.  Deltas may be applied back to back, so an implementation must
+     * not assume that readers have moved off the data destroyed by the previous delta.
+     */
+    default void freeRecycledOffHeapSegments() {
+    }
+
 }
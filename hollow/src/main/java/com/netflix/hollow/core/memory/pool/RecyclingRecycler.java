@@ -16,20 +16,35 @@
  */
 package com.netflix.hollow.core.memory.pool;
 
+import com.netflix.hollow.core.memory.OffHeapSegmentAllocator;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Deque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A RecyclingRecycler is an {@link ArraySegmentRecycler} which actually pools arrays, in contrast
  * with a {@link WastefulRecycler}.
+ * <p>
+ * Arrays may be taken from and returned to the pool concurrently, so that the shards of a type may be
+ * updated by concurrent workers.
+ * <p>
+ * The segments of destroyed off-heap data are freed by the first delta which starts once they have been held for
+ * the off-heap grace period (by default {@link #DEFAULT_OFF_HEAP_GRACE_PERIOD_MILLIS}).  Consecutive deltas may be
+ * applied milliseconds apart, so the grace period, rather than the number of deltas, bounds how long a reader may
+ * still be retrying a read of the destroyed data before that data is freed.
  */
 public class RecyclingRecycler implements ArraySegmentRecycler {
 
+    public static final long DEFAULT_OFF_HEAP_GRACE_PERIOD_MILLIS = 60000;
+
     private final int log2OfByteSegmentSize;
     private final int log2OfLongSegmentSize;
     private final Recycler<long[]> longSegmentRecycler;
     private final Recycler<byte[]> byteSegmentRecycler;
+    private final Deque<RecycledOffHeapSegment> offHeapSegments = new ArrayDeque<>();
+    private long offHeapGracePeriodNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_OFF_HEAP_GRACE_PERIOD_MILLIS);
 
     public RecyclingRecycler() {
         this(11, 8);
@@ -52,30 +67,83 @@ public class RecyclingRecycler implements ArraySegmentRecycler {
         return log2OfLongSegmentSize;
     }
 
-    public long[] getLongArray() {
+    public synchronized long[] getLongArray() {
         long[] arr = longSegmentRecycler.get();
         Arrays.fill(arr, 0);
         return arr;
     }
 
-    public void recycleLongArray(long[] arr) {
+    public synchronized void recycleLongArray(long[] arr) {
         longSegmentRecycler.recycle(arr);
     }
 
-    public byte[] getByteArray() {
+    public synchronized byte[] getByteArray() {
         // @@@ should the array be filled?
         return byteSegmentRecycler.get();
     }
 
-    public void recycleByteArray(byte[] arr) {
+    public synchronized void recycleByteArray(byte[] arr) {
         byteSegmentRecycler.recycle(arr);
     }
 
-    public void swap() {
+    public synchronized void swap() {
         longSegmentRecycler.swap();
         byteSegmentRecycler.swap();
     }
 
+    /**
+     * Sets how long the segments of destroyed off-heap data are held before they may be freed.  A negative grace
+     * period never frees them explicitly, so that their native memory is only released once they are garbage
+     * collected.
+     *
+     * @param gracePeriod the grace period
+     * @param unit the unit of the grace period
+     */
+    public synchronized void setOffHeapGracePeriod(long gracePeriod, TimeUnit unit) {
+        this.offHeapGracePeriodNanos = unit.toNanos(gracePeriod);
+    }
+
+    @Override
+    public synchronized void recycleOffHeapSegments(ByteBuffer[] segments) {
+        if(offHeapGracePeriodNanos < 0)
+            return;
+
+        long now = System.nanoTime();
+        for(ByteBuffer segment : segments) {
+            if(segment != null)
+                offHeapSegments.addLast(new RecycledOffHeapSegment(segment, now));
+        }
+    }
+
+    @Override
+    public synchronized void freeRecycledOffHeapSegments() {
+        long now = System.nanoTime();
+        while(!offHeapSegments.isEmpty()) {
+            RecycledOffHeapSegment recycled = offHeapSegments.peekFirst();
+            if(offHeapGracePeriodNanos < 0 || now - recycled.recycledNanos < offHeapGracePeriodNanos)
+                break;
+            offHeapSegments.removeFirst();
+            OffHeapSegmentAllocator.free(recycled.segment);
+        }
+    }
+
+    /**
+     * @return the number of recycled off-heap segments which have not yet been freed
+     */
+    public synchronized int getNumRecycledOffHeapSegments() {
+        return offHeapSegments.size();
+    }
+
+    private static class RecycledOffHeapSegment {
+        private final ByteBuffer segment;
+        private final long recycledNanos;
+
+        RecycledOffHeapSegment(ByteBuffer segment, long recycledNanos) {
+            this.segment = segment;
+            this.recycledNanos = recycledNanos;
+        }
+    }
+
 
     private static class Recycler<T> {
         private final Creator<T> creator;
@@ -1,5 +1,6 @@
 package com.netflix.hollow.core.read;
 
+import static com.netflix.hollow.core.memory.MemoryMode.OFF_HEAP;
 import static com.netflix.hollow.core.memory.MemoryMode.ON_HEAP;
 import static com.netflix.hollow.core.memory.MemoryMode.SHARED_MEMORY_LAZY;
 import static com.netflix.hollow.core.memory.encoding.BlobByteBuffer.MAX_SINGLE_BUFFER_CAPACITY;
@@ -7,6 +8,9 @@ import static com.netflix.hollow.core.memory.encoding.BlobByteBuffer.MAX_SINGLE_
 import com.netflix.hollow.api.consumer.HollowConsumer;
 import com.netflix.hollow.core.memory.MemoryMode;
 import com.netflix.hollow.core.memory.encoding.BlobByteBuffer;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedBlob;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedInputStream;
+import com.netflix.hollow.core.memory.encoding.BlockCompressedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
@@ -23,6 +27,7 @@ import java.nio.channels.FileChannel;
 public class HollowBlobInput implements Closeable {
     private final MemoryMode memoryMode;
 
+    private File file;
     private Object input;
     private BlobByteBuffer buffer;
 
@@ -44,8 +49,8 @@ public class HollowBlobInput implements Closeable {
      * @throws IOException if the Hollow Blob Input couldn't be initialized
      */
     public static HollowBlobInput modeBasedSelector(MemoryMode mode, HollowConsumer.Blob blob) throws IOException {
-        if (mode.equals(ON_HEAP)) {
-            return serial(blob.getInputStream());
+        if (mode.equals(ON_HEAP) || mode.equals(OFF_HEAP)) {
+            return serial(BlockCompressedInputStream.decompressIfBlockCompressed(blob.getInputStream()));
         } else if (mode.equals(SHARED_MEMORY_LAZY)) {
             return randomAccess(blob.getFile());
         } else {
@@ -66,10 +71,19 @@ public class HollowBlobInput implements Closeable {
     }
 
     /**
-     * Useful for testing with custom buffer capacity
+     * Useful for testing with custom buffer capacity.  A file in the block compressed format written by
+     * {@link BlockCompressedOutputStream} is read through its decompressed blocks, in which case the buffer capacity
+     * is the size of a block.
      */
     public static HollowBlobInput randomAccess(File f,int singleBufferCapacity) throws IOException {
         HollowBlobInput hbi = new HollowBlobInput(SHARED_MEMORY_LAZY);
+        hbi.file = f;
+        if (BlockCompressedBlob.isBlockCompressed(f)) {
+            BlockCompressedBlob blob = BlockCompressedBlob.open(f);
+            hbi.input = blob.newReader();
+            hbi.buffer = BlobByteBuffer.blockCompressed(blob);
+            return hbi;
+        }
         RandomAccessFile raf = new RandomAccessFile(f, "r");
         hbi.input = raf;
         FileChannel channel = ((RandomAccessFile) hbi.input).getChannel();
@@ -98,6 +112,37 @@ public class HollowBlobInput implements Closeable {
         return hbi;
     }
 
+    /**
+     * Initialize a random access Hollow Blob input object over the same file as this input, positioned at the current
+     * file pointer of this input. The returned input has its own file pointer, and shares the memory mapping of this
+     * input through a {@link BlobByteBuffer#duplicate()} view of its buffer, so that distinct regions of the blob can
+     * be read concurrently. The returned HollowBlobInput object must be closed to free up resources.
+     *
+     * @return a random access HollowBlobInput object over the same file
+     * @throws IOException if the file could not be opened
+     * @throws UnsupportedOperationException if the Hollow Blob Input is not a {@code RandomAccessFile}
+     */
+    public HollowBlobInput duplicate() throws IOException {
+        if (input instanceof RandomAccessFile) {
+            HollowBlobInput hbi = new HollowBlobInput(memoryMode);
+            hbi.file = file;
+            hbi.input = new RandomAccessFile(file, "r");
+            hbi.buffer = buffer.duplicate();
+            hbi.seek(getFilePointer());
+            return hbi;
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            HollowBlobInput hbi = new HollowBlobInput(memoryMode);
+            hbi.file = file;
+            hbi.input = ((BlockCompressedBlob.Reader) input).duplicate();
+            hbi.buffer = buffer.duplicate();
+            return hbi;
+        } else if (input instanceof DataInputStream) {
+            throw new UnsupportedOperationException("Can not duplicate Hollow Blob Input of type DataInputStream");
+        } else {
+            throw new UnsupportedOperationException("Unknown Hollow Blob Input type");
+        }
+    }
+
     /**
      * Reads the next byte of data from the input stream by relaying the call to the underlying {@code DataInputStream} or
      * {@code RandomAccessFile}. The byte is returned as an integer in the range 0 to 255.
@@ -109,6 +154,8 @@ public class HollowBlobInput implements Closeable {
     public int read() throws IOException {
         if (input instanceof RandomAccessFile) {
             return ((RandomAccessFile) input).read();
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).read();
         } else if (input instanceof DataInputStream) {
             return ((DataInputStream) input).read();
         } else {
@@ -128,6 +175,8 @@ public class HollowBlobInput implements Closeable {
     public int read(byte b[], int off, int len) throws IOException {
         if (input instanceof RandomAccessFile) {
             return ((RandomAccessFile) input).read(b, off, len);
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).read(b, off, len);
         } else if (input instanceof DataInputStream) {
             return ((DataInputStream) input).read(b, off, len);
         } else {
@@ -146,6 +195,8 @@ public class HollowBlobInput implements Closeable {
     public void seek(long pos) throws IOException {
         if (input instanceof RandomAccessFile) {
             ((RandomAccessFile) input).seek(pos);
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            ((BlockCompressedBlob.Reader) input).seek(pos);
         } else if (input instanceof DataInputStream) {
             throw new UnsupportedOperationException("Can not seek on Hollow Blob Input of type DataInputStream");
         } else {
@@ -162,6 +213,8 @@ public class HollowBlobInput implements Closeable {
     public long getFilePointer() throws IOException {
         if (input instanceof RandomAccessFile) {
             return ((RandomAccessFile) input).getFilePointer();
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).getFilePointer();
         } else if (input instanceof DataInputStream) {
             throw new UnsupportedOperationException("Can not get file pointer for Hollow Blob Input of type DataInputStream");
         } else {
@@ -179,6 +232,8 @@ public class HollowBlobInput implements Closeable {
     public final short readShort() throws IOException {
         if (input instanceof RandomAccessFile) {
             return ((RandomAccessFile) input).readShort();
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).readShort();
         } else if (input instanceof DataInputStream) {
             return ((DataInputStream) input).readShort();
         } else {
@@ -196,6 +251,8 @@ public class HollowBlobInput implements Closeable {
     public final int readInt() throws IOException {
         if (input instanceof RandomAccessFile) {
             return ((RandomAccessFile) input).readInt();
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).readInt();
         } else if (input instanceof DataInputStream) {
             return ((DataInputStream) input).readInt();
         } else {
@@ -213,6 +270,8 @@ public class HollowBlobInput implements Closeable {
     public final long readLong() throws IOException {
         if (input instanceof RandomAccessFile) {
             return ((RandomAccessFile) input).readLong();
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).readLong();
         } else if (input instanceof DataInputStream) {
             return ((DataInputStream) input).readLong();
         } else {
@@ -229,6 +288,8 @@ public class HollowBlobInput implements Closeable {
     public final String readUTF() throws IOException {
         if (input instanceof RandomAccessFile) {
             return ((RandomAccessFile) input).readUTF();
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).readUTF();
         } else if (input instanceof DataInputStream) {
             return ((DataInputStream) input).readUTF();
         } else {
@@ -260,6 +321,8 @@ public class HollowBlobInput implements Closeable {
                 total = total + actual;
             } while (total < n && actual > 0);
             return total;
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            return ((BlockCompressedBlob.Reader) input).skip(n);
         } else if (input instanceof DataInputStream) {
             return ((DataInputStream) input).skip(n); // InputStream::skip supports long
         } else {
@@ -275,6 +338,8 @@ public class HollowBlobInput implements Closeable {
     public void close() throws IOException {
         if (input instanceof RandomAccessFile) {
             ((RandomAccessFile) input).close();
+        } else if (input instanceof BlockCompressedBlob.Reader) {
+            ((BlockCompressedBlob.Reader) input).close();
         } else if (input instanceof DataInputStream) {
             ((DataInputStream) input).close();
         } else {
@@ -287,7 +352,7 @@ public class HollowBlobInput implements Closeable {
     }
 
     public BlobByteBuffer getBuffer() {
-        if (input instanceof RandomAccessFile) {
+        if (input instanceof RandomAccessFile || input instanceof BlockCompressedBlob.Reader) {
             return buffer;
         } else if (input instanceof DataInputStream) {
             throw new UnsupportedOperationException("No buffer associated with underlying DataInputStream");
@@ -79,6 +79,58 @@ public interface HollowObjectTypeDataAccess extends HollowTypeDataAccess {
      */
     Boolean readBoolean(int ordinal, int fieldIndex);
 
+    /**
+     * Read the values of several fields of a record at once.  A {@link HollowObjectTypeReadState} reads all of the
+     * fields from a single consistent view of the record, which is validated once rather than once per field.
+     * <p>
+     * The value of each field is encoded as a long:
+     * <ul>
+     * <li>{@link FieldType#INT} and {@link FieldType#LONG}: the value, or {@code Integer.MIN_VALUE} or {@code Long.MIN_VALUE} if null</li>
+     * <li>{@link FieldType#REFERENCE}: the referenced ordinal, or -1 if null</li>
+     * <li>{@link FieldType#BOOLEAN}: 1 if true, 0 if false, or -1 if null</li>
+     * <li>{@link FieldType#FLOAT} and {@link FieldType#DOUBLE}: the bits of the value, as returned by {@link Float#floatToIntBits(float)}
+     * or {@link Double#doubleToLongBits(double)}, with null read as NaN</li>
+     * <li>{@link FieldType#STRING} and {@link FieldType#BYTES}: the length in bytes of the encoded value, or -1 if null</li>
+     * </ul>
+     *
+     * @param ordinal the ordinal
+     * @param fieldIndexes the indexes of the fields to read
+     * @param values receives the value of the field at each of the specified field indexes
+     */
+    default void readFields(int ordinal, int[] fieldIndexes, long[] values) {
+        HollowObjectSchema schema = getSchema();
+        for(int i=0;i<fieldIndexes.length;i++) {
+            int fieldIndex = fieldIndexes[i];
+            switch(schema.getFieldType(fieldIndex)) {
+            case INT:
+                values[i] = readInt(ordinal, fieldIndex);
+                break;
+            case LONG:
+                values[i] = readLong(ordinal, fieldIndex);
+                break;
+            case REFERENCE:
+                values[i] = readOrdinal(ordinal, fieldIndex);
+                break;
+            case BOOLEAN:
+                Boolean b = readBoolean(ordinal, fieldIndex);
+                values[i] = b == null ? -1 : b ? 1 : 0;
+                break;
+            case FLOAT:
+                values[i] = Float.floatToIntBits(readFloat(ordinal, fieldIndex));
+                break;
+            case DOUBLE:
+                values[i] = Double.doubleToLongBits(readDouble(ordinal, fieldIndex));
+                break;
+            case BYTES:
+            case STRING:
+                /// the encoded length of a String is not derivable from the String, so read it as bytes
+                byte[] bytes = readBytes(ordinal, fieldIndex);
+                values[i] = bytes == null ? -1 : bytes.length;
+                break;
+            }
+        }
+    }
+
     /**
      * @param ordinal the ordinal
      * @param fieldIndex the field index
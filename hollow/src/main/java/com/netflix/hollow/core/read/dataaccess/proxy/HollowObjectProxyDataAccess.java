@@ -75,6 +75,11 @@ public class HollowObjectProxyDataAccess extends HollowTypeProxyDataAccess imple
         return ((HollowObjectTypeDataAccess) currentDataAccess).readBoolean(ordinal, fieldIndex);
     }
 
+    @Override
+    public void readFields(int ordinal, int[] fieldIndexes, long[] values) {
+        ((HollowObjectTypeDataAccess) currentDataAccess).readFields(ordinal, fieldIndexes, values);
+    }
+
     @Override
     public byte[] readBytes(int ordinal, int fieldIndex) {
         return ((HollowObjectTypeDataAccess) currentDataAccess).readBytes(ordinal, fieldIndex);
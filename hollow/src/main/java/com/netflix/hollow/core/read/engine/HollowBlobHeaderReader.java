@@ -20,11 +20,14 @@ import com.netflix.hollow.core.HollowBlobHeader;
 import com.netflix.hollow.core.memory.encoding.VarInt;
 import com.netflix.hollow.core.read.HollowBlobInput;
 import com.netflix.hollow.core.schema.HollowSchema;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -64,13 +67,9 @@ public class HollowBlobHeaderReader {
                 schemas.add(HollowSchema.readFrom(in));
             header.setSchemas(schemas);
 
-            int bytesToSkip = VarInt.readVInt(in); /// forwards-compatibility, new data can be added here.
-            while(bytesToSkip > 0) {
-                int skippedBytes = (int)in.skipBytes(bytesToSkip);
-                if(skippedBytes < 0)
-                    throw new EOFException();
-                bytesToSkip -= skippedBytes;
-            }
+            int forwardsCompatibilityBytes = VarInt.readVInt(in); /// forwards-compatibility, new data can be added here.
+            if(forwardsCompatibilityBytes > 0)
+                readForwardsCompatibilityData(in, forwardsCompatibilityBytes, header);
         }
 
         Map<String, String> headerTags = readHeaderTags(in);
@@ -79,6 +78,36 @@ public class HollowBlobHeaderReader {
         return header;
     }
 
+    /**
+     * Read the record checksums of each type and the type directory, skipping any subsequent data which was added to
+     * the forwards-compatibility envelope by a later version of hollow.
+     */
+    private void readForwardsCompatibilityData(HollowBlobInput in, int numBytes, HollowBlobHeader header) throws IOException {
+        byte[] data = new byte[numBytes];
+        int offset = 0;
+        while(offset < numBytes) {
+            int bytesRead = in.read(data, offset, numBytes - offset);
+            if(bytesRead < 0)
+                throw new EOFException();
+            offset += bytesRead;
+        }
+
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
+        int numRecordChecksums = VarInt.readVInt(dis);
+        Map<String, Long> recordChecksums = new HashMap<String, Long>();
+        for(int i=0;i<numRecordChecksums;i++)
+            recordChecksums.put(dis.readUTF(), dis.readLong());
+        header.setRecordChecksums(recordChecksums);
+
+        if(dis.available() > 0) {
+            int numTypes = VarInt.readVInt(dis);
+            Map<String, Long> typeLengths = new LinkedHashMap<String, Long>();
+            for(int i=0;i<numTypes;i++)
+                typeLengths.put(dis.readUTF(), VarInt.readVLong(dis));
+            header.setTypeLengths(typeLengths);
+        }
+    }
+
     /**
      * Map of string header tags reading.
      *
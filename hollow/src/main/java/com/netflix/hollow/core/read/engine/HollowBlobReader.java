@@ -17,6 +17,8 @@
 package com.netflix.hollow.core.read.engine;
 
 import com.netflix.hollow.core.HollowBlobHeader;
+import com.netflix.hollow.core.memory.ArrayByteData;
+import com.netflix.hollow.core.memory.ByteData;
 import com.netflix.hollow.core.memory.MemoryMode;
 import com.netflix.hollow.core.memory.encoding.VarInt;
 import com.netflix.hollow.core.read.HollowBlobInput;
@@ -31,10 +33,15 @@ import com.netflix.hollow.core.schema.HollowMapSchema;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowSchema;
 import com.netflix.hollow.core.schema.HollowSetSchema;
+import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 
@@ -141,10 +148,35 @@ public class HollowBlobReader {
 
         int numStates = VarInt.readVInt(in);
 
+        /// with a type directory, the types excluded by the filter are skipped without being read
+        Iterator<Map.Entry<String, Long>> typeDirectory = hasTypeDirectory(header, numStates)
+                ? header.getTypeLengths().entrySet().iterator() : null;
+
         Collection<String> typeNames = new TreeSet<>();
-        for(int i=0;i<numStates;i++) {
-            String typeName = readTypeStateSnapshot(in, filter);
-            typeNames.add(typeName);
+        ParallelSnapshotShardReader shardReader = new ParallelSnapshotShardReader(in, stateEngine.getMemoryRecycler());
+        try {
+            for(int i=0;i<numStates;i++) {
+                HollowSchema schema = HollowSchema.readFrom(in);
+                typeNames.add(schema.getName());
+
+                if(typeDirectory != null) {
+                    /// the lengths of the types skipped before this one were wrong if it is not the type the
+                    /// directory lists here
+                    Map.Entry<String, Long> typeLength = typeDirectory.next();
+                    if(!typeLength.getKey().equals(schema.getName()))
+                        throw new IOException("Type directory lists type " + typeLength.getKey() + " but the snapshot contains type " + schema.getName());
+                    if(!filter.includes(schema.getName())) {
+                        skipFully(in, typeLength.getValue() - serializedLength(schema));
+                        continue;
+                    }
+                }
+
+                readTypeStateSnapshot(in, schema, filter, shardReader);
+            }
+
+            shardReader.awaitCompletion();
+        } finally {
+            shardReader.shutdown();
         }
 
         stateEngine.wireTypeStatesToSchemas();
@@ -186,6 +218,8 @@ public class HollowBlobReader {
         validateMemoryMode(in.getMemoryMode());
 
         HollowBlobHeader header = readHeader(in, true);
+        /// frees the off-heap data destroyed by earlier updates once no reader may still be reading it
+        stateEngine.getMemoryRecycler().freeRecycledOffHeapSegments();
         notifyBeginUpdate();
 
         long startTime = System.currentTimeMillis();
@@ -216,6 +250,7 @@ public class HollowBlobReader {
 
         stateEngine.setCurrentRandomizedTag(header.getDestinationRandomizedTag());
         stateEngine.setHeaderTags(header.getHeaderTags());
+        stateEngine.setPublishedRecordChecksums(header.getRecordChecksums());
         return header;
     }
 
@@ -235,9 +270,30 @@ public class HollowBlobReader {
         }
     }
 
-    private String readTypeStateSnapshot(HollowBlobInput in, TypeFilter filter) throws IOException {
-        HollowSchema schema = HollowSchema.readFrom(in);
-        int numShards = readNumShards(in);
+    private long serializedLength(HollowSchema schema) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        schema.writeTo(os);
+        return os.size();
+    }
+
+    /**
+     * A type directory is only used if it lists exactly the types of the header's schemas, which a directory written
+     * for a different set of types (e.g. before the snapshot was filtered) does not.
+     */
+    private boolean hasTypeDirectory(HollowBlobHeader header, int numStates) {
+        Map<String, Long> typeLengths = header.getTypeLengths();
+        if(typeLengths.size() != numStates || header.getSchemas().size() != numStates)
+            return false;
+        for(HollowSchema schema : header.getSchemas()) {
+            if(!typeLengths.containsKey(schema.getName()))
+                return false;
+        }
+        return true;
+    }
+
+    private void readTypeStateSnapshot(HollowBlobInput in, HollowSchema schema, TypeFilter filter, ParallelSnapshotShardReader shardReader) throws IOException {
+        long[] shardLengths = readShardLengths(in);
+        int numShards = shardLengths.length;
         String typeName = schema.getName();
 
 
@@ -248,34 +304,50 @@ public class HollowBlobReader {
             } else {
                 HollowObjectSchema unfilteredSchema = (HollowObjectSchema)schema;
                 HollowObjectSchema filteredSchema = unfilteredSchema.filterSchema(filter);
-                populateTypeStateSnapshot(in, new HollowObjectTypeReadState(stateEngine, memoryMode, filteredSchema, unfilteredSchema, numShards));
+                populateTypeStateSnapshot(in, shardReader, shardLengths, schema, new HollowObjectTypeReadState(stateEngine, memoryMode, filteredSchema, unfilteredSchema, numShards));
             }
         } else if (schema instanceof HollowListSchema) {
             if(!filter.includes(typeName)) {
                 HollowListTypeReadState.discardSnapshot(in, numShards);
             } else {
-                populateTypeStateSnapshot(in, new HollowListTypeReadState(stateEngine, memoryMode, (HollowListSchema)schema, numShards));
+                populateTypeStateSnapshot(in, shardReader, shardLengths, schema, new HollowListTypeReadState(stateEngine, memoryMode, (HollowListSchema)schema, numShards));
             }
         } else if(schema instanceof HollowSetSchema) {
             if(!filter.includes(typeName)) {
                 HollowSetTypeReadState.discardSnapshot(in, numShards);
             } else {
-                populateTypeStateSnapshot(in, new HollowSetTypeReadState(stateEngine, memoryMode, (HollowSetSchema)schema, numShards));
+                populateTypeStateSnapshot(in, shardReader, shardLengths, schema, new HollowSetTypeReadState(stateEngine, memoryMode, (HollowSetSchema)schema, numShards));
             }
         } else if(schema instanceof HollowMapSchema) {
             if(!filter.includes(typeName)) {
                 HollowMapTypeReadState.discardSnapshot(in, numShards);
             } else {
-                populateTypeStateSnapshot(in, new HollowMapTypeReadState(stateEngine, memoryMode, (HollowMapSchema)schema, numShards));
+                populateTypeStateSnapshot(in, shardReader, shardLengths, schema, new HollowMapTypeReadState(stateEngine, memoryMode, (HollowMapSchema)schema, numShards));
             }
         }
+    }
 
-        return typeName;
+    private void skipFully(HollowBlobInput in, long numBytes) throws IOException {
+        while(numBytes > 0) {
+            long skipped = in.skipBytes(numBytes);
+            if(skipped <= 0) {
+                /// a stream may skip no bytes without having reached its end
+                if(in.read() == -1)
+                    throw new EOFException();
+                skipped = 1;
+            }
+            numBytes -= skipped;
+        }
     }
 
-    private void populateTypeStateSnapshot(HollowBlobInput in, HollowTypeReadState typeState) throws IOException {
+    private void populateTypeStateSnapshot(HollowBlobInput in, ParallelSnapshotShardReader shardReader, long[] shardLengths, HollowSchema unfilteredSchema, HollowTypeReadState typeState) throws IOException {
         stateEngine.addTypeState(typeState);
-        typeState.readSnapshot(in, stateEngine.getMemoryRecycler());
+        if(stateEngine.isMaintainRecordChecksums() && typeState.getSchema().equals(unfilteredSchema))
+            typeState.addListener(new RecordChecksumListener(typeState));
+        if(ParallelSnapshotShardReader.isSupported(shardLengths))
+            shardReader.readSnapshot(typeState, shardLengths);
+        else
+            typeState.readSnapshot(in, stateEngine.getMemoryRecycler());
     }
 
     private String readTypeStateDelta(HollowBlobInput in) throws IOException {
@@ -294,23 +366,71 @@ public class HollowBlobReader {
     }
 
     private int readNumShards(HollowBlobInput in) throws IOException {
+        return readShardLengths(in).length;
+    }
+
+    /**
+     * Read the number of shards of a type, along with the serialized length of each shard if it was recorded by the producer.
+     *
+     * @return the length in bytes of each shard, or -1 for each shard if the lengths were not recorded
+     */
+    private long[] readShardLengths(HollowBlobInput in) throws IOException {
         int backwardsCompatibilityBytes = VarInt.readVInt(in);
 
         if(backwardsCompatibilityBytes == 0)
-            return 1;  /// produced by a version of hollow prior to 2.1.0, always only 1 shard.
+            return new long[] { -1 };  /// produced by a version of hollow prior to 2.1.0, always only 1 shard.
+
+        long[] recordedShardLengths = readForwardsCompatibilityBytes(in);
 
-        skipForwardsCompatibilityBytes(in);
+        int numShards = VarInt.readVInt(in);
 
-        return VarInt.readVInt(in);
+        if(recordedShardLengths != null && recordedShardLengths.length == numShards)
+            return recordedShardLengths;
+
+        long[] shardLengths = new long[numShards];
+        Arrays.fill(shardLengths, -1);
+        return shardLengths;
     }
-        
-    private void skipForwardsCompatibilityBytes(HollowBlobInput in) throws IOException {
-        int bytesToSkip = VarInt.readVInt(in);
-        while(bytesToSkip > 0) {
-            int skippedBytes = (int) in.skipBytes(bytesToSkip);
-            if(skippedBytes < 0)
+
+    /**
+     * The 2.1.0 forwards-compatibility bytes may begin with {@link HollowBlobHeader#SHARD_LENGTHS_TAG}, followed by
+     * the serialized length of each shard of the type.  Any bytes which follow are skipped, as are bytes which do not
+     * begin with the tag or do not hold a well-formed list of shard lengths, in which case the shards are read serially.
+     */
+    private long[] readForwardsCompatibilityBytes(HollowBlobInput in) throws IOException {
+        int numBytes = VarInt.readVInt(in);
+        if(numBytes == 0)
+            return null;
+
+        byte[] bytes = new byte[numBytes];
+        int bytesRead = 0;
+        while(bytesRead < numBytes) {
+            int readBytes = in.read(bytes, bytesRead, numBytes - bytesRead);
+            if(readBytes < 0)
                 throw new EOFException();
-            bytesToSkip -= skippedBytes;
+            bytesRead += readBytes;
+        }
+
+        if(numBytes < 4 || ByteBuffer.wrap(bytes).getInt() != HollowBlobHeader.SHARD_LENGTHS_TAG)
+            return null;
+
+        /// [numShards][shardLength]... follow the tag
+        ByteData data = new ArrayByteData(bytes);
+        long position = 4;
+        try {
+            int numShards = VarInt.readVInt(data, position);
+            position += VarInt.sizeOfVInt(numShards);
+            if(numShards < 0 || numShards > numBytes)
+                return null;
+
+            long[] shardLengths = new long[numShards];
+            for(int i=0;i<numShards;i++) {
+                shardLengths[i] = VarInt.readVLong(data, position);
+                position += VarInt.sizeOfVLong(shardLengths[i]);
+            }
+            return shardLengths;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return null;
         }
     }
 
@@ -327,7 +447,7 @@ public class HollowBlobReader {
     }
 
     private void validateMemoryMode(MemoryMode inputMode) {
-        if (!memoryMode.equals(inputMode)) {
+        if (memoryMode.readsSerialInput() != inputMode.readsSerialInput()) {
             throw new IllegalStateException(String.format("HollowBlobReader is configured for memory mode %s but " +
                     "HollowBlobInput of mode %s was provided", memoryMode, inputMode));
         }
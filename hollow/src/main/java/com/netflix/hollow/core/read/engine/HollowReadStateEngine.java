@@ -58,6 +58,8 @@ public class HollowReadStateEngine implements HollowStateEngine, HollowDataAcces
     private ArraySegmentRecycler memoryRecycler;
     private Map<String,String> headerTags;
     private Set<String> typesWithDefinedHashCodes = new HashSet<String>();
+    private boolean maintainRecordChecksums = false;
+    private Map<String, Long> publishedRecordChecksums = Collections.emptyMap();
 
     private long currentRandomizedTag;
 
@@ -292,6 +294,56 @@ public class HollowReadStateEngine implements HollowStateEngine, HollowDataAcces
         return typesWithDefinedHashCodes;
     }
 
+    /**
+     * Maintain the checksum of the records in each type as this state engine is updated, so that the data may be verified
+     * against the record checksums published by the producer at a cost proportional to the number of changed records.
+     * <p>
+     * Must be enabled before the initial snapshot is read.  Checksums are only maintained for types from which no fields
+     * are filtered.
+     *
+     * @param maintainRecordChecksums whether to maintain record checksums
+     * @see com.netflix.hollow.tools.checksum.HollowRecordChecksum
+     */
+    public void setMaintainRecordChecksums(boolean maintainRecordChecksums) {
+        this.maintainRecordChecksums = maintainRecordChecksums;
+    }
+
+    public boolean isMaintainRecordChecksums() {
+        return maintainRecordChecksums;
+    }
+
+    void setPublishedRecordChecksums(Map<String, Long> publishedRecordChecksums) {
+        this.publishedRecordChecksums = publishedRecordChecksums;
+    }
+
+    /**
+     * @param type the type name
+     * @return the checksum of the records currently populated in the type, or null if the checksum is not maintained for the type
+     */
+    public Long getRecordChecksum(String type) {
+        HollowTypeReadState typeState = typeStates.get(type);
+        if(typeState == null)
+            return null;
+        RecordChecksumListener listener = typeState.getListener(RecordChecksumListener.class);
+        return listener == null ? null : listener.getChecksum();
+    }
+
+    /**
+     * Verify the record checksums maintained by this state engine against those published in the header of the last
+     * blob which was read.  Types for which a checksum is either not maintained or not published are not verified.
+     *
+     * @return the names of the types for which the maintained record checksum does not match the published record checksum
+     */
+    public Set<String> getRecordChecksumMismatches() {
+        Set<String> mismatchedTypes = new HashSet<String>();
+        for(Map.Entry<String, Long> publishedRecordChecksum : publishedRecordChecksums.entrySet()) {
+            Long recordChecksum = getRecordChecksum(publishedRecordChecksum.getKey());
+            if(recordChecksum != null && !recordChecksum.equals(publishedRecordChecksum.getValue()))
+                mismatchedTypes.add(publishedRecordChecksum.getKey());
+        }
+        return mismatchedTypes;
+    }
+
     public long getCurrentRandomizedTag() {
         return currentRandomizedTag;
     }
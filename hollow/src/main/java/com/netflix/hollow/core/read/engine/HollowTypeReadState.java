@@ -121,7 +121,37 @@ public abstract class HollowTypeReadState implements HollowTypeDataAccess {
      */
     public abstract int maxOrdinal();
 
-    public abstract void readSnapshot(HollowBlobInput in, ArraySegmentRecycler recycler) throws IOException;
+    public void readSnapshot(HollowBlobInput in, ArraySegmentRecycler recycler) throws IOException {
+        readSnapshotMaxOrdinal(in);
+
+        for(int i=0;i<numShards();i++)
+            readSnapshotShard(in, i, recycler);
+
+        readSnapshotPopulatedOrdinals(in);
+    }
+
+    /**
+     * Read the max ordinal which precedes the shards of this type in a snapshot blob.
+     * @param in the Hollow blob input data
+     * @throws IOException if the max ordinal cannot be read
+     */
+    protected abstract void readSnapshotMaxOrdinal(HollowBlobInput in) throws IOException;
+
+    /**
+     * Read the data for a single shard of this type from a snapshot blob.
+     * <p>
+     * Distinct shards may be read concurrently, each from its own {@link HollowBlobInput}.
+     * @param in the Hollow blob input data, positioned at the beginning of the shard
+     * @param shardNumber the shard to populate
+     * @param recycler the memory recycler from which to allocate the shard's data
+     * @throws IOException if the shard cannot be read
+     */
+    protected abstract void readSnapshotShard(HollowBlobInput in, int shardNumber, ArraySegmentRecycler recycler) throws IOException;
+
+    protected void readSnapshotPopulatedOrdinals(HollowBlobInput in) throws IOException {
+        SnapshotPopulatedOrdinalsReader.readOrdinals(in, stateListeners);
+    }
+
     public abstract void applyDelta(HollowBlobInput in, HollowSchema schema, ArraySegmentRecycler memoryRecycler) throws IOException;
 
     public HollowSchema getSchema() {
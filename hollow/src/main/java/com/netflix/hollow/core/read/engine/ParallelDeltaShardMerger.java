@@ -0,0 +1,285 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read.engine;
+
+import static com.netflix.hollow.core.util.Threads.daemonThread;
+
+import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the deltas of the shards of a type concurrently.
+ * <p>
+ * The delta for each shard is read from the blob into its own data elements on the thread applying the delta, and
+ * is then merged with the shard's current data by a worker.  Merged shards are completed in shard order on the
+ * thread applying the delta, so that listeners are notified of the changes in the same order as they would be if
+ * the shards were merged one at a time.
+ * <p>
+ * Data destroyed while a shard is being merged may still be read until the shard is completed (for example, the
+ * ordinals added by a delta are read to notify listeners), so the segments recycled by a merge are withheld from the
+ * memory pool until its shard is completed.  The memory pool is then swapped, as it would be after each shard if the
+ * shards were merged one at a time.  At most one merge per worker is in flight, which bounds the additional memory
+ * used by the concurrent merges to that number of shards.
+ * <p>
+ * The workers are shared by all types.  Types with a single shard, or hosts with a single processor, merge each
+ * shard as soon as it is read.
+ */
+public class ParallelDeltaShardMerger {
+
+    private static final int NUM_WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+    private static final ThreadLocal<PendingMerge> CURRENT_MERGE = new ThreadLocal<>();
+
+    /**
+     * The delta of a single shard, which has been read from a delta blob.
+     */
+    public interface ShardMerge {
+
+        /**
+         * Merge the delta with the shard's current data.  Distinct shards may be merged concurrently.
+         */
+        void merge();
+
+        /**
+         * Make the merged data the shard's current data, notify listeners about the changes, and destroy the
+         * superseded data.  Shards are completed one at a time, in shard order.
+         */
+        void complete();
+    }
+
+    private final ArraySegmentRecycler memoryRecycler;
+    private final MergeRecycler mergeRecycler;
+    private final int maxPendingMerges;
+    private final Deque<PendingMerge> pendingMerges;
+
+    /**
+     * @param numShards the number of shards of the type
+     * @param memoryRecycler the memory recycler of the state engine
+     */
+    public ParallelDeltaShardMerger(int numShards, ArraySegmentRecycler memoryRecycler) {
+        this.memoryRecycler = memoryRecycler;
+        this.maxPendingMerges = Math.min(numShards, NUM_WORKERS);
+        this.mergeRecycler = maxPendingMerges > 1 ? new MergeRecycler(memoryRecycler) : null;
+        this.pendingMerges = new ArrayDeque<>();
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(NUM_WORKERS, NUM_WORKERS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> daemonThread(r, ParallelDeltaShardMerger.class, "apply-delta-shards"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return the memory recycler from which to allocate the data elements of the shards, which may be used by
+     * concurrent merges
+     */
+    public ArraySegmentRecycler getMemoryRecycler() {
+        return mergeRecycler != null ? mergeRecycler : memoryRecycler;
+    }
+
+    /**
+     * Merge the delta of the next shard, and complete any shards which have been merged.  If the maximum number of
+     * merges are in flight, first wait for the earliest to be merged.
+     *
+     * @param shardMerge the delta of the next shard
+     * @throws IOException if a shard could not be merged
+     */
+    public void merge(ShardMerge shardMerge) throws IOException {
+        if(mergeRecycler == null) {
+            shardMerge.merge();
+            shardMerge.complete();
+            memoryRecycler.swap();
+            return;
+        }
+
+        while(pendingMerges.size() >= maxPendingMerges)
+            completeNext();
+
+        PendingMerge pending = new PendingMerge(shardMerge);
+        pendingMerges.addLast(pending);
+        pending.future = EXECUTOR.submit(new MergeTask(pending));
+
+        while(!pendingMerges.isEmpty() && pendingMerges.peekFirst().future.isDone())
+            completeNext();
+    }
+
+    /**
+     * Wait for all shards to be merged, and complete them.
+     *
+     * @throws IOException if a shard could not be merged
+     */
+    public void awaitCompletion() throws IOException {
+        while(!pendingMerges.isEmpty())
+            completeNext();
+    }
+
+    /**
+     * Abandon any shards which have not yet been merged.
+     */
+    public void shutdown() {
+        for(PendingMerge pending : pendingMerges)
+            pending.future.cancel(true);
+        pendingMerges.clear();
+    }
+
+    private void completeNext() throws IOException {
+        PendingMerge pending = pendingMerges.removeFirst();
+
+        try {
+            pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while merging shard deltas", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to merge shard delta", e.getCause());
+        }
+
+        pending.shardMerge.complete();
+
+        /// the segments recycled by the merge are no longer read once its shard is completed
+        synchronized(memoryRecycler) {
+            for(long[] arr : pending.recycledLongArrays)
+                memoryRecycler.recycleLongArray(arr);
+            for(byte[] arr : pending.recycledByteArrays)
+                memoryRecycler.recycleByteArray(arr);
+            memoryRecycler.swap();
+        }
+    }
+
+    private static class PendingMerge {
+        private final ShardMerge shardMerge;
+        private final List<long[]> recycledLongArrays = new ArrayList<>();
+        private final List<byte[]> recycledByteArrays = new ArrayList<>();
+        private Future<?> future;
+
+        PendingMerge(ShardMerge shardMerge) {
+            this.shardMerge = shardMerge;
+        }
+    }
+
+    private static class MergeTask implements Runnable {
+        private final PendingMerge pending;
+
+        MergeTask(PendingMerge pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void run() {
+            CURRENT_MERGE.set(pending);
+            try {
+                pending.shardMerge.merge();
+            } finally {
+                CURRENT_MERGE.remove();
+            }
+        }
+    }
+
+    /**
+     * Allows segments to be taken from and returned to the state engine's memory pool by the merging workers, which
+     * synchronize on the pool.  Segments returned by a worker are withheld until the shard it merged is completed.
+     */
+    private static class MergeRecycler implements ArraySegmentRecycler {
+        private final ArraySegmentRecycler memoryRecycler;
+
+        MergeRecycler(ArraySegmentRecycler memoryRecycler) {
+            this.memoryRecycler = memoryRecycler;
+        }
+
+        @Override
+        public int getLog2OfByteSegmentSize() {
+            return memoryRecycler.getLog2OfByteSegmentSize();
+        }
+
+        @Override
+        public int getLog2OfLongSegmentSize() {
+            return memoryRecycler.getLog2OfLongSegmentSize();
+        }
+
+        @Override
+        public long[] getLongArray() {
+            synchronized(memoryRecycler) {
+                return memoryRecycler.getLongArray();
+            }
+        }
+
+        @Override
+        public void recycleLongArray(long[] arr) {
+            PendingMerge pending = CURRENT_MERGE.get();
+            if(pending != null) {
+                pending.recycledLongArrays.add(arr);
+                return;
+            }
+            synchronized(memoryRecycler) {
+                memoryRecycler.recycleLongArray(arr);
+            }
+        }
+
+        @Override
+        public byte[] getByteArray() {
+            synchronized(memoryRecycler) {
+                return memoryRecycler.getByteArray();
+            }
+        }
+
+        @Override
+        public void recycleByteArray(byte[] arr) {
+            PendingMerge pending = CURRENT_MERGE.get();
+            if(pending != null) {
+                pending.recycledByteArrays.add(arr);
+                return;
+            }
+            synchronized(memoryRecycler) {
+                memoryRecycler.recycleByteArray(arr);
+            }
+        }
+
+        /// only called on the thread applying the delta, which does not read the segments withheld from the pool
+        @Override
+        public void swap() {
+            synchronized(memoryRecycler) {
+                memoryRecycler.swap();
+            }
+        }
+
+        /// off-heap segments are not reused, so they need not be withheld until the shard is completed
+        @Override
+        public void recycleOffHeapSegments(ByteBuffer[] segments) {
+            synchronized(memoryRecycler) {
+                memoryRecycler.recycleOffHeapSegments(segments);
+            }
+        }
+
+        @Override
+        public void freeRecycledOffHeapSegments() {
+            synchronized(memoryRecycler) {
+                memoryRecycler.freeRecycledOffHeapSegments();
+            }
+        }
+    }
+}
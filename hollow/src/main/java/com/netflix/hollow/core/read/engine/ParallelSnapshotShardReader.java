@@ -0,0 +1,237 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read.engine;
+
+import static com.netflix.hollow.core.util.Threads.daemonThread;
+
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
+import com.netflix.hollow.core.memory.pool.WastefulRecycler;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Populates the shards of the type states in a snapshot blob concurrently.
+ * <p>
+ * This is only possible when the producer recorded the serialized length of each shard in the blob, which
+ * allows the blob to be read past a shard while a worker populates it.  With a random access input, each
+ * worker reads its shard from a duplicate of the input which shares the memory mapping of the blob.  With a
+ * serial input, the shard is first read into a buffer, and the worker populates the shard from the buffer.
+ * The number of shards which are in flight at any time is bounded, which bounds the memory used for buffers.
+ * <p>
+ * The workers are shared by all snapshot reads, and exit once they have been idle for a while.
+ */
+class ParallelSnapshotShardReader {
+
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private final HollowBlobInput in;
+    private final ArraySegmentRecycler shardRecycler;
+    private final List<Future<?>> shardTasks = new ArrayList<Future<?>>();
+    private final Semaphore inFlightShards;
+
+    ParallelSnapshotShardReader(HollowBlobInput in, ArraySegmentRecycler memoryRecycler) {
+        this.in = in;
+        this.shardRecycler = new ShardRecycler(memoryRecycler);
+        this.inFlightShards = new Semaphore(EXECUTOR.getCorePoolSize() * 2);
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> daemonThread(r, ParallelSnapshotShardReader.class, "read-snapshot-shards"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @param shardLengths the serialized length of each shard, as recorded in the blob
+     * @return whether the shards of a type may be populated concurrently
+     */
+    static boolean isSupported(long[] shardLengths) {
+        for(long shardLength : shardLengths) {
+            if(shardLength < 0)
+                return false;
+        }
+        return true;
+    }
+
+    void readSnapshot(HollowTypeReadState typeState, long[] shardLengths) throws IOException {
+        typeState.readSnapshotMaxOrdinal(in);
+
+        for(int i=0;i<shardLengths.length;i++) {
+            if(in.getMemoryMode() == MemoryMode.SHARED_MEMORY_LAZY)
+                readMappedShard(typeState, i, shardLengths[i]);
+            else
+                readBufferedShard(typeState, i, shardLengths[i]);
+        }
+
+        typeState.readSnapshotPopulatedOrdinals(in);
+    }
+
+    /**
+     * Wait for all shards to be populated.
+     *
+     * @throws IOException if any shard could not be read
+     */
+    void awaitCompletion() throws IOException {
+        try {
+            for(Future<?> shardTask : shardTasks)
+                shardTask.get();
+        } catch (Exception e) {
+            throw new IOException("Unable to read snapshot shards", e);
+        }
+    }
+
+    /**
+     * Abandon any shards of this snapshot which have not yet been populated.
+     */
+    void shutdown() {
+        for(Future<?> shardTask : shardTasks)
+            shardTask.cancel(true);
+    }
+
+    private void readMappedShard(final HollowTypeReadState typeState, final int shardNumber, long shardLength) throws IOException {
+        inFlightShards.acquireUninterruptibly();
+
+        final HollowBlobInput shardIn;
+        try {
+            shardIn = in.duplicate();
+        } catch (IOException | RuntimeException | Error e) {
+            inFlightShards.release();
+            throw e;
+        }
+
+        final long shardEnd = shardIn.getFilePointer() + shardLength;
+
+        shardTasks.add(EXECUTOR.submit(new Runnable() {
+            public void run() {
+                try (HollowBlobInput shardInput = shardIn) {
+                    typeState.readSnapshotShard(shardInput, shardNumber, shardRecycler);
+
+                    if(shardInput.getFilePointer() != shardEnd)
+                        throw new IOException("Shard " + shardNumber + " of type " + typeState.getSchema().getName() + " did not end at its recorded length");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    inFlightShards.release();
+                }
+            }
+        }));
+
+        in.seek(shardEnd);
+    }
+
+    private void readBufferedShard(final HollowTypeReadState typeState, final int shardNumber, long shardLength) throws IOException {
+        if(shardLength > Integer.MAX_VALUE - 8) {
+            /// too large to buffer, populate the shard from the blob input directly
+            typeState.readSnapshotShard(in, shardNumber, shardRecycler);
+            return;
+        }
+
+        inFlightShards.acquireUninterruptibly();
+
+        final byte[] shardBytes;
+        try {
+            shardBytes = new byte[(int)shardLength];
+            readFully(shardBytes);
+        } catch (IOException | RuntimeException | Error e) {
+            inFlightShards.release();
+            throw e;
+        }
+
+        shardTasks.add(EXECUTOR.submit(new Runnable() {
+            public void run() {
+                try {
+                    typeState.readSnapshotShard(HollowBlobInput.serial(shardBytes), shardNumber, shardRecycler);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    inFlightShards.release();
+                }
+            }
+        }));
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+        int offset = 0;
+        while(offset < bytes.length) {
+            int bytesRead = in.read(bytes, offset, bytes.length - offset);
+            if(bytesRead < 0)
+                throw new EOFException();
+            offset += bytesRead;
+        }
+    }
+
+    /**
+     * Allocates new segments for the shards being populated concurrently, and returns segments
+     * to the state engine's memory pool once the populated data is later destroyed.
+     */
+    private static class ShardRecycler implements ArraySegmentRecycler {
+        private final ArraySegmentRecycler memoryRecycler;
+        private final WastefulRecycler allocator;
+
+        ShardRecycler(ArraySegmentRecycler memoryRecycler) {
+            this.memoryRecycler = memoryRecycler;
+            this.allocator = new WastefulRecycler(memoryRecycler.getLog2OfByteSegmentSize(), memoryRecycler.getLog2OfLongSegmentSize());
+        }
+
+        @Override
+        public int getLog2OfByteSegmentSize() {
+            return allocator.getLog2OfByteSegmentSize();
+        }
+
+        @Override
+        public int getLog2OfLongSegmentSize() {
+            return allocator.getLog2OfLongSegmentSize();
+        }
+
+        @Override
+        public long[] getLongArray() {
+            return allocator.getLongArray();
+        }
+
+        @Override
+        public void recycleLongArray(long[] arr) {
+            memoryRecycler.recycleLongArray(arr);
+        }
+
+        @Override
+        public byte[] getByteArray() {
+            return allocator.getByteArray();
+        }
+
+        @Override
+        public void recycleByteArray(byte[] arr) {
+            memoryRecycler.recycleByteArray(arr);
+        }
+
+        @Override
+        public void swap() {
+            memoryRecycler.swap();
+        }
+    }
+}
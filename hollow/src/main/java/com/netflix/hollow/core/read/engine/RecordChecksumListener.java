@@ -0,0 +1,80 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read.engine;
+
+import com.netflix.hollow.core.util.IntList;
+import com.netflix.hollow.tools.checksum.HollowRecordChecksum;
+
+/**
+ * A RecordChecksumListener maintains the order-independent checksum of the records in a type, by adding the
+ * checksums of added records and subtracting the checksums of removed records as each update is applied.
+ * <p>
+ * Records are checksummed once the update is complete, at which point the data for the added records has been
+ * populated and the data for the removed records is still available as "ghost" records.
+ *
+ * @see HollowRecordChecksum
+ */
+public class RecordChecksumListener implements HollowTypeStateListener {
+
+    private final HollowTypeReadState typeState;
+    private final HollowRecordChecksum recordChecksum;
+    private final IntList addedOrdinals;
+    private final IntList removedOrdinals;
+    private long checksum;
+
+    public RecordChecksumListener(HollowTypeReadState typeState) {
+        this.typeState = typeState;
+        this.recordChecksum = new HollowRecordChecksum();
+        this.addedOrdinals = new IntList();
+        this.removedOrdinals = new IntList();
+    }
+
+    @Override
+    public void beginUpdate() {
+        addedOrdinals.clear();
+        removedOrdinals.clear();
+    }
+
+    @Override
+    public void addedOrdinal(int ordinal) {
+        addedOrdinals.add(ordinal);
+    }
+
+    @Override
+    public void removedOrdinal(int ordinal) {
+        removedOrdinals.add(ordinal);
+    }
+
+    @Override
+    public void endUpdate() {
+        for(int i=0;i<removedOrdinals.size();i++)
+            checksum -= recordChecksum.checksumRecord(typeState, removedOrdinals.get(i));
+        for(int i=0;i<addedOrdinals.size();i++)
+            checksum += recordChecksum.checksumRecord(typeState, addedOrdinals.get(i));
+
+        addedOrdinals.clear();
+        removedOrdinals.clear();
+    }
+
+    /**
+     * @return the checksum of the records currently populated in the type
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+}
@@ -28,6 +28,7 @@ import com.netflix.hollow.core.read.dataaccess.HollowListTypeDataAccess;
 import com.netflix.hollow.core.read.engine.HollowCollectionTypeReadState;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.read.engine.ParallelDeltaShardMerger;
 import com.netflix.hollow.core.read.engine.PopulatedOrdinalListener;
 import com.netflix.hollow.core.read.engine.SnapshotPopulatedOrdinalsReader;
 import com.netflix.hollow.core.read.filter.HollowFilterConfig;
@@ -73,20 +74,19 @@ public class HollowListTypeReadState extends HollowCollectionTypeReadState imple
     }
 
     @Override
-    public void readSnapshot(HollowBlobInput in, ArraySegmentRecycler memoryRecycler) throws IOException {
+    protected void readSnapshotMaxOrdinal(HollowBlobInput in) throws IOException {
         if(shards.length > 1)
             maxOrdinal = VarInt.readVInt(in);
-        
-        for(int i=0;i<shards.length;i++) {
-            HollowListTypeDataElements snapshotData = new HollowListTypeDataElements(memoryMode, memoryRecycler);
-            snapshotData.readSnapshot(in);
-            shards[i].setCurrentData(snapshotData);
-        }
-        
+    }
+
+    @Override
+    protected void readSnapshotShard(HollowBlobInput in, int shardNumber, ArraySegmentRecycler memoryRecycler) throws IOException {
+        HollowListTypeDataElements snapshotData = new HollowListTypeDataElements(memoryMode, memoryRecycler);
+        snapshotData.readSnapshot(in);
+        shards[shardNumber].setCurrentData(snapshotData);
+
         if(shards.length == 1)
-            maxOrdinal = shards[0].currentDataElements().maxOrdinal;
-        
-        SnapshotPopulatedOrdinalsReader.readOrdinals(in, stateListeners);
+            maxOrdinal = snapshotData.maxOrdinal;
     }
 
     @Override
@@ -94,23 +94,50 @@ public class HollowListTypeReadState extends HollowCollectionTypeReadState imple
         if(shards.length > 1)
             maxOrdinal = VarInt.readVInt(in);
 
-        for(int i=0; i<shards.length; i++) {
-            HollowListTypeDataElements deltaData = new HollowListTypeDataElements(memoryMode, memoryRecycler);
-            HollowListTypeDataElements nextData = new HollowListTypeDataElements(memoryMode, memoryRecycler);
-            deltaData.readDelta(in);
-            HollowListTypeDataElements oldData = shards[i].currentDataElements();
-            nextData.applyDelta(oldData, deltaData);
-            shards[i].setCurrentData(nextData);
-            notifyListenerAboutDeltaChanges(deltaData.encodedRemovals, deltaData.encodedAdditions, i, shards.length);
-            deltaData.destroy();
-            oldData.destroy();
-            stateEngine.getMemoryRecycler().swap();
+        ParallelDeltaShardMerger shardMerger = new ParallelDeltaShardMerger(shards.length, memoryRecycler);
+        try {
+            for(int i=0;i<shards.length;i++) {
+                HollowListTypeDataElements deltaData = new HollowListTypeDataElements(memoryMode, shardMerger.getMemoryRecycler());
+                HollowListTypeDataElements nextData = new HollowListTypeDataElements(memoryMode, shardMerger.getMemoryRecycler());
+                deltaData.readDelta(in);
+                shardMerger.merge(new ShardDeltaMerge(i, deltaData, nextData));
+            }
+
+            shardMerger.awaitCompletion();
+        } finally {
+            shardMerger.shutdown();
         }
 
         if(shards.length == 1)
             maxOrdinal = shards[0].currentDataElements().maxOrdinal;
     }
 
+    private class ShardDeltaMerge implements ParallelDeltaShardMerger.ShardMerge {
+        private final int shardNumber;
+        private final HollowListTypeDataElements deltaData;
+        private final HollowListTypeDataElements nextData;
+
+        ShardDeltaMerge(int shardNumber, HollowListTypeDataElements deltaData, HollowListTypeDataElements nextData) {
+            this.shardNumber = shardNumber;
+            this.deltaData = deltaData;
+            this.nextData = nextData;
+        }
+
+        @Override
+        public void merge() {
+            nextData.applyDelta(shards[shardNumber].currentDataElements(), deltaData);
+        }
+
+        @Override
+        public void complete() {
+            HollowListTypeDataElements oldData = shards[shardNumber].currentDataElements();
+            shards[shardNumber].setCurrentData(nextData);
+            notifyListenerAboutDeltaChanges(deltaData.encodedRemovals, deltaData.encodedAdditions, shardNumber, shards.length);
+            deltaData.destroy();
+            oldData.destroy();
+        }
+    }
+
     public static void discardSnapshot(HollowBlobInput in, int numShards) throws IOException {
         discardType(in, numShards, false);
     }
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read.engine.object;
+
+import com.netflix.hollow.core.memory.ByteData;
+
+/**
+ * Matches the values of a field of an OBJECT type in their encoded form, as they are stored in the fixed and variable
+ * length data of each shard, so that a field may be scanned without decoding each record.
+ * <p>
+ * The encoded value of a fixed length field is:
+ * <ul>
+ * <li>the zig zag encoded value for {@code INT} and {@code LONG} fields</li>
+ * <li>the raw bits of the value for {@code FLOAT} and {@code DOUBLE} fields</li>
+ * <li>1 for true, and 0 for false, for {@code BOOLEAN} fields</li>
+ * <li>the referenced ordinal for {@code REFERENCE} fields</li>
+ * </ul>
+ * The value of a {@code STRING} field is encoded as a VarInt per character, and the value of a {@code BYTES} field is not encoded.
+ * <p>
+ * Implementations are invoked concurrently for distinct shards.
+ *
+ * @see HollowObjectTypeReadState#findMatchingOrdinals(int, EncodedFieldMatcher)
+ */
+public interface EncodedFieldMatcher {
+
+    /**
+     * @return whether a null value matches
+     */
+    boolean matchesNull();
+
+    /**
+     * @param encodedValue the encoded value of a fixed length field, which is not null
+     * @return whether the value matches
+     */
+    boolean matches(long encodedValue);
+
+    /**
+     * @param data the variable length data of the field
+     * @param start the position of the value's first byte
+     * @param length the number of bytes in the value
+     * @return whether the value of a {@code STRING} or {@code BYTES} field, which is not null, matches
+     */
+    boolean matches(ByteData data, long start, int length);
+}
@@ -16,10 +16,13 @@
  */
 package com.netflix.hollow.core.read.engine.object;
 
-import com.netflix.hollow.core.memory.SegmentedByteArray;
-import com.netflix.hollow.core.memory.encoding.FixedLengthElementArray;
+import com.netflix.hollow.core.memory.EncodedByteBuffer;
+import com.netflix.hollow.core.memory.FixedLengthDataFactory;
+import com.netflix.hollow.core.memory.VariableLengthDataFactory;
+import com.netflix.hollow.core.memory.encoding.EncodedLongBuffer;
 import com.netflix.hollow.core.memory.encoding.GapEncodedVariableLengthIntegerReader;
 import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+import java.util.BitSet;
 
 /**
  * This class contains the logic for applying a delta to a current OBJECT type state
@@ -32,6 +35,9 @@ class HollowObjectDeltaApplicator {
     private final HollowObjectTypeDataElements from;
     private final HollowObjectTypeDataElements delta;
     private final HollowObjectTypeDataElements target;
+    private final BitSet fromOrdinals;
+    private final int shardNumber;
+    private final int numShards;
 
     long currentDeltaStateReadFixedLengthStartBit = 0;
     long currentFromStateReadFixedLengthStartBit = 0;
@@ -48,10 +54,22 @@ class HollowObjectDeltaApplicator {
 
     int numMergeFields = 0;
 
-    public HollowObjectDeltaApplicator(HollowObjectTypeDataElements from, HollowObjectTypeDataElements delta, HollowObjectTypeDataElements target) {
+    /**
+     * @param from the current data of the shard
+     * @param delta the delta of the shard
+     * @param target the data to which the delta is applied
+     * @param fromOrdinals the ordinals populated in the from state, across all shards, or null if they are unknown, in
+     * which case the delta is never applied in place
+     * @param shardNumber the shard of the data elements
+     * @param numShards the number of shards of the type
+     */
+    public HollowObjectDeltaApplicator(HollowObjectTypeDataElements from, HollowObjectTypeDataElements delta, HollowObjectTypeDataElements target, BitSet fromOrdinals, int shardNumber, int numShards) {
         this.from = from;
         this.delta = delta;
         this.target = target;
+        this.fromOrdinals = fromOrdinals;
+        this.shardNumber = shardNumber;
+        this.numShards = numShards;
     }
 
     void applyDelta() {
@@ -79,28 +97,190 @@ class HollowObjectDeltaApplicator {
                 numMergeFields = i+1;
         }
 
-        target.fixedLengthData = new FixedLengthElementArray(target.memoryRecycler, (long)target.bitsPerRecord * (target.maxOrdinal + 1));
-
-        for(int i=0;i<target.schema.numFields();i++) {
-            if(target.schema.getFieldType(i) == FieldType.STRING || target.schema.getFieldType(i) == FieldType.BYTES) {
-                target.varLengthData[i] = new SegmentedByteArray(target.memoryRecycler);
-            }
-        }
-
         currentDeltaReadVarLengthDataPointers = new long[target.varLengthData.length];
         currentFromStateReadVarLengthDataPointers = new long[target.varLengthData.length];
         currentWriteVarLengthDataPointers = new long[target.varLengthData.length];
 
-        if(canDoFastDelta())
-            fastDelta();
-        else
-            slowDelta();
+        if(canApplyInPlace()) {
+            applyInPlace();
+        } else {
+            target.fixedLengthData = FixedLengthDataFactory.allocate((long)target.bitsPerRecord * (target.maxOrdinal + 1), target.memoryMode, target.memoryRecycler);
+
+            for(int i=0;i<target.schema.numFields();i++) {
+                if(isVarLengthField(i)) {
+                    target.varLengthData[i] = VariableLengthDataFactory.allocate(target.memoryMode, target.memoryRecycler);
+                }
+            }
+
+            if(canDoFastDelta())
+                fastDelta();
+            else
+                slowDelta();
+        }
 
         from.encodedRemovals = null;
         removalsReader.destroy();
         additionsReader.destroy();
     }
 
+    /**
+     * The data of the from state may be patched in place, rather than copied into newly allocated data, if the
+     * width of each field is unchanged, the delta assigns no ordinal greater than the from state's max ordinal,
+     * the from state's data is writable, and each added record's variable length data is exactly as long as that
+     * of the record previously assigned the same ordinal.
+     * <p>
+     * Only the records which are populated in neither the from state nor the delta's prior state are written in
+     * place: the records removed in the prior delta, and the records added by this delta, which may only be assigned
+     * the ordinals of records which were removed for at least one cycle, and which are only guaranteed to be readable
+     * until this delta is applied.  This is checked explicitly: if an added ordinal is populated in the from state,
+     * the records are copied.  Readers of currently populated records are unaffected, and the added records are
+     * published to readers when the target becomes the current data.
+     * <p>
+     * The variable length data of a record begins where that of the preceding ordinal ends, so an added record can
+     * only take the place of a removed record if their variable length data are exactly as long.  This commonly holds
+     * for fixed format values (e.g. identifiers or codes), but rarely for free text, in which case the records are
+     * copied.  The variable length data of removed records is kept in place until the ordinal is reassigned, or the
+     * records are next copied, which drops it.
+     */
+    private boolean canApplyInPlace() {
+        if(fromOrdinals == null || !canDoFastDelta() || target.maxOrdinal > from.maxOrdinal || from.fixedLengthData instanceof EncodedLongBuffer)
+            return false;
+
+        for(int i=0;i<target.schema.numFields();i++) {
+            if(isVarLengthField(i) && from.varLengthData[i] instanceof EncodedByteBuffer)
+                return false;
+        }
+
+        long deltaRecordStartBit = 0;
+        long deltaVarLengthStart[] = new long[target.varLengthData.length];
+
+        try {
+            int addedOrdinal = additionsReader.nextElement();
+            while(addedOrdinal < Integer.MAX_VALUE) {
+                /// an added record must not be written over a record which is populated in the from state
+                if(fromOrdinals.get(addedOrdinal * numShards + shardNumber))
+                    return false;
+
+                long recordStartBit = (long)target.bitsPerRecord * addedOrdinal;
+
+                for(int fieldIndex=0;fieldIndex<numMergeFields;fieldIndex++) {
+                    if(isVarLengthField(fieldIndex)) {
+                        long slotStart = addedOrdinal == 0 ? 0 : varLengthEnd(from, fieldIndex, recordStartBit - from.bitsPerRecord);
+                        long slotLength = varLengthEnd(from, fieldIndex, recordStartBit) - slotStart;
+
+                        long length = 0;
+                        int deltaFieldIndex = deltaFieldIndexMapping[fieldIndex];
+                        if(deltaFieldIndex != -1) {
+                            long deltaEnd = varLengthEnd(delta, deltaFieldIndex, deltaRecordStartBit);
+                            length = deltaEnd - deltaVarLengthStart[fieldIndex];
+                            deltaVarLengthStart[fieldIndex] = deltaEnd;
+                        }
+
+                        if(length != slotLength)
+                            return false;
+                    }
+                }
+
+                deltaRecordStartBit += delta.bitsPerRecord;
+                additionsReader.advance();
+                addedOrdinal = additionsReader.nextElement();
+            }
+
+            return true;
+        } finally {
+            additionsReader.reset();
+        }
+    }
+
+    private void applyInPlace() {
+        target.fixedLengthData = from.fixedLengthData;
+        for(int i=0;i<target.schema.numFields();i++) {
+            if(isVarLengthField(i))
+                target.varLengthData[i] = from.varLengthData[i] != null ? from.varLengthData[i] : VariableLengthDataFactory.allocate(target.memoryMode, target.memoryRecycler);
+        }
+
+        /// the variable length data of removed records remains in place, and is reclaimed when the ordinal is next assigned a record
+        int removedOrdinal = removalsReader.nextElement();
+        while(removedOrdinal <= target.maxOrdinal) {
+            long recordStartBit = (long)target.bitsPerRecord * removedOrdinal;
+            for(int fieldIndex=0;fieldIndex<numMergeFields;fieldIndex++) {
+                if(!isVarLengthField(fieldIndex))
+                    writeInPlace(recordStartBit + target.bitOffsetPerField[fieldIndex], target.bitsPerField[fieldIndex], 0);
+            }
+
+            removalsReader.advance();
+            removedOrdinal = removalsReader.nextElement();
+        }
+
+        int addedOrdinal = additionsReader.nextElement();
+        while(addedOrdinal < Integer.MAX_VALUE) {
+            long recordStartBit = (long)target.bitsPerRecord * addedOrdinal;
+
+            for(int fieldIndex=0;fieldIndex<numMergeFields;fieldIndex++) {
+                int deltaFieldIndex = deltaFieldIndexMapping[fieldIndex];
+                long writeStartBit = recordStartBit + target.bitOffsetPerField[fieldIndex];
+
+                if(isVarLengthField(fieldIndex)) {
+                    long slotStart = addedOrdinal == 0 ? 0 : varLengthEnd(target, fieldIndex, recordStartBit - target.bitsPerRecord);
+                    long nullValue = (1L << (target.bitsPerField[fieldIndex] - 1)) | slotStart;
+
+                    if(deltaFieldIndex == -1) {
+                        writeInPlace(writeStartBit, target.bitsPerField[fieldIndex], nullValue);
+                    } else {
+                        long deltaValue = delta.fixedLengthData.getElementValue(currentDeltaStateReadFixedLengthStartBit + delta.bitOffsetPerField[deltaFieldIndex], delta.bitsPerField[deltaFieldIndex]);
+                        long deltaEnd = deltaValue & (delta.nullValueForField[deltaFieldIndex] >>> 1);
+                        long length = deltaEnd - currentDeltaReadVarLengthDataPointers[fieldIndex];
+
+                        if((deltaValue & (1L << (delta.bitsPerField[deltaFieldIndex] - 1))) != 0) {
+                            writeInPlace(writeStartBit, target.bitsPerField[fieldIndex], nullValue);
+                        } else {
+                            if(length > 0)
+                                target.varLengthData[fieldIndex].orderedCopy(delta.varLengthData[deltaFieldIndex], currentDeltaReadVarLengthDataPointers[fieldIndex], slotStart, length);
+                            writeInPlace(writeStartBit, target.bitsPerField[fieldIndex], slotStart + length);
+                        }
+
+                        currentDeltaReadVarLengthDataPointers[fieldIndex] = deltaEnd;
+                    }
+                } else if(deltaFieldIndex == -1) {
+                    writeInPlace(writeStartBit, target.bitsPerField[fieldIndex], target.nullValueForField[fieldIndex]);
+                } else {
+                    long readStartBit = currentDeltaStateReadFixedLengthStartBit + delta.bitOffsetPerField[deltaFieldIndex];
+                    long value = delta.bitsPerField[deltaFieldIndex] > 56 ?
+                            delta.fixedLengthData.getLargeElementValue(readStartBit, delta.bitsPerField[deltaFieldIndex])
+                            : delta.fixedLengthData.getElementValue(readStartBit, delta.bitsPerField[deltaFieldIndex]);
+                    writeInPlace(writeStartBit, target.bitsPerField[fieldIndex], value);
+                }
+            }
+
+            currentDeltaStateReadFixedLengthStartBit += delta.bitsPerRecord;
+            additionsReader.advance();
+            addedOrdinal = additionsReader.nextElement();
+        }
+
+        from.dataPatchedInPlace = true;
+    }
+
+    private boolean isVarLengthField(int fieldIndex) {
+        FieldType fieldType = target.schema.getFieldType(fieldIndex);
+        return fieldType == FieldType.STRING || fieldType == FieldType.BYTES;
+    }
+
+    private long varLengthEnd(HollowObjectTypeDataElements data, int fieldIndex, long recordStartBit) {
+        long value = data.fixedLengthData.getElementValue(recordStartBit + data.bitOffsetPerField[fieldIndex], data.bitsPerField[fieldIndex]);
+        return value & (data.nullValueForField[fieldIndex] >>> 1);
+    }
+
+    private void writeInPlace(long index, int bitsPerElement, long value) {
+        if(bitsPerElement > 32) {
+            /// a mask of 64 bits cannot be expressed as (1L << bitsPerElement) - 1, so wide values are written in halves
+            writeInPlace(index, 32, value & 0xFFFFFFFFL);
+            writeInPlace(index + 32, bitsPerElement - 32, value >>> 32);
+        } else if(bitsPerElement > 0) {
+            target.fixedLengthData.clearElementValue(index, bitsPerElement);
+            target.fixedLengthData.setElementValue(index, bitsPerElement, value);
+        }
+    }
+
     private boolean canDoFastDelta() {
         for(int i=0;i<target.bitsPerField.length;i++) {
             if(target.bitsPerField[i] != from.bitsPerField[i])
@@ -169,7 +349,7 @@ class HollowObjectDeltaApplicator {
             int deltaFieldIndex = deltaFieldIndexMapping[fieldIndex];
 
             if(addFromDelta) {
-                addFromDelta(removeData, fieldIndex, deltaFieldIndex);
+                addFromDelta(i <= from.maxOrdinal, fieldIndex, deltaFieldIndex);
 
             } else {
                 if(i <= from.maxOrdinal) {
@@ -192,7 +372,7 @@ class HollowObjectDeltaApplicator {
             removalsReader.advance();
     }
 
-    private void addFromDelta(boolean removeData, int fieldIndex, int deltaFieldIndex) {
+    private void addFromDelta(boolean replaceData, int fieldIndex, int deltaFieldIndex) {
         if(deltaFieldIndex == -1) {
             writeNullField(fieldIndex, currentWriteFixedLengthStartBit, currentWriteVarLengthDataPointers);
         } else {
@@ -200,8 +380,9 @@ class HollowObjectDeltaApplicator {
             copyRecordField(fieldIndex, deltaFieldIndex, delta, readStartBit, currentWriteFixedLengthStartBit, currentDeltaReadVarLengthDataPointers, currentWriteVarLengthDataPointers, false);
         }
 
-        /// skip over var length data in from state, if removed.
-        if(removeData && target.varLengthData[fieldIndex] != null) {
+        /// skip over var length data in from state, if replaced.  Records removed in an earlier delta may retain
+        /// their var length data if that delta was applied in place, so this is not limited to removed records.
+        if(replaceData && target.varLengthData[fieldIndex] != null) {
             long readValue = from.fixedLengthData.getElementValue(currentFromStateReadFixedLengthStartBit + from.bitOffsetPerField[fieldIndex], from.bitsPerField[fieldIndex]);
             if((readValue & (1L << (from.bitsPerField[fieldIndex] - 1))) == 0)
                 currentFromStateReadVarLengthDataPointers[fieldIndex] = readValue;
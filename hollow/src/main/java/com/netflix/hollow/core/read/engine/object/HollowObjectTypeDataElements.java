@@ -21,13 +21,13 @@ import com.netflix.hollow.core.memory.FixedLengthDataFactory;
 import com.netflix.hollow.core.memory.MemoryMode;
 import com.netflix.hollow.core.memory.VariableLengthData;
 import com.netflix.hollow.core.memory.VariableLengthDataFactory;
-import com.netflix.hollow.core.memory.encoding.FixedLengthElementArray;
 import com.netflix.hollow.core.memory.encoding.GapEncodedVariableLengthIntegerReader;
 import com.netflix.hollow.core.memory.encoding.VarInt;
 import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
 import com.netflix.hollow.core.read.HollowBlobInput;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
 import java.io.IOException;
+import java.util.BitSet;
 
 /**
  * This class holds the data for a {@link HollowObjectTypeReadState}.
@@ -58,6 +58,9 @@ public class HollowObjectTypeDataElements {
     final ArraySegmentRecycler memoryRecycler;
     final MemoryMode memoryMode;
 
+    /// set once a delta has patched the fixed and variable length data in place, which then belong to the next data elements
+    boolean dataPatchedInPlace;
+
     public HollowObjectTypeDataElements(HollowObjectSchema schema, ArraySegmentRecycler memoryRecycler) {
         this(schema, MemoryMode.ON_HEAP, memoryRecycler);
     }
@@ -99,7 +102,7 @@ public class HollowObjectTypeDataElements {
     private void removeExcludedFieldsFromFixedLengthData() {
         if(bitsPerField.length < bitsPerUnfilteredField.length) {
             long numBitsRequired = (long)bitsPerRecord * (maxOrdinal + 1);
-            FixedLengthElementArray filteredData = new FixedLengthElementArray(memoryRecycler, numBitsRequired);
+            FixedLengthData filteredData = FixedLengthDataFactory.allocate(numBitsRequired, memoryMode, memoryRecycler);
 
             long currentReadBit = 0;
             long currentWriteBit = 0;
@@ -199,15 +202,18 @@ public class HollowObjectTypeDataElements {
         }
     }
 
-    void applyDelta(HollowObjectTypeDataElements fromData, HollowObjectTypeDataElements deltaData) {
-        new HollowObjectDeltaApplicator(fromData, deltaData, this).applyDelta();
+    void applyDelta(HollowObjectTypeDataElements fromData, HollowObjectTypeDataElements deltaData, BitSet fromOrdinals, int shardNumber, int numShards) {
+        new HollowObjectDeltaApplicator(fromData, deltaData, this, fromOrdinals, shardNumber, numShards).applyDelta();
     }
 
     public void destroy() {
+        if(dataPatchedInPlace)
+            return;
+
         FixedLengthDataFactory.destroy(fixedLengthData, memoryRecycler);
         for(int i=0;i<varLengthData.length;i++) {
             if(varLengthData[i] != null)
-                VariableLengthDataFactory.destroy(varLengthData[i]);
+                VariableLengthDataFactory.destroy(varLengthData[i], memoryRecycler);
         }
     }
 
@@ -27,10 +27,13 @@ import com.netflix.hollow.core.read.HollowBlobInput;
 import com.netflix.hollow.core.read.dataaccess.HollowObjectTypeDataAccess;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.read.engine.ParallelDeltaShardMerger;
+import com.netflix.hollow.core.read.engine.PopulatedOrdinalListener;
 import com.netflix.hollow.core.read.engine.SnapshotPopulatedOrdinalsReader;
 import com.netflix.hollow.core.read.filter.HollowFilterConfig;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowSchema;
+import com.netflix.hollow.core.util.SimultaneousExecutor;
 import com.netflix.hollow.tools.checksum.HollowChecksum;
 import java.io.IOException;
 import java.util.BitSet;
@@ -81,20 +84,19 @@ public class HollowObjectTypeReadState extends HollowTypeReadState implements Ho
     }
 
     @Override
-    public void readSnapshot(HollowBlobInput in, ArraySegmentRecycler memoryRecycler) throws IOException {
+    protected void readSnapshotMaxOrdinal(HollowBlobInput in) throws IOException {
         if(shards.length > 1)
             maxOrdinal = VarInt.readVInt(in);
+    }
 
-        for(int i=0;i<shards.length;i++) {
-            HollowObjectTypeDataElements snapshotData = new HollowObjectTypeDataElements(getSchema(), memoryMode, memoryRecycler);
-            snapshotData.readSnapshot(in, unfilteredSchema);
-            shards[i].setCurrentData(snapshotData);
-        }
+    @Override
+    protected void readSnapshotShard(HollowBlobInput in, int shardNumber, ArraySegmentRecycler memoryRecycler) throws IOException {
+        HollowObjectTypeDataElements snapshotData = new HollowObjectTypeDataElements(getSchema(), memoryMode, memoryRecycler);
+        snapshotData.readSnapshot(in, unfilteredSchema);
+        shards[shardNumber].setCurrentData(snapshotData);
 
         if(shards.length == 1)
-            maxOrdinal = shards[0].currentDataElements().maxOrdinal;
-
-        SnapshotPopulatedOrdinalsReader.readOrdinals(in, stateListeners);
+            maxOrdinal = snapshotData.maxOrdinal;
     }
     
     @Override
@@ -102,23 +104,53 @@ public class HollowObjectTypeReadState extends HollowTypeReadState implements Ho
         if(shards.length > 1)
             maxOrdinal = VarInt.readVInt(in);
 
-        for(int i=0;i<shards.length;i++) {
-            HollowObjectTypeDataElements deltaData = new HollowObjectTypeDataElements((HollowObjectSchema)deltaSchema, memoryMode, memoryRecycler);
-            HollowObjectTypeDataElements nextData = new HollowObjectTypeDataElements(getSchema(), memoryMode, memoryRecycler);
-            deltaData.readDelta(in);
-            HollowObjectTypeDataElements oldData = shards[i].currentDataElements();
-            nextData.applyDelta(oldData, deltaData);
-            shards[i].setCurrentData(nextData);
-            notifyListenerAboutDeltaChanges(deltaData.encodedRemovals, deltaData.encodedAdditions, i, shards.length);
-            deltaData.destroy();
-            oldData.destroy();
-            stateEngine.getMemoryRecycler().swap();
+        ParallelDeltaShardMerger shardMerger = new ParallelDeltaShardMerger(shards.length, memoryRecycler);
+        try {
+            for(int i=0;i<shards.length;i++) {
+                HollowObjectTypeDataElements deltaData = new HollowObjectTypeDataElements((HollowObjectSchema)deltaSchema, memoryMode, shardMerger.getMemoryRecycler());
+                HollowObjectTypeDataElements nextData = new HollowObjectTypeDataElements(getSchema(), memoryMode, shardMerger.getMemoryRecycler());
+                deltaData.readDelta(in);
+                shardMerger.merge(new ShardDeltaMerge(i, deltaData, nextData));
+            }
+
+            shardMerger.awaitCompletion();
+        } finally {
+            shardMerger.shutdown();
         }
 
         if(shards.length == 1)
             maxOrdinal = shards[0].currentDataElements().maxOrdinal;
     }
 
+    private class ShardDeltaMerge implements ParallelDeltaShardMerger.ShardMerge {
+        private final int shardNumber;
+        private final HollowObjectTypeDataElements deltaData;
+        private final HollowObjectTypeDataElements nextData;
+
+        ShardDeltaMerge(int shardNumber, HollowObjectTypeDataElements deltaData, HollowObjectTypeDataElements nextData) {
+            this.shardNumber = shardNumber;
+            this.deltaData = deltaData;
+            this.nextData = nextData;
+        }
+
+        @Override
+        public void merge() {
+            /// the previous ordinals are the ordinals populated before this delta, and are not modified while it is applied
+            PopulatedOrdinalListener listener = getListener(PopulatedOrdinalListener.class);
+            BitSet fromOrdinals = listener == null ? null : listener.getPreviousOrdinals();
+            nextData.applyDelta(shards[shardNumber].currentDataElements(), deltaData, fromOrdinals, shardNumber, shards.length);
+        }
+
+        @Override
+        public void complete() {
+            HollowObjectTypeDataElements oldData = shards[shardNumber].currentDataElements();
+            shards[shardNumber].setCurrentData(nextData);
+            notifyListenerAboutDeltaChanges(deltaData.encodedRemovals, deltaData.encodedAdditions, shardNumber, shards.length);
+            deltaData.destroy();
+            oldData.destroy();
+        }
+    }
+
     public static void discardSnapshot(HollowBlobInput in, HollowObjectSchema schema, int numShards) throws IOException {
         discardType(in, schema, numShards, false);
     }
@@ -175,6 +207,13 @@ public class HollowObjectTypeReadState extends HollowTypeReadState implements Ho
         return shards[ordinal & shardNumberMask].readBoolean(ordinal >> shardOrdinalShift, fieldIndex);
     }
 
+    @Override
+    public void readFields(int ordinal, int[] fieldIndexes, long[] values) {
+        for(int i=0;i<fieldIndexes.length;i++)
+            sampler.recordFieldAccess(fieldIndexes[i]);
+        shards[ordinal & shardNumberMask].readFields(ordinal >> shardOrdinalShift, fieldIndexes, values);
+    }
+
     @Override
     public byte[] readBytes(int ordinal, int fieldIndex) {
         sampler.recordFieldAccess(fieldIndex);
@@ -199,6 +238,47 @@ public class HollowObjectTypeReadState extends HollowTypeReadState implements Ho
         return shards[ordinal & shardNumberMask].findVarLengthFieldHashCode(ordinal >> shardOrdinalShift, fieldIndex);
     }
 
+    /**
+     * Find the populated ordinals whose value of a field matches, by scanning the encoded values of the field
+     * directly from the fixed and variable length data of each shard.  The shards of the type are scanned concurrently.
+     *
+     * @param fieldIndex the index of the field
+     * @param matcher matches the encoded values of the field
+     * @return the matching ordinals
+     */
+    public BitSet findMatchingOrdinals(int fieldIndex, EncodedFieldMatcher matcher) {
+        BitSet populatedOrdinals = getPopulatedOrdinals();
+        BitSet matches = new BitSet(populatedOrdinals.length());
+
+        if(shards.length == 1) {
+            matches.or(shards[0].findMatchingOrdinals(fieldIndex, matcher, populatedOrdinals, 0, 1));
+            return matches;
+        }
+
+        BitSet shardMatches[] = new BitSet[shards.length];
+        SimultaneousExecutor executor = new SimultaneousExecutor(
+                Math.min(shards.length, Runtime.getRuntime().availableProcessors()), getClass(), "find-matching-ordinals");
+        for(int i=0;i<shards.length;i++) {
+            final int shardNumber = i;
+            executor.execute(() -> shardMatches[shardNumber] =
+                    shards[shardNumber].findMatchingOrdinals(fieldIndex, matcher, populatedOrdinals, shardNumber, shards.length));
+        }
+
+        try {
+            executor.awaitSuccessfulCompletion();
+        } catch(Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        for(int i=0;i<shards.length;i++) {
+            BitSet shardMatch = shardMatches[i];
+            for(int shardOrdinal = shardMatch.nextSetBit(0); shardOrdinal != -1; shardOrdinal = shardMatch.nextSetBit(shardOrdinal + 1))
+                matches.set((shardOrdinal << shardOrdinalShift) | i);
+        }
+
+        return matches;
+    }
+
     /**
      * Warning:  Not thread-safe.  Should only be called within the update thread.
      * @param fieldName the field name
@@ -24,6 +24,7 @@ import com.netflix.hollow.core.memory.encoding.HashCodes;
 import com.netflix.hollow.core.memory.encoding.VarInt;
 import com.netflix.hollow.core.memory.encoding.ZigZag;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
 import com.netflix.hollow.core.schema.HollowSchema;
 import com.netflix.hollow.core.write.HollowObjectWriteRecord;
 import com.netflix.hollow.tools.checksum.HollowChecksum;
@@ -158,6 +159,65 @@ class HollowObjectTypeReadStateShard {
         return value == 1 ? Boolean.TRUE : Boolean.FALSE;
     }
 
+    /**
+     * Read the values of several fields of a record from a single consistent view of this shard's data, which is
+     * validated once after all of the fields have been read.
+     *
+     * @param ordinal the ordinal of the record within this shard
+     * @param fieldIndexes the indexes of the fields to read
+     * @param values receives the value of each field, encoded as described by
+     * {@link com.netflix.hollow.core.read.dataaccess.HollowObjectTypeDataAccess#readFields(int, int[], long[])}
+     */
+    public void readFields(int ordinal, int[] fieldIndexes, long[] values) {
+        HollowObjectTypeDataElements currentData;
+
+        do {
+            currentData = this.currentDataVolatile;
+            long recordBitOffset = (long)currentData.bitsPerRecord * ordinal;
+
+            for(int i=0;i<fieldIndexes.length;i++) {
+                int fieldIndex = fieldIndexes[i];
+                int numBitsForField = currentData.bitsPerField[fieldIndex];
+                long bitOffset = recordBitOffset + currentData.bitOffsetPerField[fieldIndex];
+                long value;
+                if(numBitsForField <= 56)
+                    value = currentData.fixedLengthData.getElementValue(bitOffset, numBitsForField);
+                else if(numBitsForField < 64)
+                    value = currentData.fixedLengthData.getLargeElementValue(bitOffset, numBitsForField);
+                else
+                    value = currentData.fixedLengthData.getLargeElementValue(bitOffset, 64, -1L);
+
+                values[i] = decodeFieldValue(currentData, ordinal, fieldIndex, bitOffset, value);
+            }
+        } while(readWasUnsafe(currentData));
+    }
+
+    private long decodeFieldValue(HollowObjectTypeDataElements currentData, int ordinal, int fieldIndex, long bitOffset, long value) {
+        switch(schema.getFieldType(fieldIndex)) {
+        case INT:
+            return value == currentData.nullValueForField[fieldIndex] ? Integer.MIN_VALUE : ZigZag.decodeInt((int)value);
+        case LONG:
+            return value == currentData.nullValueForField[fieldIndex] ? Long.MIN_VALUE : ZigZag.decodeLong(value);
+        case REFERENCE:
+            return value == currentData.nullValueForField[fieldIndex] ? ORDINAL_NONE : value;
+        case BOOLEAN:
+            return value == currentData.nullValueForField[fieldIndex] ? -1 : value;
+        case FLOAT:
+            return (int)value == HollowObjectWriteRecord.NULL_FLOAT_BITS ? Float.floatToIntBits(Float.NaN) : (int)value;
+        case DOUBLE:
+            return value == HollowObjectWriteRecord.NULL_DOUBLE_BITS ? Double.doubleToLongBits(Double.NaN) : value;
+        case BYTES:
+        case STRING:
+            int numBitsForField = currentData.bitsPerField[fieldIndex];
+            if((value & (1L << numBitsForField - 1)) != 0)
+                return -1;
+            long startByte = ordinal != 0 ? currentData.fixedLengthData.getElementValue(bitOffset - currentData.bitsPerRecord, numBitsForField) : 0;
+            return value - (startByte & (1L << numBitsForField - 1) - 1);
+        default:
+            throw new IllegalStateException("Unknown field type " + schema.getFieldType(fieldIndex));
+        }
+    }
+
     private long readFixedLengthFieldValue(HollowObjectTypeDataElements currentData, int ordinal, int fieldIndex) {
         long bitOffset = fieldOffset(currentData, ordinal, fieldIndex);
         int numBitsForField = currentData.bitsPerField[fieldIndex];
@@ -295,6 +355,71 @@ class HollowObjectTypeReadStateShard {
         return hashCode;
     }
 
+    /**
+     * Scan the encoded values of a field in ordinal order, without decoding each record.
+     *
+     * @param fieldIndex the index of the field
+     * @param matcher matches the encoded values
+     * @param populatedOrdinals the populated ordinals of the type
+     * @param shardNumber the number of this shard
+     * @param numShards the number of shards of the type
+     * @return the ordinals within this shard of the populated records whose value matches
+     */
+    BitSet findMatchingOrdinals(int fieldIndex, EncodedFieldMatcher matcher, BitSet populatedOrdinals, int shardNumber, int numShards) {
+        FieldType fieldType = schema.getFieldType(fieldIndex);
+        boolean isVarLength = fieldType == FieldType.STRING || fieldType == FieldType.BYTES;
+        boolean matchesNull = matcher.matchesNull();
+
+        HollowObjectTypeDataElements currentData;
+        BitSet matches;
+
+        do {
+            currentData = this.currentDataVolatile;
+            matches = new BitSet(currentData.maxOrdinal + 1);
+
+            int numBitsForField = currentData.bitsPerField[fieldIndex];
+            long nullValue = currentData.nullValueForField[fieldIndex];
+            long nullBit = isVarLength ? 1L << (numBitsForField - 1) : 0;
+            ByteData varLengthData = currentData.varLengthData[fieldIndex];
+
+            long bitOffset = currentData.bitOffsetPerField[fieldIndex];
+            long startByte = 0;
+
+            for(int shardOrdinal=0;shardOrdinal<=currentData.maxOrdinal;shardOrdinal++) {
+                long value = numBitsForField <= 56 ?
+                        currentData.fixedLengthData.getElementValue(bitOffset, numBitsForField)
+                        : currentData.fixedLengthData.getLargeElementValue(bitOffset, numBitsForField);
+                bitOffset += currentData.bitsPerRecord;
+
+                if(isVarLength) {
+                    /// the end offset of a null value is the end offset of the previous value
+                    long endByte = value & (nullBit - 1);
+                    if(populatedOrdinals.get(shardOrdinal * numShards + shardNumber)) {
+                        if((value & nullBit) != 0 ? matchesNull : matcher.matches(varLengthData, startByte, (int)(endByte - startByte)))
+                            matches.set(shardOrdinal);
+                    }
+                    startByte = endByte;
+                } else if(populatedOrdinals.get(shardOrdinal * numShards + shardNumber)) {
+                    if(isNull(fieldType, value, nullValue) ? matchesNull : matcher.matches(value))
+                        matches.set(shardOrdinal);
+                }
+            }
+        } while(readWasUnsafe(currentData));
+
+        return matches;
+    }
+
+    private static boolean isNull(FieldType fieldType, long fixedLengthValue, long nullValue) {
+        switch(fieldType) {
+        case FLOAT:
+            return (int)fixedLengthValue == HollowObjectWriteRecord.NULL_FLOAT_BITS;
+        case DOUBLE:
+            return fixedLengthValue == HollowObjectWriteRecord.NULL_DOUBLE_BITS;
+        default:
+            return fixedLengthValue == nullValue;
+        }
+    }
+
     /**
      * Warning:  Not thread-safe.  Should only be called within the update thread.
      */
@@ -31,6 +31,7 @@ import com.netflix.hollow.core.read.dataaccess.HollowSetTypeDataAccess;
 import com.netflix.hollow.core.read.engine.HollowCollectionTypeReadState;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.read.engine.ParallelDeltaShardMerger;
 import com.netflix.hollow.core.read.engine.PopulatedOrdinalListener;
 import com.netflix.hollow.core.read.engine.SnapshotPopulatedOrdinalsReader;
 import com.netflix.hollow.core.read.filter.HollowFilterConfig;
@@ -81,20 +82,19 @@ public class HollowSetTypeReadState extends HollowCollectionTypeReadState implem
     }
 
     @Override
-    public void readSnapshot(HollowBlobInput in, ArraySegmentRecycler memoryRecycler) throws IOException {
+    protected void readSnapshotMaxOrdinal(HollowBlobInput in) throws IOException {
         if(shards.length > 1)
             maxOrdinal = VarInt.readVInt(in);
-        
-        for(int i=0;i<shards.length;i++) {
-            HollowSetTypeDataElements snapshotData = new HollowSetTypeDataElements(memoryMode, memoryRecycler);
-            snapshotData.readSnapshot(in);
-            shards[i].setCurrentData(snapshotData);
-        }
-        
+    }
+
+    @Override
+    protected void readSnapshotShard(HollowBlobInput in, int shardNumber, ArraySegmentRecycler memoryRecycler) throws IOException {
+        HollowSetTypeDataElements snapshotData = new HollowSetTypeDataElements(memoryMode, memoryRecycler);
+        snapshotData.readSnapshot(in);
+        shards[shardNumber].setCurrentData(snapshotData);
+
         if(shards.length == 1)
-            maxOrdinal = shards[0].currentDataElements().maxOrdinal;
-        
-        SnapshotPopulatedOrdinalsReader.readOrdinals(in, stateListeners);
+            maxOrdinal = snapshotData.maxOrdinal;
     }
 
     @Override
@@ -102,23 +102,50 @@ public class HollowSetTypeReadState extends HollowCollectionTypeReadState implem
         if(shards.length > 1)
             maxOrdinal = VarInt.readVInt(in);
 
-        for(int i=0;i<shards.length;i++) {
-            HollowSetTypeDataElements deltaData = new HollowSetTypeDataElements(memoryMode, memoryRecycler);
-            HollowSetTypeDataElements nextData = new HollowSetTypeDataElements(memoryMode, memoryRecycler);
-            deltaData.readDelta(in);
-            HollowSetTypeDataElements oldData = shards[i].currentDataElements();
-            nextData.applyDelta(oldData, deltaData);
-            shards[i].setCurrentData(nextData);
-            notifyListenerAboutDeltaChanges(deltaData.encodedRemovals, deltaData.encodedAdditions, i, shards.length);
-            deltaData.destroy();
-            oldData.destroy();
-            stateEngine.getMemoryRecycler().swap();
+        ParallelDeltaShardMerger shardMerger = new ParallelDeltaShardMerger(shards.length, memoryRecycler);
+        try {
+            for(int i=0;i<shards.length;i++) {
+                HollowSetTypeDataElements deltaData = new HollowSetTypeDataElements(memoryMode, shardMerger.getMemoryRecycler());
+                HollowSetTypeDataElements nextData = new HollowSetTypeDataElements(memoryMode, shardMerger.getMemoryRecycler());
+                deltaData.readDelta(in);
+                shardMerger.merge(new ShardDeltaMerge(i, deltaData, nextData));
+            }
+
+            shardMerger.awaitCompletion();
+        } finally {
+            shardMerger.shutdown();
         }
 
         if(shards.length == 1)
             maxOrdinal = shards[0].currentDataElements().maxOrdinal;
     }
 
+    private class ShardDeltaMerge implements ParallelDeltaShardMerger.ShardMerge {
+        private final int shardNumber;
+        private final HollowSetTypeDataElements deltaData;
+        private final HollowSetTypeDataElements nextData;
+
+        ShardDeltaMerge(int shardNumber, HollowSetTypeDataElements deltaData, HollowSetTypeDataElements nextData) {
+            this.shardNumber = shardNumber;
+            this.deltaData = deltaData;
+            this.nextData = nextData;
+        }
+
+        @Override
+        public void merge() {
+            nextData.applyDelta(shards[shardNumber].currentDataElements(), deltaData);
+        }
+
+        @Override
+        public void complete() {
+            HollowSetTypeDataElements oldData = shards[shardNumber].currentDataElements();
+            shards[shardNumber].setCurrentData(nextData);
+            notifyListenerAboutDeltaChanges(deltaData.encodedRemovals, deltaData.encodedAdditions, shardNumber, shards.length);
+            deltaData.destroy();
+            oldData.destroy();
+        }
+    }
+
     public static void discardSnapshot(HollowBlobInput in, int numShards) throws IOException {
         discardType(in, numShards, false);
     }
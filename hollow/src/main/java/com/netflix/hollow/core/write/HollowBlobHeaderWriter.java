@@ -48,11 +48,15 @@ public class HollowBlobHeaderWriter {
             schema.writeTo(schemasStream);
         byte[] schemasData = schemasStream.toByteArray();
         
-        VarInt.writeVInt(dos, schemasData.length + 1); // plus one byte for new backwards compatibility envelope.
+        ///forwards compatibility -- new data can be added here, will be skipped by readers which do not expect it.
+        byte[] forwardsCompatibilityData = forwardsCompatibilityData(header);
+
+        VarInt.writeVInt(dos, schemasData.length + VarInt.sizeOfVInt(forwardsCompatibilityData.length) + forwardsCompatibilityData.length);
         dos.write(schemasData);
         
         ///backwards compatibility -- new data can be added here by first indicating number of bytes used, will be skipped by existing readers.
-        VarInt.writeVInt(dos, 0);
+        VarInt.writeVInt(dos, forwardsCompatibilityData.length);
+        dos.write(forwardsCompatibilityData);
 
         /// write the header tags -- intended to include input source data versions
         dos.writeShort(header.getHeaderTags().size());
@@ -62,5 +66,29 @@ public class HollowBlobHeaderWriter {
             dos.writeUTF(headerTag.getValue());
         }
     }
+
+    private byte[] forwardsCompatibilityData(HollowBlobHeader header) throws IOException {
+        if(header.getRecordChecksums().isEmpty() && header.getTypeLengths().isEmpty())
+            return new byte[0];
+
+        ByteArrayOutputStream forwardsCompatibilityStream = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(forwardsCompatibilityStream);
+        VarInt.writeVInt(dos, header.getRecordChecksums().size());
+        for(Map.Entry<String, Long> recordChecksum : header.getRecordChecksums().entrySet()) {
+            dos.writeUTF(recordChecksum.getKey());
+            dos.writeLong(recordChecksum.getValue());
+        }
+
+        /// the type directory follows the record checksums, and is skipped by readers which do not expect it.
+        if(!header.getTypeLengths().isEmpty()) {
+            VarInt.writeVInt(dos, header.getTypeLengths().size());
+            for(Map.Entry<String, Long> typeLength : header.getTypeLengths().entrySet()) {
+                dos.writeUTF(typeLength.getKey());
+                VarInt.writeVLong(dos, typeLength.getValue());
+            }
+        }
+        dos.flush();
+        return forwardsCompatibilityStream.toByteArray();
+    }
     
 }
@@ -20,11 +20,25 @@ import com.netflix.hollow.core.HollowBlobHeader;
 import com.netflix.hollow.core.memory.encoding.VarInt;
 import com.netflix.hollow.core.schema.HollowSchema;
 import com.netflix.hollow.core.util.SimultaneousExecutor;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A {@link HollowBlobWriter} is used to serialize snapshot, delta, and reverse delta blobs based on the data state
@@ -48,11 +62,265 @@ public class HollowBlobWriter {
     public void writeSnapshot(OutputStream os) throws IOException {
         stateEngine.prepareForWrite();
 
+        if(stateEngine.isRecordSnapshotLengths()) {
+            writeSnapshotWithLengths(os);
+            return;
+        }
+
         DataOutputStream dos = new DataOutputStream(os);
         writeHeader(dos, stateEngine.getSchemas(), false);
 
         VarInt.writeVInt(dos, stateEngine.getOrderedTypeStates().size());
 
+        calculateSnapshot();
+
+        for(HollowTypeWriteState typeState : stateEngine.getOrderedTypeStates()) {
+            HollowSchema schema = typeState.getSchema();
+            schema.writeTo(dos);
+
+            writeNumShards(dos, typeState.getNumShards());
+
+            typeState.writeSnapshot(dos);
+        }
+        os.flush();
+    }
+
+    /**
+     * Write the snapshot with the lengths of its types and shards recorded, which are measured by serializing each
+     * shard once to discard its bytes before it is written.  Types which do not support writing their shards
+     * independently are buffered in memory instead.
+     */
+    private void writeSnapshotWithLengths(OutputStream os) throws IOException {
+        calculateSnapshot();
+
+        List<HollowTypeWriteState> orderedTypeStates = stateEngine.getOrderedTypeStates();
+        long[][] shardLengths = new long[orderedTypeStates.size()][];
+        byte[][] wholeTypes = new byte[orderedTypeStates.size()][];
+        Map<String, Long> typeLengths = new LinkedHashMap<String, Long>();
+
+        try {
+            for(int i=0;i<orderedTypeStates.size();i++) {
+                HollowTypeWriteState typeState = orderedTypeStates.get(i);
+                CountingOutputStream counter = new CountingOutputStream();
+                DataOutputStream counterDos = new DataOutputStream(counter);
+                typeState.getSchema().writeTo(counterDos);
+
+                if(!typeState.isSnapshotShardWriteSupported()) {
+                    ByteArrayOutputStream wholeType = new ByteArrayOutputStream();
+                    typeState.writeSnapshot(new DataOutputStream(wholeType));
+                    wholeTypes[i] = wholeType.toByteArray();
+
+                    writeNumShards(counterDos, typeState.getNumShards());
+                    counterDos.write(wholeTypes[i]);
+                } else {
+                    shardLengths[i] = new long[typeState.getNumShards()];
+                    long shardsLength = 0;
+                    for(int j=0;j<shardLengths[i].length;j++) {
+                        CountingOutputStream shardCounter = new CountingOutputStream();
+                        typeState.writeSnapshotShard(new DataOutputStream(shardCounter), j);
+                        shardLengths[i][j] = shardCounter.count;
+                        shardsLength += shardCounter.count;
+                    }
+
+                    writeNumShards(counterDos, shardLengths[i]);
+                    typeState.writeSnapshotMaxOrdinal(counterDos);
+                    typeState.writeSnapshotPopulatedOrdinals(counterDos);
+                    counter.count += shardsLength;
+                }
+
+                counterDos.flush();
+                typeLengths.put(typeState.getSchema().getName(), counter.count);
+            }
+
+            DataOutputStream dos = new DataOutputStream(os);
+            writeHeader(dos, stateEngine.getSchemas(), false, typeLengths);
+
+            VarInt.writeVInt(dos, orderedTypeStates.size());
+
+            for(int i=0;i<orderedTypeStates.size();i++) {
+                HollowTypeWriteState typeState = orderedTypeStates.get(i);
+                typeState.getSchema().writeTo(dos);
+
+                if(wholeTypes[i] != null) {
+                    writeNumShards(dos, typeState.getNumShards());
+                    dos.write(wholeTypes[i]);
+                } else {
+                    writeNumShards(dos, shardLengths[i]);
+                    typeState.writeSnapshotMaxOrdinal(dos);
+                    for(int j=0;j<shardLengths[i].length;j++)
+                        typeState.writeSnapshotShard(dos, j);
+                    typeState.writeSnapshotPopulatedOrdinals(dos);
+                }
+            }
+            os.flush();
+        } finally {
+            for(HollowTypeWriteState typeState : orderedTypeStates)
+                typeState.releaseSnapshot();
+        }
+    }
+
+    /**
+     * Write the current state as a snapshot blob, serializing the shards of all types concurrently.
+     * <p>
+     * Each shard is serialized to its own temporary file in the staging directory, and the files are then
+     * transferred in blob order to the output stream.  The transfer avoids copying through the heap if the output
+     * stream is a {@link FileOutputStream}.
+     * <p>
+     * The written blob is byte-identical to the blob written by {@link #writeSnapshot(OutputStream)}, unless
+     * {@link HollowWriteStateEngine#setRecordSnapshotLengths(boolean)} is enabled, in which case the blob also records
+     * the serialized length of each type and of each of its shards.
+     * <p>
+     * Types whose state does not support writing shards independently (see
+     * {@link HollowTypeWriteState#isSnapshotShardWriteSupported()}) are serialized whole, concurrently with other
+     * types, and the lengths of their shards are not recorded.
+     *
+     * @param os the output stream to write the snapshot blob
+     * @param stagingDir the directory in which to write the serialized shards
+     * @throws IOException if the snapshot blob could not be written
+     */
+    public void writeSnapshot(OutputStream os, Path stagingDir) throws IOException {
+        stateEngine.prepareForWrite();
+
+        calculateSnapshot();
+
+        List<HollowTypeWriteState> orderedTypeStates = stateEngine.getOrderedTypeStates();
+        Path[][] shardFiles = new Path[orderedTypeStates.size()][];
+        SimultaneousExecutor executor = new SimultaneousExecutor(getClass(), "write-snapshot-shards");
+
+        try {
+            for(int i=0;i<orderedTypeStates.size();i++) {
+                final HollowTypeWriteState typeState = orderedTypeStates.get(i);
+
+                if(!typeState.isSnapshotShardWriteSupported()) {
+                    /// a state which only implements writeSnapshot(DataOutputStream) is staged whole in a single file
+                    final Path typeFile = Files.createTempFile(stagingDir, "hollow-snapshot-" + typeState.getSchema().getName() + "-", ".type");
+                    shardFiles[i] = new Path[] { typeFile };
+
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            try (DataOutputStream typeOs = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(typeFile)))) {
+                                typeState.writeSnapshot(typeOs);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    });
+                    continue;
+                }
+
+                shardFiles[i] = new Path[typeState.getNumShards()];
+
+                for(int j=0;j<shardFiles[i].length;j++) {
+                    final int shardNumber = j;
+                    final Path shardFile = Files.createTempFile(stagingDir, "hollow-snapshot-" + typeState.getSchema().getName() + "-" + j + "-", ".shard");
+                    shardFiles[i][j] = shardFile;
+
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            try (DataOutputStream shardOs = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(shardFile)))) {
+                                typeState.writeSnapshotShard(shardOs, shardNumber);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    });
+                }
+            }
+
+            try {
+                executor.awaitSuccessfulCompletion();
+            } catch (Exception e) {
+                throw new IOException("Unable to serialize snapshot shards", e);
+            }
+
+            /// serialize the data of each type which surrounds its shards, so that the length of each type is
+            /// known and may be recorded in the header's type directory before the types are written.
+            byte[][] typeHeaders = new byte[orderedTypeStates.size()][];
+            byte[][] typePopulatedOrdinals = new byte[orderedTypeStates.size()][];
+            Map<String, Long> typeLengths = new LinkedHashMap<String, Long>();
+
+            for(int i=0;i<orderedTypeStates.size();i++) {
+                HollowTypeWriteState typeState = orderedTypeStates.get(i);
+
+                if(!typeState.isSnapshotShardWriteSupported()) {
+                    /// the lengths of the shards of a type staged whole are not known, and are not recorded
+                    ByteArrayOutputStream typeHeader = new ByteArrayOutputStream();
+                    DataOutputStream typeHeaderDos = new DataOutputStream(typeHeader);
+                    typeState.getSchema().writeTo(typeHeaderDos);
+                    writeNumShards(typeHeaderDos, typeState.getNumShards());
+                    typeHeaderDos.flush();
+                    typeHeaders[i] = typeHeader.toByteArray();
+                    typePopulatedOrdinals[i] = new byte[0];
+
+                    if(stateEngine.isRecordSnapshotLengths())
+                        typeLengths.put(typeState.getSchema().getName(), typeHeaders[i].length + Files.size(shardFiles[i][0]));
+                    continue;
+                }
+
+                long[] shardLengths = new long[shardFiles[i].length];
+                long typeLength = 0;
+                for(int j=0;j<shardLengths.length;j++) {
+                    shardLengths[j] = Files.size(shardFiles[i][j]);
+                    typeLength += shardLengths[j];
+                }
+
+                ByteArrayOutputStream typeHeader = new ByteArrayOutputStream();
+                DataOutputStream typeHeaderDos = new DataOutputStream(typeHeader);
+                typeState.getSchema().writeTo(typeHeaderDos);
+                if(stateEngine.isRecordSnapshotLengths())
+                    writeNumShards(typeHeaderDos, shardLengths);
+                else
+                    writeNumShards(typeHeaderDos, shardLengths.length);
+                typeState.writeSnapshotMaxOrdinal(typeHeaderDos);
+                typeHeaderDos.flush();
+                typeHeaders[i] = typeHeader.toByteArray();
+
+                ByteArrayOutputStream populatedOrdinals = new ByteArrayOutputStream();
+                DataOutputStream populatedOrdinalsDos = new DataOutputStream(populatedOrdinals);
+                typeState.writeSnapshotPopulatedOrdinals(populatedOrdinalsDos);
+                populatedOrdinalsDos.flush();
+                typePopulatedOrdinals[i] = populatedOrdinals.toByteArray();
+
+                typeLength += typeHeaders[i].length + typePopulatedOrdinals[i].length;
+                if(stateEngine.isRecordSnapshotLengths())
+                    typeLengths.put(typeState.getSchema().getName(), typeLength);
+            }
+
+            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os));
+            WritableByteChannel channel = os instanceof FileOutputStream ? ((FileOutputStream) os).getChannel() : Channels.newChannel(os);
+
+            writeHeader(dos, stateEngine.getSchemas(), false, typeLengths);
+
+            VarInt.writeVInt(dos, orderedTypeStates.size());
+
+            for(int i=0;i<orderedTypeStates.size();i++) {
+                HollowTypeWriteState typeState = orderedTypeStates.get(i);
+                dos.write(typeHeaders[i]);
+                for(Path shardFile : shardFiles[i]) {
+                    dos.flush();
+                    transferFile(shardFile, channel);
+                }
+                dos.write(typePopulatedOrdinals[i]);
+            }
+            dos.flush();
+        } finally {
+            /// wait for any shards still being serialized if a shard could not be staged, before their data is released
+            executor.awaitUninterruptibly();
+            for(HollowTypeWriteState typeState : orderedTypeStates)
+                typeState.releaseSnapshot();
+
+            for(Path[] typeShardFiles : shardFiles) {
+                if(typeShardFiles != null) {
+                    for(Path shardFile : typeShardFiles) {
+                        if(shardFile != null)
+                            Files.deleteIfExists(shardFile);
+                    }
+                }
+            }
+        }
+    }
+
+    private void calculateSnapshot() {
         SimultaneousExecutor executor = new SimultaneousExecutor(getClass(), "write-snapshot");
 
         for(final HollowTypeWriteState typeState : stateEngine.getOrderedTypeStates()) {
@@ -68,16 +336,16 @@ public class HollowBlobWriter {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+    }
 
-        for(HollowTypeWriteState typeState : stateEngine.getOrderedTypeStates()) {
-            HollowSchema schema = typeState.getSchema();
-            schema.writeTo(dos);
-
-            writeNumShards(dos, typeState.getNumShards());
-
-            typeState.writeSnapshot(dos);
+    private void transferFile(Path file, WritableByteChannel channel) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            long size = fileChannel.size();
+            while(position < size) {
+                position += fileChannel.transferTo(position, size - position, channel);
+            }
         }
-        os.flush();
     }
 
     /**
@@ -210,7 +478,29 @@ public class HollowBlobWriter {
         VarInt.writeVInt(dos, numShards);
     }
 
+    private void writeNumShards(DataOutputStream dos, long[] shardLengths) throws IOException {
+        /// 2.1.0 forwards-compatibility bytes record the serialized length of each shard, following a tag
+        /// which identifies them, which allows readers to populate the shards concurrently.
+        int forwardsCompatibilityBytes = 4 + VarInt.sizeOfVInt(shardLengths.length);
+        for(long shardLength : shardLengths)
+            forwardsCompatibilityBytes += VarInt.sizeOfVLong(shardLength);
+
+        VarInt.writeVInt(dos, VarInt.sizeOfVInt(forwardsCompatibilityBytes) + forwardsCompatibilityBytes + VarInt.sizeOfVInt(shardLengths.length));
+
+        VarInt.writeVInt(dos, forwardsCompatibilityBytes);
+        dos.writeInt(HollowBlobHeader.SHARD_LENGTHS_TAG);
+        VarInt.writeVInt(dos, shardLengths.length);
+        for(long shardLength : shardLengths)
+            VarInt.writeVLong(dos, shardLength);
+
+        VarInt.writeVInt(dos, shardLengths.length);
+    }
+
     private void writeHeader(DataOutputStream os, List<HollowSchema> schemasToInclude, boolean isReverseDelta) throws IOException {
+        writeHeader(os, schemasToInclude, isReverseDelta, Collections.<String, Long>emptyMap());
+    }
+
+    private void writeHeader(DataOutputStream os, List<HollowSchema> schemasToInclude, boolean isReverseDelta, Map<String, Long> typeLengths) throws IOException {
         HollowBlobHeader header = new HollowBlobHeader();
         header.setHeaderTags(stateEngine.getHeaderTags());
         if(isReverseDelta) {
@@ -221,6 +511,29 @@ public class HollowBlobWriter {
             header.setDestinationRandomizedTag(stateEngine.getNextStateRandomizedTag());
         }
         header.setSchemas(schemasToInclude);
+
+        if(stateEngine.isMaintainRecordChecksums()) {
+            Map<String, Long> recordChecksums = new HashMap<String, Long>();
+            for(HollowTypeWriteState typeState : stateEngine.getOrderedTypeStates())
+                recordChecksums.put(typeState.getSchema().getName(), isReverseDelta ? typeState.getPreviousRecordChecksum() : typeState.getRecordChecksum());
+            header.setRecordChecksums(recordChecksums);
+        }
+        header.setTypeLengths(typeLengths);
+
         headerWriter.writeHeader(header, os);
     }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
 }
@@ -34,7 +34,6 @@ public class HollowListTypeWriteState extends HollowTypeWriteState {
     private long totalOfListSizes[];
 
     /// data required for writing snapshot or delta
-    private int maxOrdinal;
     private int maxShardOrdinal[];
     private FixedLengthElementArray listPointerArray[];
     private FixedLengthElementArray elementArray[];
@@ -186,27 +185,18 @@ public class HollowListTypeWriteState extends HollowTypeWriteState {
     }
 
     @Override
-    public void writeSnapshot(DataOutputStream os) throws IOException {
-        /// for unsharded blobs, support pre v2.1.0 clients
-        if(numShards == 1) {
-            writeSnapshotShard(os, 0);
-        } else {
-            /// overall max ordinal
-            VarInt.writeVInt(os, maxOrdinal);
-            
-            for(int i=0;i<numShards;i++) {
-                writeSnapshotShard(os, i);
-            }
-        }
-        
-        /// Populated bits
-        currentCyclePopulated.serializeBitsTo(os);
+    protected boolean isSnapshotShardWriteSupported() {
+        return true;
+    }
 
+    @Override
+    protected void releaseSnapshot() {
         listPointerArray = null;
         elementArray = null;
     }
         
-    private void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
+    @Override
+    protected void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
         /// 1) shard max ordinal
         VarInt.writeVInt(os, maxShardOrdinal[shardNumber]);
 
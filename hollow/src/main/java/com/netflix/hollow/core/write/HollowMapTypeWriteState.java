@@ -37,7 +37,6 @@ public class HollowMapTypeWriteState extends HollowTypeWriteState {
     private long totalOfMapBuckets[];
 
     /// data required for writing snapshot or delta
-    private int maxOrdinal;
     private int maxShardOrdinal[];
     private FixedLengthElementArray mapPointersAndSizesArray[];
     private FixedLengthElementArray entryData[];
@@ -266,27 +265,18 @@ public class HollowMapTypeWriteState extends HollowTypeWriteState {
     }
 
     @Override
-    public void writeSnapshot(DataOutputStream os) throws IOException {
-        /// for unsharded blobs, support pre v2.1.0 clients
-        if(numShards == 1) {
-            writeSnapshotShard(os, 0);
-        } else {
-            /// overall max ordinal
-            VarInt.writeVInt(os, maxOrdinal);
-            
-            for(int i=0;i<numShards;i++) {
-                writeSnapshotShard(os, i);
-            }
-        }
-        
-        /// Populated bits
-        currentCyclePopulated.serializeBitsTo(os);
+    protected boolean isSnapshotShardWriteSupported() {
+        return true;
+    }
 
+    @Override
+    protected void releaseSnapshot() {
         mapPointersAndSizesArray = null;
         entryData = null;
     }
     
-    private void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
+    @Override
+    protected void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
         int bitsPerMapFixedLengthPortion = bitsPerMapSizeValue + bitsPerMapPointer;
         int bitsPerMapEntry = bitsPerKeyElement + bitsPerValueElement;
 
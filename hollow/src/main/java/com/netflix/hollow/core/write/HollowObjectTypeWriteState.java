@@ -33,7 +33,6 @@ public class HollowObjectTypeWriteState extends HollowTypeWriteState {
     private FieldStatistics fieldStats;
 
     /// data required for writing snapshot or delta
-    private int maxOrdinal;
     private int maxShardOrdinal[];
     private FixedLengthElementArray fixedLengthLongArray[];
     private ByteDataArray varLengthByteArrays[][];
@@ -189,28 +188,19 @@ public class HollowObjectTypeWriteState extends HollowTypeWriteState {
     }
     
     @Override
-    public void writeSnapshot(DataOutputStream os) throws IOException {
-        /// for unsharded blobs, support pre v2.1.0 clients
-        if(numShards == 1) {
-            writeSnapshotShard(os, 0);
-        } else {
-            /// overall max ordinal
-            VarInt.writeVInt(os, maxOrdinal);
-            
-            for(int i=0;i<numShards;i++) {
-                writeSnapshotShard(os, i);
-            }
-        }
+    protected boolean isSnapshotShardWriteSupported() {
+        return true;
+    }
 
-        /// Populated bits
-        currentCyclePopulated.serializeBitsTo(os);
-        
+    @Override
+    protected void releaseSnapshot() {
         fixedLengthLongArray = null;
         varLengthByteArrays = null;
         recordBitOffset = null;
     }
 
-    private void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
+    @Override
+    protected void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
         /// 1) shard max ordinal
         VarInt.writeVInt(os, maxShardOrdinal[shardNumber]);
 
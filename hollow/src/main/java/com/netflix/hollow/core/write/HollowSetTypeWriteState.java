@@ -36,7 +36,6 @@ public class HollowSetTypeWriteState extends HollowTypeWriteState {
     private long totalOfSetBuckets[];
 
     /// data required for writing snapshot or delta
-    private int maxOrdinal;
     private int maxShardOrdinal[];
     private FixedLengthElementArray setPointersAndSizesArray[];
     private FixedLengthElementArray elementArray[];
@@ -241,27 +240,18 @@ public class HollowSetTypeWriteState extends HollowTypeWriteState {
     }
 
     @Override
-    public void writeSnapshot(DataOutputStream os) throws IOException {
-        /// for unsharded blobs, support pre v2.1.0 clients
-        if(numShards == 1) {
-            writeSnapshotShard(os, 0);
-        } else {
-            /// overall max ordinal
-            VarInt.writeVInt(os, maxOrdinal);
-            
-            for(int i=0;i<numShards;i++) {
-                writeSnapshotShard(os, i);
-            }
-        }
-        
-        /// Populated bits
-        currentCyclePopulated.serializeBitsTo(os);
+    protected boolean isSnapshotShardWriteSupported() {
+        return true;
+    }
 
+    @Override
+    protected void releaseSnapshot() {
         setPointersAndSizesArray = null;
         elementArray = null;
     }
     
-    private void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
+    @Override
+    protected void writeSnapshotShard(DataOutputStream os, int shardNumber) throws IOException {
         int bitsPerSetFixedLengthPortion = bitsPerSetSizeValue + bitsPerSetPointer;
 
         /// 1) max ordinal
@@ -20,8 +20,10 @@ import static com.netflix.hollow.core.write.HollowHashableWriteRecord.HashBehavi
 import static com.netflix.hollow.core.write.HollowHashableWriteRecord.HashBehavior.UNMIXED_HASHES;
 
 import com.netflix.hollow.core.memory.ByteArrayOrdinalMap;
+import com.netflix.hollow.core.memory.ByteData;
 import com.netflix.hollow.core.memory.ByteDataArray;
 import com.netflix.hollow.core.memory.ThreadSafeBitSet;
+import com.netflix.hollow.core.memory.encoding.VarInt;
 import com.netflix.hollow.core.memory.pool.WastefulRecycler;
 import com.netflix.hollow.core.read.engine.HollowTypeReadState;
 import com.netflix.hollow.core.read.engine.PopulatedOrdinalListener;
@@ -29,6 +31,7 @@ import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowSchema;
 import com.netflix.hollow.core.write.HollowHashableWriteRecord.HashBehavior;
 import com.netflix.hollow.core.write.copy.HollowRecordCopier;
+import com.netflix.hollow.tools.checksum.HollowRecordChecksum;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.BitSet;
@@ -45,6 +48,8 @@ public abstract class HollowTypeWriteState {
     
     protected int numShards;
 
+    protected int maxOrdinal;
+
     protected HollowSchema restoredSchema;
     protected ByteArrayOrdinalMap restoredMap;
     protected HollowTypeReadState restoredReadState;
@@ -52,6 +57,11 @@ public abstract class HollowTypeWriteState {
     protected ThreadSafeBitSet currentCyclePopulated;
     protected ThreadSafeBitSet previousCyclePopulated;
 
+    private long currentCycleChecksum;
+    private long previousCycleChecksum;
+    private boolean currentCycleChecksumCalculated = false;
+    private boolean previousCycleChecksumCalculated = true;
+
     private final ThreadLocal<ByteDataArray> serializedScratchSpace;
 
     protected HollowWriteStateEngine stateEngine;
@@ -139,6 +149,7 @@ public abstract class HollowTypeWriteState {
         if(restoredReadState == null) {
             currentCyclePopulated.clearAll();
             ordinalMap.compact(previousCyclePopulated);
+            currentCycleChecksumCalculated = false;
         } else {
             /// this state engine began the cycle as a restored state engine
             currentCyclePopulated.clearAll();
@@ -259,6 +270,10 @@ public abstract class HollowTypeWriteState {
 
         currentCyclePopulated.clearAll();
 
+        previousCycleChecksum = currentCycleChecksum;
+        previousCycleChecksumCalculated = currentCycleChecksumCalculated;
+        currentCycleChecksumCalculated = false;
+
         restoredMap = null;
         restoredSchema = null;
         restoredReadState = null;
@@ -280,8 +295,70 @@ public abstract class HollowTypeWriteState {
         }
 
         ordinalMap.prepareForWrite();
+        if(stateEngine.isMaintainRecordChecksums())
+            calculateChecksum();
         wroteData = true;
     }
+
+    /**
+     * Calculate the checksum of the records added during this cycle from the checksum of the records in the previous cycle,
+     * by adding the checksums of the records which were added and subtracting the checksums of the records which were removed.
+     */
+    private void calculateChecksum() {
+        HollowRecordChecksum recordChecksum = new HollowRecordChecksum();
+
+        if(!previousCycleChecksumCalculated) {
+            /// the previous cycle was restored, or was never written
+            previousCycleChecksum = sumOfRecordChecksums(recordChecksum, previousCyclePopulated);
+            previousCycleChecksumCalculated = true;
+        }
+
+        currentCycleChecksum = previousCycleChecksum
+                + sumOfRecordChecksums(recordChecksum, currentCyclePopulated.andNot(previousCyclePopulated))
+                - sumOfRecordChecksums(recordChecksum, previousCyclePopulated.andNot(currentCyclePopulated));
+        currentCycleChecksumCalculated = true;
+    }
+
+    private long sumOfRecordChecksums(HollowRecordChecksum recordChecksum, ThreadSafeBitSet ordinals) {
+        ByteData data = ordinalMap.getByteData().getUnderlyingArray();
+        long sum = 0;
+
+        int ordinal = ordinals.nextSetBit(0);
+        while(ordinal != -1) {
+            sum += recordChecksum.checksumSerializedRecord(schema, ordinal, data, ordinalMap.getPointerForData(ordinal));
+            ordinal = ordinals.nextSetBit(ordinal + 1);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Returns an order-independent checksum of the records added to this type during the current cycle.  The checksum is
+     * maintained incrementally from cycle to cycle if {@link HollowWriteStateEngine#setMaintainRecordChecksums(boolean)}
+     * is enabled, and is available once this state has been prepared for writing.
+     * <p>
+     * The same checksum is maintained by a {@link com.netflix.hollow.core.read.engine.HollowReadStateEngine} for
+     * which {@link com.netflix.hollow.core.read.engine.HollowReadStateEngine#setMaintainRecordChecksums(boolean)} is enabled.
+     *
+     * @return the checksum of the records in the current cycle
+     * @throws IllegalStateException if this state has not been prepared for writing during the current cycle
+     * @see HollowRecordChecksum
+     */
+    public long getRecordChecksum() {
+        if(!currentCycleChecksumCalculated)
+            throw new IllegalStateException("The record checksum of type " + schema.getName() + " is not available until the state is prepared for writing");
+        return currentCycleChecksum;
+    }
+
+    /**
+     * @return the order-independent checksum of the records in the previous cycle, which is the destination state of a reverse delta
+     * @throws IllegalStateException if this state has not been prepared for writing during the current cycle
+     */
+    public long getPreviousRecordChecksum() {
+        if(!currentCycleChecksumCalculated)
+            throw new IllegalStateException("The record checksum of type " + schema.getName() + " is not available until the state is prepared for writing");
+        return previousCycleChecksum;
+    }
     
     public boolean hasChangedSinceLastCycle() {
         return !currentCyclePopulated.equals(previousCyclePopulated);
@@ -293,7 +370,65 @@ public abstract class HollowTypeWriteState {
 
     public abstract void calculateSnapshot();
 
-    public abstract void writeSnapshot(DataOutputStream dos) throws IOException;
+    public void writeSnapshot(DataOutputStream dos) throws IOException {
+        writeSnapshotMaxOrdinal(dos);
+
+        for(int i=0;i<numShards;i++) {
+            writeSnapshotShard(dos, i);
+        }
+
+        writeSnapshotPopulatedOrdinals(dos);
+        releaseSnapshot();
+    }
+
+    /**
+     * Write the overall max ordinal which precedes the shards of a sharded snapshot.
+     *
+     * @param dos the output to write to
+     * @throws IOException if the data could not be written
+     */
+    void writeSnapshotMaxOrdinal(DataOutputStream dos) throws IOException {
+        /// for unsharded blobs, support pre v2.1.0 clients
+        if(numShards != 1) {
+            VarInt.writeVInt(dos, maxOrdinal);
+        }
+    }
+
+    /**
+     * Returns whether this state writes its snapshot shard by shard through {@link #writeSnapshotShard(DataOutputStream, int)},
+     * so that its shards may be serialized concurrently.
+     * <p>
+     * Types which only override {@link #writeSnapshot(DataOutputStream)} return false, and are serialized whole.
+     *
+     * @return true if the shards of this type may be written independently
+     */
+    protected boolean isSnapshotShardWriteSupported() {
+        return false;
+    }
+
+    /**
+     * Write a single shard of the calculated snapshot.  Shards are serialized independently of each other, and so
+     * may be written concurrently to separate outputs.
+     * <p>
+     * Must be overridden by states which return true from {@link #isSnapshotShardWriteSupported()}.
+     *
+     * @param dos the output to write to
+     * @param shardNumber the shard to write
+     * @throws IOException if the data could not be written
+     */
+    protected void writeSnapshotShard(DataOutputStream dos, int shardNumber) throws IOException {
+        throw new UnsupportedOperationException("The type " + schema.getName() + " does not support writing snapshot shards independently");
+    }
+
+    void writeSnapshotPopulatedOrdinals(DataOutputStream dos) throws IOException {
+        currentCyclePopulated.serializeBitsTo(dos);
+    }
+
+    /**
+     * Release the data calculated for the snapshot once all shards have been written.  Does nothing by default.
+     */
+    protected void releaseSnapshot() {
+    }
 
     public abstract void calculateDelta();
 
@@ -311,6 +446,7 @@ public abstract class HollowTypeWriteState {
         BitSet populatedOrdinals = listener.getPopulatedOrdinals();
 
         restoredReadState = readState;
+        previousCycleChecksumCalculated = false;
         if(schema instanceof HollowObjectSchema)
             restoredSchema = ((HollowObjectSchema)schema).findCommonSchema((HollowObjectSchema)readState.getSchema());
         else
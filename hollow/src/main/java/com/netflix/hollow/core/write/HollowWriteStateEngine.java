@@ -69,6 +69,8 @@ public class HollowWriteStateEngine implements HollowStateEngine {
     
     //// target a maximum shard size to reduce excess memory pool requirement 
     private long targetMaxTypeShardSize = Long.MAX_VALUE;
+    private boolean maintainRecordChecksums = false;
+    private boolean recordSnapshotLengths = false;
 
     private List<String> restoredStates;
     private boolean preparedForNextCycle = true;
@@ -411,6 +413,47 @@ public class HollowWriteStateEngine implements HollowStateEngine {
     long getTargetMaxTypeShardSize() {
         return targetMaxTypeShardSize;
     }
+
+    /**
+     * Maintain the checksum of the records in each type from cycle to cycle, and publish the checksums in the header
+     * of each blob written, so that the blobs may be verified by a read state engine which maintains record checksums.
+     * <p>
+     * Maintaining the checksums costs a checksum of each record added or removed during a cycle, and a checksum of all
+     * records during the first cycle in which they are maintained.
+     *
+     * @param maintainRecordChecksums whether to maintain record checksums
+     * @see com.netflix.hollow.core.read.engine.HollowReadStateEngine#setMaintainRecordChecksums(boolean)
+     */
+    public void setMaintainRecordChecksums(boolean maintainRecordChecksums) {
+        this.maintainRecordChecksums = maintainRecordChecksums;
+    }
+
+    public boolean isMaintainRecordChecksums() {
+        return maintainRecordChecksums;
+    }
+
+    /**
+     * Experimental: Record the serialized length of each type, and of each of its shards, in snapshot blobs.
+     * <p>
+     * The type lengths are recorded in a directory in the blob header, which allows a reader to skip the types
+     * excluded by its {@link com.netflix.hollow.core.read.filter.TypeFilter} without reading them.  The shard lengths
+     * allow a {@link com.netflix.hollow.core.read.engine.HollowBlobReader} to populate the shards of a type
+     * concurrently.  Readers which predate this skip both.  By default, nothing is recorded, and snapshot blobs are
+     * byte-identical however they are written.
+     * <p>
+     * {@link HollowBlobWriter#writeSnapshot(java.io.OutputStream)} measures the lengths by serializing each shard
+     * twice, whereas {@link HollowBlobWriter#writeSnapshot(java.io.OutputStream, java.nio.file.Path)} measures the
+     * shards it stages.  Both write the same blob.
+     *
+     * @param recordSnapshotLengths whether to record the lengths of types and shards in snapshots
+     */
+    public void setRecordSnapshotLengths(boolean recordSnapshotLengths) {
+        this.recordSnapshotLengths = recordSnapshotLengths;
+    }
+
+    public boolean isRecordSnapshotLengths() {
+        return recordSnapshotLengths;
+    }
     
     private long mintNewRandomizedStateTag() {
         Random rand = new Random();
@@ -0,0 +1,292 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.write.objectmapper;
+
+import com.netflix.hollow.core.memory.HollowUnsafeHandle;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import sun.misc.Unsafe;
+
+/**
+ * Reads (and, for the assigned ordinal, writes) the value of a single field of a POJO on behalf of a
+ * {@link HollowObjectTypeMapper}.
+ * <p>
+ * Primitive values are read with the accessor method corresponding to the field's type, so that they are not boxed.
+ */
+abstract class FieldAccessor {
+
+    abstract boolean getBoolean(Object obj);
+
+    abstract byte getByte(Object obj);
+
+    abstract short getShort(Object obj);
+
+    abstract char getChar(Object obj);
+
+    abstract int getInt(Object obj);
+
+    abstract long getLong(Object obj);
+
+    abstract float getFloat(Object obj);
+
+    abstract double getDouble(Object obj);
+
+    abstract Object getObject(Object obj);
+
+    abstract void setLong(Object obj, long value);
+
+    /**
+     * Fields are accessed with {@code sun.misc.Unsafe} unless MethodHandles are requested, or {@code sun.misc.Unsafe}
+     * is not available.
+     *
+     * @param field the field
+     * @param useMethodHandle whether to access the field through a {@link MethodHandle}
+     * @param writable whether the field may be written with {@link #setLong(Object, long)}
+     * @return an accessor for the field
+     */
+    static FieldAccessor of(Field field, boolean useMethodHandle, boolean writable) {
+        if(useMethodHandle || HollowUnsafeHandle.getUnsafe() == null)
+            return methodHandle(field, writable);
+        return unsafe(field);
+    }
+
+    /**
+     * @param field the field
+     * @return an accessor which reads the field at its offset using {@code sun.misc.Unsafe}
+     */
+    static FieldAccessor unsafe(Field field) {
+        return new UnsafeFieldAccessor(field);
+    }
+
+    /**
+     * The value of a String or boxed primitive is read through its public API rather than its private field,
+     * which is not accessible on JDKs with modules.
+     *
+     * @param field the field
+     * @param writable whether the field may be written with {@link #setLong(Object, long)}
+     * @return an accessor which reads the field through a {@link MethodHandle}, without using {@code sun.misc.Unsafe}
+     */
+    static FieldAccessor methodHandle(Field field, boolean writable) {
+        Class<?> declaringClass = field.getDeclaringClass();
+        Class<?> valueType = field.getType().isPrimitive() ? field.getType() : Object.class;
+        try {
+            MethodHandle getter;
+            MethodHandle setter = null;
+            if(declaringClass == String.class) {
+                getter = MethodHandles.identity(Object.class);
+            } else if(isBoxedPrimitive(declaringClass)) {
+                getter = MethodHandles.publicLookup().findVirtual(declaringClass, field.getType().getName() + "Value",
+                        MethodType.methodType(field.getType()));
+            } else {
+                field.setAccessible(true);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                getter = lookup.unreflectGetter(field);
+                if(writable)
+                    setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, long.class));
+            }
+            return new MethodHandleFieldAccessor(field.toString(), getter.asType(MethodType.methodType(valueType, Object.class)), setter);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Unable to access field " + field, e);
+        }
+    }
+
+    private static boolean isBoxedPrimitive(Class<?> clazz) {
+        return clazz == Boolean.class || clazz == Byte.class || clazz == Short.class || clazz == Character.class
+                || clazz == Integer.class || clazz == Long.class || clazz == Float.class || clazz == Double.class;
+    }
+
+    @SuppressWarnings("restriction")
+    private static final class UnsafeFieldAccessor extends FieldAccessor {
+
+        private static final Unsafe unsafe = HollowUnsafeHandle.getUnsafe();
+
+        private final long fieldOffset;
+
+        private UnsafeFieldAccessor(Field field) {
+            this.fieldOffset = unsafe.objectFieldOffset(field);
+        }
+
+        @Override
+        boolean getBoolean(Object obj) {
+            return unsafe.getBoolean(obj, fieldOffset);
+        }
+
+        @Override
+        byte getByte(Object obj) {
+            return unsafe.getByte(obj, fieldOffset);
+        }
+
+        @Override
+        short getShort(Object obj) {
+            return unsafe.getShort(obj, fieldOffset);
+        }
+
+        @Override
+        char getChar(Object obj) {
+            return unsafe.getChar(obj, fieldOffset);
+        }
+
+        @Override
+        int getInt(Object obj) {
+            return unsafe.getInt(obj, fieldOffset);
+        }
+
+        @Override
+        long getLong(Object obj) {
+            return unsafe.getLong(obj, fieldOffset);
+        }
+
+        @Override
+        float getFloat(Object obj) {
+            return unsafe.getFloat(obj, fieldOffset);
+        }
+
+        @Override
+        double getDouble(Object obj) {
+            return unsafe.getDouble(obj, fieldOffset);
+        }
+
+        @Override
+        Object getObject(Object obj) {
+            return unsafe.getObject(obj, fieldOffset);
+        }
+
+        @Override
+        void setLong(Object obj, long value) {
+            unsafe.putLong(obj, fieldOffset, value);
+        }
+    }
+
+    /**
+     * The getter is adapted to accept any Object and to return either the field's primitive type or Object,
+     * so that it may be invoked exactly, without boxing, from the accessor method corresponding to the field's type.
+     */
+    private static final class MethodHandleFieldAccessor extends FieldAccessor {
+
+        private final String fieldDescription;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private MethodHandleFieldAccessor(String fieldDescription, MethodHandle getter, MethodHandle setter) {
+            this.fieldDescription = fieldDescription;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        boolean getBoolean(Object obj) {
+            try {
+                return (boolean) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        byte getByte(Object obj) {
+            try {
+                return (byte) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        short getShort(Object obj) {
+            try {
+                return (short) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        char getChar(Object obj) {
+            try {
+                return (char) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        int getInt(Object obj) {
+            try {
+                return (int) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        long getLong(Object obj) {
+            try {
+                return (long) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        float getFloat(Object obj) {
+            try {
+                return (float) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        double getDouble(Object obj) {
+            try {
+                return (double) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        Object getObject(Object obj) {
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        @Override
+        void setLong(Object obj, long value) {
+            if(setter == null)
+                throw new IllegalStateException("Field " + fieldDescription + " is not writable");
+            try {
+                setter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw accessFailure(t);
+            }
+        }
+
+        private RuntimeException accessFailure(Throwable t) {
+            if (t instanceof RuntimeException)
+                return (RuntimeException) t;
+            if (t instanceof Error)
+                throw (Error) t;
+            return new IllegalStateException("Unable to access field " + fieldDescription, t);
+        }
+    }
+}
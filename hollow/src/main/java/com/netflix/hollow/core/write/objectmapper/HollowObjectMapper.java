@@ -40,6 +40,7 @@ public class HollowObjectMapper {
 
     private boolean ignoreListOrdering = false;
     private boolean useDefaultHashKeys = true;
+    private boolean useMethodHandleFieldAccess = false;
 
     public HollowObjectMapper(HollowWriteStateEngine stateEngine) {
         this.stateEngine = stateEngine;
@@ -59,6 +60,25 @@ public class HollowObjectMapper {
         this.useDefaultHashKeys = false;
     }
 
+    /**
+     * Read the fields of POJOs through {@link java.lang.invoke.MethodHandle}s rather than {@code sun.misc.Unsafe}.
+     * <p>
+     * Use this on JDKs which restrict access to {@code sun.misc.Unsafe}.  Primitive field values are not boxed in
+     * either mode.  The fields of POJO classes must be accessible to this library, which may require their
+     * packages to be opened to it on JDKs with modules.
+     * <p>
+     * This must be called before the schemas of any types are initialized; types which have already been
+     * initialized continue to read their fields with {@code sun.misc.Unsafe}.  Fields are read through
+     * MethodHandles regardless of this setting if {@code sun.misc.Unsafe} is not available.
+     */
+    public void useMethodHandleFieldAccess() {
+        this.useMethodHandleFieldAccess = true;
+    }
+
+    boolean isUsingMethodHandleFieldAccess() {
+        return useMethodHandleFieldAccess;
+    }
+
     /**
      * Adds the specified POJO to the state engine.
      * <p>
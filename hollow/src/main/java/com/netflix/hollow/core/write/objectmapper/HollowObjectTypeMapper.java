@@ -17,7 +17,6 @@
 package com.netflix.hollow.core.write.objectmapper;
 
 import com.netflix.hollow.core.index.key.PrimaryKey;
-import com.netflix.hollow.core.memory.HollowUnsafeHandle;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
 import com.netflix.hollow.core.write.HollowObjectTypeWriteState;
@@ -33,12 +32,9 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import sun.misc.Unsafe;
 
-@SuppressWarnings("restriction")
 public class HollowObjectTypeMapper extends HollowTypeMapper {
     
-    private static final Unsafe unsafe = HollowUnsafeHandle.getUnsafe();
     private final HollowObjectMapper parentMapper;
 
     private final String typeName;
@@ -47,7 +43,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
     private final HollowObjectTypeWriteState writeState;
 
     private final boolean hasAssignedOrdinalField;
-    private final long assignedOrdinalFieldOffset;
+    private final FieldAccessor assignedOrdinalFieldAccessor;
 
     private final List<MappedField> mappedFields;
     
@@ -60,7 +56,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
         this.mappedFields = new ArrayList<MappedField>();
 
         boolean hasAssignedOrdinalField = false;
-        long assignedOrdinalFieldOffset = -1;
+        FieldAccessor assignedOrdinalFieldAccessor = null;
         if(clazz == String.class) {
             try {
                 mappedFields.add(new MappedField(clazz.getDeclaredField("value")));
@@ -97,8 +93,9 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
                             currentClass == clazz) {
                         // If there is a field of name __assigned_ordinal on clazz
                         if(declaredField.getType() == long.class) {
-                            assignedOrdinalFieldOffset = unsafe.objectFieldOffset(declaredField);
-                            hasAssignedOrdinalField = true;;
+                            assignedOrdinalFieldAccessor = FieldAccessor.of(declaredField,
+                                    parentMapper.isUsingMethodHandleFieldAccess(), true);
+                            hasAssignedOrdinalField = true;
                         }
                     }
                 }
@@ -123,7 +120,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
         HollowObjectTypeWriteState existingWriteState = (HollowObjectTypeWriteState) parentMapper.getStateEngine().getTypeState(typeName);
         this.writeState = existingWriteState != null ? existingWriteState : new HollowObjectTypeWriteState(schema, getNumShards(clazz));
 
-        this.assignedOrdinalFieldOffset = assignedOrdinalFieldOffset;
+        this.assignedOrdinalFieldAccessor = assignedOrdinalFieldAccessor;
         this.hasAssignedOrdinalField = hasAssignedOrdinalField;
     }
 
@@ -151,7 +148,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
     @Override
     public int write(Object obj) {
         if (hasAssignedOrdinalField) {
-            long assignedOrdinal = unsafe.getLong(obj, assignedOrdinalFieldOffset);
+            long assignedOrdinal = assignedOrdinalFieldAccessor.getLong(obj);
             if((assignedOrdinal & ASSIGNED_ORDINAL_CYCLE_MASK) == cycleSpecificAssignedOrdinalBits())
                 return (int)assignedOrdinal & Integer.MAX_VALUE;
         }
@@ -160,7 +157,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
 
         int assignedOrdinal = writeState.add(rec);
         if (hasAssignedOrdinalField) {
-            unsafe.putLong(obj, assignedOrdinalFieldOffset, (long)assignedOrdinal | cycleSpecificAssignedOrdinalBits());
+            assignedOrdinalFieldAccessor.setLong(obj, (long)assignedOrdinal | cycleSpecificAssignedOrdinalBits());
         }
         return assignedOrdinal;
     }
@@ -241,7 +238,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
     private class MappedField {
 
         private final String fieldName;
-        private final long fieldOffset;
+        private final FieldAccessor accessor;
         private final Type type;
         private final MappedFieldType fieldType;
         private final HollowTypeMapper subTypeMapper;
@@ -256,7 +253,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
         
         @SuppressWarnings("deprecation")
         private MappedField(Field f, Set<Type> visitedTypes) {
-            this.fieldOffset = unsafe.objectFieldOffset(f);
+            this.accessor = FieldAccessor.of(f, parentMapper.isUsingMethodHandleFieldAccess(), false);
             this.fieldName = f.getName();
             this.type = f.getGenericType();
             this.typeNameAnnotation = f.getAnnotation(HollowTypeName.class);
@@ -333,7 +330,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
         }
 
         private MappedField(MappedFieldType specialField) {
-            this.fieldOffset = -1;
+            this.accessor = null;
             this.type = null;
             this.typeNameAnnotation = null;
             this.hashKeyAnnotation = null;
@@ -364,90 +361,90 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
             
             switch(fieldType) {
                 case BOOLEAN:
-                    rec.setBoolean(fieldName, unsafe.getBoolean(obj, fieldOffset));
+                    rec.setBoolean(fieldName, accessor.getBoolean(obj));
                     break;
                 case INT:
-                    rec.setInt(fieldName, unsafe.getInt(obj, fieldOffset));
+                    rec.setInt(fieldName, accessor.getInt(obj));
                     break;
                 case SHORT:
-                    rec.setInt(fieldName, unsafe.getShort(obj, fieldOffset));
+                    rec.setInt(fieldName, accessor.getShort(obj));
                     break;
                 case BYTE:
-                    rec.setInt(fieldName, unsafe.getByte(obj, fieldOffset));
+                    rec.setInt(fieldName, accessor.getByte(obj));
                     break;
                 case CHAR:
-                    rec.setInt(fieldName, unsafe.getChar(obj, fieldOffset));
+                    rec.setInt(fieldName, accessor.getChar(obj));
                     break;
                 case LONG:
-                    rec.setLong(fieldName, unsafe.getLong(obj, fieldOffset));
+                    rec.setLong(fieldName, accessor.getLong(obj));
                     break;
                 case DOUBLE:
-                    double d = unsafe.getDouble(obj, fieldOffset);
+                    double d = accessor.getDouble(obj);
                     if(!Double.isNaN(d))
                         rec.setDouble(fieldName, d);
                     break;
                 case FLOAT:
-                    float f = unsafe.getFloat(obj, fieldOffset);
+                    float f = accessor.getFloat(obj);
                     if(!Float.isNaN(f))
                         rec.setFloat(fieldName, f);
                     break;
                 case STRING:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setString(fieldName, getStringFromField(obj, fieldObject));
                     break;
                 case BYTES:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setBytes(fieldName, (byte[])fieldObject);
                     break;
                 case INLINED_BOOLEAN:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setBoolean(fieldName, ((Boolean)fieldObject).booleanValue());
                     break;
                 case INLINED_INT:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setInt(fieldName, ((Integer)fieldObject).intValue());
                     break;
                 case INLINED_SHORT:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setInt(fieldName, ((Short)fieldObject).intValue());
                     break;
                 case INLINED_BYTE:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setInt(fieldName, ((Byte)fieldObject).intValue());
                     break;
                 case INLINED_CHAR:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setInt(fieldName, (int)((Character)fieldObject).charValue());
                     break;
                 case INLINED_LONG:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setLong(fieldName, ((Long)fieldObject).longValue());
                     break;
                 case INLINED_DOUBLE:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setDouble(fieldName, ((Double)fieldObject).doubleValue());
                     break;
                 case INLINED_FLOAT:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setFloat(fieldName, ((Float)fieldObject).floatValue());
                     break;
                 case INLINED_STRING:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setString(fieldName, (String)fieldObject);
                     break;
                 case NULLABLE_PRIMITIVE_BOOLEAN:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null)
                         rec.setBoolean(fieldName, ((NullablePrimitiveBoolean)fieldObject).getBooleanValue());
                     break;
@@ -458,7 +455,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
                     rec.setString(fieldName, ((Enum<?>)obj).name());
                     break;
                 case REFERENCE:
-                    fieldObject = unsafe.getObject(obj, fieldOffset);
+                    fieldObject = accessor.getObject(obj);
                     if(fieldObject != null) {
                     	if(flatRecordWriter == null)
                     		rec.setReference(fieldName, subTypeMapper.write(fieldObject));
@@ -475,7 +472,7 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
             if(idx < fieldPathIdx.length - 1) {
                 if(fieldType != MappedFieldType.REFERENCE)
                     throw new IllegalArgumentException("Expected REFERENCE mapped field type but found " + fieldType);
-                fieldObject = unsafe.getObject(obj, fieldOffset);
+                fieldObject = accessor.getObject(obj);
                 if(fieldObject == null)
                     return null;
                 return ((HollowObjectTypeMapper)subTypeMapper).retrieveFieldValue(fieldObject, fieldPathIdx, idx+1);
@@ -484,32 +481,32 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
 
             switch(fieldType) {
             case BOOLEAN:
-                return unsafe.getBoolean(obj, fieldOffset);
+                return accessor.getBoolean(obj);
             case INT:
-                return Integer.valueOf(unsafe.getInt(obj, fieldOffset));
+                return Integer.valueOf(accessor.getInt(obj));
             case SHORT:
-                return Integer.valueOf(unsafe.getShort(obj, fieldOffset));
+                return Integer.valueOf(accessor.getShort(obj));
             case BYTE:
-                return Integer.valueOf(unsafe.getByte(obj, fieldOffset));
+                return Integer.valueOf(accessor.getByte(obj));
             case CHAR:
-                return Integer.valueOf(unsafe.getChar(obj, fieldOffset));
+                return Integer.valueOf(accessor.getChar(obj));
             case LONG:
-                return Long.valueOf(unsafe.getLong(obj, fieldOffset));
+                return Long.valueOf(accessor.getLong(obj));
             case DOUBLE:
-                double d = unsafe.getDouble(obj, fieldOffset);
+                double d = accessor.getDouble(obj);
                 if(Double.isNaN(d))
                     return null;
                 return Double.valueOf(d);
             case FLOAT:
-                float f = unsafe.getFloat(obj, fieldOffset);
+                float f = accessor.getFloat(obj);
                 if(Float.isNaN(f))
                     return null;
                 return Float.valueOf(f);
             case STRING:
-                fieldObject = unsafe.getObject(obj, fieldOffset);
+                fieldObject = accessor.getObject(obj);
                 return fieldObject == null ? null : getStringFromField(obj, fieldObject);
             case BYTES:
-                fieldObject = unsafe.getObject(obj, fieldOffset);
+                fieldObject = accessor.getObject(obj);
                 return fieldObject == null ? null : (byte[])fieldObject;
             case INLINED_BOOLEAN:
             case INLINED_INT:
@@ -517,18 +514,18 @@ public class HollowObjectTypeMapper extends HollowTypeMapper {
             case INLINED_DOUBLE:
             case INLINED_FLOAT:
             case INLINED_STRING:
-                return unsafe.getObject(obj, fieldOffset);
+                return accessor.getObject(obj);
             case INLINED_SHORT:
-                fieldObject = unsafe.getObject(obj, fieldOffset);
+                fieldObject = accessor.getObject(obj);
                 return fieldObject == null ? null : Integer.valueOf((Short)fieldObject);
             case INLINED_BYTE:
-                fieldObject = unsafe.getObject(obj, fieldOffset);
+                fieldObject = accessor.getObject(obj);
                 return fieldObject == null ? null : Integer.valueOf((Byte)fieldObject);
             case INLINED_CHAR:
-                fieldObject = unsafe.getObject(obj, fieldOffset);
+                fieldObject = accessor.getObject(obj);
                 return fieldObject == null ? null : Integer.valueOf((Character)fieldObject);
             case NULLABLE_PRIMITIVE_BOOLEAN:
-                fieldObject = unsafe.getObject(obj, fieldOffset);
+                fieldObject = accessor.getObject(obj);
                 return fieldObject == null ? null : Boolean.valueOf(((NullablePrimitiveBoolean)fieldObject).getBooleanValue());
             case DATE_TIME:
                 return Long.valueOf(((Date)obj).getTime());
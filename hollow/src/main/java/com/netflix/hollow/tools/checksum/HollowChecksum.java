@@ -16,6 +16,7 @@
  */
 package com.netflix.hollow.tools.checksum;
 
+import com.netflix.hollow.core.HollowDataset;
 import com.netflix.hollow.core.memory.encoding.HashCodes;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.engine.HollowTypeReadState;
@@ -70,13 +71,26 @@ public class HollowChecksum {
     }
     
     public static HollowChecksum forStateEngineWithCommonSchemas(HollowReadStateEngine stateEngine, HollowReadStateEngine commonSchemasWithState) {
+        return forStateEngineWithCommonSchemas(stateEngine, (HollowDataset)commonSchemasWithState);
+    }
+
+    /**
+     * Checksum the data in a state engine which is common with the schemas of a dataset.
+     * <p>
+     * Only the schemas of the dataset are consulted, so the dataset may be just a description of its schemas,
+     * such as a {@link com.netflix.hollow.core.schema.SimpleHollowDataset}.
+     *
+     * @param stateEngine the state engine to checksum
+     * @param commonSchemasWithDataset the dataset whose schemas are common with the checksummed data
+     * @return the checksum
+     */
+    public static HollowChecksum forStateEngineWithCommonSchemas(HollowReadStateEngine stateEngine, HollowDataset commonSchemasWithDataset) {
         final Vector<TypeChecksum> typeChecksums = new Vector<TypeChecksum>();
         SimultaneousExecutor executor = new SimultaneousExecutor(HollowChecksum.class, "checksum-common-schemas");
 
         for(final HollowTypeReadState typeState : stateEngine.getTypeStates()) {
-            HollowTypeReadState commonSchemasWithType = commonSchemasWithState.getTypeState(typeState.getSchema().getName());
-            if(commonSchemasWithType != null) {
-                final HollowSchema commonSchemasWith = commonSchemasWithType.getSchema();
+            final HollowSchema commonSchemasWith = commonSchemasWithDataset.getSchema(typeState.getSchema().getName());
+            if(commonSchemasWith != null) {
                 executor.execute(new Runnable() {
                     public void run() {
                         HollowChecksum cksum = typeState.getChecksum(commonSchemasWith);
@@ -0,0 +1,335 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.checksum;
+
+import com.netflix.hollow.core.memory.ByteData;
+import com.netflix.hollow.core.memory.encoding.VarInt;
+import com.netflix.hollow.core.memory.encoding.ZigZag;
+import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.read.engine.list.HollowListTypeReadState;
+import com.netflix.hollow.core.read.engine.map.HollowMapTypeReadState;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.read.engine.set.HollowSetTypeReadState;
+import com.netflix.hollow.core.read.iterator.HollowMapEntryOrdinalIterator;
+import com.netflix.hollow.core.read.iterator.HollowOrdinalIterator;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowSchema;
+import com.netflix.hollow.core.write.HollowObjectWriteRecord;
+
+/**
+ * Calculates a 64-bit checksum of a single record, identically from either its serialized representation in a
+ * {@link com.netflix.hollow.core.write.HollowWriteStateEngine} or its data in a {@link HollowTypeReadState}.
+ * <p>
+ * The checksum of a type is the sum of the checksums of its populated records.  Because a sum does not depend on
+ * the order in which records are visited, it may be maintained incrementally as records are added and removed, and
+ * the cost of doing so is proportional to the number of changed records rather than the number of records in the type.
+ * <p>
+ * Unlike {@link HollowChecksum}, record checksums do not incorporate the positions of elements in hash tables, which
+ * differ between the serialized and populated representations of sets and maps.
+ */
+public class HollowRecordChecksum {
+
+    private long hash;
+
+    /**
+     * Calculate the checksum of a record in the serialized format of a {@link com.netflix.hollow.core.write.HollowWriteRecord}.
+     *
+     * @param schema the schema of the record
+     * @param ordinal the ordinal of the record
+     * @param data the serialized data
+     * @param pointer the position of the beginning of the record in the serialized data
+     * @return the checksum of the record
+     */
+    public long checksumSerializedRecord(HollowSchema schema, int ordinal, ByteData data, long pointer) {
+        reset();
+
+        switch(schema.getSchemaType()) {
+        case OBJECT:
+            applySerializedObject((HollowObjectSchema)schema, data, pointer);
+            break;
+        case LIST:
+            applySerializedList(data, pointer);
+            break;
+        case SET:
+            applySerializedSet(data, pointer);
+            break;
+        case MAP:
+            applySerializedMap(data, pointer);
+            break;
+        }
+
+        return checksum(ordinal);
+    }
+
+    /**
+     * Calculate the checksum of a record in a type read state.  The record may be a "ghost" record which
+     * was removed during the last delta transition.
+     *
+     * @param typeState the type state
+     * @param ordinal the ordinal of the record
+     * @return the checksum of the record
+     */
+    public long checksumRecord(HollowTypeReadState typeState, int ordinal) {
+        reset();
+
+        if(typeState instanceof HollowObjectTypeReadState)
+            applyObject((HollowObjectTypeReadState)typeState, ordinal);
+        else if(typeState instanceof HollowListTypeReadState)
+            applyList((HollowListTypeReadState)typeState, ordinal);
+        else if(typeState instanceof HollowSetTypeReadState)
+            applySet((HollowSetTypeReadState)typeState, ordinal);
+        else if(typeState instanceof HollowMapTypeReadState)
+            applyMap((HollowMapTypeReadState)typeState, ordinal);
+
+        return checksum(ordinal);
+    }
+
+    private void applySerializedObject(HollowObjectSchema schema, ByteData data, long pointer) {
+        for(int i=0;i<schema.numFields();i++) {
+            switch(schema.getFieldType(i)) {
+            case BOOLEAN:
+                apply(VarInt.readVNull(data, pointer) ? 2 : data.get(pointer));
+                pointer += 1;
+                break;
+            case FLOAT:
+                int intBits = data.readIntBits(pointer);
+                apply(intBits == HollowObjectWriteRecord.NULL_FLOAT_BITS ? Float.floatToIntBits(Float.NaN) : Float.floatToIntBits(Float.intBitsToFloat(intBits)));
+                pointer += 4;
+                break;
+            case DOUBLE:
+                long longBits = data.readLongBits(pointer);
+                apply(longBits == HollowObjectWriteRecord.NULL_DOUBLE_BITS ? Double.doubleToLongBits(Double.NaN) : Double.doubleToLongBits(Double.longBitsToDouble(longBits)));
+                pointer += 8;
+                break;
+            case INT:
+            case LONG:
+            case REFERENCE:
+                if(VarInt.readVNull(data, pointer)) {
+                    apply(nullValue(schema.getFieldType(i)));
+                    pointer += 1;
+                } else {
+                    long vLong = VarInt.readVLong(data, pointer);
+                    if(schema.getFieldType(i) == HollowObjectSchema.FieldType.INT)
+                        apply(ZigZag.decodeInt((int)vLong));
+                    else if(schema.getFieldType(i) == HollowObjectSchema.FieldType.LONG)
+                        apply(ZigZag.decodeLong(vLong));
+                    else
+                        apply(vLong);
+                    pointer += VarInt.sizeOfVLong(vLong);
+                }
+                break;
+            case STRING:
+                if(VarInt.readVNull(data, pointer)) {
+                    apply(-1);
+                    pointer += 1;
+                } else {
+                    int length = VarInt.readVInt(data, pointer);
+                    pointer += VarInt.sizeOfVInt(length);
+                    long endPointer = pointer + length;
+                    int numChars = 0;
+                    while(pointer < endPointer) {
+                        int c = VarInt.readVInt(data, pointer);
+                        apply(c);
+                        pointer += VarInt.sizeOfVInt(c);
+                        numChars++;
+                    }
+                    apply(numChars);
+                }
+                break;
+            case BYTES:
+                if(VarInt.readVNull(data, pointer)) {
+                    apply(-1);
+                    pointer += 1;
+                } else {
+                    int length = VarInt.readVInt(data, pointer);
+                    pointer += VarInt.sizeOfVInt(length);
+                    for(int j=0;j<length;j++)
+                        apply(data.get(pointer++));
+                    apply(length);
+                }
+                break;
+            }
+        }
+    }
+
+    private void applySerializedList(ByteData data, long pointer) {
+        int size = VarInt.readVInt(data, pointer);
+        pointer += VarInt.sizeOfVInt(size);
+        apply(size);
+
+        for(int i=0;i<size;i++) {
+            int elementOrdinal = VarInt.readVInt(data, pointer);
+            pointer += VarInt.sizeOfVInt(elementOrdinal);
+            apply(elementOrdinal);
+        }
+    }
+
+    private void applySerializedSet(ByteData data, long pointer) {
+        int size = VarInt.readVInt(data, pointer);
+        pointer += VarInt.sizeOfVInt(size);
+
+        long elements = 0;
+        int elementOrdinal = 0;
+        for(int i=0;i<size;i++) {
+            int delta = VarInt.readVInt(data, pointer);
+            pointer += VarInt.sizeOfVInt(delta);
+            int bucket = VarInt.readVInt(data, pointer);
+            pointer += VarInt.sizeOfVInt(bucket);
+
+            elementOrdinal += delta;
+            elements += mix(elementOrdinal);
+        }
+
+        apply(size);
+        apply(elements);
+    }
+
+    private void applySerializedMap(ByteData data, long pointer) {
+        int size = VarInt.readVInt(data, pointer);
+        pointer += VarInt.sizeOfVInt(size);
+
+        long entries = 0;
+        int keyOrdinal = 0;
+        for(int i=0;i<size;i++) {
+            int delta = VarInt.readVInt(data, pointer);
+            pointer += VarInt.sizeOfVInt(delta);
+            int valueOrdinal = VarInt.readVInt(data, pointer);
+            pointer += VarInt.sizeOfVInt(valueOrdinal);
+            int bucket = VarInt.readVInt(data, pointer);
+            pointer += VarInt.sizeOfVInt(bucket);
+
+            keyOrdinal += delta;
+            entries += mix(((long)keyOrdinal << 32) | (valueOrdinal & 0xFFFFFFFFL));
+        }
+
+        apply(size);
+        apply(entries);
+    }
+
+    private void applyObject(HollowObjectTypeReadState typeState, int ordinal) {
+        HollowObjectSchema schema = typeState.getSchema();
+
+        for(int i=0;i<schema.numFields();i++) {
+            switch(schema.getFieldType(i)) {
+            case BOOLEAN:
+                Boolean bool = typeState.readBoolean(ordinal, i);
+                apply(bool == null ? 2 : bool.booleanValue() ? 1 : 0);
+                break;
+            case FLOAT:
+                apply(Float.floatToIntBits(typeState.readFloat(ordinal, i)));
+                break;
+            case DOUBLE:
+                apply(Double.doubleToLongBits(typeState.readDouble(ordinal, i)));
+                break;
+            case INT:
+                apply(typeState.readInt(ordinal, i));
+                break;
+            case LONG:
+                apply(typeState.readLong(ordinal, i));
+                break;
+            case REFERENCE:
+                apply(typeState.readOrdinal(ordinal, i));
+                break;
+            case STRING:
+                String str = typeState.readString(ordinal, i);
+                if(str == null) {
+                    apply(-1);
+                } else {
+                    for(int j=0;j<str.length();j++)
+                        apply(str.charAt(j));
+                    apply(str.length());
+                }
+                break;
+            case BYTES:
+                byte[] bytes = typeState.readBytes(ordinal, i);
+                if(bytes == null) {
+                    apply(-1);
+                } else {
+                    for(int j=0;j<bytes.length;j++)
+                        apply(bytes[j]);
+                    apply(bytes.length);
+                }
+                break;
+            }
+        }
+    }
+
+    private void applyList(HollowListTypeReadState typeState, int ordinal) {
+        int size = typeState.size(ordinal);
+        apply(size);
+
+        for(int i=0;i<size;i++)
+            apply(typeState.getElementOrdinal(ordinal, i));
+    }
+
+    private void applySet(HollowSetTypeReadState typeState, int ordinal) {
+        long elements = 0;
+        HollowOrdinalIterator iter = typeState.ordinalIterator(ordinal);
+        int elementOrdinal = iter.next();
+        while(elementOrdinal != HollowOrdinalIterator.NO_MORE_ORDINALS) {
+            elements += mix(elementOrdinal);
+            elementOrdinal = iter.next();
+        }
+
+        apply(typeState.size(ordinal));
+        apply(elements);
+    }
+
+    private void applyMap(HollowMapTypeReadState typeState, int ordinal) {
+        long entries = 0;
+        HollowMapEntryOrdinalIterator iter = typeState.ordinalIterator(ordinal);
+        while(iter.next())
+            entries += mix(((long)iter.getKey() << 32) | (iter.getValue() & 0xFFFFFFFFL));
+
+        apply(typeState.size(ordinal));
+        apply(entries);
+    }
+
+    private static long nullValue(HollowObjectSchema.FieldType fieldType) {
+        switch(fieldType) {
+        case INT:
+            return Integer.MIN_VALUE;
+        case LONG:
+            return Long.MIN_VALUE;
+        default:
+            return -1;
+        }
+    }
+
+    private void reset() {
+        hash = 0x9E3779B97F4A7C15L;
+    }
+
+    private void apply(long value) {
+        hash = Long.rotateLeft(hash ^ mix(value), 27) * 0xC2B2AE3D27D4EB4FL;
+    }
+
+    private long checksum(int ordinal) {
+        return mix(hash ^ ((long)ordinal * 0x165667B19E3779F9L));
+    }
+
+    /// the murmur3 64-bit finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+}
@@ -49,8 +49,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -121,10 +124,14 @@ public class FilteredHollowBlobWriter {
         HollowBlobHeader header = headerReader.readHeader(in);
         
         List<HollowSchema> unfilteredSchemaList = header.getSchemas(); 
+        Map<String, Long> unfilteredRecordChecksums = header.getRecordChecksums();
 
         for(FilteredHollowBlobWriterStreamAndFilter streamAndFilter : allStreamAndFilters) {
             List<HollowSchema> filteredSchemaList = getFilteredSchemaList(unfilteredSchemaList, streamAndFilter.getConfig());
             header.setSchemas(filteredSchemaList);
+            header.setRecordChecksums(getFilteredRecordChecksums(unfilteredRecordChecksums, unfilteredSchemaList, filteredSchemaList));
+            /// the lengths of the filtered types are not known before they are written, so no type directory is written
+            header.setTypeLengths(Collections.<String, Long>emptyMap());
             headerWriter.writeHeader(header, streamAndFilter.getStream());
             VarInt.writeVInt(streamAndFilter.getStream(), filteredSchemaList.size());
         }
@@ -332,6 +339,21 @@ public class FilteredHollowBlobWriter {
         return filteredList;
     }
     
+    /**
+     * Record checksums remain valid only for the types in this blob from which no fields were filtered.
+     */
+    private Map<String, Long> getFilteredRecordChecksums(Map<String, Long> recordChecksums, List<HollowSchema> unfilteredSchemaList, List<HollowSchema> filteredSchemaList) {
+        Map<String, Long> filteredRecordChecksums = new HashMap<String, Long>();
+
+        for(HollowSchema filteredSchema : filteredSchemaList) {
+            Long recordChecksum = recordChecksums.get(filteredSchema.getName());
+            if(recordChecksum != null && unfilteredSchemaList.contains(filteredSchema))
+                filteredRecordChecksums.put(filteredSchema.getName(), recordChecksum);
+        }
+
+        return filteredRecordChecksums;
+    }
+
     private HollowSchema getFilteredSchema(HollowSchema schema, HollowFilterConfig filterConfig) {
         if(filterConfig.doesIncludeType(schema.getName())) {
             if(schema.getSchemaType() == SchemaType.OBJECT)
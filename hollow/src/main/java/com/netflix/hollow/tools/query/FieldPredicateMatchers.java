@@ -0,0 +1,334 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.query;
+
+import com.netflix.hollow.core.memory.ByteData;
+import com.netflix.hollow.core.memory.encoding.VarInt;
+import com.netflix.hollow.core.memory.encoding.ZigZag;
+import com.netflix.hollow.core.read.engine.object.EncodedFieldMatcher;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Compiles a {@link HollowFieldPredicate} to an {@link EncodedFieldMatcher} for a field of a specific type, converting
+ * the predicate's values to the encoded form of the field once, so that each record is matched without decoding it.
+ */
+final class FieldPredicateMatchers {
+
+    private FieldPredicateMatchers() { }
+
+    /**
+     * @param predicate the predicate
+     * @param fieldType the type of the field, other than {@code REFERENCE}
+     * @return the matcher, or null if the predicate cannot match any value of a field of the type
+     */
+    static EncodedFieldMatcher compile(HollowFieldPredicate predicate, FieldType fieldType) {
+        switch(fieldType) {
+        case INT:
+        case LONG:
+        case BOOLEAN:
+            return integralMatcher(predicate, fieldType);
+        case FLOAT:
+        case DOUBLE:
+            return floatingPointMatcher(predicate, fieldType);
+        case STRING:
+        case BYTES:
+            return varLengthMatcher(predicate, fieldType);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * @param referencedOrdinals the ordinals of the referenced records which match
+     * @param matchesNull whether a null reference matches
+     * @return a matcher for a {@code REFERENCE} field
+     */
+    static EncodedFieldMatcher referenceMatcher(BitSet referencedOrdinals, boolean matchesNull) {
+        return new FixedLengthMatcher(matchesNull) {
+            @Override
+            public boolean matches(long encodedValue) {
+                return referencedOrdinals.get((int)encodedValue);
+            }
+        };
+    }
+
+    /**
+     * Convert a value to the type of a field, in the form in which values of the field are read.
+     *
+     * @param value the value
+     * @param fieldType the type of the field
+     * @return the converted value, or null if the value cannot be converted
+     */
+    static Object convert(Object value, FieldType fieldType) {
+        try {
+            switch(fieldType) {
+            case BOOLEAN:
+                if(value instanceof String)
+                    return Boolean.valueOf((String)value);
+                return value instanceof Boolean ? value : null;
+            case INT:
+                Long l = toLong(value);
+                return l != null && l == l.intValue() ? Integer.valueOf(l.intValue()) : null;
+            case LONG:
+                return toLong(value);
+            case FLOAT:
+                if(value instanceof String)
+                    return Float.parseFloat((String)value);
+                return value instanceof Number ? ((Number)value).floatValue() : null;
+            case DOUBLE:
+                if(value instanceof String)
+                    return Double.parseDouble((String)value);
+                return value instanceof Number ? ((Number)value).doubleValue() : null;
+            case STRING:
+                return value instanceof String ? value : null;
+            case BYTES:
+                return value instanceof byte[] ? value : null;
+            default:
+                return null;
+            }
+        } catch(NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long toLong(Object value) {
+        if(value instanceof String)
+            return Long.parseLong((String)value);
+        if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return ((Number)value).longValue();
+        return null;
+    }
+
+    private static EncodedFieldMatcher integralMatcher(HollowFieldPredicate predicate, FieldType fieldType) {
+        switch(predicate.getOperator()) {
+        case EQUAL:
+        case IN:
+            List<Object> values = convertedValues(predicate, fieldType);
+            long sortedValues[] = new long[values.size()];
+            for(int i=0;i<sortedValues.length;i++) {
+                Object value = values.get(i);
+                sortedValues[i] = value instanceof Boolean ? ((Boolean)value ? 1 : 0) : ((Number)value).longValue();
+            }
+            Arrays.sort(sortedValues);
+
+            return new FixedLengthMatcher(predicate.matchesNull()) {
+                @Override
+                public boolean matches(long encodedValue) {
+                    return Arrays.binarySearch(sortedValues, decodeIntegral(encodedValue, fieldType)) >= 0;
+                }
+            };
+        case RANGE:
+            if(fieldType == FieldType.BOOLEAN)
+                return null;
+
+            Object lowerBound = predicate.getValues().get(0);
+            Object upperBound = predicate.getValues().get(1);
+            Long lower = lowerBound == null ? Long.valueOf(Long.MIN_VALUE) : toLongOrNull(lowerBound);
+            Long upper = upperBound == null ? Long.valueOf(Long.MAX_VALUE) : toLongOrNull(upperBound);
+            if(lower == null || upper == null)
+                return null;
+
+            return new FixedLengthMatcher(false) {
+                @Override
+                public boolean matches(long encodedValue) {
+                    long value = decodeIntegral(encodedValue, fieldType);
+                    return value >= lower && value <= upper;
+                }
+            };
+        default:
+            return null;
+        }
+    }
+
+    private static Long toLongOrNull(Object value) {
+        try {
+            return toLong(value);
+        } catch(NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long decodeIntegral(long encodedValue, FieldType fieldType) {
+        switch(fieldType) {
+        case INT:
+            return ZigZag.decodeInt((int)encodedValue);
+        case LONG:
+            return ZigZag.decodeLong(encodedValue);
+        default:
+            return encodedValue;
+        }
+    }
+
+    private static EncodedFieldMatcher floatingPointMatcher(HollowFieldPredicate predicate, FieldType fieldType) {
+        switch(predicate.getOperator()) {
+        case EQUAL:
+        case IN:
+            List<Object> values = convertedValues(predicate, fieldType);
+            double sortedValues[] = new double[values.size()];
+            for(int i=0;i<sortedValues.length;i++)
+                sortedValues[i] = ((Number)values.get(i)).doubleValue();
+            Arrays.sort(sortedValues);
+
+            return new FixedLengthMatcher(predicate.matchesNull()) {
+                @Override
+                public boolean matches(long encodedValue) {
+                    return Arrays.binarySearch(sortedValues, decodeFloatingPoint(encodedValue, fieldType)) >= 0;
+                }
+            };
+        case RANGE:
+            Object lowerBound = predicate.getValues().get(0);
+            Object upperBound = predicate.getValues().get(1);
+            Number lower = lowerBound == null ? null : (Number)convert(lowerBound, fieldType);
+            Number upper = upperBound == null ? null : (Number)convert(upperBound, fieldType);
+            if((lowerBound != null && lower == null) || (upperBound != null && upper == null))
+                return null;
+
+            return new FixedLengthMatcher(false) {
+                @Override
+                public boolean matches(long encodedValue) {
+                    double value = decodeFloatingPoint(encodedValue, fieldType);
+                    return (lower == null || Double.compare(lower.doubleValue(), value) <= 0)
+                            && (upper == null || Double.compare(value, upper.doubleValue()) <= 0);
+                }
+            };
+        default:
+            return null;
+        }
+    }
+
+    private static double decodeFloatingPoint(long encodedValue, FieldType fieldType) {
+        if(fieldType == FieldType.FLOAT)
+            return Float.intBitsToFloat((int)encodedValue);
+        return Double.longBitsToDouble(encodedValue);
+    }
+
+    private static EncodedFieldMatcher varLengthMatcher(HollowFieldPredicate predicate, FieldType fieldType) {
+        switch(predicate.getOperator()) {
+        case EQUAL:
+        case IN:
+            List<Object> values = convertedValues(predicate, fieldType);
+            byte encodedValues[][] = new byte[values.size()][];
+            for(int i=0;i<encodedValues.length;i++)
+                encodedValues[i] = encodeVarLength(values.get(i));
+
+            return new VarLengthMatcher(predicate.matchesNull()) {
+                @Override
+                public boolean matches(ByteData data, long start, int length) {
+                    for(byte[] encodedValue : encodedValues) {
+                        if(encodedValue.length == length && startsWith(data, start, encodedValue))
+                            return true;
+                    }
+                    return false;
+                }
+            };
+        case PREFIX:
+            if(fieldType != FieldType.STRING)
+                return null;
+
+            /// each character is encoded separately, so the encoded prefix is a prefix of the encoded value
+            byte encodedPrefix[] = encodeVarLength(predicate.getValues().get(0));
+
+            return new VarLengthMatcher(false) {
+                @Override
+                public boolean matches(ByteData data, long start, int length) {
+                    return encodedPrefix.length <= length && startsWith(data, start, encodedPrefix);
+                }
+            };
+        default:
+            return null;
+        }
+    }
+
+    private static byte[] encodeVarLength(Object value) {
+        if(value instanceof byte[])
+            return (byte[])value;
+
+        String str = (String)value;
+        int length = 0;
+        for(int i=0;i<str.length();i++)
+            length += VarInt.sizeOfVInt(str.charAt(i));
+
+        byte encoded[] = new byte[length];
+        int pos = 0;
+        for(int i=0;i<str.length();i++)
+            pos = VarInt.writeVInt(encoded, pos, str.charAt(i));
+        return encoded;
+    }
+
+    private static boolean startsWith(ByteData data, long start, byte[] encodedValue) {
+        for(int i=0;i<encodedValue.length;i++) {
+            if(data.get(start + i) != encodedValue[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the non-null values of an {@code EQUAL} or {@code IN} predicate which can be converted to the type of the field
+     */
+    private static List<Object> convertedValues(HollowFieldPredicate predicate, FieldType fieldType) {
+        List<Object> converted = new ArrayList<>();
+        for(Object value : predicate.getValues()) {
+            if(value != null) {
+                Object convertedValue = convert(value, fieldType);
+                if(convertedValue != null)
+                    converted.add(convertedValue);
+            }
+        }
+        return converted;
+    }
+
+    private static abstract class FixedLengthMatcher implements EncodedFieldMatcher {
+        private final boolean matchesNull;
+
+        FixedLengthMatcher(boolean matchesNull) {
+            this.matchesNull = matchesNull;
+        }
+
+        @Override
+        public boolean matchesNull() {
+            return matchesNull;
+        }
+
+        @Override
+        public boolean matches(ByteData data, long start, int length) {
+            throw new IllegalStateException("Not a variable length field");
+        }
+    }
+
+    private static abstract class VarLengthMatcher implements EncodedFieldMatcher {
+        private final boolean matchesNull;
+
+        VarLengthMatcher(boolean matchesNull) {
+            this.matchesNull = matchesNull;
+        }
+
+        @Override
+        public boolean matchesNull() {
+            return matchesNull;
+        }
+
+        @Override
+        public boolean matches(long encodedValue) {
+            throw new IllegalStateException("Not a fixed length field");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.query;
+
+import com.netflix.hollow.core.index.HollowHashIndex;
+import com.netflix.hollow.core.index.HollowHashIndexResult;
+import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
+import com.netflix.hollow.core.index.key.PrimaryKey;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.read.engine.object.EncodedFieldMatcher;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.read.iterator.HollowOrdinalIterator;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+import com.netflix.hollow.core.schema.HollowSchema.SchemaType;
+import com.netflix.hollow.tools.query.HollowFieldPredicate.Operator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A HollowColumnScanQuery finds the records of a dataset whose field matches a {@link HollowFieldPredicate}.
+ * <p>
+ * Rather than reading each record, the predicate is compiled to a matcher of the encoded values of the field, which
+ * scans the field's fixed and variable length data directly.  The shards of a type are scanned concurrently.
+ * <p>
+ * If the field is a reference to a type with a single field (for example, a {@code String} type), the predicate is
+ * applied to the referenced type's field, and the records which reference any matched record are matched.
+ * <p>
+ * An {@code EQUAL} or {@code IN} predicate, which does not match nulls, is answered by a {@link HollowPrimaryKeyIndex}
+ * or {@link HollowHashIndex} of the same state engine, if one has been added to this query which indexes the type's
+ * records by exactly that field.
+ * <p>
+ * Results are returned as BitSets which are set at the positions of the ordinals of the matched records.
+ */
+public class HollowColumnScanQuery {
+
+    private final HollowReadStateEngine readEngine;
+    private final List<HollowPrimaryKeyIndex> primaryKeyIndexes;
+    private final List<HollowHashIndex> hashIndexes;
+
+    public HollowColumnScanQuery(HollowReadStateEngine readEngine) {
+        this.readEngine = readEngine;
+        this.primaryKeyIndexes = new ArrayList<>();
+        this.hashIndexes = new ArrayList<>();
+    }
+
+    /**
+     * Use a primary key index to answer predicates on the single field of its primary key.
+     *
+     * @param index the index, of this query's state engine
+     */
+    public void addIndex(HollowPrimaryKeyIndex index) {
+        primaryKeyIndexes.add(index);
+    }
+
+    /**
+     * Use a hash index, which selects the records of its type (its select field is {@code ""}), to answer predicates
+     * on its single match field.
+     *
+     * @param index the index, of this query's state engine
+     */
+    public void addIndex(HollowHashIndex index) {
+        hashIndexes.add(index);
+    }
+
+    /**
+     * Match the records of any type which include a field matching the predicate.
+     *
+     * @param predicate the predicate
+     * @return the matched records, keyed by type name.  Only types with matched records are included.
+     */
+    public Map<String, BitSet> findMatchingRecords(HollowFieldPredicate predicate) {
+        Map<String, BitSet> matches = new HashMap<>();
+
+        for(HollowTypeReadState typeState : readEngine.getTypeStates()) {
+            if(typeState.getSchema().getSchemaType() == SchemaType.OBJECT) {
+                BitSet typeMatches = findMatches((HollowObjectTypeReadState)typeState, predicate.getFieldName(), predicate);
+                if(typeMatches != null && !typeMatches.isEmpty())
+                    matches.put(typeState.getSchema().getName(), typeMatches);
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Match the records of the specified type whose field matches the predicate.
+     *
+     * @param typeName the type name
+     * @param predicate the predicate
+     * @return the matched records, which is empty if the type does not exist or does not have the field
+     */
+    public BitSet findMatchingRecords(String typeName, HollowFieldPredicate predicate) {
+        HollowTypeReadState typeState = readEngine.getTypeState(typeName);
+        if(typeState == null || typeState.getSchema().getSchemaType() != SchemaType.OBJECT)
+            return new BitSet();
+
+        BitSet matches = findMatches((HollowObjectTypeReadState)typeState, predicate.getFieldName(), predicate);
+        return matches != null ? matches : new BitSet();
+    }
+
+    /**
+     * @return the matched records, or null if the predicate cannot match any records of the type
+     */
+    private BitSet findMatches(HollowObjectTypeReadState typeState, String fieldName, HollowFieldPredicate predicate) {
+        HollowObjectSchema schema = typeState.getSchema();
+        int fieldIdx = schema.getPosition(fieldName);
+        if(fieldIdx == -1)
+            return null;
+
+        BitSet indexedMatches = findMatchesWithIndex(typeState, fieldName, predicate);
+        if(indexedMatches != null)
+            return indexedMatches;
+
+        EncodedFieldMatcher matcher = schema.getFieldType(fieldIdx) == FieldType.REFERENCE
+                ? referenceMatcher(typeState, fieldIdx, predicate)
+                : FieldPredicateMatchers.compile(predicate, schema.getFieldType(fieldIdx));
+        if(matcher == null)
+            return null;
+
+        return typeState.findMatchingOrdinals(fieldIdx, matcher);
+    }
+
+    private EncodedFieldMatcher referenceMatcher(HollowObjectTypeReadState typeState, int fieldIdx, HollowFieldPredicate predicate) {
+        HollowTypeReadState referencedTypeState = typeState.getSchema().getReferencedTypeState(fieldIdx);
+        if(referencedTypeState == null || referencedTypeState.getSchema().getSchemaType() != SchemaType.OBJECT)
+            return null;
+
+        HollowObjectTypeReadState refObjTypeState = (HollowObjectTypeReadState)referencedTypeState;
+        if(refObjTypeState.getSchema().numFields() != 1)
+            return null;
+
+        BitSet referencedMatches = findMatches(refObjTypeState, refObjTypeState.getSchema().getFieldName(0), predicate);
+        if(referencedMatches == null || (referencedMatches.isEmpty() && !predicate.matchesNull()))
+            return null;
+
+        return FieldPredicateMatchers.referenceMatcher(referencedMatches, predicate.matchesNull());
+    }
+
+    /**
+     * @return the matched records, or null if no added index can answer the predicate
+     */
+    private BitSet findMatchesWithIndex(HollowObjectTypeReadState typeState, String fieldName, HollowFieldPredicate predicate) {
+        if((predicate.getOperator() != Operator.EQUAL && predicate.getOperator() != Operator.IN) || predicate.matchesNull())
+            return null;
+
+        for(HollowPrimaryKeyIndex index : primaryKeyIndexes) {
+            PrimaryKey primaryKey = index.getPrimaryKey();
+            if(index.getTypeState() == typeState && primaryKey.numFields() == 1 && primaryKey.getFieldPath(0).equals(fieldName)) {
+                FieldType fieldType = primaryKey.getFieldType(readEngine, 0);
+                BitSet matches = new BitSet();
+                for(Object value : predicate.getValues()) {
+                    Object key = FieldPredicateMatchers.convert(value, fieldType);
+                    int ordinal = key == null ? -1 : index.getMatchingOrdinal(key);
+                    if(ordinal != -1)
+                        matches.set(ordinal);
+                }
+                return retainPopulated(typeState, matches);
+            }
+        }
+
+        HollowObjectSchema schema = typeState.getSchema();
+        FieldType fieldType = schema.getFieldType(fieldName);
+        if(fieldType == FieldType.REFERENCE)
+            return null;
+
+        for(HollowHashIndex index : hashIndexes) {
+            if(index.getStateEngine() == readEngine && index.getType().equals(schema.getName())
+                    && "".equals(index.getSelectField())
+                    && index.getMatchFields().length == 1 && index.getMatchFields()[0].equals(fieldName)) {
+                BitSet matches = new BitSet();
+                for(Object value : predicate.getValues()) {
+                    Object key = FieldPredicateMatchers.convert(value, fieldType);
+                    HollowHashIndexResult result = key == null ? null : index.findMatches(key);
+                    if(result != null) {
+                        HollowOrdinalIterator iter = result.iterator();
+                        for(int ordinal = iter.next(); ordinal != HollowOrdinalIterator.NO_MORE_ORDINALS; ordinal = iter.next())
+                            matches.set(ordinal);
+                    }
+                }
+                return retainPopulated(typeState, matches);
+            }
+        }
+
+        return null;
+    }
+
+    private static BitSet retainPopulated(HollowObjectTypeReadState typeState, BitSet matches) {
+        matches.and(typeState.getPopulatedOrdinals());
+        return matches;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A predicate on the value of a named field, which is evaluated by a {@link HollowColumnScanQuery}.
+ * <p>
+ * Values are converted to the type of the field to which the predicate is applied.  Strings are parsed as the
+ * type of the field, and numbers are converted to {@code FLOAT} and {@code DOUBLE} fields, and, if they are
+ * integral and in range, to {@code INT} and {@code LONG} fields.  A value which cannot be converted matches no
+ * records of that field.
+ */
+public final class HollowFieldPredicate {
+
+    enum Operator {
+        EQUAL,
+        IN,
+        RANGE,
+        PREFIX
+    }
+
+    private final String fieldName;
+    private final Operator operator;
+    private final List<Object> values;
+
+    private HollowFieldPredicate(String fieldName, Operator operator, List<Object> values) {
+        if(fieldName == null)
+            throw new IllegalArgumentException("fieldName must not be null");
+
+        this.fieldName = fieldName;
+        this.operator = operator;
+        this.values = values;
+    }
+
+    /**
+     * Match records whose field is equal to a value.
+     *
+     * @param fieldName the field name
+     * @param value the value, or null to match records for which the field is null
+     * @return the predicate
+     */
+    public static HollowFieldPredicate equalTo(String fieldName, Object value) {
+        return new HollowFieldPredicate(fieldName, Operator.EQUAL, Collections.singletonList(value));
+    }
+
+    /**
+     * Match records whose field is equal to any of several values.
+     *
+     * @param fieldName the field name
+     * @param values the values, which may include null to match records for which the field is null
+     * @return the predicate
+     */
+    public static HollowFieldPredicate in(String fieldName, Object... values) {
+        return in(fieldName, Arrays.asList(values));
+    }
+
+    /**
+     * Match records whose field is equal to any of several values.
+     *
+     * @param fieldName the field name
+     * @param values the values, which may include null to match records for which the field is null
+     * @return the predicate
+     */
+    public static HollowFieldPredicate in(String fieldName, Collection<?> values) {
+        return new HollowFieldPredicate(fieldName, Operator.IN, Collections.unmodifiableList(new ArrayList<Object>(values)));
+    }
+
+    /**
+     * Match records whose {@code INT}, {@code LONG}, {@code FLOAT} or {@code DOUBLE} field is within a range.  Records
+     * for which the field is null are not matched.
+     *
+     * @param fieldName the field name
+     * @param lowerBound the inclusive lower bound, or null if the range has no lower bound
+     * @param upperBound the inclusive upper bound, or null if the range has no upper bound
+     * @return the predicate
+     */
+    public static HollowFieldPredicate between(String fieldName, Object lowerBound, Object upperBound) {
+        return new HollowFieldPredicate(fieldName, Operator.RANGE, Arrays.asList(lowerBound, upperBound));
+    }
+
+    /**
+     * Match records whose {@code STRING} field starts with a prefix.  Records for which the field is null are not matched.
+     *
+     * @param fieldName the field name
+     * @param prefix the prefix
+     * @return the predicate
+     */
+    public static HollowFieldPredicate startsWith(String fieldName, String prefix) {
+        if(prefix == null)
+            throw new IllegalArgumentException("prefix must not be null");
+        return new HollowFieldPredicate(fieldName, Operator.PREFIX, Collections.<Object>singletonList(prefix));
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    Operator getOperator() {
+        return operator;
+    }
+
+    List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * @return whether this predicate matches records for which the field is null
+     */
+    boolean matchesNull() {
+        return (operator == Operator.EQUAL || operator == Operator.IN) && values.contains(null);
+    }
+
+    @Override
+    public String toString() {
+        return fieldName + " " + operator + " " + values;
+    }
+}
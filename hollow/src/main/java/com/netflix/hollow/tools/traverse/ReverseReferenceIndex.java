@@ -0,0 +1,538 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.traverse;
+
+import com.netflix.hollow.core.read.engine.HollowCollectionTypeReadState;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.HollowTypeReadState;
+import com.netflix.hollow.core.read.engine.HollowTypeStateListener;
+import com.netflix.hollow.core.read.engine.map.HollowMapTypeReadState;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.read.iterator.HollowMapEntryOrdinalIterator;
+import com.netflix.hollow.core.read.iterator.HollowOrdinalIterator;
+import com.netflix.hollow.core.schema.HollowCollectionSchema;
+import com.netflix.hollow.core.schema.HollowMapSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+import com.netflix.hollow.core.schema.HollowSchema;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the records which reference each record in a {@link HollowReadStateEngine}.
+ * <p>
+ * Each reference from a populated record is held as one entry for the referenced record, so a record which
+ * references another record twice, such as a LIST containing the same element twice, is listed twice as a referencer.
+ * <p>
+ * The referencers are held separately for each pair of referenced and referencing type, in a compressed sparse row
+ * layout: an array of offsets, indexed by referenced ordinal, into a flat array of referencing ordinals.  The index may
+ * be restricted to the records of given types and of the types they transitively reference, which are the only types
+ * whose referencers are visited when computing the closure of the records of the given types.
+ * <p>
+ * If {@link #listenForDeltaUpdates()} is called, the index is updated with the records added and removed by each delta
+ * applied to the state engine.  The references added and removed are held in sorted arrays alongside the flat arrays,
+ * in time proportional to the number of records added and removed, and are merged into the flat arrays once they
+ * amount to a fraction of them.
+ */
+public class ReverseReferenceIndex {
+
+    private final HollowReadStateEngine stateEngine;
+    private final List<String> referencerTypes;
+    private final Map<String, Referencers[]> referencersByType;
+    private final List<Map<String, Referencers>> referencersByReferencerType;
+    private final List<DeltaListener> deltaListeners;
+
+    /**
+     * Index the referencers of the records of all types.
+     *
+     * @param stateEngine the state engine
+     */
+    public ReverseReferenceIndex(HollowReadStateEngine stateEngine) {
+        this(stateEngine, typeNames(stateEngine));
+    }
+
+    /**
+     * Index the referencers of the records of the given types, and of the types they transitively reference.
+     *
+     * @param stateEngine the state engine
+     * @param types the types
+     */
+    public ReverseReferenceIndex(HollowReadStateEngine stateEngine, Collection<String> types) {
+        this.stateEngine = stateEngine;
+        this.referencerTypes = new ArrayList<>();
+        this.referencersByType = new HashMap<>();
+        this.referencersByReferencerType = new ArrayList<>();
+        this.deltaListeners = new ArrayList<>();
+
+        Set<String> indexedTypes = reachableTypes(stateEngine, types);
+
+        for(HollowTypeReadState typeState : stateEngine.getTypeStates()) {
+            Map<String, Referencers> referencers = new LinkedHashMap<>();
+            for(String referencedType : referencedTypes(typeState.getSchema())) {
+                if(indexedTypes.contains(referencedType))
+                    referencers.put(referencedType, new Referencers(referencerTypes.size()));
+            }
+            if(referencers.isEmpty())
+                continue;
+
+            referencerTypes.add(typeState.getSchema().getName());
+            referencersByReferencerType.add(referencers);
+
+            BitSet populatedOrdinals = typeState.getPopulatedOrdinals();
+            int ordinal = populatedOrdinals.nextSetBit(0);
+            while(ordinal != -1) {
+                collectReferences(typeState, ordinal, referencers, true);
+                ordinal = populatedOrdinals.nextSetBit(ordinal + 1);
+            }
+
+            for(Map.Entry<String, Referencers> entry : referencers.entrySet()) {
+                entry.getValue().build(maxOrdinal(entry.getKey()));
+
+                Referencers[] typeReferencers = referencersByType.get(entry.getKey());
+                typeReferencers = typeReferencers == null ? new Referencers[1] : Arrays.copyOf(typeReferencers, typeReferencers.length + 1);
+                typeReferencers[typeReferencers.length - 1] = entry.getValue();
+                referencersByType.put(entry.getKey(), typeReferencers);
+            }
+        }
+    }
+
+    /**
+     * @param stateEngine the state engine
+     * @param types the types
+     * @return the given types and the types they transitively reference, which are present in the state engine
+     */
+    public static Set<String> reachableTypes(HollowReadStateEngine stateEngine, Collection<String> types) {
+        Set<String> reachable = new LinkedHashSet<>();
+        Deque<String> toVisit = new ArrayDeque<>(types);
+        while(!toVisit.isEmpty()) {
+            String type = toVisit.removeFirst();
+            HollowSchema schema = stateEngine.getSchema(type);
+            if(schema != null && reachable.add(type))
+                toVisit.addAll(referencedTypes(schema));
+        }
+        return reachable;
+    }
+
+    /**
+     * Visit the records which reference a record.
+     *
+     * @param type the type of the referenced record
+     * @param ordinal the ordinal of the referenced record
+     * @param visitor the visitor of each referencing record
+     * @return false if the visitor stopped the visit, otherwise true
+     */
+    public boolean visitReferencers(String type, int ordinal, ReferencerVisitor visitor) {
+        Referencers[] typeReferencers = referencersByType.get(type);
+        if(typeReferencers == null)
+            return true;
+
+        for(Referencers referencers : typeReferencers) {
+            if(!referencers.visit(ordinal, referencerTypes.get(referencers.referencerTypeId), visitor))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param type the type of the referenced record
+     * @param ordinal the ordinal of the referenced record
+     * @return the number of references to the record
+     */
+    public int numReferencers(String type, int ordinal) {
+        Referencers[] typeReferencers = referencersByType.get(type);
+        if(typeReferencers == null)
+            return 0;
+
+        int numReferencers = 0;
+        for(Referencers referencers : typeReferencers)
+            numReferencers += referencers.count(ordinal);
+        return numReferencers;
+    }
+
+    /**
+     * Keep this index up-to-date as deltas are applied to the state engine.
+     */
+    public void listenForDeltaUpdates() {
+        if(!deltaListeners.isEmpty())
+            return;
+
+        for(int i=0;i<referencerTypes.size();i++) {
+            HollowTypeReadState typeState = stateEngine.getTypeState(referencerTypes.get(i));
+            DeltaListener listener = new DeltaListener(typeState, referencersByReferencerType.get(i));
+            typeState.addListener(listener);
+            deltaListeners.add(listener);
+        }
+    }
+
+    /**
+     * Stop keeping this index up-to-date as deltas are applied to the state engine.
+     */
+    public void detachFromDeltaUpdates() {
+        for(DeltaListener listener : deltaListeners)
+            listener.typeState.removeListener(listener);
+        deltaListeners.clear();
+    }
+
+    private int maxOrdinal(String type) {
+        HollowTypeReadState typeState = stateEngine.getTypeState(type);
+        return typeState == null ? -1 : typeState.maxOrdinal();
+    }
+
+    private static List<String> typeNames(HollowReadStateEngine stateEngine) {
+        List<String> typeNames = new ArrayList<>();
+        for(HollowTypeReadState typeState : stateEngine.getTypeStates())
+            typeNames.add(typeState.getSchema().getName());
+        return typeNames;
+    }
+
+    private static Set<String> referencedTypes(HollowSchema schema) {
+        Set<String> referencedTypes = new LinkedHashSet<>();
+        switch(schema.getSchemaType()) {
+        case OBJECT:
+            HollowObjectSchema objectSchema = (HollowObjectSchema) schema;
+            for(int i=0;i<objectSchema.numFields();i++) {
+                if(objectSchema.getFieldType(i) == FieldType.REFERENCE)
+                    referencedTypes.add(objectSchema.getReferencedType(i));
+            }
+            break;
+        case LIST:
+        case SET:
+            referencedTypes.add(((HollowCollectionSchema) schema).getElementType());
+            break;
+        case MAP:
+            referencedTypes.add(((HollowMapSchema) schema).getKeyType());
+            referencedTypes.add(((HollowMapSchema) schema).getValueType());
+            break;
+        }
+        return referencedTypes;
+    }
+
+    private static void collectReferences(HollowTypeReadState typeState, int ordinal, Map<String, Referencers> referencers, boolean add) {
+        switch(typeState.getSchema().getSchemaType()) {
+        case OBJECT:
+            HollowObjectTypeReadState objectTypeState = (HollowObjectTypeReadState) typeState;
+            HollowObjectSchema objectSchema = objectTypeState.getSchema();
+            for(int i=0;i<objectSchema.numFields();i++) {
+                if(objectSchema.getFieldType(i) == FieldType.REFERENCE) {
+                    int refOrdinal = objectTypeState.readOrdinal(ordinal, i);
+                    if(refOrdinal != -1)
+                        collectReference(referencers.get(objectSchema.getReferencedType(i)), refOrdinal, ordinal, add);
+                }
+            }
+            break;
+        case LIST:
+        case SET:
+            HollowCollectionTypeReadState collectionTypeState = (HollowCollectionTypeReadState) typeState;
+            Referencers elementReferencers = referencers.get(collectionTypeState.getSchema().getElementType());
+            HollowOrdinalIterator iter = collectionTypeState.ordinalIterator(ordinal);
+            int elementOrdinal = iter.next();
+            while(elementOrdinal != HollowOrdinalIterator.NO_MORE_ORDINALS) {
+                collectReference(elementReferencers, elementOrdinal, ordinal, add);
+                elementOrdinal = iter.next();
+            }
+            break;
+        case MAP:
+            HollowMapTypeReadState mapTypeState = (HollowMapTypeReadState) typeState;
+            HollowMapSchema mapSchema = mapTypeState.getSchema();
+            Referencers keyReferencers = referencers.get(mapSchema.getKeyType());
+            Referencers valueReferencers = referencers.get(mapSchema.getValueType());
+            HollowMapEntryOrdinalIterator entryIter = mapTypeState.ordinalIterator(ordinal);
+            while(entryIter.next()) {
+                collectReference(keyReferencers, entryIter.getKey(), ordinal, add);
+                collectReference(valueReferencers, entryIter.getValue(), ordinal, add);
+            }
+            break;
+        }
+    }
+
+    private static void collectReference(Referencers referencers, int referencedOrdinal, int referencerOrdinal, boolean add) {
+        if(referencers == null)
+            return;
+        long reference = ((long)referencedOrdinal << 32) | referencerOrdinal;
+        if(add)
+            referencers.collected.add(reference);
+        else
+            referencers.collectedRemovals.add(reference);
+    }
+
+    /**
+     * The referencers of each ordinal of a referenced type from a single referencing type.
+     * <p>
+     * The referencing ordinals of referenced ordinal {@code r} are {@code ordinals[offsets[r]]} up to
+     * {@code ordinals[offsets[r + 1]]}, in ascending order.  References added and removed since the flat arrays were
+     * built are held in sorted arrays, each encoded as the referenced ordinal in the upper 32 bits and the referencing
+     * ordinal in the lower 32 bits.  A removed reference is always one held in the flat arrays.
+     */
+    private static class Referencers {
+        private static final int[] EMPTY = new int[0];
+
+        private final int referencerTypeId;
+        private final LongList collected = new LongList();
+        private final LongList collectedRemovals = new LongList();
+
+        private int[] offsets = new int[] { 0 };
+        private int[] ordinals = EMPTY;
+        private LongList added = new LongList();
+        private LongList removed = new LongList();
+
+        Referencers(int referencerTypeId) {
+            this.referencerTypeId = referencerTypeId;
+        }
+
+        /**
+         * Build the flat arrays from the collected references, which were collected in ascending referencing order.
+         */
+        void build(int maxReferencedOrdinal) {
+            int numReferenced = maxReferencedOrdinal + 1;
+            for(int i=0;i<collected.size;i++)
+                numReferenced = Math.max(numReferenced, (int)(collected.values[i] >>> 32) + 1);
+
+            int[] offsets = new int[numReferenced + 1];
+            for(int i=0;i<collected.size;i++)
+                offsets[(int)(collected.values[i] >>> 32) + 1]++;
+            for(int i=0;i<numReferenced;i++)
+                offsets[i + 1] += offsets[i];
+
+            int[] ordinals = new int[collected.size];
+            int[] next = Arrays.copyOf(offsets, numReferenced);
+            for(int i=0;i<collected.size;i++) {
+                long reference = collected.values[i];
+                ordinals[next[(int)(reference >>> 32)]++] = (int)reference;
+            }
+
+            this.offsets = offsets;
+            this.ordinals = ordinals;
+            this.added = new LongList();
+            this.removed = new LongList();
+            collected.clear();
+        }
+
+        /**
+         * Apply the references collected for the records added and removed by a delta.
+         */
+        void applyDelta(int maxReferencedOrdinal) {
+            collected.sort();
+            collectedRemovals.sort();
+
+            /// a removed reference is either one added since the flat arrays were built, or one held in them
+            LongList remainingRemovals = new LongList();
+            added = LongList.difference(added, collectedRemovals, remainingRemovals);
+            removed = LongList.union(removed, remainingRemovals);
+            added = LongList.union(added, collected);
+            collected.clear();
+            collectedRemovals.clear();
+
+            if(added.size + removed.size > ordinals.length / 8 + 64)
+                compact(maxReferencedOrdinal);
+        }
+
+        private void compact(int maxReferencedOrdinal) {
+            int numReferenced = offsets.length - 1;
+            int removedIdx = 0;
+            int addedIdx = 0;
+            for(int r=0;r<numReferenced || addedIdx < added.size;r++) {
+                long rangeStart = (long)r << 32;
+                int start = r < numReferenced ? offsets[r] : 0;
+                int end = r < numReferenced ? offsets[r + 1] : 0;
+
+                /// merge the remaining references of the flat arrays with the added references, in referencing order
+                for(int i=start;i<end;i++) {
+                    long reference = rangeStart | ordinals[i];
+                    if(removedIdx < removed.size && removed.values[removedIdx] == reference) {
+                        removedIdx++;
+                        continue;
+                    }
+                    while(addedIdx < added.size && added.values[addedIdx] < reference)
+                        collected.add(added.values[addedIdx++]);
+                    collected.add(reference);
+                }
+                while(addedIdx < added.size && (added.values[addedIdx] >>> 32) == r)
+                    collected.add(added.values[addedIdx++]);
+            }
+            build(maxReferencedOrdinal);
+        }
+
+        boolean visit(int ordinal, String referencerType, ReferencerVisitor visitor) {
+            long rangeStart = (long)ordinal << 32;
+
+            if(ordinal < offsets.length - 1) {
+                int removedIdx = removed.lowerBound(rangeStart);
+                for(int i=offsets[ordinal];i<offsets[ordinal + 1];i++) {
+                    if(removedIdx < removed.size && removed.values[removedIdx] == (rangeStart | ordinals[i])) {
+                        removedIdx++;
+                        continue;
+                    }
+                    if(!visitor.visitReferencer(referencerType, ordinals[i]))
+                        return false;
+                }
+            }
+
+            for(int i=added.lowerBound(rangeStart);i<added.size && (added.values[i] >>> 32) == ordinal;i++) {
+                if(!visitor.visitReferencer(referencerType, (int)added.values[i]))
+                    return false;
+            }
+            return true;
+        }
+
+        int count(int ordinal) {
+            long rangeStart = (long)ordinal << 32;
+            long rangeEnd = (long)(ordinal + 1) << 32;
+            int count = ordinal < offsets.length - 1 ? offsets[ordinal + 1] - offsets[ordinal] : 0;
+            count -= removed.lowerBound(rangeEnd) - removed.lowerBound(rangeStart);
+            count += added.lowerBound(rangeEnd) - added.lowerBound(rangeStart);
+            return count;
+        }
+    }
+
+    /**
+     * A growable array of encoded references.
+     */
+    private static class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if(size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        void clear() {
+            if(values.length > 4096)
+                values = new long[4];
+            size = 0;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        /**
+         * @return the index of the first value not less than the given value, if sorted
+         */
+        int lowerBound(long value) {
+            int low = 0;
+            int high = size;
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                if(values[mid] < value)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * @return the sorted values of both sorted lists
+         */
+        static LongList union(LongList a, LongList b) {
+            LongList union = new LongList();
+            int i = 0;
+            int j = 0;
+            while(i < a.size || j < b.size) {
+                if(j == b.size || (i < a.size && a.values[i] <= b.values[j]))
+                    union.add(a.values[i++]);
+                else
+                    union.add(b.values[j++]);
+            }
+            return union;
+        }
+
+        /**
+         * @param remaining receives the values of the sorted list b which were not in the sorted list a
+         * @return the values of the sorted list a which were not in the sorted list b
+         */
+        static LongList difference(LongList a, LongList b, LongList remaining) {
+            LongList difference = new LongList();
+            int i = 0;
+            int j = 0;
+            while(i < a.size || j < b.size) {
+                if(j == b.size || (i < a.size && a.values[i] < b.values[j])) {
+                    difference.add(a.values[i++]);
+                } else if(i == a.size || b.values[j] < a.values[i]) {
+                    remaining.add(b.values[j++]);
+                } else {
+                    i++;
+                    j++;
+                }
+            }
+            return difference;
+        }
+    }
+
+    private class DeltaListener implements HollowTypeStateListener {
+        private final HollowTypeReadState typeState;
+        private final Map<String, Referencers> referencers;
+
+        DeltaListener(HollowTypeReadState typeState, Map<String, Referencers> referencers) {
+            this.typeState = typeState;
+            this.referencers = referencers;
+        }
+
+        @Override
+        public void beginUpdate() { }
+
+        @Override
+        public void addedOrdinal(int ordinal) { }
+
+        @Override
+        public void removedOrdinal(int ordinal) { }
+
+        /**
+         * The references of the removed records are read from the records, which remain readable until the next delta.
+         */
+        @Override
+        public void endUpdate() {
+            BitSet previousOrdinals = typeState.getPreviousOrdinals();
+            BitSet populatedOrdinals = typeState.getPopulatedOrdinals();
+            BitSet changedOrdinals = (BitSet) populatedOrdinals.clone();
+            changedOrdinals.xor(previousOrdinals);
+            if(changedOrdinals.isEmpty())
+                return;
+
+            int ordinal = changedOrdinals.nextSetBit(0);
+            while(ordinal != -1) {
+                collectReferences(typeState, ordinal, referencers, populatedOrdinals.get(ordinal));
+                ordinal = changedOrdinals.nextSetBit(ordinal + 1);
+            }
+
+            for(Map.Entry<String, Referencers> entry : referencers.entrySet())
+                entry.getValue().applyDelta(maxOrdinal(entry.getKey()));
+        }
+    }
+
+    @FunctionalInterface
+    public interface ReferencerVisitor {
+        /**
+         * @param referencerType the type of the referencing record
+         * @param referencerOrdinal the ordinal of the referencing record
+         * @return true to continue visiting referencers, false to stop
+         */
+        boolean visitReferencer(String referencerType, int referencerOrdinal);
+    }
+}
@@ -113,6 +113,40 @@ public class TransitiveSetTraverser {
         }
     }
     
+    /**
+     * Remove any records from the given selection which are referenced by other records not in the selection.
+     * <p>
+     * Rather than scanning every record of each type which references a type in the selection, the referencers of
+     * each selected record are looked up in the index, so the cost is proportional to the references to the selection.
+     * @param stateEngine the state engine
+     * @param matches the matches
+     * @param referencers an index of the referencers of each record in the state engine
+     */
+    public static void removeReferencedOutsideClosure(HollowReadStateEngine stateEngine, Map<String, BitSet> matches, ReverseReferenceIndex referencers) {
+        List<HollowSchema> orderedSchemas = HollowSchemaSorter.dependencyOrderedSchemaList(stateEngine);
+        Collections.reverse(orderedSchemas);
+
+        /// referencing types precede the types they reference, so the selection of each referencing type is final
+        for(HollowSchema referencedSchema : orderedSchemas) {
+            BitSet referencedClosureMatches = matches.get(referencedSchema.getName());
+            if(referencedClosureMatches == null)
+                continue;
+
+            int ordinal = referencedClosureMatches.nextSetBit(0);
+            while(ordinal != -1) {
+                boolean referencedOnlyInsideClosure = referencers.visitReferencers(referencedSchema.getName(), ordinal, (referencerType, referencerOrdinal) -> {
+                    BitSet referencerClosureMatches = matches.get(referencerType);
+                    return referencerClosureMatches != null && referencerClosureMatches.get(referencerOrdinal);
+                });
+
+                if(!referencedOnlyInsideClosure)
+                    referencedClosureMatches.clear(ordinal);
+
+                ordinal = referencedClosureMatches.nextSetBit(ordinal + 1);
+            }
+        }
+    }
+    
     /**
      * Augment the given selection with any records outside the selection which reference 
      * (or transitively reference) any records in the selection. 
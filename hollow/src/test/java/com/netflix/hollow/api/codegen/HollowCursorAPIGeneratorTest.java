@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.netflix.hollow.api.codegen;
+
+import com.netflix.hollow.core.write.objectmapper.HollowHashKey;
+import com.netflix.hollow.core.write.objectmapper.HollowInline;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class HollowCursorAPIGeneratorTest extends AbstractHollowAPIGeneratorTest {
+
+    @SuppressWarnings("unused")
+    static class Movie {
+        int id;
+        long budget;
+        float score;
+        double rating;
+        boolean released;
+        byte[] poster;
+        @HollowInline String title;
+        String studio;
+        Actor lead;
+        List<Actor> cast;
+        @HollowHashKey(fields="name") Set<Actor> crew;
+        Map<String, List<Actor>> roles;
+    }
+
+    @SuppressWarnings("unused")
+    static class Actor {
+        @HollowInline String name;
+        Award award;
+    }
+
+    @SuppressWarnings("unused")
+    static class Award {
+        int year;
+    }
+
+    private static final String API_CLASS_NAME = "CursorTestAPI";
+    private static final String PACKAGE_NAME = "codegen.cursors";
+
+    @Test
+    public void test_withoutPackageGrouping() throws Exception {
+        runGenerator(API_CLASS_NAME, PACKAGE_NAME, Movie.class, b -> b.withCursors(true));
+        assertNonEmptyFileExists("codegen/cursors/MovieCursor.java");
+        assertNonEmptyFileExists("codegen/cursors/ListOfActorCursor.java");
+        assertNonEmptyFileExists("codegen/cursors/MapOfStringToListOfActorCursor.java");
+    }
+
+    @Test
+    public void test_withPackageGrouping() throws Exception {
+        runGenerator(API_CLASS_NAME, PACKAGE_NAME, Movie.class,
+                b -> b.withPackageGrouping().withBooleanFieldErgonomics(true).withCursors(true));
+        assertNonEmptyFileExists("codegen/cursors/cursor/MovieCursor.java");
+        assertNonEmptyFileExists("codegen/cursors/cursor/SetOfActorCursor.java");
+    }
+
+    @Test
+    public void test_withHollowPrimitiveTypes() throws Exception {
+        runGenerator(API_CLASS_NAME, PACKAGE_NAME, Movie.class,
+                b -> b.withPackageGrouping().withHollowPrimitiveTypes(true).withCursors(true));
+        assertFileDoesNotExist("codegen/cursors/core/HString.java");
+        assertNonEmptyFileExists("codegen/cursors/cursor/StringCursor.java");
+    }
+
+    @Test
+    public void test_withoutCursors() throws Exception {
+        runGenerator(API_CLASS_NAME, PACKAGE_NAME, Movie.class, b -> b);
+        assertFileDoesNotExist("codegen/cursors/MovieCursor.java");
+    }
+}
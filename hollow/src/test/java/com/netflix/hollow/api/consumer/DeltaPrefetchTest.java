@@ -0,0 +1,190 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.consumer;
+
+import com.netflix.hollow.api.consumer.HollowConsumer.Blob;
+import com.netflix.hollow.api.consumer.HollowConsumer.BlobRetriever;
+import com.netflix.hollow.api.producer.HollowProducer;
+import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeltaPrefetchTest {
+
+    private InMemoryBlobStore blobStore;
+    private HollowProducer producer;
+    private TrackingBlobRetriever retriever;
+    private long firstVersion;
+
+    @Before
+    public void setUp() {
+        blobStore = new InMemoryBlobStore();
+        producer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .build();
+        retriever = new TrackingBlobRetriever(blobStore);
+
+        firstVersion = runCycle(0);
+    }
+
+    @Test
+    public void prefetchesDeltaTransitions() {
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(retriever)
+                .withDeltaPrefetch(4)
+                .build();
+        consumer.triggerRefreshTo(firstVersion);
+
+        long version = 0;
+        for(int cycle=1;cycle<=10;cycle++)
+            version = runCycle(cycle);
+
+        consumer.triggerRefreshTo(version);
+
+        Assert.assertEquals(version, consumer.getCurrentVersionId());
+        assertPopulated(consumer.getStateEngine(), 10);
+        Assert.assertEquals(10, retriever.numDeltaFetches.get());
+        Assert.assertTrue(retriever.maxConcurrentDeltaFetches.get() > 1);
+        Assert.assertTrue(retriever.maxConcurrentDeltaFetches.get() <= 4);
+    }
+
+    @Test
+    public void limitsBufferedTransitions() {
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(retriever)
+                .withDeltaPrefetch(4, 1)
+                .build();
+        consumer.triggerRefreshTo(firstVersion);
+
+        long version = 0;
+        for(int cycle=1;cycle<=5;cycle++)
+            version = runCycle(cycle);
+
+        consumer.triggerRefreshTo(version);
+
+        Assert.assertEquals(version, consumer.getCurrentVersionId());
+        assertPopulated(consumer.getStateEngine(), 5);
+        Assert.assertEquals(1, retriever.maxConcurrentDeltaFetches.get());
+    }
+
+    @Test
+    public void retrievesTransitionWhichFailedToPrefetch() {
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(retriever)
+                .withDeltaPrefetch(2)
+                .build();
+        consumer.triggerRefreshTo(firstVersion);
+
+        long version = 0;
+        for(int cycle=1;cycle<=3;cycle++)
+            version = runCycle(cycle);
+
+        retriever.failOnceFromVersions.add(version - 1);
+        consumer.triggerRefreshTo(version);
+
+        Assert.assertEquals(version, consumer.getCurrentVersionId());
+        assertPopulated(consumer.getStateEngine(), 3);
+        Assert.assertEquals(0, consumer.getNumFailedDeltaTransitions());
+        Assert.assertEquals(4, retriever.numDeltaFetches.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeDepth() {
+        HollowConsumer.withBlobRetriever(retriever)
+                .withDeltaPrefetch(-1)
+                .build();
+    }
+
+    private long runCycle(int cycle) {
+        return producer.runCycle(ws -> {
+            for(int i=cycle;i<cycle+100;i++)
+                ws.add(i);
+        });
+    }
+
+    private void assertPopulated(HollowReadStateEngine stateEngine, int lastCycle) {
+        HollowObjectTypeReadState typeState = (HollowObjectTypeReadState) stateEngine.getTypeState("Integer");
+        BitSet populatedOrdinals = typeState.getPopulatedOrdinals();
+        Set<Integer> values = new HashSet<>();
+        for(int ordinal = populatedOrdinals.nextSetBit(0); ordinal != -1; ordinal = populatedOrdinals.nextSetBit(ordinal + 1))
+            values.add(typeState.readInt(ordinal, 0));
+
+        Assert.assertEquals(100, values.size());
+        for(int i=lastCycle;i<lastCycle+100;i++)
+            Assert.assertTrue(values.contains(i));
+    }
+
+    /**
+     * Slows the retrieval of each delta, and records how many deltas are retrieved concurrently.
+     */
+    private static class TrackingBlobRetriever implements BlobRetriever {
+        private final BlobRetriever delegate;
+        private final AtomicInteger numDeltaFetches = new AtomicInteger();
+        private final AtomicInteger concurrentDeltaFetches = new AtomicInteger();
+        private final AtomicInteger maxConcurrentDeltaFetches = new AtomicInteger();
+        private final Set<Long> failOnceFromVersions = new HashSet<>();
+
+        TrackingBlobRetriever(BlobRetriever delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Blob retrieveSnapshotBlob(long desiredVersion) {
+            return delegate.retrieveSnapshotBlob(desiredVersion);
+        }
+
+        @Override
+        public Blob retrieveDeltaBlob(long currentVersion) {
+            Blob blob = delegate.retrieveDeltaBlob(currentVersion);
+            if(blob == null)
+                return null;
+
+            return new Blob(blob.getFromVersion(), blob.getToVersion()) {
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    numDeltaFetches.incrementAndGet();
+                    int concurrent = concurrentDeltaFetches.incrementAndGet();
+                    maxConcurrentDeltaFetches.accumulateAndGet(concurrent, Math::max);
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        concurrentDeltaFetches.decrementAndGet();
+                    }
+
+                    synchronized(failOnceFromVersions) {
+                        if(failOnceFromVersions.remove(getFromVersion()))
+                            throw new IOException("FAILED");
+                    }
+                    return blob.getInputStream();
+                }
+            };
+        }
+
+        @Override
+        public Blob retrieveReverseDeltaBlob(long currentVersion) {
+            return delegate.retrieveReverseDeltaBlob(currentVersion);
+        }
+    }
+}
@@ -128,6 +128,33 @@ public class HollowProducerConsumerTests {
         Assert.assertEquals(v1, consumer.getCurrentVersionId());
     }
 
+    @Test
+    public void consumerFollowsDeltasOffHeap() {
+        HollowProducer producer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withNumStatesBetweenSnapshots(2) /// do not produce snapshot for v2 or v3
+                .build();
+
+        long v1 = runCycle(producer, 1);
+        runCycle(producer, 2);
+        long v3 = runCycle(producer, 3);
+
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(blobStore)
+                .withMemoryMode(MemoryMode.OFF_HEAP)
+                .build();
+        consumer.triggerRefreshTo(v1);
+        consumer.triggerRefreshTo(v3);
+
+        Assert.assertEquals(v3, consumer.getCurrentVersionId());
+        HollowObjectTypeReadState typeState = (HollowObjectTypeReadState) consumer.getStateEngine().getTypeState("Integer");
+        int ordinal = typeState.getPopulatedOrdinals().nextSetBit(0);
+        Assert.assertEquals(3, typeState.readInt(ordinal, 0));
+
+        consumer.triggerRefreshTo(v1);
+
+        Assert.assertEquals(v1, consumer.getCurrentVersionId());
+    }
+
     @Test
     public void consumerRespondsToPinnedAnnouncement() {
         HollowProducer producer = HollowProducer.withPublisher(blobStore)
@@ -21,6 +21,8 @@ import com.netflix.hollow.api.client.HollowUpdatePlanner;
 import com.netflix.hollow.api.consumer.HollowConsumer.Blob;
 import com.netflix.hollow.test.consumer.TestBlob;
 import com.netflix.hollow.test.consumer.TestBlobRetriever;
+import java.util.List;
+import java.util.function.LongFunction;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -261,6 +263,78 @@ public class HollowUpdatePlannerTest {
         assertTransition(plan.getTransition(1), 1, 2);
     }
 
+    @Test
+    public void followsFurthestSkipDelta() throws Exception {
+        addMockDelta(1, 2);
+        addMockDelta(2, 3);
+        addMockDelta(3, 4);
+        addMockDelta(4, 5);
+        addMockDelta(5, 6);
+        addMockSkipDelta(1, 3);
+        addMockSkipDelta(1, 5);
+        addMockSkipDelta(1, 7);
+
+        HollowUpdatePlan plan = planner.planUpdate(1, 6, true);
+
+        Assert.assertEquals(2, plan.numTransitions());
+
+        assertTransition(plan.getTransition(0), 1, 5);
+        Assert.assertTrue(plan.getTransition(0).isSkipDelta());
+        assertTransition(plan.getTransition(1), 5, 6);
+    }
+
+    @Test
+    public void looksUpSkipDeltasOncePerPlan() throws Exception {
+        int[] numLookups = new int[1];
+        TestBlobRetriever retriever = new TestBlobRetriever() {
+            @Override
+            public LongFunction<List<Blob>> skipDeltaBlobLookup(long currentVersion, long desiredVersion) {
+                numLookups[0]++;
+                return super.skipDeltaBlobLookup(currentVersion, desiredVersion);
+            }
+        };
+        mockTransitionCreator = retriever;
+        planner = new HollowUpdatePlanner(retriever);
+        addMockDelta(1, 2);
+        addMockDelta(2, 3);
+        addMockDelta(3, 4);
+        addMockDelta(4, 5);
+        addMockSkipDelta(2, 4);
+
+        HollowUpdatePlan plan = planner.planUpdate(1, 5, true);
+
+        Assert.assertEquals(3, plan.numTransitions());
+        assertTransition(plan.getTransition(1), 2, 4);
+        Assert.assertEquals(1, numLookups[0]);
+    }
+
+    @Test
+    public void skipDeltaCountsAsTwoDeltas() throws Exception {
+        addMockSnapshot(6, 5);
+        addMockDelta(0, 1);
+        addMockDelta(1, 2);
+        addMockDelta(2, 3);
+        addMockDelta(3, 4);
+        addMockDelta(4, 5);
+        addMockDelta(5, 6);
+        addMockSkipDelta(1, 5);
+
+        HollowUpdatePlan plan = planner.planUpdate(1, 6, true);
+
+        Assert.assertEquals(2, plan.numTransitions());
+
+        assertTransition(plan.getTransition(0), 1, 5);
+        assertTransition(plan.getTransition(1), 5, 6);
+
+        /// the delta and the skip delta exhaust the 3 deltas permitted before a double snapshot
+        plan = planner.planUpdate(0, 6, true);
+
+        Assert.assertEquals(2, plan.numTransitions());
+
+        assertTransition(plan.getTransition(0), Long.MIN_VALUE, 5);
+        assertTransition(plan.getTransition(1), 5, 6);
+    }
+
 
     private void assertTransition(HollowConsumer.Blob transition, long expectedFrom, long expectedTo) {
         Assert.assertEquals(transition.getFromVersion(), expectedFrom);
@@ -286,4 +360,10 @@ public class HollowUpdatePlannerTest {
         mockTransitionCreator.addReverseDelta(fromVersion, result);
     }
 
+    private void addMockSkipDelta(long fromVersion, long toVersion) {
+        Blob result = new TestBlob(fromVersion, toVersion, Blob.BlobType.SKIP_DELTA);
+
+        mockTransitionCreator.addSkipDelta(fromVersion, result);
+    }
+
 }
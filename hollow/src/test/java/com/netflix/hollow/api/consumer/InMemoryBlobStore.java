@@ -22,7 +22,10 @@ import com.netflix.hollow.api.producer.HollowProducer;
 import com.netflix.hollow.api.producer.HollowProducer.Publisher;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /// This InMemoryBlobStore is both a HollowProducer.Publisher and HollowConsumer.BlobRetriever!
@@ -31,11 +34,13 @@ public class InMemoryBlobStore implements BlobRetriever, Publisher {
     private Map<Long, Blob> snapshots;
     private Map<Long, Blob> deltas;
     private Map<Long, Blob> reverseDeltas;
+    private Map<Long, List<Blob>> skipDeltas;
     
     public InMemoryBlobStore() {
         this.snapshots = new HashMap<Long, Blob>();
         this.deltas = new HashMap<Long, Blob>();
         this.reverseDeltas = new HashMap<Long, Blob>();
+        this.skipDeltas = new HashMap<Long, List<Blob>>();
     }
 
     @Override
@@ -64,11 +69,16 @@ public class InMemoryBlobStore implements BlobRetriever, Publisher {
         return reverseDeltas.get(currentVersion);
     }
 
+    @Override
+    public List<Blob> retrieveSkipDeltaBlobs(long currentVersion) {
+        return skipDeltas.getOrDefault(currentVersion, Collections.emptyList());
+    }
+
     
     
     @Override
     public void publish(final HollowProducer.Blob blob) {
-        Blob consumerBlob = new Blob(blob.getFromVersion(), blob.getToVersion()) {
+        Blob consumerBlob = new Blob(blob.getFromVersion(), blob.getToVersion(), Blob.BlobType.valueOf(blob.getType().name())) {
             @Override
             public InputStream getInputStream() throws IOException {
                 return blob.newInputStream();
@@ -85,6 +95,9 @@ public class InMemoryBlobStore implements BlobRetriever, Publisher {
         case REVERSE_DELTA:
             reverseDeltas.put(blob.getFromVersion(), consumerBlob);
             break;
+        case SKIP_DELTA:
+            skipDeltas.computeIfAbsent(blob.getFromVersion(), v -> new ArrayList<Blob>()).add(consumerBlob);
+            break;
         }
     }
     
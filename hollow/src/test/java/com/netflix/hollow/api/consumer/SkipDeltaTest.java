@@ -0,0 +1,199 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.consumer;
+
+import com.netflix.hollow.api.consumer.HollowConsumer.Blob.BlobType;
+import com.netflix.hollow.api.consumer.fs.HollowFilesystemBlobRetriever;
+import com.netflix.hollow.api.producer.HollowProducer;
+import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.write.objectmapper.HollowPrimaryKey;
+import com.netflix.hollow.tools.checksum.HollowChecksum;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SkipDeltaTest {
+
+    private InMemoryBlobStore blobStore;
+    private HollowProducer producer;
+    private List<Long> versions;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        ExecutorService skipDeltaExecutor = Executors.newSingleThreadExecutor();
+        blobStore = new InMemoryBlobStore();
+        producer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withSkipDeltas(3)
+                .withSkipDeltaPublishExecutor(skipDeltaExecutor)
+                .build();
+        versions = new ArrayList<>();
+
+        for(int cycle=0;cycle<=6;cycle++)
+            versions.add(runCycle(cycle));
+
+        /// the skip delta spanning to the last state is published after its cycle
+        skipDeltaExecutor.shutdown();
+        Assert.assertTrue(skipDeltaExecutor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void publishesSkipDeltas() {
+        Assert.assertTrue(blobStore.retrieveSkipDeltaBlobs(versions.get(1)).isEmpty());
+
+        List<HollowConsumer.Blob> skipDeltas = blobStore.retrieveSkipDeltaBlobs(versions.get(0));
+        Assert.assertEquals(1, skipDeltas.size());
+        Assert.assertTrue(skipDeltas.get(0).isSkipDelta());
+        Assert.assertEquals(versions.get(3).longValue(), skipDeltas.get(0).getToVersion());
+
+        skipDeltas = blobStore.retrieveSkipDeltaBlobs(versions.get(3));
+        Assert.assertEquals(1, skipDeltas.size());
+        Assert.assertEquals(versions.get(6).longValue(), skipDeltas.get(0).getToVersion());
+    }
+
+    @Test
+    public void publishesSkipDeltasAfterTheCycle() {
+        Queue<Runnable> skipDeltaTasks = new ArrayDeque<>();
+        blobStore = new InMemoryBlobStore();
+        producer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withSkipDeltas(3)
+                .withSkipDeltaPublishExecutor(skipDeltaTasks::add)
+                .build();
+
+        long v0 = runCycle(0);
+        for(int cycle=1;cycle<=3;cycle++) {
+            Assert.assertEquals(1, skipDeltaTasks.size());
+            skipDeltaTasks.remove().run();
+            runCycle(cycle);
+        }
+
+        Assert.assertTrue(blobStore.retrieveSkipDeltaBlobs(v0).isEmpty());
+        skipDeltaTasks.remove().run();
+        Assert.assertEquals(1, blobStore.retrieveSkipDeltaBlobs(v0).size());
+    }
+
+    @Test
+    public void updatesThroughSkipDeltas() {
+        PlanRecordingListener listener = new PlanRecordingListener();
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(blobStore)
+                .withRefreshListener(listener)
+                .build();
+        consumer.triggerRefreshTo(versions.get(0));
+
+        consumer.triggerRefreshTo(versions.get(5));
+
+        Assert.assertEquals(versions.get(5).longValue(), consumer.getCurrentVersionId());
+        Assert.assertEquals(Arrays.asList(BlobType.SKIP_DELTA, BlobType.DELTA, BlobType.DELTA), listener.transitionSequence);
+        assertState(consumer.getStateEngine(), 5);
+
+        /// the ghost records of the final delta may be read, and the consumer continues along the delta chain
+        consumer.triggerRefreshTo(versions.get(6));
+
+        Assert.assertEquals(versions.get(6).longValue(), consumer.getCurrentVersionId());
+        Assert.assertEquals(Collections.singletonList(BlobType.DELTA), listener.transitionSequence);
+        assertState(consumer.getStateEngine(), 6);
+    }
+
+    @Test
+    public void updatesThroughSkipDeltasFromLocalBlobStore() throws Exception {
+        File localDir = Files.createTempDirectory("hollow").toFile();
+        localDir.deleteOnExit();
+
+        PlanRecordingListener listener = new PlanRecordingListener();
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(blobStore)
+                .withLocalBlobStore(localDir)
+                .withRefreshListener(listener)
+                .build();
+        consumer.triggerRefreshTo(versions.get(0));
+
+        consumer.triggerRefreshTo(versions.get(6));
+
+        Assert.assertEquals(versions.get(6).longValue(), consumer.getCurrentVersionId());
+        Assert.assertEquals(Arrays.asList(BlobType.SKIP_DELTA, BlobType.SKIP_DELTA), listener.transitionSequence);
+        assertState(consumer.getStateEngine(), 6);
+        Assert.assertTrue(new File(localDir, "skipdelta-" + versions.get(3) + "-" + versions.get(6)).exists());
+
+        /// the skip deltas backed up to the local blob store are listed once for a plan
+        LongFunction<List<HollowConsumer.Blob>> skipDeltas = new HollowFilesystemBlobRetriever(localDir.toPath())
+                .skipDeltaBlobLookup(versions.get(0), versions.get(6));
+        Assert.assertEquals(versions.get(3).longValue(), skipDeltas.apply(versions.get(0)).get(0).getToVersion());
+        Assert.assertEquals(versions.get(6).longValue(), skipDeltas.apply(versions.get(3)).get(0).getToVersion());
+        Assert.assertTrue(skipDeltas.apply(versions.get(1)).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSkipDeltaOfOneState() {
+        HollowProducer.withPublisher(blobStore)
+                .withSkipDeltas(1)
+                .build();
+    }
+
+    private long runCycle(int cycle) {
+        return producer.runCycle(ws -> {
+            for(int i=cycle;i<cycle+100;i++)
+                ws.add(new Rec(i, "rec" + i + "-" + (i % 10 < cycle ? "updated" : "initial")));
+        });
+    }
+
+    private void assertState(HollowReadStateEngine stateEngine, int cycle) {
+        HollowConsumer expected = HollowConsumer.withBlobRetriever(blobStore).build();
+        expected.triggerRefreshTo(versions.get(cycle));
+
+        Assert.assertEquals(HollowChecksum.forStateEngine(expected.getStateEngine()), HollowChecksum.forStateEngine(stateEngine));
+
+        HollowObjectTypeReadState typeState = (HollowObjectTypeReadState) stateEngine.getTypeState("Rec");
+        BitSet populatedOrdinals = typeState.getPopulatedOrdinals();
+        Assert.assertEquals(100, populatedOrdinals.cardinality());
+    }
+
+    private static class PlanRecordingListener extends HollowConsumer.AbstractRefreshListener {
+        private List<BlobType> transitionSequence;
+
+        @Override
+        public void transitionsPlanned(long beforeVersion, long desiredVersion, boolean isSnapshotPlan, List<BlobType> transitionSequence) {
+            this.transitionSequence = transitionSequence;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @HollowPrimaryKey(fields = "id")
+    private static class Rec {
+        private final int id;
+        private final String name;
+
+        Rec(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -20,6 +20,8 @@ import com.netflix.hollow.api.consumer.HollowConsumer;
 import com.netflix.hollow.api.consumer.InMemoryBlobStore;
 import com.netflix.hollow.api.producer.HollowProducer;
 import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -91,6 +93,13 @@ public class UniqueKeyUpdatesTest {
         Assert.assertNotNull(uki.findMatch(new Key(1, "1", 2)));
         Assert.assertNotNull(uki.findMatch(new Key(2, "1", 2)));
 
+        List<DataModel.Consumer.TypeWithPrimaryKey> matches = uki.findMatches(
+                Arrays.asList(new Key(2, "1", 2), new Key(3, "1", 2), new Key(1, "1", 2)));
+        Assert.assertEquals(3, matches.size());
+        Assert.assertEquals(uki.findMatch(new Key(2, "1", 2)).getOrdinal(), matches.get(0).getOrdinal());
+        Assert.assertNull(matches.get(1));
+        Assert.assertEquals(uki.findMatch(new Key(1, "1", 2)).getOrdinal(), matches.get(2).getOrdinal());
+
 
         consumer.removeRefreshListener(uki);
         long v3 = producer.runCycle(ws -> {
@@ -0,0 +1,364 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.objects.cursor;
+
+import static com.netflix.hollow.core.HollowConstants.ORDINAL_NONE;
+
+import com.netflix.hollow.core.read.dataaccess.HollowDataAccess;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.util.StateEngineRoundTripper;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowHashKey;
+import com.netflix.hollow.core.write.objectmapper.HollowInline;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HollowCursorTest {
+
+    private HollowReadStateEngine readEngine;
+
+    @Before
+    public void setUp() throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        mapper.add(new Movie(1, "The Matrix", Arrays.asList(new Actor("Keanu"), new Actor("Carrie-Anne")),
+                new HashSet<>(Arrays.asList(new Actor("Lana"), new Actor("Lilly"))),
+                mapOf(new Actor("Neo"), new Actor("Keanu"), new Actor("Trinity"), new Actor("Carrie-Anne"))));
+        mapper.add(new Movie(2, "Speed", Arrays.asList(new Actor("Keanu")), new HashSet<>(), new HashMap<>()));
+
+        readEngine = new HollowReadStateEngine();
+        StateEngineRoundTripper.roundTripSnapshot(writeEngine, readEngine);
+    }
+
+    @Test
+    public void traversesRecordsAndReferences() {
+        MovieCursor movie = new MovieCursor(readEngine);
+        Map<Integer, String> titles = new HashMap<>();
+        List<String> castOfTheMatrix = null;
+        for(int ordinal=0;ordinal<=readEngine.getTypeState("Movie").maxOrdinal();ordinal++) {
+            movie.position(ordinal);
+            titles.put(movie.getId(), movie.getTitle());
+            if(movie.isTitleEqual("The Matrix")) {
+                ActorListCursor cast = movie.getCast();
+                castOfTheMatrix = Arrays.asList(cast.get(0).getName(), cast.get(1).getName());
+                Assert.assertEquals(2, cast.size());
+            }
+        }
+
+        Assert.assertEquals("The Matrix", titles.get(1));
+        Assert.assertEquals("Speed", titles.get(2));
+        Assert.assertEquals(Arrays.asList("Keanu", "Carrie-Anne"), castOfTheMatrix);
+    }
+
+    @Test
+    public void iteratesSetsAndMaps() {
+        MovieCursor movie = new MovieCursor(readEngine).position(ordinalOf(1));
+
+        ActorSetCursor crew = movie.getCrew();
+        Set<String> names = new HashSet<>();
+        while(crew.next())
+            names.add(crew.element().getName());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Lana", "Lilly")), names);
+        Assert.assertFalse(crew.next());
+        Assert.assertEquals("Lilly", crew.findElement("Lilly").getName());
+        Assert.assertNull(crew.findElement("Keanu"));
+
+        RoleMapCursor roles = movie.getRoles();
+        Map<String, String> actors = new HashMap<>();
+        while(roles.next())
+            actors.put(roles.key().getName(), roles.value().getName());
+        Assert.assertEquals(mapOf("Neo", "Keanu", "Trinity", "Carrie-Anne"), actors);
+
+        /// repositioning a collection cursor restarts its iteration
+        movie.position(ordinalOf(2));
+        Assert.assertFalse(movie.getCrew().next());
+        Assert.assertFalse(movie.getRoles().next());
+        Assert.assertEquals(1, movie.getCast().size());
+    }
+
+    @Test
+    public void reusesCursors() {
+        MovieCursor movie = new MovieCursor(readEngine).position(ordinalOf(1));
+        ActorListCursor cast = movie.getCast();
+        ActorCursor first = cast.get(0);
+
+        movie.position(ordinalOf(2));
+        Assert.assertSame(cast, movie.getCast());
+        Assert.assertSame(first, cast.get(0));
+        Assert.assertEquals("Keanu", first.getName());
+    }
+
+    @Test
+    public void readsFixedLengthFieldsOfEachRecord() throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        mapper.add(new Scalars(1, -2L, 1.5f, -2.5d, true, "one"));
+        mapper.add(new Scalars(null, null, null, null, null, null));
+        mapper.add(new Scalars(-3, Long.MAX_VALUE, -0.0f, Double.MAX_VALUE, false, "three"));
+        HollowReadStateEngine readEngine = new HollowReadStateEngine();
+        StateEngineRoundTripper.roundTripSnapshot(writeEngine, readEngine);
+
+        ScalarsCursor cursor = new ScalarsCursor(readEngine);
+        HollowObjectSchema schema = cursor.getTypeDataAccess().getSchema();
+        for(int ordinal=0;ordinal<=readEngine.getTypeState("Scalars").maxOrdinal();ordinal++) {
+            cursor.position(ordinal);
+            /// read a variable-length field between the fixed-length fields
+            Assert.assertEquals(cursor.getTypeDataAccess().readString(ordinal, schema.getPosition("name")), cursor.getName());
+            Assert.assertEquals(cursor.getTypeDataAccess().readInt(ordinal, schema.getPosition("i")), cursor.getI());
+            Assert.assertEquals(cursor.getTypeDataAccess().readLong(ordinal, schema.getPosition("l")), cursor.getL());
+            Assert.assertEquals(Float.floatToIntBits(cursor.getTypeDataAccess().readFloat(ordinal, schema.getPosition("f"))), Float.floatToIntBits(cursor.getF()));
+            Assert.assertEquals(Double.doubleToLongBits(cursor.getTypeDataAccess().readDouble(ordinal, schema.getPosition("d"))), Double.doubleToLongBits(cursor.getD()));
+            Assert.assertEquals(cursor.getTypeDataAccess().readBoolean(ordinal, schema.getPosition("b")), cursor.getB());
+            Assert.assertEquals(ORDINAL_NONE, cursor.getMissing());
+        }
+    }
+
+    private int ordinalOf(int id) {
+        MovieCursor movie = new MovieCursor(readEngine);
+        for(int ordinal=0;ordinal<=readEngine.getTypeState("Movie").maxOrdinal();ordinal++) {
+            if(movie.position(ordinal).getId() == id)
+                return ordinal;
+        }
+        throw new IllegalArgumentException();
+    }
+
+    /// cursors as generated by the HollowAPIGenerator
+
+    static class MovieCursor extends HollowObjectCursor {
+        private ActorListCursor castCursor;
+        private ActorSetCursor crewCursor;
+        private RoleMapCursor rolesCursor;
+
+        MovieCursor(HollowDataAccess dataAccess) {
+            super(dataAccess, "Movie", "id", "title", "cast", "crew", "roles");
+        }
+
+        @Override
+        public MovieCursor position(int ordinal) {
+            super.position(ordinal);
+            return this;
+        }
+
+        int getId() {
+            return readInt(0);
+        }
+
+        String getTitle() {
+            return readString(1);
+        }
+
+        boolean isTitleEqual(String testValue) {
+            return isStringFieldEqual(1, testValue);
+        }
+
+        ActorListCursor getCast() {
+            if(castCursor == null)
+                castCursor = new ActorListCursor(typeDataAccess.getDataAccess());
+            return castCursor.position(readOrdinal(2));
+        }
+
+        ActorSetCursor getCrew() {
+            if(crewCursor == null)
+                crewCursor = new ActorSetCursor(typeDataAccess.getDataAccess());
+            return crewCursor.position(readOrdinal(3));
+        }
+
+        RoleMapCursor getRoles() {
+            if(rolesCursor == null)
+                rolesCursor = new RoleMapCursor(typeDataAccess.getDataAccess());
+            return rolesCursor.position(readOrdinal(4));
+        }
+    }
+
+    static class ScalarsCursor extends HollowObjectCursor {
+        ScalarsCursor(HollowDataAccess dataAccess) {
+            super(dataAccess, "Scalars", "i", "l", "f", "d", "b", "name", "missing");
+        }
+
+        int getI() {
+            return readInt(0);
+        }
+
+        long getL() {
+            return readLong(1);
+        }
+
+        float getF() {
+            return readFloat(2);
+        }
+
+        double getD() {
+            return readDouble(3);
+        }
+
+        Boolean getB() {
+            return readBoolean(4);
+        }
+
+        String getName() {
+            return readString(5);
+        }
+
+        int getMissing() {
+            return readOrdinal(6);
+        }
+    }
+
+    static class ActorCursor extends HollowObjectCursor {
+        ActorCursor(HollowDataAccess dataAccess) {
+            super(dataAccess, "Actor", "name");
+        }
+
+        @Override
+        public ActorCursor position(int ordinal) {
+            super.position(ordinal);
+            return this;
+        }
+
+        String getName() {
+            return readString(0);
+        }
+    }
+
+    static class ActorListCursor extends HollowListCursor<ActorCursor> {
+        ActorListCursor(HollowDataAccess dataAccess) {
+            super(dataAccess, "ListOfActor");
+        }
+
+        @Override
+        public ActorListCursor position(int ordinal) {
+            super.position(ordinal);
+            return this;
+        }
+
+        @Override
+        protected ActorCursor newElementCursor(HollowDataAccess dataAccess) {
+            return new ActorCursor(dataAccess);
+        }
+    }
+
+    static class ActorSetCursor extends HollowSetCursor<ActorCursor> {
+        ActorSetCursor(HollowDataAccess dataAccess) {
+            super(dataAccess, "SetOfActor");
+        }
+
+        @Override
+        public ActorSetCursor position(int ordinal) {
+            super.position(ordinal);
+            return this;
+        }
+
+        @Override
+        protected ActorCursor newElementCursor(HollowDataAccess dataAccess) {
+            return new ActorCursor(dataAccess);
+        }
+    }
+
+    static class RoleMapCursor extends HollowMapCursor<ActorCursor, ActorCursor> {
+        RoleMapCursor(HollowDataAccess dataAccess) {
+            super(dataAccess, "MapOfActorToActor");
+        }
+
+        @Override
+        public RoleMapCursor position(int ordinal) {
+            super.position(ordinal);
+            return this;
+        }
+
+        @Override
+        protected ActorCursor newKeyCursor(HollowDataAccess dataAccess) {
+            return new ActorCursor(dataAccess);
+        }
+
+        @Override
+        protected ActorCursor newValueCursor(HollowDataAccess dataAccess) {
+            return new ActorCursor(dataAccess);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Movie {
+        int id;
+        @HollowInline String title;
+        List<Actor> cast;
+        @HollowHashKey(fields="name") Set<Actor> crew;
+        Map<Actor, Actor> roles;
+
+        Movie(int id, String title, List<Actor> cast, Set<Actor> crew, Map<Actor, Actor> roles) {
+            this.id = id;
+            this.title = title;
+            this.cast = cast;
+            this.crew = crew;
+            this.roles = roles;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Scalars {
+        @HollowInline Integer i;
+        @HollowInline Long l;
+        @HollowInline Float f;
+        @HollowInline Double d;
+        @HollowInline Boolean b;
+        @HollowInline String name;
+
+        Scalars(Integer i, Long l, Float f, Double d, Boolean b, String name) {
+            this.i = i;
+            this.l = l;
+            this.f = f;
+            this.d = d;
+            this.b = b;
+            this.name = name;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Actor {
+        @HollowInline String name;
+
+        Actor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Actor && ((Actor) obj).name.equals(name);
+        }
+    }
+
+    private static <K, V> Map<K, V> mapOf(K k1, V v1, K k2, V v2) {
+        Map<K, V> map = new HashMap<>();
+        map.put(k1, v1);
+        map.put(k2, v2);
+        return map;
+    }
+}
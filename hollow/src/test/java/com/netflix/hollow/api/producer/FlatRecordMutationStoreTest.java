@@ -0,0 +1,188 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import static com.netflix.hollow.api.producer.HollowIncrementalCyclePopulator.DELETE_RECORD;
+
+import com.netflix.hollow.api.consumer.HollowConsumer;
+import com.netflix.hollow.api.consumer.InMemoryBlobStore;
+import com.netflix.hollow.api.objects.generic.GenericHollowObject;
+import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
+import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
+import com.netflix.hollow.core.write.objectmapper.HollowPrimaryKey;
+import com.netflix.hollow.core.write.objectmapper.RecordPrimaryKey;
+import com.netflix.hollow.core.write.objectmapper.flatrecords.FlatRecord;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Iterator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FlatRecordMutationStoreTest {
+
+    private InMemoryBlobStore blobStore;
+    private File spillDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        blobStore = new InMemoryBlobStore();
+        spillDirectory = Files.createTempDirectory("hollow-mutations").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = spillDirectory.listFiles();
+        if(files != null) {
+            for(File file : files)
+                file.delete();
+        }
+        spillDirectory.delete();
+    }
+
+    @Test
+    public void spillsMutationsAndKeepsLastWrite() throws Exception {
+        HollowProducer producer = createInMemoryProducer();
+        producer.initializeDataModel(TypeA.class);
+        FlatRecordMutationStore store = new FlatRecordMutationStore(producer.getObjectMapper(), spillDirectory, 64);
+
+        for(int i=0;i<100;i++)
+            store.put(key(i), new TypeA(i, "value" + i));
+        store.put(key(1), new TypeA(1, "modified"));
+        store.put(key(2), DELETE_RECORD);
+        store.putIfAbsent(key(3), new HollowIncrementalCyclePopulator.AddIfAbsent(new TypeA(3, "ignored")));
+        store.putIfAbsent(key(100), new HollowIncrementalCyclePopulator.AddIfAbsent(new TypeA(100, "added")));
+
+        Assert.assertEquals(101, store.size());
+        Assert.assertEquals(1, store.countDeletes());
+        Assert.assertTrue(store.getSpilledBytes() > 0);
+        Assert.assertTrue(store.getInMemoryBytes() <= 64);
+
+        Assert.assertSame(DELETE_RECORD, store.get(key(2)));
+        Assert.assertTrue(store.get(key(1)) instanceof FlatRecord);
+        Assert.assertTrue(store.get(key(100)) instanceof HollowIncrementalCyclePopulator.AddIfAbsent);
+
+        int addIfAbsent = 0;
+        Iterator<MutationStore.Mutation> iter = store.iterator();
+        while(iter.hasNext()) {
+            MutationStore.Mutation mutation = iter.next();
+            if(mutation.isAddIfAbsent())
+                addIfAbsent++;
+            /// spilled values are read each time they are requested rather than retained by the mutation
+            if(mutation.getKey().equals(key(1)))
+                Assert.assertNotSame(mutation.getValue(), mutation.getValue());
+        }
+        Assert.assertEquals(1, addIfAbsent);
+        Assert.assertFalse(store.putIfAbsent(key(100), new HollowIncrementalCyclePopulator.AddIfAbsent(new TypeA(100, "ignored"))));
+
+        /// replacing a spilled mutation leaves its bytes in the file
+        long spilledBytes = store.getSpilledBytes();
+        for(int i=0;i<100;i++)
+            store.put(key(i), new TypeA(i, "modified" + i));
+        Assert.assertEquals(101, store.size());
+        Assert.assertTrue(store.getSpilledBytes() > spilledBytes);
+
+        store.clear();
+        Assert.assertEquals(0, store.size());
+        Assert.assertEquals(0, store.getSpilledBytes());
+        Assert.assertEquals(0, store.getInMemoryBytes());
+
+        /// closing the store deletes its file
+        Assert.assertEquals(1, spillDirectory.list().length);
+        store.close();
+        Assert.assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void incrementalCyclesPopulateFromSpilledMutations() {
+        HollowProducer producer = createInMemoryProducer();
+        producer.runCycle(state -> {
+            for(int i=0;i<10;i++)
+                state.add(new TypeA(i, "value" + i));
+        });
+
+        HollowIncrementalProducer incrementalProducer = HollowIncrementalProducer.withProducer(producer)
+                .withMutationSpillDirectory(spillDirectory, 128)
+                .build();
+
+        for(int i=5;i<20;i++)
+            incrementalProducer.addOrModify(new TypeA(i, "modified" + i));
+        incrementalProducer.addOrModify(new TypeA(6, "last" + 6));
+        incrementalProducer.delete(new TypeA(7, null));
+        incrementalProducer.addIfAbsent(new TypeA(1, "ignored"));
+        incrementalProducer.addIfAbsent(new TypeA(20, "added"));
+        long version = incrementalProducer.runCycle();
+
+        incrementalProducer.addOrModify(new TypeA(0, "next"));
+        long nextVersion = incrementalProducer.runCycle();
+
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(blobStore).build();
+        consumer.triggerRefreshTo(version);
+        HollowPrimaryKeyIndex idx = new HollowPrimaryKeyIndex(consumer.getStateEngine(), "TypeA", "id");
+        Assert.assertFalse(idx.containsDuplicates());
+
+        assertTypeA(idx, 0, "value0");
+        assertTypeA(idx, 1, "value1");
+        assertTypeA(idx, 5, "modified5");
+        assertTypeA(idx, 6, "last6");
+        assertTypeA(idx, 7, null);
+        assertTypeA(idx, 19, "modified19");
+        assertTypeA(idx, 20, "added");
+
+        consumer.triggerRefreshTo(nextVersion);
+        idx = new HollowPrimaryKeyIndex(consumer.getStateEngine(), "TypeA", "id");
+        assertTypeA(idx, 0, "next");
+        assertTypeA(idx, 6, "last6");
+
+        incrementalProducer.close();
+        Assert.assertEquals(0, spillDirectory.list().length);
+    }
+
+    private static RecordPrimaryKey key(int id) {
+        return new RecordPrimaryKey("TypeA", new Object[] { id });
+    }
+
+    private static void assertTypeA(HollowPrimaryKeyIndex idx, int id, String expectedValue) {
+        int ordinal = idx.getMatchingOrdinal(id);
+        if(expectedValue == null) {
+            Assert.assertEquals(-1, ordinal);
+        } else {
+            Assert.assertNotEquals(-1, ordinal);
+            GenericHollowObject obj = new GenericHollowObject(idx.getTypeState(), ordinal);
+            Assert.assertEquals(expectedValue, obj.getObject("value").getString("value"));
+        }
+    }
+
+    private HollowProducer createInMemoryProducer() {
+        return HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .build();
+    }
+
+    @SuppressWarnings("unused")
+    @HollowPrimaryKey(fields = "id")
+    private static class TypeA {
+        int id;
+        String value;
+
+        TypeA(int id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+}
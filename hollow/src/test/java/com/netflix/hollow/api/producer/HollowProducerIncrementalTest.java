@@ -25,7 +25,10 @@ import com.netflix.hollow.api.objects.HollowObject;
 import com.netflix.hollow.api.objects.generic.GenericHollowObject;
 import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
 import com.netflix.hollow.api.producer.listener.IncrementalPopulateListener;
+import com.netflix.hollow.api.producer.validation.DuplicateDataDetectionValidator;
+import com.netflix.hollow.core.index.HollowHashIndex;
 import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
+import com.netflix.hollow.core.index.key.PrimaryKey;
 import com.netflix.hollow.core.read.dataaccess.HollowTypeDataAccess;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.engine.HollowTypeReadState;
@@ -534,6 +537,96 @@ public class HollowProducerIncrementalTest {
 
     }
 
+    @Test
+    public void reusesPrimaryKeyIndexesAcrossCycles() {
+        assertPrimaryKeyIndexReused(new HollowProducer.Builder<>()
+                .withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withListener(new DuplicateDataDetectionValidator("TypeA"))
+                .buildIncremental());
+    }
+
+    @Test
+    public void reusesPrimaryKeyIndexesAcrossCyclesWithoutIntegrityCheck() {
+        assertPrimaryKeyIndexReused(createInMemoryIncrementalProducerWithoutIntegrityCheck());
+    }
+
+    private void assertPrimaryKeyIndexReused(HollowProducer.Incremental producer) {
+        producer.runIncrementalCycle(iws -> {
+            for(int i=0;i<1000;i++)
+                iws.addOrModify(new TypeA(i, "id", i));
+        });
+
+        PrimaryKey primaryKey = new PrimaryKey("TypeA", "id1", "id2");
+        HollowPrimaryKeyIndex idx = null;
+
+        for(int cycle=1;cycle<=10;cycle++) {
+            final int c = cycle;
+            producer.runIncrementalCycle(iws -> {
+                iws.addOrModify(new TypeA(c, "id", c * 1000));
+                iws.delete(new TypeA(c + 500, "id", c + 500));
+                iws.addOrModify(new TypeA(1000 + c, "id", 1000 + c));
+            });
+
+            ReadStateIndexes indexes = producer.readStates.current().getIndexes();
+            HollowPrimaryKeyIndex cycleIdx = indexes.getPrimaryKeyIndex(primaryKey);
+            if(idx != null)
+                Assert.assertSame(idx, cycleIdx);
+            idx = cycleIdx;
+            /// the primary key index and the reverse reference index of the populator
+            Assert.assertEquals(2, indexes.getNumBuilds());
+
+            for(int i=1;i<=cycle;i++) {
+                assertTypeA(idx, i, "id", i * 1000L);
+                assertTypeA(idx, i + 500, "id", null);
+                assertTypeA(idx, 1000 + i, "id", 1000L + i);
+            }
+            assertTypeA(idx, cycle + 1, "id", cycle + 1L);
+            assertTypeA(idx, 999, "id", 999L);
+        }
+    }
+
+    @Test
+    public void evictsIndexesNotRequestedInRecentCycles() {
+        HollowProducer.Incremental producer = createInMemoryIncrementalProducer();
+        producer.runIncrementalCycle(iws -> {
+            for(int i=0;i<100;i++)
+                iws.addOrModify(new TypeA(i, "id", i));
+        });
+
+        ReadStateIndexes indexes = producer.readStates.current().getIndexes();
+        HollowHashIndex hashIdx = indexes.getHashIndex("TypeA", "id1", "id2");
+
+        for(int cycle=1;cycle<=ReadStateIndexes.UNUSED_CYCLES_BEFORE_EVICTION;cycle++) {
+            final int c = cycle;
+            producer.runIncrementalCycle(iws -> iws.addOrModify(new TypeA(c, "id", c * 1000)));
+
+            Assert.assertSame(indexes, producer.readStates.current().getIndexes());
+            /// the indexes of the incremental populator are requested on each cycle, and are retained
+            Assert.assertEquals(cycle == ReadStateIndexes.UNUSED_CYCLES_BEFORE_EVICTION ? 1 : 0, indexes.getNumEvictions());
+        }
+
+        Assert.assertNotSame(hashIdx, indexes.getHashIndex("TypeA", "id1", "id2"));
+    }
+
+    @Test
+    public void returnsTheSameIndexesForEachCallOnAReadState() {
+        HollowReadStateEngine stateEngine = new HollowReadStateEngine();
+        HollowProducer.ReadState readState = new HollowProducer.ReadState() {
+            @Override
+            public long getVersion() {
+                return 1L;
+            }
+
+            @Override
+            public HollowReadStateEngine getStateEngine() {
+                return stateEngine;
+            }
+        };
+
+        Assert.assertSame(readState.getIndexes(), readState.getIndexes());
+    }
+
     private HollowProducer.Incremental createInMemoryIncrementalProducer() {
         return new HollowProducer.Builder<>()
                 .withPublisher(blobStore)
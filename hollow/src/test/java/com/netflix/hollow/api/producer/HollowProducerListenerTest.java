@@ -1,5 +1,6 @@
 package com.netflix.hollow.api.producer;
 
+import com.netflix.hollow.api.consumer.HollowConsumer;
 import com.netflix.hollow.api.consumer.InMemoryBlobStore;
 import com.netflix.hollow.api.producer.enforcer.SingleProducerEnforcer;
 import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
@@ -13,12 +14,19 @@ import com.netflix.hollow.api.producer.listener.RestoreListener;
 import com.netflix.hollow.api.producer.listener.VetoableListener;
 import com.netflix.hollow.api.producer.validation.ValidationStatus;
 import com.netflix.hollow.api.producer.validation.ValidationStatusListener;
+import com.netflix.hollow.core.HollowBlobHeader;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import com.netflix.hollow.core.read.engine.HollowBlobHeaderReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -839,6 +847,132 @@ public class HollowProducerListenerTest {
         }
     }
 
+    @Test
+    public void testIntegrityCheckSteps() {
+        assertIntegrityCheckSteps(HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager()));
+    }
+
+    @Test
+    public void testPipelinedIntegrityCheckSteps() {
+        assertIntegrityCheckSteps(HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withPipelinedIntegrityCheck());
+    }
+
+    @Test
+    public void testRecordChecksumIntegrityCheckSteps() throws IOException {
+        HollowProducer producer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withRecordChecksums()
+                .build();
+        producer.initializeDataModel(Top.class);
+        IntegrityCheckSteps ls = new IntegrityCheckSteps();
+        producer.addListener(ls);
+
+        producer.runCycle(ws -> ws.add(new Top(1)));
+        Assert.assertEquals(Collections.singletonMap(IntegrityCheckListener.Step.READ_SNAPSHOT, 1), ls.steps);
+
+        /// the deltas are verified against the record checksums published in their headers
+        EnumSet<IntegrityCheckListener.Step> recordChecksumSteps = EnumSet.of(IntegrityCheckListener.Step.READ_SNAPSHOT,
+                IntegrityCheckListener.Step.APPLY_DELTA, IntegrityCheckListener.Step.APPLY_REVERSE_DELTA);
+        long version = 0;
+        for (int i = 2; i < 5; i++) {
+            int n = i;
+            version = producer.runCycle(ws -> {
+                for (int j = 0; j < n * 100; j++) {
+                    ws.add(new Top(j));
+                }
+            });
+            Assert.assertEquals(Status.StatusType.SUCCESS, ls.status.getType());
+            Assert.assertEquals(recordChecksumSteps, ls.steps.keySet());
+            Assert.assertEquals(1, readSnapshotHeader(version).getRecordChecksums().size());
+        }
+
+        /// a restored state does not maintain record checksums, so it is checksummed in full once
+        HollowProducer restoredProducer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withRecordChecksums()
+                .build();
+        restoredProducer.initializeDataModel(Top.class);
+        restoredProducer.addListener(ls);
+        restoredProducer.restore(version, blobStore);
+
+        restoredProducer.runCycle(ws -> ws.add(new Top(1)));
+        Assert.assertEquals(Status.StatusType.SUCCESS, ls.status.getType());
+        Assert.assertEquals(EnumSet.allOf(IntegrityCheckListener.Step.class), ls.steps.keySet());
+
+        restoredProducer.runCycle(ws -> ws.add(new Top(2)));
+        Assert.assertEquals(Status.StatusType.SUCCESS, ls.status.getType());
+        Assert.assertEquals(recordChecksumSteps, ls.steps.keySet());
+    }
+
+    @Test
+    public void testRecordChecksumsAreNotPublishedByDefault() throws IOException {
+        HollowProducer producer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .build();
+        producer.initializeDataModel(Top.class);
+
+        long version = producer.runCycle(ws -> ws.add(new Top(1)));
+        Assert.assertTrue(readSnapshotHeader(version).getRecordChecksums().isEmpty());
+    }
+
+    private HollowBlobHeader readSnapshotHeader(long version) throws IOException {
+        try (HollowBlobInput in = HollowBlobInput.serial(blobStore.retrieveSnapshotBlob(version).getInputStream())) {
+            return new HollowBlobHeaderReader().readHeader(in);
+        }
+    }
+
+    static class IntegrityCheckSteps extends BaseListener implements IntegrityCheckListener {
+        final Map<IntegrityCheckListener.Step, Integer> steps = new ConcurrentHashMap<>();
+        Status status;
+
+        @Override public void onIntegrityCheckStart(long version) {
+            steps.clear();
+        }
+
+        @Override public void onIntegrityCheckComplete(
+                Status status, HollowProducer.ReadState readState, long version, Duration elapsed) {
+            this.status = status;
+        }
+
+        @Override public void onIntegrityCheckStep(Step step, long version, Duration elapsed) {
+            Assert.assertFalse(elapsed.isNegative());
+            steps.merge(step, 1, Integer::sum);
+        }
+    }
+
+    private void assertIntegrityCheckSteps(HollowProducer.Builder<?> builder) {
+        HollowProducer producer = builder.build();
+        producer.initializeDataModel(Top.class);
+
+        IntegrityCheckSteps ls = new IntegrityCheckSteps();
+        producer.addListener(ls);
+
+        producer.runCycle(ws -> ws.add(new Top(1)));
+        Assert.assertEquals(Status.StatusType.SUCCESS, ls.status.getType());
+        Assert.assertEquals(Collections.singletonMap(IntegrityCheckListener.Step.READ_SNAPSHOT, 1), ls.steps);
+
+        for (int i = 2; i < 5; i++) {
+            int n = i;
+            long version = producer.runCycle(ws -> {
+                for (int j = 0; j < n * 100; j++) {
+                    ws.add(new Top(j));
+                }
+            });
+            Assert.assertEquals(Status.StatusType.SUCCESS, ls.status.getType());
+            Assert.assertEquals(EnumSet.allOf(IntegrityCheckListener.Step.class), ls.steps.keySet());
+            for (int count : ls.steps.values()) {
+                Assert.assertEquals(1, count);
+            }
+
+            HollowConsumer consumer = HollowConsumer.withBlobRetriever(blobStore).build();
+            consumer.triggerRefreshTo(version);
+            Assert.assertEquals(n * 100, consumer.getStateEngine().getTypeState("Top").getPopulatedOrdinals().cardinality());
+        }
+    }
+
     static class Top {
         final int id;
 
@@ -31,6 +31,10 @@ import com.netflix.hollow.api.producer.HollowProducerListener.RestoreStatus;
 import com.netflix.hollow.api.producer.HollowProducerListener.Status;
 import com.netflix.hollow.api.producer.enforcer.BasicSingleProducerEnforcer;
 import com.netflix.hollow.api.producer.fs.HollowFilesystemAnnouncer;
+import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
+import com.netflix.hollow.core.HollowBlobHeader;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import com.netflix.hollow.core.read.engine.HollowBlobHeaderReader;
 import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
@@ -42,6 +46,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -212,6 +217,41 @@ public class HollowProducerTest {
         }
     }
 
+    @Test
+    public void testPublishAndRestoreWithParallelSnapshotWrite() throws Exception {
+        File stagingDir = Files.createTempDirectory("hollow-parallel-staging").toFile();
+        HollowProducer producer = HollowProducer.withPublisher(new FakeBlobPublisher())
+                .withAnnouncer(new HollowFilesystemAnnouncer(tmpFolder.toPath()))
+                .withBlobStagingDir(stagingDir)
+                .withParallelSnapshotWrite()
+                .withSnapshotLengths()
+                .withTargetMaxTypeShardSize(16)
+                .build();
+        producer.initializeDataModel(schema);
+        producer.addListener(new FakeProducerListener());
+
+        long version = testPublishV1(producer, 100, 10);
+        restoreAndAssert(producer, version, 100, 10);
+
+        /// the type directory is recorded in the header
+        try (HollowBlobInput in = HollowBlobInput.serial(new FileInputStream(blobFileMap.get(version)))) {
+            HollowBlobHeader header = new HollowBlobHeaderReader().readHeader(in);
+            Assert.assertEquals(Collections.singleton("TestPojo"), header.getTypeLengths().keySet());
+        }
+
+        /// the serialized shards were removed along with the staged blobs
+        Assert.assertEquals(0, stagingDir.list().length);
+        stagingDir.delete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelSnapshotWriteRejectsCustomStager() {
+        HollowProducer.withPublisher(new FakeBlobPublisher())
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .withParallelSnapshotWrite()
+                .build();
+    }
+
     @Test
     public void testPublishAndRestoreWithSchemaChanges() throws Exception {
         int sizeV1 = 3;
@@ -0,0 +1,308 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer;
+
+import com.netflix.hollow.api.consumer.HollowConsumer;
+import com.netflix.hollow.api.consumer.InMemoryBlobStore;
+import com.netflix.hollow.api.objects.generic.GenericHollowObject;
+import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
+import com.netflix.hollow.api.producer.metrics.MutationLatencyMetrics;
+import com.netflix.hollow.api.producer.metrics.ProducerMetricsReporting;
+import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
+import com.netflix.hollow.core.write.objectmapper.HollowPrimaryKey;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MicroBatchCycleSchedulerTest {
+
+    private InMemoryBlobStore blobStore;
+    private List<MutationLatencyMetrics> reportedMetrics;
+    private ProducerMetricsReporting metricsReporting;
+
+    @Before
+    public void setUp() {
+        blobStore = new InMemoryBlobStore();
+        reportedMetrics = new CopyOnWriteArrayList<>();
+        metricsReporting = new ProducerMetricsReporting() {
+            @Override
+            public void mutationLatencyMetricsReporting(MutationLatencyMetrics mutationLatencyMetrics) {
+                reportedMetrics.add(mutationLatencyMetrics);
+            }
+        };
+    }
+
+    @Test
+    public void runsCycleOnceMaxMutationsArePending() throws Exception {
+        HollowProducer producer = createInMemoryProducer();
+        producer.initializeDataModel(TypeA.class);
+        CycleCompletions completions = new CycleCompletions(1);
+
+        HollowIncrementalProducer incrementalProducer = HollowIncrementalProducer.withProducer(producer)
+                .withMaxBatchLatency(1, TimeUnit.HOURS)
+                .withMaxBatchMutations(10)
+                .withMetricsReporting(metricsReporting)
+                .withListener(completions)
+                .build();
+        incrementalProducer.startScheduledCycles();
+
+        for(int i=0;i<10;i++)
+            incrementalProducer.addOrModify(new TypeA(i, i));
+
+        Assert.assertTrue(completions.await());
+        incrementalProducer.stopScheduledCycles();
+
+        Assert.assertFalse(incrementalProducer.hasChanges());
+        Assert.assertEquals(1, reportedMetrics.size());
+        MutationLatencyMetrics metrics = reportedMetrics.get(0);
+        Assert.assertEquals(completions.versions.get(0).longValue(), metrics.getVersion());
+        Assert.assertEquals(10, metrics.getNumMutations());
+        Assert.assertEquals(10, metrics.getLatencies().getCount());
+        Assert.assertTrue(metrics.getCycleLatencies().getValueAtPercentile(99, TimeUnit.MINUTES) < 1);
+
+        HollowPrimaryKeyIndex idx = consumeIndex(completions.versions.get(0));
+        for(int i=0;i<10;i++)
+            assertTypeA(idx, i, i);
+    }
+
+    @Test
+    public void runsCycleOnceOldestMutationReachesMaxLatency() throws Exception {
+        HollowProducer producer = createInMemoryProducer();
+        producer.initializeDataModel(TypeA.class);
+        CycleCompletions completions = new CycleCompletions(1);
+
+        HollowIncrementalProducer incrementalProducer = HollowIncrementalProducer.withProducer(producer)
+                .withMaxBatchLatency(50, TimeUnit.MILLISECONDS)
+                .withMaxBatchMutations(1000)
+                .withMetricsReporting(metricsReporting)
+                .withListener(completions)
+                .build();
+        incrementalProducer.startScheduledCycles();
+
+        long start = System.nanoTime();
+        incrementalProducer.addOrModify(new TypeA(1, 1));
+        incrementalProducer.addOrModify(new TypeA(2, 2));
+
+        Assert.assertTrue(completions.await());
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        incrementalProducer.stopScheduledCycles();
+
+        MutationLatencyMetrics metrics = reportedMetrics.get(0);
+        Assert.assertEquals(2, metrics.getNumMutations());
+        Assert.assertTrue(metrics.getCycleLatencies().getMax(TimeUnit.MILLISECONDS) >= 40);
+    }
+
+    @Test
+    public void mutationsAddedDuringCycleArePublishedByNextCycle() throws Exception {
+        HollowProducer producer = createInMemoryProducer();
+        producer.initializeDataModel(TypeA.class);
+        CountDownLatch cycleStarted = new CountDownLatch(1);
+        CountDownLatch mutationAdded = new CountDownLatch(1);
+        producer.addListener(new AbstractHollowProducerListener() {
+            @Override
+            public void onPopulateStart(long version) {
+                cycleStarted.countDown();
+                try {
+                    mutationAdded.await(10, TimeUnit.SECONDS);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        CycleCompletions completions = new CycleCompletions(2);
+
+        HollowIncrementalProducer incrementalProducer = HollowIncrementalProducer.withProducer(producer)
+                .withMaxBatchLatency(1, TimeUnit.HOURS)
+                .withMaxBatchMutations(1)
+                .withMaxPendingMutations(1)
+                .withListener(completions)
+                .build();
+        incrementalProducer.startScheduledCycles();
+
+        incrementalProducer.addOrModify(new TypeA(1, 1));
+        Assert.assertTrue(cycleStarted.await(10, TimeUnit.SECONDS));
+        incrementalProducer.addOrModify(new TypeA(1, 2));
+        mutationAdded.countDown();
+
+        Assert.assertTrue(completions.await());
+        incrementalProducer.stopScheduledCycles();
+
+        assertTypeA(consumeIndex(completions.versions.get(0)), 1, 1);
+        assertTypeA(consumeIndex(completions.versions.get(1)), 1, 2);
+    }
+
+    @Test
+    public void waitsForCapacityOncePendingMutationsReachBound() throws Exception {
+        HollowProducer producer = createInMemoryProducer();
+        producer.initializeDataModel(TypeA.class);
+        CountDownLatch cycleStarted = new CountDownLatch(1);
+        CountDownLatch cycleReleased = new CountDownLatch(1);
+        producer.addListener(new AbstractHollowProducerListener() {
+            @Override
+            public void onPopulateStart(long version) {
+                cycleStarted.countDown();
+                try {
+                    cycleReleased.await(10, TimeUnit.SECONDS);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        CycleCompletions completions = new CycleCompletions(2);
+
+        HollowIncrementalProducer incrementalProducer = HollowIncrementalProducer.withProducer(producer)
+                .withMaxBatchLatency(1, TimeUnit.HOURS)
+                .withMaxPendingMutations(2)
+                .withListener(completions)
+                .build();
+        incrementalProducer.startScheduledCycles();
+
+        incrementalProducer.addOrModify(new TypeA(1, 1));
+        incrementalProducer.addOrModify(new TypeA(2, 2));
+        Assert.assertTrue(cycleStarted.await(10, TimeUnit.SECONDS));
+
+        /// the cycle is blocked, so the next batch fills up
+        incrementalProducer.addOrModify(new TypeA(3, 3));
+        incrementalProducer.addOrModify(new TypeA(4, 4));
+        incrementalProducer.addOrModify(new TypeA(4, 5));
+
+        Thread writer = new Thread(() -> incrementalProducer.addOrModify(new TypeA(5, 5)));
+        writer.start();
+        writer.join(100);
+        Assert.assertTrue(writer.isAlive());
+
+        cycleReleased.countDown();
+        writer.join(10000);
+        Assert.assertFalse(writer.isAlive());
+        Assert.assertTrue(completions.await());
+        incrementalProducer.stopScheduledCycles();
+
+        /// the waiting mutation is added once the second cycle has taken the full batch, so it is pending for the third
+        HollowPrimaryKeyIndex idx = consumeIndex(completions.versions.get(1));
+        assertTypeA(idx, 3, 3);
+        assertTypeA(idx, 4, 5);
+        Assert.assertEquals(-1, idx.getMatchingOrdinal(5));
+        Assert.assertTrue(incrementalProducer.hasChanges());
+
+        assertTypeA(consumeIndex(incrementalProducer.runCycle()), 5, 5);
+    }
+
+    @Test
+    public void failsMutationsOnceScheduledCyclesStopUnexpectedly() throws Exception {
+        HollowProducer producer = createInMemoryProducer();
+        producer.initializeDataModel(TypeA.class);
+        CountDownLatch cycleFailed = new CountDownLatch(1);
+        List<Throwable> causes = new CopyOnWriteArrayList<>();
+
+        File spillDirectory = Files.createTempDirectory("hollow-mutations").toFile();
+        HollowIncrementalProducer incrementalProducer = HollowIncrementalProducer.withProducer(producer)
+                .withMutationSpillDirectory(spillDirectory, 0)
+                .withMaxBatchLatency(1, TimeUnit.HOURS)
+                .withMaxPendingMutations(1)
+                .withListener(new AbstractIncrementalCycleListener() {
+                    @Override
+                    public void onCycleFail(IncrementalCycleStatus status, long elapsed, TimeUnit unit) {
+                        causes.add(status.getCause());
+                        cycleFailed.countDown();
+                    }
+                })
+                .build();
+        incrementalProducer.startScheduledCycles();
+
+        /// the cycle cannot create a store for the next batch of mutations
+        for (File file : spillDirectory.listFiles())
+            Assert.assertTrue(file.delete());
+        Assert.assertTrue(spillDirectory.delete());
+
+        incrementalProducer.addOrModify(new TypeA(1, 1));
+        Assert.assertTrue(cycleFailed.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(causes.get(0) instanceof UncheckedIOException);
+
+        try {
+            incrementalProducer.addOrModify(new TypeA(2, 2));
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            Assert.assertSame(causes.get(0), expected.getCause());
+        }
+
+        incrementalProducer.stopScheduledCycles();
+        Assert.assertTrue(incrementalProducer.hasChanges());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void schedulingLimitsRequireMaxLatency() {
+        HollowIncrementalProducer.withProducer(createInMemoryProducer())
+                .withMaxBatchMutations(10)
+                .build();
+    }
+
+    private HollowPrimaryKeyIndex consumeIndex(long version) {
+        HollowConsumer consumer = HollowConsumer.withBlobRetriever(blobStore).build();
+        consumer.triggerRefreshTo(version);
+        return new HollowPrimaryKeyIndex(consumer.getStateEngine(), "TypeA", "id");
+    }
+
+    private static void assertTypeA(HollowPrimaryKeyIndex idx, int id, long expectedValue) {
+        int ordinal = idx.getMatchingOrdinal(id);
+        Assert.assertNotEquals(-1, ordinal);
+        Assert.assertEquals(expectedValue, new GenericHollowObject(idx.getTypeState(), ordinal).getLong("value"));
+    }
+
+    private HollowProducer createInMemoryProducer() {
+        return HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .build();
+    }
+
+    private static class CycleCompletions extends AbstractIncrementalCycleListener {
+        private final CountDownLatch latch;
+        private final List<Long> versions = new CopyOnWriteArrayList<>();
+
+        CycleCompletions(int numCycles) {
+            this.latch = new CountDownLatch(numCycles);
+        }
+
+        @Override
+        public void onCycleComplete(IncrementalCycleStatus status, long elapsed, TimeUnit unit) {
+            versions.add(status.getVersion());
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @HollowPrimaryKey(fields = "id")
+    private static class TypeA {
+        int id;
+        long value;
+
+        TypeA(int id, long value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.api.producer.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void reportsPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(long i=1;i<=1000;i++)
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i), 1);
+
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getMax(TimeUnit.MILLISECONDS));
+        assertWithinPrecision(500, histogram.getValueAtPercentile(50, TimeUnit.MILLISECONDS));
+        assertWithinPrecision(990, histogram.getValueAtPercentile(99, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void recordsSmallAndNegativeLatenciesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5, 1);
+        histogram.record(3, 2);
+        histogram.record(7, 1);
+
+        Assert.assertEquals(0, histogram.getValueAtPercentile(25, TimeUnit.NANOSECONDS));
+        Assert.assertEquals(3, histogram.getValueAtPercentile(75, TimeUnit.NANOSECONDS));
+        Assert.assertEquals(7, histogram.getValueAtPercentile(100, TimeUnit.NANOSECONDS));
+        Assert.assertEquals(0, new LatencyHistogram().getValueAtPercentile(99, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void addsHistograms() {
+        LatencyHistogram a = new LatencyHistogram();
+        a.record(100, 3);
+        LatencyHistogram b = new LatencyHistogram();
+        b.record(Long.MAX_VALUE, 1);
+
+        LatencyHistogram sum = a.copy();
+        sum.add(b);
+
+        Assert.assertEquals(3, a.getCount());
+        Assert.assertEquals(4, sum.getCount());
+        Assert.assertEquals(Long.MAX_VALUE, sum.getMax(TimeUnit.NANOSECONDS));
+        Assert.assertEquals(Long.MAX_VALUE, sum.getValueAtPercentile(100, TimeUnit.NANOSECONDS));
+        assertWithinPrecision(100, sum.getValueAtPercentile(75, TimeUnit.NANOSECONDS));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        Assert.assertTrue(actual + " is not within 12.5% of " + expected,
+                actual >= expected && actual <= expected + expected / 8);
+    }
+}
@@ -21,9 +21,13 @@ import com.netflix.hollow.core.read.iterator.HollowOrdinalIterator;
 import com.netflix.hollow.core.write.objectmapper.HollowInline;
 import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Assert;
@@ -258,6 +262,70 @@ public class HollowHashIndexTest extends AbstractStateEngineTest {
         assertIteratorContainsAll(preUpdateIterator, 4, 5);
     }
     
+    @Test
+    public void testUpdateListenerAppliesSmallDeltasIncrementally() throws Exception {
+        Random rand = new Random(1000);
+        List<TypeA> records = new ArrayList<>();
+        for(int i=0;i<1000;i++)
+            records.add(randomTypeA(rand, i));
+        for(TypeA record : records)
+            mapper.add(record);
+
+        roundTripSnapshot();
+
+        HollowHashIndex index = new HollowHashIndex(readStateEngine, "TypeA", "", "a1", "ab.element.b1.value");
+        index.listenForDeltaUpdates();
+        HollowPreindexer preindexer = index.getHashState().getPreindexer();
+
+        for(int cycle=0;cycle<20;cycle++) {
+            /// the results obtained before a delta continue to read the tables of the prior state
+            Map<HollowHashIndexResult, Set<Integer>> priorResults = new HashMap<>();
+            for(int a1=0;a1<10;a1++) {
+                HollowHashIndexResult result = index.findMatches(a1, String.valueOf(a1));
+                if(result != null)
+                    priorResults.put(result, toSet(result));
+            }
+
+            for(int i=0;i<20;i++)
+                records.set(rand.nextInt(records.size()), randomTypeA(rand, cycle * 20 + i));
+            records.remove(rand.nextInt(records.size()));
+
+            for(TypeA record : records)
+                mapper.add(record);
+            roundTripDelta();
+
+            /// a full rebuild of the index would build a new preindexer
+            Assert.assertSame(preindexer, index.getHashState().getPreindexer());
+
+            HollowHashIndex rebuiltIndex = new HollowHashIndex(readStateEngine, "TypeA", "", "a1", "ab.element.b1.value");
+            for(int a1=0;a1<10;a1++) {
+                for(int b1=0;b1<10;b1++) {
+                    Set<Integer> expected = toSet(rebuiltIndex.findMatches(a1, String.valueOf(b1)));
+                    HollowHashIndexResult result = index.findMatches(a1, String.valueOf(b1));
+                    Assert.assertEquals(expected, toSet(result));
+                    Assert.assertEquals(expected.size(), result == null ? 0 : result.numResults());
+                }
+            }
+
+            for(Map.Entry<HollowHashIndexResult, Set<Integer>> entry : priorResults.entrySet())
+                Assert.assertEquals(entry.getValue(), toSet(entry.getKey()));
+        }
+    }
+
+    private TypeA randomTypeA(Random rand, double a2) {
+        TypeB[] ab = new TypeB[rand.nextInt(4)];
+        for(int i=0;i<ab.length;i++)
+            ab[i] = new TypeB(String.valueOf(rand.nextInt(10)));
+        return new TypeA(rand.nextInt(10), a2, ab);
+    }
+
+    private Set<Integer> toSet(HollowHashIndexResult result) {
+        Set<Integer> ordinals = new HashSet<>();
+        if(result != null)
+            result.stream().forEach(ordinals::add);
+        return ordinals;
+    }
+
     @Test
     public void testGettingPropertiesValues() throws Exception {
         mapper.add(new TypeInlinedString(null));
@@ -154,6 +154,106 @@ public class HollowPrefixIndexTest {
 
     }
 
+    @Test
+    public void testFindFirstKeysWithPrefix() throws Exception {
+        String[] names = {"abd", "b", "ab", "abc", "abc", "a"};
+        for (int i = 0; i < names.length; i++) {
+            objectMapper.add(new SimpleMovie(i, names[i], 2000));
+        }
+        StateEngineRoundTripper.roundTripSnapshot(writeStateEngine, readStateEngine);
+
+        HollowPrefixIndex prefixIndex = new HollowPrefixIndex(readStateEngine, "SimpleMovie", "name");
+        Assert.assertEquals(Arrays.asList("ab", "abc", "abc"), getMovieNamesInOrder(prefixIndex.findKeysWithPrefix("AB", 3)));
+        Assert.assertEquals(Arrays.asList("a", "ab"), getMovieNamesInOrder(prefixIndex.findKeysWithPrefix("", 2)));
+        Assert.assertEquals(Collections.singletonList("abd"), getMovieNamesInOrder(prefixIndex.findKeysWithPrefix("abd", 10)));
+        Assert.assertEquals(Collections.emptyList(), getMovieNamesInOrder(prefixIndex.findKeysWithPrefix("a", 0)));
+        Assert.assertEquals(Collections.emptyList(), getMovieNamesInOrder(prefixIndex.findKeysWithPrefix("c", 10)));
+        Assert.assertEquals(names.length, toSet(prefixIndex.findKeysWithPrefix("")).size());
+    }
+
+    @Test
+    public void testDeltaChangesAcrossManyUpdates() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            objectMapper.add(new SimpleMovie(i, "movie " + i, 2000));
+        }
+        StateEngineRoundTripper.roundTripSnapshot(writeStateEngine, readStateEngine);
+
+        // underestimate the size of the index, so that it grows as keys are added
+        HollowPrefixIndex prefixIndex = new HollowPrefixIndex(readStateEngine, "SimpleMovie", "name") {
+            @Override
+            protected long estimateNumNodes(long totalWords, long averageWordLen) {
+                return 1;
+            }
+        };
+        prefixIndex.listenForDeltaUpdates();
+
+        for (int cycle = 1; cycle <= 10; cycle++) {
+            Set<String> expectedNames = new HashSet<>();
+            for (int i = cycle * 20; i < cycle * 20 + 50; i++) {
+                objectMapper.add(new SimpleMovie(i, "movie " + i, 2000));
+                expectedNames.add("movie " + i);
+            }
+            StateEngineRoundTripper.roundTripDelta(writeStateEngine, readStateEngine);
+
+            Assert.assertEquals(expectedNames, getMovieNames(toSet(prefixIndex.findKeysWithPrefix("movie")), "SimpleMovie", "name"));
+            for (String prefix : new String[] {"movie 1", "movie 2", "movie 19"}) {
+                Set<String> expected = new HashSet<>();
+                for (String name : expectedNames) {
+                    if (name.startsWith(prefix)) expected.add(name);
+                }
+                Assert.assertEquals(expected, getMovieNames(toSet(prefixIndex.findKeysWithPrefix(prefix)), "SimpleMovie", "name"));
+            }
+            Assert.assertTrue(prefixIndex.contains("movie " + (cycle * 20)));
+            Assert.assertFalse(prefixIndex.contains("movie " + (cycle * 20 - 1)));
+        }
+
+        prefixIndex.detachFromDeltaUpdates();
+    }
+
+    @Test
+    public void testDeltaUpdateWaitsForQueriesReadingStandbyTrie() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            objectMapper.add(new SimpleMovie(i, "movie " + i, 2000));
+        }
+        StateEngineRoundTripper.roundTripSnapshot(writeStateEngine, readStateEngine);
+
+        HollowPrefixIndex prefixIndex = new HollowPrefixIndex(readStateEngine, "SimpleMovie", "name");
+        prefixIndex.listenForDeltaUpdates();
+
+        // a slow query still reads the snapshot's trie after the first update swaps it out
+        PrefixTrie slowQueryTrie = prefixIndex.acquireTrie();
+        addMovies(20, 70);
+        StateEngineRoundTripper.roundTripDelta(writeStateEngine, readStateEngine);
+
+        // the second update brings the snapshot's trie up to date, which must wait for the slow query
+        Thread update = new Thread(() -> {
+            addMovies(40, 90);
+            try {
+                StateEngineRoundTripper.roundTripDelta(writeStateEngine, readStateEngine);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        update.start();
+        update.join(500);
+        Assert.assertTrue(update.isAlive());
+        Assert.assertEquals(50, slowQueryTrie.findOrdinals("movie", Integer.MAX_VALUE).length);
+        Assert.assertTrue(slowQueryTrie.contains("movie 0"));
+
+        slowQueryTrie.readers.decrementAndGet();
+        update.join();
+        Assert.assertTrue(prefixIndex.contains("movie 89"));
+        Assert.assertFalse(prefixIndex.contains("movie 39"));
+        Assert.assertEquals(50, toSet(prefixIndex.findKeysWithPrefix("movie")).size());
+        prefixIndex.detachFromDeltaUpdates();
+    }
+
+    private void addMovies(int from, int to) {
+        for (int i = from; i < to; i++) {
+            objectMapper.add(new SimpleMovie(i, "movie " + i, 2000));
+        }
+    }
+
     @Test
     public void testListReference() throws Exception {
         MovieListReference movieListReference = new MovieListReference(1, 1999, "The Matrix", Arrays.asList("Keanu Reeves", "Laurence Fishburne", "Carrie-Anne Moss"));
@@ -347,6 +447,19 @@ public class HollowPrefixIndexTest {
         return ordinals;
     }
 
+    private List<String> getMovieNamesInOrder(HollowOrdinalIterator iterator) {
+        List<String> movieNames = new ArrayList<>();
+        HollowObjectTypeReadState movieReadState = (HollowObjectTypeReadState) readStateEngine.getTypeState("SimpleMovie");
+        HollowObjectTypeReadState nameReadState = (HollowObjectTypeReadState) readStateEngine.getTypeState("String");
+        int nameField = movieReadState.getSchema().getPosition("name");
+        int ordinal = iterator.next();
+        while (ordinal != HollowOrdinalIterator.NO_MORE_ORDINALS) {
+            movieNames.add(nameReadState.readString(movieReadState.readOrdinal(ordinal, nameField), 0));
+            ordinal = iterator.next();
+        }
+        return movieNames;
+    }
+
     private Set<String> getMovieNames(Set<Integer> ordinals, String type, String field) {
         Set<String> movieNames = new HashSet<>();
         HollowObjectTypeReadState movieReadState = (HollowObjectTypeReadState) readStateEngine.getTypeState(type);
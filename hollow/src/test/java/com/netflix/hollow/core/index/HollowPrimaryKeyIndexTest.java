@@ -25,6 +25,12 @@ import com.netflix.hollow.core.write.HollowWriteStateEngine;
 import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
 import com.netflix.hollow.core.write.objectmapper.HollowPrimaryKey;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -169,6 +175,52 @@ public class HollowPrimaryKeyIndexTest extends AbstractStateEngineTest {
         assertEquals(idx.getRecordKey(3), 3, 3.3d, "three");
     }
 
+    @Test
+    public void updatesInPlaceAcrossDeltas() throws IOException {
+        HollowObjectMapper mapper = new HollowObjectMapper(writeStateEngine);
+        for(int i=0;i<500;i++)
+            mapper.add(new TypeA(i, i, new TypeB("b" + i)));
+        roundTripSnapshot();
+
+        HollowPrimaryKeyIndex idx = new HollowPrimaryKeyIndex(readStateEngine, readStateEngine.getMemoryRecycler(), "TypeA", "a1", "a2", "ab.b1.value");
+        idx.listenForDeltaUpdates(true);
+
+        /// a failed consistency check of a delta update is logged before the index is rebuilt
+        List<LogRecord> failures = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if(record.getLevel() == Level.SEVERE)
+                    failures.add(record);
+            }
+
+            @Override
+            public void flush() { }
+
+            @Override
+            public void close() { }
+        };
+        Logger.getLogger(HollowPrimaryKeyIndex.class.getName()).addHandler(handler);
+        try {
+            for(int cycle=1;cycle<=10;cycle++) {
+                /// each delta removes and adds 10 records, so that the hash table is updated in place
+                for(int i=cycle*10;i<500+cycle*10;i++)
+                    mapper.add(new TypeA(i, i, new TypeB("b" + i)));
+                roundTripDelta();
+
+                for(int i=cycle*10;i<500+cycle*10;i++) {
+                    int ordinal = idx.getMatchingOrdinal(i, (double)i, "b" + i);
+                    Assert.assertNotEquals(-1, ordinal);
+                    assertEquals(idx.getRecordKey(ordinal), i, (double)i, "b" + i);
+                }
+                Assert.assertEquals(-1, idx.getMatchingOrdinal(cycle*10 - 1, (double)(cycle*10 - 1), "b" + (cycle*10 - 1)));
+            }
+        } finally {
+            Logger.getLogger(HollowPrimaryKeyIndex.class.getName()).removeHandler(handler);
+        }
+        Assert.assertTrue(failures.isEmpty());
+    }
+
     @Test
     public void testDups() throws IOException {
         String typeA = "TypeA";
@@ -283,6 +335,87 @@ public class HollowPrimaryKeyIndexTest extends AbstractStateEngineTest {
         }
     }
 
+    @Test
+    public void matchesBatchesOfKeys() throws IOException {
+        HollowObjectMapper mapper = new HollowObjectMapper(writeStateEngine);
+        for (int i = 0; i < 1000; i++) {
+            mapper.add(new TypeC(i, i * 1000000000L, "name" + i));
+        }
+
+        roundTripSnapshot();
+
+        HollowPrimaryKeyIndex intIdx = new HollowPrimaryKeyIndex(readStateEngine, "TypeC", "id");
+        HollowPrimaryKeyIndex longIdx = new HollowPrimaryKeyIndex(readStateEngine, "TypeC", "longId");
+        HollowPrimaryKeyIndex stringIdx = new HollowPrimaryKeyIndex(readStateEngine, "TypeC", "name.value");
+        HollowPrimaryKeyIndex multiFieldIdx = new HollowPrimaryKeyIndex(readStateEngine, "TypeC", "id", "name.value");
+        intIdx.listenForDeltaUpdates();
+
+        assertBatchesMatch(intIdx, longIdx, stringIdx, multiFieldIdx);
+
+        for (int i = 500; i < 1500; i++) {
+            mapper.add(new TypeC(i, i * 1000000000L, "name" + i));
+        }
+
+        roundTripDelta();
+
+        assertBatchesMatch(intIdx, longIdx, stringIdx, multiFieldIdx);
+
+        int[] ordinals = new int[2];
+        intIdx.getMatchingOrdinals(new int[] { 0, 1499 }, ordinals);
+        Assert.assertEquals(-1, ordinals[0]);
+        Assert.assertEquals(intIdx.getMatchingOrdinal(1499), ordinals[1]);
+        Assert.assertNotEquals(-1, ordinals[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBatchesOfKeysOfTheWrongType() throws IOException {
+        HollowObjectMapper mapper = new HollowObjectMapper(writeStateEngine);
+        mapper.add(new TypeC(1, 1L, "one"));
+
+        roundTripSnapshot();
+
+        HollowPrimaryKeyIndex idx = new HollowPrimaryKeyIndex(readStateEngine, "TypeC", "id");
+        idx.getMatchingOrdinals(new long[] { 1L }, new int[1]);
+    }
+
+    private static void assertBatchesMatch(HollowPrimaryKeyIndex intIdx, HollowPrimaryKeyIndex longIdx,
+            HollowPrimaryKeyIndex stringIdx, HollowPrimaryKeyIndex multiFieldIdx) {
+        int numKeys = 2000;
+        int[] intKeys = new int[numKeys];
+        long[] longKeys = new long[numKeys];
+        String[] stringKeys = new String[numKeys];
+        Object[][] multiFieldKeys = new Object[numKeys][];
+        for (int i = 0; i < numKeys; i++) {
+            int id = (i * 7) % numKeys;
+            intKeys[i] = id;
+            longKeys[i] = id * 1000000000L;
+            stringKeys[i] = "name" + id;
+            multiFieldKeys[i] = new Object[] { id, i % 3 == 0 ? "other" : "name" + id };
+        }
+
+        int[] ordinals = new int[numKeys];
+
+        intIdx.getMatchingOrdinals(intKeys, ordinals);
+        for (int i = 0; i < numKeys; i++) {
+            Assert.assertEquals(intIdx.getMatchingOrdinal(intKeys[i]), ordinals[i]);
+        }
+
+        longIdx.getMatchingOrdinals(longKeys, ordinals);
+        for (int i = 0; i < numKeys; i++) {
+            Assert.assertEquals(longIdx.getMatchingOrdinal(longKeys[i]), ordinals[i]);
+        }
+
+        stringIdx.getMatchingOrdinals(stringKeys, ordinals);
+        for (int i = 0; i < numKeys; i++) {
+            Assert.assertEquals(stringIdx.getMatchingOrdinal(stringKeys[i]), ordinals[i]);
+        }
+
+        multiFieldIdx.getMatchingOrdinals(multiFieldKeys, ordinals);
+        for (int i = 0; i < numKeys; i++) {
+            Assert.assertEquals(multiFieldIdx.getMatchingOrdinal(multiFieldKeys[i]), ordinals[i]);
+        }
+    }
+
     private static void addDataForDupTesting(HollowWriteStateEngine writeStateEngine, int a1Start, double a2, int size) {
         TypeB typeB = new TypeB("commonTypeB");
         HollowObjectMapper mapper = new HollowObjectMapper(writeStateEngine);
@@ -328,6 +461,18 @@ public class HollowPrimaryKeyIndexTest extends AbstractStateEngineTest {
         }
     }
 
+    private static class TypeC {
+        private final int id;
+        private final long longId;
+        private final String name;
+
+        public TypeC(int id, long longId, String name) {
+            this.id = id;
+            this.longId = longId;
+            this.name = name;
+        }
+    }
+
     @Override
     protected void initializeTypeStates() { }
 
@@ -16,6 +16,9 @@
  */
 package com.netflix.hollow.core.memory;
 
+import com.netflix.hollow.core.util.SimultaneousExecutor;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -60,6 +63,103 @@ public class ByteArrayOrdinalTest {
         Assert.assertArrayEquals(ordinals, newOrdinals);
     }
 
+    @Test
+    public void testConcurrentAssignment() throws Exception {
+        final ByteArrayOrdinalMap m = new ByteArrayOrdinalMap();
+        final int numRecords = 100000;
+        final int numThreads = 8;
+        final AtomicIntegerArray ordinals = new AtomicIntegerArray(numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            ordinals.set(i, -1);
+        }
+
+        /// every thread adds every record, in a different order, so that threads race to add the same records
+        SimultaneousExecutor executor = new SimultaneousExecutor(numThreads, getClass(), "concurrent-assignment");
+        for (int t = 0; t < numThreads; t++) {
+            final int offset = t * (numRecords / numThreads);
+            executor.execute(() -> {
+                for (int i = 0; i < numRecords; i++) {
+                    int record = (i + offset) % numRecords;
+                    int ordinal = m.getOrAssignOrdinal(createBuffer(concurrentRecord(record)));
+                    if (!ordinals.compareAndSet(record, -1, ordinal) && ordinals.get(record) != ordinal) {
+                        throw new AssertionError("Record " + record + " was assigned multiple ordinals");
+                    }
+                }
+            });
+        }
+        executor.awaitSuccessfulCompletion();
+
+        BitSet assigned = new BitSet();
+        for (int i = 0; i < numRecords; i++) {
+            Assert.assertFalse("Ordinal was assigned to multiple records", assigned.get(ordinals.get(i)));
+            assigned.set(ordinals.get(i));
+            Assert.assertEquals(ordinals.get(i), m.get(createBuffer(concurrentRecord(i))));
+        }
+        Assert.assertEquals(numRecords, assigned.cardinality());
+        Assert.assertEquals(numRecords - 1, m.maxOrdinal());
+    }
+
+    /// records of varying length, some of which span the segments of the byte data
+    private static String concurrentRecord(int record) {
+        StringBuilder sb = new StringBuilder("TEST").append(record);
+        for (int i = 0; i < record % 50; i++) {
+            sb.append("-padding");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testFailedAssignmentIsThrownToWaitingThreads() throws Exception {
+        final ByteArrayOrdinalMap m = new ByteArrayOrdinalMap();
+
+        /// a preferred ordinal cannot be assigned before the previously populated ordinals are reserved, which
+        /// fails after the bucket was claimed with a pending key
+        try {
+            m.getOrAssignOrdinal(createBuffer("TEST"), 5);
+            Assert.fail();
+        } catch (NullPointerException expected) {
+        }
+
+        final Throwable[] thrown = new Throwable[1];
+        Thread waiting = new Thread(() -> {
+            try {
+                m.get(createBuffer("TEST"));
+            } catch (Throwable t) {
+                thrown[0] = t;
+            }
+        });
+        waiting.setDaemon(true);
+        waiting.start();
+        waiting.join(5000);
+
+        Assert.assertFalse("Waited forever for the ordinal of a failed assignment", waiting.isAlive());
+        Assert.assertTrue(thrown[0] instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testSingleThreadedAssignmentIsDeterministic() {
+        ByteArrayOrdinalMap m = new ByteArrayOrdinalMap();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, m.getOrAssignOrdinal(createBuffer("TEST" + i)));
+        }
+
+        m.prepareForWrite();
+        ThreadSafeBitSet used = new ThreadSafeBitSet();
+        for (int i = 0; i < 1000; i += 2) {
+            used.set(i);
+        }
+        m.compact(used);
+
+        /// freed ordinals are reused in ascending order
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals(i * 2 + 1, m.getOrAssignOrdinal(createBuffer("NEW" + i)));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            Assert.assertEquals(i, m.get(createBuffer("TEST" + i)));
+        }
+        Assert.assertEquals(1000, m.getOrAssignOrdinal(createBuffer("NEW" + 500)));
+    }
+
     static ByteDataArray createBuffer(String s) {
         return write(new ByteDataArray(), s);
     }
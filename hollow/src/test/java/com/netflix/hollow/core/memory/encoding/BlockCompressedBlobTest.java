@@ -0,0 +1,260 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory.encoding;
+
+import com.netflix.hollow.api.consumer.HollowConsumer;
+import com.netflix.hollow.api.consumer.InMemoryBlobStore;
+import com.netflix.hollow.api.producer.HollowProducer;
+import com.netflix.hollow.api.producer.fs.HollowInMemoryBlobStager;
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import com.netflix.hollow.core.read.engine.HollowBlobReader;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.util.SimultaneousExecutor;
+import com.netflix.hollow.core.write.HollowBlobWriter;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import com.netflix.hollow.tools.checksum.HollowChecksum;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlockCompressedBlobTest {
+
+    @Test
+    public void readsBlocksWithRandomAccess() throws IOException {
+        byte[] data = randomData(100000);
+        File file = writeCompressed(data, 10);
+        try {
+            BlockCompressedBlob blob = BlockCompressedBlob.open(file, 4);
+            Assert.assertTrue(BlockCompressedBlob.isBlockCompressed(file));
+            Assert.assertEquals(data.length, blob.length());
+            Assert.assertTrue(file.length() < data.length);
+
+            BlobByteBuffer buffer = BlobByteBuffer.blockCompressed(blob);
+            Random rand = new Random(1);
+            for(int i=0;i<10000;i++) {
+                int index = rand.nextInt(data.length);
+                Assert.assertEquals(data[index], buffer.getByte(index));
+            }
+
+            BlockCompressedBlob.Reader reader = blob.newReader();
+            reader.seek(5000);
+            byte[] read = new byte[3000];
+            Assert.assertEquals(3000, readFully(reader, read));
+            for(int i=0;i<read.length;i++)
+                Assert.assertEquals(data[5000 + i], read[i]);
+            Assert.assertEquals(8000, reader.getFilePointer());
+
+            reader.seek(data.length - 1);
+            Assert.assertEquals(data[data.length - 1] & 0xFF, reader.read());
+            Assert.assertEquals(-1, reader.read());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void readsLongsWithinAndAcrossBlocks() throws Exception {
+        byte[] data = randomData(100000);
+        File file = writeCompressed(data, 10);
+        File uncompressed = Files.createTempFile("hollow-uncompressed", "blob").toFile();
+        try (RandomAccessFile raf = new RandomAccessFile(uncompressed, "rw")) {
+            raf.write(data);
+            final BlobByteBuffer expected = BlobByteBuffer.mmapBlob(raf.getChannel(), 1 << 20);
+            final BlobByteBuffer buffer = BlobByteBuffer.blockCompressed(BlockCompressedBlob.open(file, 2));
+
+            for(int i=0;i<data.length;i++)
+                Assert.assertEquals(expected.getLong(i), buffer.getLong(i));
+
+            /// concurrent readers of distinct blocks evict each other's blocks from the small cache
+            SimultaneousExecutor executor = new SimultaneousExecutor(4, getClass(), "read-longs");
+            for(int t=0;t<4;t++) {
+                final Random rand = new Random(t);
+                executor.execute(() -> {
+                    for(int i=0;i<20000;i++) {
+                        int index = rand.nextInt(data.length);
+                        Assert.assertEquals(expected.getLong(index), buffer.getLong(index));
+                    }
+                });
+            }
+            executor.awaitSuccessfulCompletion();
+        } finally {
+            file.delete();
+            uncompressed.delete();
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyReadBlock() throws IOException {
+        byte[] data = randomData(10000);
+        File file = writeCompressed(data, 10);
+        try {
+            BlockCompressedBlob blob = BlockCompressedBlob.open(file, 2);
+
+            byte[] block0 = blob.block(0);
+            byte[] block1 = blob.block(1);
+            Assert.assertSame(block0, blob.block(0));
+
+            /// block 1 was read less recently than block 0, although it was decompressed later
+            blob.block(2);
+            Assert.assertSame(block0, blob.block(0));
+            byte[] block1Again = blob.block(1);
+            Assert.assertNotSame(block1, block1Again);
+
+            /// decompressing block 1 again evicted block 2, which was read less recently than block 0
+            Assert.assertSame(block0, blob.block(0));
+            Assert.assertSame(block1Again, blob.block(1));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void readsBlocksSerially() throws IOException {
+        byte[] data = randomData(100000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream os = new BlockCompressedOutputStream(compressed, BlockCodec.DEFLATE, 12)) {
+            os.write(data, 0, 1234);
+            os.write(data[1234]);
+            os.write(data, 1235, data.length - 1235);
+        }
+
+        InputStream is = BlockCompressedInputStream.decompressIfBlockCompressed(new ByteArrayInputStream(compressed.toByteArray()));
+        Assert.assertTrue(is instanceof BlockCompressedInputStream);
+        byte[] read = new byte[data.length];
+        Assert.assertEquals(data.length, readFully(is, read));
+        Assert.assertEquals(-1, is.read());
+        Assert.assertArrayEquals(data, read);
+
+        /// a stream which is not block compressed is read unchanged
+        is = BlockCompressedInputStream.decompressIfBlockCompressed(new ByteArrayInputStream(data));
+        Assert.assertEquals(data.length, readFully(is, read));
+        Assert.assertArrayEquals(data, read);
+    }
+
+    @Test
+    public void readsSnapshotFromBlockCompressedFile() throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        writeEngine.setTargetMaxTypeShardSize(4096);
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        for(int i=0;i<10000;i++)
+            mapper.add(new Movie(i, "movie " + i));
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(snapshot);
+        HollowReadStateEngine expected = new HollowReadStateEngine();
+        new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(snapshot.toByteArray()));
+
+        File file = writeCompressed(snapshot.toByteArray(), 12);
+        try {
+            HollowReadStateEngine sharedMemory = new HollowReadStateEngine();
+            try (HollowBlobInput in = HollowBlobInput.randomAccess(file)) {
+                new HollowBlobReader(sharedMemory, MemoryMode.SHARED_MEMORY_LAZY).readSnapshot(in);
+            }
+            Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(sharedMemory));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void compressesLocalCopiesOfRemoteBlobs() throws IOException {
+        InMemoryBlobStore blobStore = new InMemoryBlobStore();
+        HollowProducer producer = HollowProducer.withPublisher(blobStore)
+                .withBlobStager(new HollowInMemoryBlobStager())
+                .build();
+        long version = producer.runCycle(ws -> {
+            for(int i=0;i<10000;i++)
+                ws.add(new Movie(i, "movie " + i));
+        });
+
+        File localBlobStore = Files.createTempDirectory("hollow-block-compressed").toFile();
+        try {
+            for(MemoryMode memoryMode : new MemoryMode[] { MemoryMode.ON_HEAP, MemoryMode.SHARED_MEMORY_LAZY }) {
+                HollowConsumer consumer = HollowConsumer.withBlobRetriever(blobStore)
+                        .withLocalBlobStore(localBlobStore, false, BlockCodec.DEFLATE)
+                        .withMemoryMode(memoryMode)
+                        .build();
+                consumer.triggerRefreshTo(version);
+                Assert.assertEquals(version, consumer.getCurrentVersionId());
+                Assert.assertEquals(HollowChecksum.forStateEngine(readBack(blobStore, version)),
+                        HollowChecksum.forStateEngine(consumer.getStateEngine()));
+
+                File localCopy = new File(localBlobStore, "snapshot-" + version);
+                Assert.assertTrue(BlockCompressedBlob.isBlockCompressed(localCopy));
+            }
+        } finally {
+            for(File file : localBlobStore.listFiles())
+                file.delete();
+            localBlobStore.delete();
+        }
+    }
+
+    private HollowReadStateEngine readBack(InMemoryBlobStore blobStore, long version) throws IOException {
+        HollowReadStateEngine readEngine = new HollowReadStateEngine();
+        try (InputStream is = blobStore.retrieveSnapshotBlob(version).getInputStream()) {
+            new HollowBlobReader(readEngine).readSnapshot(HollowBlobInput.serial(is));
+        }
+        return readEngine;
+    }
+
+    private File writeCompressed(byte[] data, int log2OfBlockSize) throws IOException {
+        File file = Files.createTempFile("hollow-block-compressed", "blob").toFile();
+        try (OutputStream os = new BlockCompressedOutputStream(new FileOutputStream(file), BlockCodec.DEFLATE, log2OfBlockSize)) {
+            os.write(data);
+        }
+        return file;
+    }
+
+    private byte[] randomData(int length) {
+        /// compressible data, drawn from a small alphabet
+        Random rand = new Random(0);
+        byte[] data = new byte[length];
+        for(int i=0;i<length;i++)
+            data[i] = (byte) ('a' + rand.nextInt(8));
+        return data;
+    }
+
+    private int readFully(InputStream is, byte[] b) throws IOException {
+        int total = 0;
+        int n;
+        while(total < b.length && (n = is.read(b, total, b.length - total)) != -1)
+            total += n;
+        return total;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Movie {
+        private final int id;
+        private final String title;
+
+        Movie(int id, String title) {
+            this.id = id;
+            this.title = title;
+        }
+    }
+}
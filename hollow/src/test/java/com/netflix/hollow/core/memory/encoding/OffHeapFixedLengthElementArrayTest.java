@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.memory.encoding;
+
+import com.netflix.hollow.core.memory.OffHeapSegmentAllocator;
+import com.netflix.hollow.core.memory.pool.WastefulRecycler;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapFixedLengthElementArrayTest {
+
+    /// 4 longs per segment, so that elements frequently span segment boundaries
+    private static final int LOG2_OF_SEGMENT_SIZE = 2;
+
+    @Test
+    public void matchesOnHeapArray() {
+        Random rand = new Random(0);
+        int numBits = 4000;
+
+        FixedLengthElementArray onHeap = new FixedLengthElementArray(WastefulRecycler.SMALL_ARRAY_RECYCLER, numBits);
+        OffHeapFixedLengthElementArray offHeap = new OffHeapFixedLengthElementArray(numBits, LOG2_OF_SEGMENT_SIZE, OffHeapSegmentAllocator.DIRECT);
+
+        for(int bitsPerElement=1;bitsPerElement<=60;bitsPerElement+=7) {
+            for(int i=0;i<100;i++) {
+                long index = rand.nextInt(numBits - 2 * bitsPerElement);
+                long value = rand.nextLong() & ((1L << bitsPerElement) - 1);
+
+                onHeap.clearElementValue(index, bitsPerElement);
+                offHeap.clearElementValue(index, bitsPerElement);
+                onHeap.setElementValue(index, bitsPerElement, value);
+                offHeap.setElementValue(index, bitsPerElement, value);
+
+                Assert.assertEquals(value, offHeap.getElementValue(index, bitsPerElement));
+                Assert.assertEquals(value, offHeap.getLargeElementValue(index, bitsPerElement));
+            }
+        }
+
+        assertSameBits(onHeap, offHeap, numBits);
+    }
+
+    @Test
+    public void copiesAndIncrementsAcrossSegments() {
+        Random rand = new Random(1);
+        int numBits = 3000;
+
+        FixedLengthElementArray source = new FixedLengthElementArray(WastefulRecycler.SMALL_ARRAY_RECYCLER, numBits);
+        for(long i=0;i<numBits;i+=64)
+            source.setElementValue(i, 64, rand.nextLong());
+
+        FixedLengthElementArray onHeap = new FixedLengthElementArray(WastefulRecycler.SMALL_ARRAY_RECYCLER, numBits);
+        OffHeapFixedLengthElementArray offHeap = new OffHeapFixedLengthElementArray(numBits, LOG2_OF_SEGMENT_SIZE, OffHeapSegmentAllocator.DIRECT);
+
+        onHeap.copyBits(source, 13, 29, 2000);
+        offHeap.copyBits(source, 13, 29, 2000);
+        assertSameBits(onHeap, offHeap, numBits);
+
+        /// copying from off heap to off heap
+        OffHeapFixedLengthElementArray offHeapCopy = new OffHeapFixedLengthElementArray(numBits, LOG2_OF_SEGMENT_SIZE, OffHeapSegmentAllocator.DIRECT);
+        offHeapCopy.copyBits(offHeap, 0, 0, numBits);
+        assertSameBits(onHeap, offHeapCopy, numBits);
+
+        onHeap.incrementMany(5, 3, 23, 120);
+        offHeap.incrementMany(5, 3, 23, 120);
+        assertSameBits(onHeap, offHeap, numBits);
+    }
+
+    @Test
+    public void mapsSegmentsFromScratchFiles() throws IOException {
+        File directory = Files.createTempDirectory("hollow-segments").toFile();
+        directory.deleteOnExit();
+        int numBits = 3000;
+
+        FixedLengthElementArray onHeap = new FixedLengthElementArray(WastefulRecycler.SMALL_ARRAY_RECYCLER, numBits);
+        OffHeapFixedLengthElementArray mapped = new OffHeapFixedLengthElementArray(numBits, LOG2_OF_SEGMENT_SIZE,
+                OffHeapSegmentAllocator.mappedFiles(directory));
+
+        for(long i=0;i+17<=numBits;i+=17) {
+            onHeap.setElementValue(i, 17, i);
+            mapped.setElementValue(i, 17, i);
+        }
+
+        assertSameBits(onHeap, mapped, numBits);
+        /// the scratch files are unlinked once mapped
+        Assert.assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void allocatesEmptyArray() {
+        OffHeapFixedLengthElementArray offHeap = new OffHeapFixedLengthElementArray(0);
+        offHeap.copyBits(offHeap, 0, 0, 0);
+        offHeap.destroy(WastefulRecycler.SMALL_ARRAY_RECYCLER);
+    }
+
+    private void assertSameBits(FixedLengthElementArray expected, OffHeapFixedLengthElementArray actual, int numBits) {
+        for(int i=0;i+60<=numBits;i++) {
+            Assert.assertEquals(expected.getElementValue(i, 60), actual.getElementValue(i, 60));
+        }
+        for(int i=0;i+64<=numBits;i++) {
+            Assert.assertEquals(expected.getLargeElementValue(i, 64), actual.getLargeElementValue(i, 64));
+        }
+    }
+}
@@ -100,6 +100,28 @@ public class HollowBlobInputTest {
         assertEquals(3, inBuffer.getFilePointer()); // first byte is 0
     }
 
+    @Test
+    public void testDuplicate() throws IOException {
+        try (HollowBlobInput inStream = HollowBlobInput.modeBasedSelector(MemoryMode.ON_HEAP, mockBlob)) {
+            inStream.duplicate();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // pass
+        } catch (Exception e) {
+            fail();
+        }
+
+        HollowBlobInput inBuffer = HollowBlobInput.modeBasedSelector(MemoryMode.SHARED_MEMORY_LAZY, mockBlob);
+        inBuffer.seek(8);
+        try (HollowBlobInput duplicate = inBuffer.duplicate()) {
+            assertEquals(8, duplicate.getFilePointer());   // positioned at the file pointer of the original
+            assertEquals("t", duplicate.readUTF());
+            assertNotNull(duplicate.getBuffer());
+        }
+        assertEquals(8, inBuffer.getFilePointer());     // file pointer of the original is unaffected
+        assertEquals("t", inBuffer.readUTF());
+    }
+
     @Test
     public void testGetFilePointer() throws IOException {
         try (HollowBlobInput inStream = HollowBlobInput.modeBasedSelector(MemoryMode.ON_HEAP, mockBlob)) {
@@ -0,0 +1,272 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read;
+
+import com.netflix.hollow.api.objects.generic.GenericHollowObject;
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.memory.pool.RecyclingRecycler;
+import com.netflix.hollow.core.read.engine.HollowBlobReader;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.read.filter.HollowFilterConfig;
+import com.netflix.hollow.core.util.DefaultHashCodeFinder;
+import com.netflix.hollow.core.write.HollowBlobWriter;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import com.netflix.hollow.tools.checksum.HollowChecksum;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapMemoryModeTest {
+
+    private HollowWriteStateEngine writeEngine;
+    private HollowObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        writeEngine = new HollowWriteStateEngine();
+        writeEngine.setTargetMaxTypeShardSize(4096);
+        mapper = new HollowObjectMapper(writeEngine);
+    }
+
+    @Test
+    public void matchesOnHeapThroughDeltas() throws IOException {
+        HollowReadStateEngine onHeap = new HollowReadStateEngine();
+        HollowReadStateEngine offHeap = new HollowReadStateEngine();
+
+        addRecords(0, 1000, 1);
+        byte[] snapshot = writeSnapshot();
+        readSnapshot(onHeap, MemoryMode.ON_HEAP, snapshot, null);
+        readSnapshot(offHeap, MemoryMode.OFF_HEAP, snapshot, null);
+        assertSameState(onHeap, offHeap);
+
+        /// unchanged field widths, which are applied with a fast delta
+        addRecords(300, 1300, 1);
+        byte[] delta = writeDelta();
+        applyDelta(onHeap, MemoryMode.ON_HEAP, delta);
+        applyDelta(offHeap, MemoryMode.OFF_HEAP, delta);
+        assertSameState(onHeap, offHeap);
+
+        /// wider field values, which require a slow delta
+        addRecords(1000, 1500, 1000000);
+        delta = writeDelta();
+        applyDelta(onHeap, MemoryMode.ON_HEAP, delta);
+        applyDelta(offHeap, MemoryMode.OFF_HEAP, delta);
+        assertSameState(onHeap, offHeap);
+
+        BitSet populatedOrdinals = offHeap.getTypeState("TypeA").getPopulatedOrdinals();
+        Assert.assertEquals(500, populatedOrdinals.cardinality());
+        for(int ordinal = populatedOrdinals.nextSetBit(0); ordinal != -1; ordinal = populatedOrdinals.nextSetBit(ordinal + 1)) {
+            GenericHollowObject obj = new GenericHollowObject(offHeap, "TypeA", ordinal);
+            Assert.assertEquals("name" + obj.getInt("id"), obj.getObject("name").getString("value"));
+        }
+    }
+
+    @Test
+    public void filtersTypesAndFields() throws IOException {
+        HollowFilterConfig filter = new HollowFilterConfig(true);
+        filter.addField("TypeA", "name");
+        filter.addType("TypeB");
+
+        HollowReadStateEngine onHeap = new HollowReadStateEngine();
+        HollowReadStateEngine offHeap = new HollowReadStateEngine();
+
+        addRecords(0, 500, 1);
+        byte[] snapshot = writeSnapshot();
+        readSnapshot(onHeap, MemoryMode.ON_HEAP, snapshot, filter);
+        readSnapshot(offHeap, MemoryMode.OFF_HEAP, snapshot, filter);
+        assertSameState(onHeap, offHeap);
+
+        addRecords(200, 800, 1);
+        byte[] delta = writeDelta();
+        applyDelta(onHeap, MemoryMode.ON_HEAP, delta);
+        applyDelta(offHeap, MemoryMode.OFF_HEAP, delta);
+        assertSameState(onHeap, offHeap);
+
+        Assert.assertNull(offHeap.getTypeState("TypeB"));
+    }
+
+    @Test
+    public void freesDestroyedSegmentsOnceNoReaderMayReadThem() throws Exception {
+        CountingRecycler recycler = new CountingRecycler();
+        HollowReadStateEngine onHeap = new HollowReadStateEngine();
+        HollowReadStateEngine offHeap = new HollowReadStateEngine(DefaultHashCodeFinder.INSTANCE, true, recycler);
+
+        addRecords(0, 1000, 1);
+        byte[] snapshot = writeSnapshot();
+        readSnapshot(onHeap, MemoryMode.ON_HEAP, snapshot, null);
+        readSnapshot(offHeap, MemoryMode.OFF_HEAP, snapshot, null);
+
+        List<byte[]> deltas = new ArrayList<>();
+        for(int i=1;i<=5;i++) {
+            addRecords(100 * i, 1000 + 100 * i, i % 2 == 0 ? 1 : 1000000);
+            deltas.add(writeDelta());
+        }
+
+        /// the deltas of a multi-delta update plan are applied back to back while readers read the prior data
+        AtomicBoolean reading = new AtomicBoolean(true);
+        AtomicReference<Throwable> readFailure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for(int i=0;i<2;i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while(reading.get())
+                        readAll(offHeap);
+                } catch (Throwable t) {
+                    readFailure.set(t);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for(byte[] delta : deltas) {
+            applyDelta(onHeap, MemoryMode.ON_HEAP, delta);
+            applyDelta(offHeap, MemoryMode.OFF_HEAP, delta);
+        }
+
+        reading.set(false);
+        for(Thread reader : readers)
+            reader.join();
+        Assert.assertNull(readFailure.get());
+        Assert.assertTrue(recycler.recycled > 0);
+        Assert.assertEquals(recycler.recycled, recycler.getNumRecycledOffHeapSegments());
+        assertSameState(onHeap, offHeap);
+
+        /// once the grace period has passed, the next delta frees the segments destroyed before it
+        recycler.setOffHeapGracePeriod(0, TimeUnit.MILLISECONDS);
+        recycler.recycled = 0;
+        addRecords(0, 1000, 1);
+        byte[] delta = writeDelta();
+        applyDelta(onHeap, MemoryMode.ON_HEAP, delta);
+        applyDelta(offHeap, MemoryMode.OFF_HEAP, delta);
+        Assert.assertEquals(recycler.recycled, recycler.getNumRecycledOffHeapSegments());
+        assertSameState(onHeap, offHeap);
+    }
+
+    private void addRecords(int from, int to, int multiplier) {
+        for(int i=from;i<to;i++)
+            mapper.add(new TypeA(i, multiplier));
+    }
+
+    private byte[] writeSnapshot() throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(snapshot);
+        writeEngine.prepareForNextCycle();
+        return snapshot.toByteArray();
+    }
+
+    private byte[] writeDelta() throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeDelta(delta);
+        writeEngine.prepareForNextCycle();
+        return delta.toByteArray();
+    }
+
+    private void readSnapshot(HollowReadStateEngine readEngine, MemoryMode memoryMode, byte[] snapshot, HollowFilterConfig filter) throws IOException {
+        HollowBlobReader reader = new HollowBlobReader(readEngine, memoryMode);
+        if(filter == null)
+            reader.readSnapshot(HollowBlobInput.serial(snapshot));
+        else
+            reader.readSnapshot(HollowBlobInput.serial(snapshot), filter);
+    }
+
+    private void applyDelta(HollowReadStateEngine readEngine, MemoryMode memoryMode, byte[] delta) throws IOException {
+        new HollowBlobReader(readEngine, memoryMode).applyDelta(HollowBlobInput.serial(delta));
+    }
+
+    private void assertSameState(HollowReadStateEngine expected, HollowReadStateEngine actual) {
+        Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(actual));
+    }
+
+    private void readAll(HollowReadStateEngine readEngine) {
+        HollowObjectTypeReadState typeState = (HollowObjectTypeReadState) readEngine.getTypeState("TypeA");
+        HollowObjectTypeReadState nameState = (HollowObjectTypeReadState) readEngine.getTypeState("String");
+        int idField = typeState.getSchema().getPosition("id");
+        int nameField = typeState.getSchema().getPosition("name");
+        BitSet populatedOrdinals = typeState.getPopulatedOrdinals();
+        for(int ordinal = populatedOrdinals.nextSetBit(0); ordinal != -1; ordinal = populatedOrdinals.nextSetBit(ordinal + 1)) {
+            try {
+                typeState.readInt(ordinal, idField);
+                int nameOrdinal = typeState.readOrdinal(ordinal, nameField);
+                if(nameOrdinal != -1)
+                    nameState.readString(nameOrdinal, 0);
+            } catch (IndexOutOfBoundsException e) {
+                /// the ordinal was removed by a later delta which shrank its shard, as it may be on the heap
+            }
+        }
+    }
+
+    private static class CountingRecycler extends RecyclingRecycler {
+        private volatile int recycled;
+
+        @Override
+        public synchronized void recycleOffHeapSegments(ByteBuffer[] segments) {
+            for(ByteBuffer segment : segments) {
+                if(segment != null)
+                    recycled++;
+            }
+            super.recycleOffHeapSegments(segments);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeA {
+        private final int id;
+        private final long value;
+        private final String name;
+        private final byte[] bytes;
+        private final List<TypeB> list = new ArrayList<>();
+        private final Set<TypeB> set = new HashSet<>();
+        private final Map<TypeB, TypeB> map = new HashMap<>();
+
+        TypeA(int id, int multiplier) {
+            this.id = id;
+            this.value = (long) id * multiplier;
+            this.name = "name" + id;
+            this.bytes = id % 3 == 0 ? null : new byte[] { (byte)id, (byte)(id >> 8) };
+            for(int i=0;i<id % 5;i++) {
+                list.add(new TypeB("list" + (id + i) % 300));
+                set.add(new TypeB("set" + (id * i) % 300));
+                map.put(new TypeB("key" + (id + i) % 50), new TypeB("value" + id % 50));
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeB {
+        private final String value;
+
+        TypeB(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read;
+
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.memory.pool.ArraySegmentRecycler;
+import com.netflix.hollow.core.memory.pool.RecyclingRecycler;
+import com.netflix.hollow.core.read.engine.HollowBlobReader;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.HollowTypeStateListener;
+import com.netflix.hollow.core.read.engine.ParallelDeltaShardMerger;
+import com.netflix.hollow.core.util.DefaultHashCodeFinder;
+import com.netflix.hollow.core.write.HollowBlobWriter;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import com.netflix.hollow.tools.checksum.HollowChecksum;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelDeltaShardMergeTest {
+
+    private static final String[] TYPES = { "TypeA", "ListOfInteger", "SetOfInteger", "MapOfIntegerToInteger" };
+
+    private HollowWriteStateEngine writeEngine;
+    private HollowObjectMapper mapper;
+    private HollowReadStateEngine readEngine;
+    private Map<String, ShardOrderListener> listeners;
+
+    @Before
+    public void setUp() {
+        writeEngine = new HollowWriteStateEngine();
+        writeEngine.setTargetMaxTypeShardSize(1024);
+        mapper = new HollowObjectMapper(writeEngine);
+
+        readEngine = new HollowReadStateEngine();
+        readEngine.setMaintainRecordChecksums(true);
+        listeners = new HashMap<>();
+        for(String type : TYPES) {
+            ShardOrderListener listener = new ShardOrderListener(type);
+            listeners.put(type, listener);
+            readEngine.addTypeListener(type, listener);
+        }
+    }
+
+    @Test
+    public void mergesShardDeltas() throws IOException {
+        addRecords(0, 2000);
+        new HollowBlobReader(readEngine).readSnapshot(HollowBlobInput.serial(writeBlob(true)));
+
+        for(String type : TYPES)
+            Assert.assertTrue(readEngine.getTypeState(type).numShards() > 1);
+
+        for(int cycle=1;cycle<=3;cycle++) {
+            addRecords(cycle * 500, 2000 + cycle * 500);
+            byte[] snapshot = writeSnapshotOfCurrentState();
+            new HollowBlobReader(readEngine).applyDelta(HollowBlobInput.serial(writeBlob(false)));
+
+            HollowReadStateEngine expected = new HollowReadStateEngine();
+            new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(snapshot));
+            Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(readEngine));
+            Assert.assertTrue(readEngine.getRecordChecksumMismatches().isEmpty());
+
+            for(String type : TYPES) {
+                ShardOrderListener listener = listeners.get(type);
+                Assert.assertTrue(listener.numRemovals > 0);
+                Assert.assertTrue(listener.numAdditions > 0);
+                Assert.assertTrue(listener.notifiedInShardOrder);
+            }
+        }
+    }
+
+    @Test
+    public void boundsMergesInFlightAndWithholdsRecycledSegmentsUntilShardsComplete() throws IOException {
+        final CountingRecycler recycler = new CountingRecycler();
+        final ParallelDeltaShardMerger merger = new ParallelDeltaShardMerger(16, recycler);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final List<long[]> recycledByMerges = new ArrayList<>();
+
+        for(int i=0;i<16;i++) {
+            merger.merge(new ParallelDeltaShardMerger.ShardMerge() {
+                private long[] recycledByMerge;
+
+                @Override
+                public void merge() {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    recycledByMerge = merger.getMemoryRecycler().getLongArray();
+                    merger.getMemoryRecycler().recycleLongArray(recycledByMerge);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                }
+
+                @Override
+                public void complete() {
+                    Assert.assertFalse(recycler.available.contains(recycledByMerge));
+                    recycledByMerges.add(recycledByMerge);
+                }
+            });
+        }
+        merger.awaitCompletion();
+
+        Assert.assertEquals(16, recycledByMerges.size());
+        Assert.assertTrue(recycler.available.containsAll(recycledByMerges));
+        Assert.assertEquals(16, recycler.numSwaps);
+        Assert.assertTrue(maxInFlight.get() <= Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void recyclesAndFreesOffHeapSegmentsOfMergedShards() throws IOException {
+        CountingOffHeapRecycler recycler = new CountingOffHeapRecycler();
+        HollowReadStateEngine offHeap = new HollowReadStateEngine(DefaultHashCodeFinder.INSTANCE, true, recycler);
+
+        addRecords(0, 2000);
+        new HollowBlobReader(offHeap, MemoryMode.OFF_HEAP).readSnapshot(HollowBlobInput.serial(writeBlob(true)));
+        for(String type : TYPES)
+            Assert.assertTrue(offHeap.getTypeState(type).numShards() > 1);
+
+        for(int cycle=1;cycle<=2;cycle++) {
+            /// the segments destroyed by the first delta are freed at the start of the second
+            recycler.setOffHeapGracePeriod(cycle == 1 ? 1 : 0, TimeUnit.HOURS);
+            recycler.recycled = 0;
+
+            addRecords(cycle * 500, 2000 + cycle * 500);
+            byte[] snapshot = writeSnapshotOfCurrentState();
+            new HollowBlobReader(offHeap, MemoryMode.OFF_HEAP).applyDelta(HollowBlobInput.serial(writeBlob(false)));
+
+            HollowReadStateEngine expected = new HollowReadStateEngine();
+            new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(snapshot));
+            Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(offHeap));
+            Assert.assertEquals(recycler.recycled, recycler.getNumRecycledOffHeapSegments());
+        }
+    }
+
+    @Test
+    public void forwardsOffHeapSegmentsRecycledByMerges() throws IOException {
+        final CountingOffHeapRecycler recycler = new CountingOffHeapRecycler();
+        final ParallelDeltaShardMerger merger = new ParallelDeltaShardMerger(16, recycler);
+
+        for(int i=0;i<16;i++) {
+            merger.merge(new ParallelDeltaShardMerger.ShardMerge() {
+                @Override
+                public void merge() {
+                    merger.getMemoryRecycler().recycleOffHeapSegments(new ByteBuffer[] { ByteBuffer.allocateDirect(8), null });
+                }
+
+                @Override
+                public void complete() {
+                }
+            });
+        }
+        merger.awaitCompletion();
+
+        Assert.assertEquals(16, recycler.recycled);
+        Assert.assertEquals(16, recycler.getNumRecycledOffHeapSegments());
+        recycler.setOffHeapGracePeriod(0, TimeUnit.MILLISECONDS);
+        merger.getMemoryRecycler().freeRecycledOffHeapSegments();
+        Assert.assertEquals(0, recycler.getNumRecycledOffHeapSegments());
+    }
+
+    private void addRecords(int from, int to) {
+        for(int i=from;i<to;i++)
+            mapper.add(new TypeA(i));
+    }
+
+    private byte[] writeBlob(boolean snapshot) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        if(snapshot)
+            new HollowBlobWriter(writeEngine).writeSnapshot(os);
+        else
+            new HollowBlobWriter(writeEngine).writeDelta(os);
+        writeEngine.prepareForNextCycle();
+        return os.toByteArray();
+    }
+
+    private byte[] writeSnapshotOfCurrentState() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(os);
+        return os.toByteArray();
+    }
+
+    /**
+     * Like the recycling memory pool, makes recycled segments available for reuse only once swapped.
+     */
+    private static class CountingRecycler implements ArraySegmentRecycler {
+        private final Set<long[]> recycled = Collections.newSetFromMap(new IdentityHashMap<long[], Boolean>());
+        private final Set<long[]> available = Collections.newSetFromMap(new IdentityHashMap<long[], Boolean>());
+        private int numSwaps;
+
+        @Override
+        public int getLog2OfByteSegmentSize() {
+            return 10;
+        }
+
+        @Override
+        public int getLog2OfLongSegmentSize() {
+            return 8;
+        }
+
+        @Override
+        public long[] getLongArray() {
+            return new long[1 << 8];
+        }
+
+        @Override
+        public void recycleLongArray(long[] arr) {
+            recycled.add(arr);
+        }
+
+        @Override
+        public byte[] getByteArray() {
+            return new byte[1 << 10];
+        }
+
+        @Override
+        public void recycleByteArray(byte[] arr) {
+        }
+
+        @Override
+        public void swap() {
+            available.addAll(recycled);
+            recycled.clear();
+            numSwaps++;
+        }
+    }
+
+    /**
+     * Counts the off-heap segments recycled.
+     */
+    private static class CountingOffHeapRecycler extends RecyclingRecycler {
+        private volatile int recycled;
+
+        @Override
+        public synchronized void recycleOffHeapSegments(ByteBuffer[] segments) {
+            for(ByteBuffer segment : segments) {
+                if(segment != null)
+                    recycled++;
+            }
+            super.recycleOffHeapSegments(segments);
+        }
+    }
+
+    /**
+     * Verifies that, within an update, the ordinals of each shard are notified before those of the subsequent shard.
+     */
+    private class ShardOrderListener implements HollowTypeStateListener {
+        private final String type;
+        private int lastShard;
+        private int numRemovals;
+        private int numAdditions;
+        private boolean notifiedInShardOrder;
+
+        ShardOrderListener(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public void beginUpdate() {
+            lastShard = 0;
+            numRemovals = 0;
+            numAdditions = 0;
+            notifiedInShardOrder = true;
+        }
+
+        @Override
+        public void addedOrdinal(int ordinal) {
+            numAdditions++;
+            notified(ordinal);
+        }
+
+        @Override
+        public void removedOrdinal(int ordinal) {
+            numRemovals++;
+            notified(ordinal);
+        }
+
+        private void notified(int ordinal) {
+            int shard = ordinal & (readEngine.getTypeState(type).numShards() - 1);
+            if(shard < lastShard)
+                notifiedInShardOrder = false;
+            lastShard = shard;
+        }
+
+        @Override
+        public void endUpdate() {
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeA {
+        private final int id;
+        private final String name;
+        private final List<Integer> list = new ArrayList<>();
+        private final Set<Integer> set = new HashSet<>();
+        private final Map<Integer, Integer> map = new HashMap<>();
+
+        TypeA(int id) {
+            this.id = id;
+            this.name = "name" + id;
+            for(int i=0;i<id % 7;i++) {
+                list.add(id + i);
+                set.add(id * i);
+                map.put(id + i, i);
+            }
+        }
+    }
+}
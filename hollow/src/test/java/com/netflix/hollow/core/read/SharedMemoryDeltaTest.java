@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read;
+
+import com.netflix.hollow.api.objects.generic.GenericHollowObject;
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.read.engine.HollowBlobReader;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.write.HollowBlobWriter;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import com.netflix.hollow.tools.checksum.HollowChecksum;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedMemoryDeltaTest {
+
+    private HollowWriteStateEngine writeEngine;
+    private HollowObjectMapper mapper;
+    private File blobDirectory;
+    private int blobCount;
+
+    @Before
+    public void setUp() throws IOException {
+        writeEngine = new HollowWriteStateEngine();
+        writeEngine.setTargetMaxTypeShardSize(4096);
+        mapper = new HollowObjectMapper(writeEngine);
+        blobDirectory = Files.createTempDirectory("hollow-shared-memory-delta").toFile();
+        blobDirectory.deleteOnExit();
+    }
+
+    @Test
+    public void appliesDeltasToMappedSnapshot() throws IOException {
+        HollowReadStateEngine onHeap = new HollowReadStateEngine();
+        HollowReadStateEngine sharedMemory = new HollowReadStateEngine();
+
+        addRecords(0, 1000, 1);
+        File snapshot = writeBlob(true);
+        new HollowBlobReader(onHeap).readSnapshot(HollowBlobInput.serial(Files.readAllBytes(snapshot.toPath())));
+        try (HollowBlobInput in = HollowBlobInput.randomAccess(snapshot)) {
+            new HollowBlobReader(sharedMemory, MemoryMode.SHARED_MEMORY_LAZY).readSnapshot(in);
+        }
+        assertSameState(onHeap, sharedMemory);
+
+        /// the first delta is applied to the mapped snapshot, and subsequent deltas to the data of the previous delta
+        for(int cycle=1;cycle<=3;cycle++) {
+            addRecords(cycle * 300, 1000 + cycle * 300, cycle == 3 ? 1000000 : 1);
+            File delta = writeBlob(false);
+            new HollowBlobReader(onHeap).applyDelta(HollowBlobInput.serial(Files.readAllBytes(delta.toPath())));
+            try (HollowBlobInput in = HollowBlobInput.randomAccess(delta)) {
+                new HollowBlobReader(sharedMemory, MemoryMode.SHARED_MEMORY_LAZY).applyDelta(in);
+            }
+            assertSameState(onHeap, sharedMemory);
+        }
+
+        BitSet populatedOrdinals = sharedMemory.getTypeState("TypeA").getPopulatedOrdinals();
+        Assert.assertEquals(1000, populatedOrdinals.cardinality());
+        for(int ordinal = populatedOrdinals.nextSetBit(0); ordinal != -1; ordinal = populatedOrdinals.nextSetBit(ordinal + 1)) {
+            GenericHollowObject obj = new GenericHollowObject(sharedMemory, "TypeA", ordinal);
+            Assert.assertEquals("name" + obj.getInt("id"), obj.getObject("name").getString("value"));
+        }
+    }
+
+    private void addRecords(int from, int to, int multiplier) {
+        for(int i=from;i<to;i++)
+            mapper.add(new TypeA(i, multiplier));
+    }
+
+    private File writeBlob(boolean snapshot) throws IOException {
+        File blob = new File(blobDirectory, "blob-" + blobCount++);
+        blob.deleteOnExit();
+        try (OutputStream os = new FileOutputStream(blob)) {
+            if(snapshot)
+                new HollowBlobWriter(writeEngine).writeSnapshot(os);
+            else
+                new HollowBlobWriter(writeEngine).writeDelta(os);
+        }
+        writeEngine.prepareForNextCycle();
+        return blob;
+    }
+
+    private void assertSameState(HollowReadStateEngine expected, HollowReadStateEngine actual) {
+        Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(actual));
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeA {
+        private final int id;
+        private final long value;
+        private final String name;
+        private final List<Integer> list = new ArrayList<>();
+        private final Map<Integer, String> map = new HashMap<>();
+
+        TypeA(int id, int multiplier) {
+            this.id = id;
+            this.value = (long) id * multiplier;
+            this.name = "name" + id;
+            for(int i=0;i<id % 5;i++) {
+                list.add(id + i);
+                map.put(id * i, "value" + (id % 50));
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read.object;
+
+import com.netflix.hollow.api.objects.generic.GenericHollowObject;
+import com.netflix.hollow.core.memory.pool.RecyclingRecycler;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import com.netflix.hollow.core.read.engine.HollowBlobReader;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.write.HollowBlobWriter;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowInline;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import com.netflix.hollow.tools.checksum.HollowChecksum;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HollowObjectInPlaceDeltaTest {
+
+    private HollowWriteStateEngine writeEngine;
+    private HollowObjectMapper mapper;
+    private CountingRecycler recycler;
+    private HollowReadStateEngine readEngine;
+
+    @Before
+    public void setUp() {
+        writeEngine = new HollowWriteStateEngine();
+        mapper = new HollowObjectMapper(writeEngine);
+        /// 16 longs per segment, so that the number of segments taken reflects the size of the data allocated
+        recycler = new CountingRecycler();
+        readEngine = new HollowReadStateEngine(recycler);
+        readEngine.setMaintainRecordChecksums(true);
+    }
+
+    @Test
+    public void patchesReassignedOrdinalsInPlace() throws IOException {
+        addRecords(0, 1000, "n%05d");
+        new HollowBlobReader(readEngine).readSnapshot(HollowBlobInput.serial(writeBlob(true)));
+        int snapshotSegments = recycler.longArraysTaken;
+
+        /// only removals
+        addRecords(100, 1000, "n%05d");
+        applyDeltaAndVerify();
+        Assert.assertTrue(recycler.longArraysTaken < snapshotSegments / 10);
+
+        /// the removed ordinals are reassigned to records of the same widths and lengths
+        addRecords(100, 1024, "n%05d");
+        applyDeltaAndVerify();
+        Assert.assertTrue(recycler.longArraysTaken < snapshotSegments / 10);
+
+        /// the added records have longer variable length data, so the records are copied
+        addRecords(0, 100, "a longer name %d");
+        addRecords(200, 1024, "n%05d");
+        applyDeltaAndVerify();
+        Assert.assertTrue(recycler.longArraysTaken > snapshotSegments / 2);
+
+        /// the field widths grow, so the records are copied
+        addRecords(0, 100, "a longer name %d");
+        addRecords(200, 5000, "n%05d");
+        applyDeltaAndVerify();
+        Assert.assertTrue(recycler.longArraysTaken > snapshotSegments);
+    }
+
+    private void applyDeltaAndVerify() throws IOException {
+        byte[] snapshot = writeSnapshotOfCurrentState();
+        byte[] delta = writeBlob(false);
+
+        recycler.longArraysTaken = 0;
+        new HollowBlobReader(readEngine).applyDelta(HollowBlobInput.serial(delta));
+
+        HollowReadStateEngine expected = new HollowReadStateEngine();
+        new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(snapshot));
+        Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(readEngine));
+        Assert.assertTrue(readEngine.getRecordChecksumMismatches().isEmpty());
+
+        BitSet populatedOrdinals = readEngine.getTypeState("Rec").getPopulatedOrdinals();
+        for(int ordinal = populatedOrdinals.nextSetBit(0); ordinal != -1; ordinal = populatedOrdinals.nextSetBit(ordinal + 1)) {
+            GenericHollowObject obj = new GenericHollowObject(readEngine, "Rec", ordinal);
+            int id = obj.getInt("id");
+            Assert.assertEquals(((long)id << 33) | (id % 4), obj.getLong("value"));
+            Assert.assertEquals(id / 3d, obj.getDouble("score"), 0);
+            Assert.assertTrue(obj.getString("name").endsWith(String.valueOf(id)));
+        }
+    }
+
+    private void addRecords(int from, int to, String nameFormat) {
+        for(int i=from;i<to;i++)
+            mapper.add(new Rec(i, String.format(nameFormat, i)));
+    }
+
+    private byte[] writeBlob(boolean snapshot) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        if(snapshot)
+            new HollowBlobWriter(writeEngine).writeSnapshot(os);
+        else
+            new HollowBlobWriter(writeEngine).writeDelta(os);
+        writeEngine.prepareForNextCycle();
+        return os.toByteArray();
+    }
+
+    private byte[] writeSnapshotOfCurrentState() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(os);
+        return os.toByteArray();
+    }
+
+    private static class CountingRecycler extends RecyclingRecycler {
+        private int longArraysTaken;
+
+        CountingRecycler() {
+            super(6, 4);
+        }
+
+        @Override
+        public synchronized long[] getLongArray() {
+            longArraysTaken++;
+            return super.getLongArray();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Rec {
+        private final int id;
+        private final int variant;
+        private final long value;
+        private final double score;
+        @HollowInline
+        private final String name;
+
+        Rec(int id, String name) {
+            this.id = id;
+            this.variant = id % 4;
+            this.value = ((long)id << 33) | variant;
+            this.score = id / 3d;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.read.object;
+
+import com.netflix.hollow.core.AbstractStateEngineTest;
+import com.netflix.hollow.core.read.dataaccess.HollowObjectTypeDataAccess;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+import com.netflix.hollow.core.write.HollowObjectTypeWriteState;
+import com.netflix.hollow.core.write.HollowObjectWriteRecord;
+import java.io.IOException;
+import java.util.BitSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HollowObjectReadFieldsTest extends AbstractStateEngineTest {
+
+    HollowObjectSchema schema;
+
+    @Before
+    public void setUp() {
+        schema = new HollowObjectSchema("TestObject", 8);
+        schema.addField("intField", FieldType.INT);
+        schema.addField("longField", FieldType.LONG);
+        schema.addField("floatField", FieldType.FLOAT);
+        schema.addField("doubleField", FieldType.DOUBLE);
+        schema.addField("boolField", FieldType.BOOLEAN);
+        schema.addField("stringField", FieldType.STRING);
+        schema.addField("bytesField", FieldType.BYTES);
+        schema.addField("refField", FieldType.REFERENCE, "TestObject");
+
+        super.setUp();
+    }
+
+    @Test
+    public void readsFieldsConsistentlyWithSingleFieldReads() throws IOException {
+        addRecords(0);
+        roundTripSnapshot();
+        assertReadFieldsMatch();
+
+        addRecords(1);
+        roundTripDelta();
+        assertReadFieldsMatch();
+    }
+
+    @Test
+    public void readsSubsetOfFieldsInAnyOrder() throws IOException {
+        addRecords(0);
+        roundTripSnapshot();
+
+        HollowObjectTypeReadState typeState = (HollowObjectTypeReadState) readStateEngine.getTypeState("TestObject");
+        int[] fieldIndexes = { schema.getPosition("stringField"), schema.getPosition("intField") };
+        long[] values = new long[2];
+
+        BitSet populatedOrdinals = typeState.getPopulatedOrdinals();
+        for(int ordinal = populatedOrdinals.nextSetBit(0); ordinal != -1; ordinal = populatedOrdinals.nextSetBit(ordinal + 1)) {
+            typeState.readFields(ordinal, fieldIndexes, values);
+            String s = typeState.readString(ordinal, fieldIndexes[0]);
+            Assert.assertEquals(s == null ? -1 : s.length(), values[0]);
+            Assert.assertEquals(typeState.readInt(ordinal, fieldIndexes[1]), values[1]);
+        }
+    }
+
+    private void addRecords(int cycle) {
+        HollowObjectWriteRecord rec = new HollowObjectWriteRecord(schema);
+        for(int i=cycle;i<1000+cycle;i++) {
+            rec.reset();
+            if(i % 7 != 0) {
+                rec.setInt("intField", i - 500);
+                rec.setLong("longField", i % 2 == 0 ? Long.MAX_VALUE - i : -i);
+                rec.setFloat("floatField", i / 3f);
+                rec.setDouble("doubleField", i / 7d);
+                rec.setBoolean("boolField", i % 3 == 0);
+                rec.setReference("refField", i / 2);
+            }
+            if(i % 5 != 0) {
+                rec.setString("stringField", String.valueOf(i));
+                rec.setBytes("bytesField", new byte[i % 11]);
+            }
+            writeStateEngine.add("TestObject", rec);
+        }
+    }
+
+    private void assertReadFieldsMatch() {
+        HollowObjectTypeDataAccess typeState = (HollowObjectTypeDataAccess) readStateEngine.getTypeState("TestObject");
+        Assert.assertTrue(readStateEngine.getTypeState("TestObject").numShards() > 1);
+
+        int[] fieldIndexes = new int[schema.numFields()];
+        for(int i=0;i<fieldIndexes.length;i++)
+            fieldIndexes[i] = i;
+        long[] values = new long[fieldIndexes.length];
+
+        BitSet populatedOrdinals = readStateEngine.getTypeState("TestObject").getPopulatedOrdinals();
+        for(int ordinal = populatedOrdinals.nextSetBit(0); ordinal != -1; ordinal = populatedOrdinals.nextSetBit(ordinal + 1)) {
+            typeState.readFields(ordinal, fieldIndexes, values);
+
+            Assert.assertEquals(typeState.readInt(ordinal, 0), values[0]);
+            Assert.assertEquals(typeState.readLong(ordinal, 1), values[1]);
+            Assert.assertEquals(Float.floatToIntBits(typeState.readFloat(ordinal, 2)), values[2]);
+            Assert.assertEquals(Double.doubleToLongBits(typeState.readDouble(ordinal, 3)), values[3]);
+            Boolean b = typeState.readBoolean(ordinal, 4);
+            Assert.assertEquals(b == null ? -1 : b ? 1 : 0, values[4]);
+            String s = typeState.readString(ordinal, 5);
+            Assert.assertEquals(s == null ? -1 : s.length(), values[5]);
+            byte[] bytes = typeState.readBytes(ordinal, 6);
+            Assert.assertEquals(bytes == null ? -1 : bytes.length, values[6]);
+            Assert.assertEquals(typeState.readOrdinal(ordinal, 7), values[7]);
+        }
+    }
+
+    @Override
+    protected void initializeTypeStates() {
+        writeStateEngine.setTargetMaxTypeShardSize(4096);
+        writeStateEngine.addTypeState(new HollowObjectTypeWriteState(schema));
+    }
+
+}
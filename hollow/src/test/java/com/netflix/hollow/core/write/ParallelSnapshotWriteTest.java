@@ -0,0 +1,382 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.write;
+
+import com.netflix.hollow.core.HollowBlobHeader;
+import com.netflix.hollow.core.memory.MemoryMode;
+import com.netflix.hollow.core.read.HollowBlobInput;
+import com.netflix.hollow.core.read.engine.HollowBlobHeaderReader;
+import com.netflix.hollow.core.read.engine.HollowBlobReader;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.filter.TypeFilter;
+import com.netflix.hollow.core.schema.HollowObjectSchema;
+import com.netflix.hollow.core.schema.HollowObjectSchema.FieldType;
+import com.netflix.hollow.core.schema.HollowSchema;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import com.netflix.hollow.tools.checksum.HollowChecksum;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelSnapshotWriteTest {
+
+    @Test
+    public void writesSameDataAsSequentialWrite() throws IOException {
+        assertSameData(16 * 1024 * 1024, false);
+    }
+
+    @Test
+    public void writesSameDataAsSequentialWriteWithShardedTypes() throws IOException {
+        assertSameData(16 * 1024, false);
+    }
+
+    @Test
+    public void writesSameDataAsSequentialWriteWithRecordedLengths() throws IOException {
+        assertSameData(16 * 1024 * 1024, true);
+    }
+
+    @Test
+    public void writesSameDataAsSequentialWriteWithShardedTypesAndRecordedLengths() throws IOException {
+        assertSameData(16 * 1024, true);
+    }
+
+    @Test
+    public void skipsExcludedTypesUsingTypeDirectory() throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        writeEngine.setTargetMaxTypeShardSize(16 * 1024);
+        writeEngine.setRecordSnapshotLengths(true);
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        for(int i=0;i<10000;i++)
+            mapper.add(new TypeA(i));
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(sequential);
+
+        Path stagingDir = Files.createTempDirectory("hollow-parallel-snapshot");
+        File blobFile = stagingDir.resolve("snapshot").toFile();
+        try {
+            try (FileOutputStream fos = new FileOutputStream(blobFile)) {
+                new HollowBlobWriter(writeEngine).writeSnapshot(fos, stagingDir);
+            }
+            byte[] parallel = Files.readAllBytes(blobFile.toPath());
+
+            HollowBlobHeader header = new HollowBlobHeaderReader().readHeader(HollowBlobInput.serial(parallel));
+            Assert.assertEquals(writeEngine.getOrderedTypeStates().size(), header.getTypeLengths().size());
+
+            TypeFilter filter = TypeFilter.newTypeFilter().excludeAll().include("TypeA").include("ListOfTypeB").build();
+            long excludedBytes = 0;
+            for(Map.Entry<String, Long> typeLength : header.getTypeLengths().entrySet()) {
+                if(!typeLength.getKey().equals("TypeA") && !typeLength.getKey().equals("ListOfTypeB"))
+                    excludedBytes += typeLength.getValue() - schemaLength(writeEngine.getSchema(typeLength.getKey()));
+            }
+
+            HollowReadStateEngine expected = new HollowReadStateEngine();
+            new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(sequential.toByteArray()), filter);
+
+            /// the excluded types are skipped rather than read, other than their schemas
+            CountingInputStream counting = new CountingInputStream(new ByteArrayInputStream(parallel));
+            HollowReadStateEngine onHeap = new HollowReadStateEngine();
+            new HollowBlobReader(onHeap).readSnapshot(HollowBlobInput.serial(counting), filter);
+            Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(onHeap));
+            Assert.assertEquals(2, onHeap.getTypeStates().size());
+            Assert.assertTrue(counting.bytesRead <= parallel.length - excludedBytes);
+
+            HollowReadStateEngine sharedMemory = new HollowReadStateEngine();
+            try (HollowBlobInput in = HollowBlobInput.randomAccess(blobFile)) {
+                new HollowBlobReader(sharedMemory, MemoryMode.SHARED_MEMORY_LAZY).readSnapshot(in, filter);
+                Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(sharedMemory));
+            }
+        } finally {
+            blobFile.delete();
+            Files.delete(stagingDir);
+        }
+    }
+
+    @Test
+    public void readsShardsSeriallyIfShardLengthsAreNotTagged() throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        writeEngine.setTargetMaxTypeShardSize(16 * 1024);
+        writeEngine.setRecordSnapshotLengths(true);
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        for(int i=0;i<10000;i++)
+            mapper.add(new TypeA(i));
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(sequential);
+
+        Path stagingDir = Files.createTempDirectory("hollow-parallel-snapshot");
+        try {
+            ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+            new HollowBlobWriter(writeEngine).writeSnapshot(parallel, stagingDir);
+
+            /// forwards-compatibility bytes written by a later version, which hold something other than shard lengths,
+            /// imitated by replacing the tag and altering the first recorded shard length which follows it
+            byte[] untagged = parallel.toByteArray();
+            int numTags = 0;
+            for(int i=0;i+4<=untagged.length;i++) {
+                if(ByteBuffer.wrap(untagged, i, 4).getInt() == HollowBlobHeader.SHARD_LENGTHS_TAG) {
+                    untagged[i + 3]++;
+                    untagged[i + 5] ^= 1;
+                    numTags++;
+                }
+            }
+            Assert.assertEquals(writeEngine.getOrderedTypeStates().size(), numTags);
+
+            HollowReadStateEngine expected = new HollowReadStateEngine();
+            new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(sequential.toByteArray()));
+
+            HollowReadStateEngine actual = new HollowReadStateEngine();
+            new HollowBlobReader(actual).readSnapshot(HollowBlobInput.serial(untagged));
+            Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(actual));
+        } finally {
+            Files.delete(stagingDir);
+        }
+    }
+
+    @Test
+    public void releasesSnapshotsIfAShardCannotBeWritten() throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        for(int i=0;i<1000;i++)
+            mapper.add(new TypeA(i));
+
+        HollowObjectSchema schema = new HollowObjectSchema("Failing", 1);
+        schema.addField("id", FieldType.INT);
+        FailingTypeWriteState failing = new FailingTypeWriteState(schema);
+        writeEngine.addTypeState(failing);
+        for(int i=0;i<100;i++) {
+            HollowObjectWriteRecord rec = new HollowObjectWriteRecord(schema);
+            rec.setInt("id", i);
+            writeEngine.add("Failing", rec);
+        }
+
+        Path stagingDir = Files.createTempDirectory("hollow-parallel-snapshot");
+        try {
+            new HollowBlobWriter(writeEngine).writeSnapshot(new ByteArrayOutputStream(), stagingDir);
+            Assert.fail("Expected the snapshot write to fail");
+        } catch (IOException expected) {
+        } finally {
+            Assert.assertEquals(0, stagingDir.toFile().list().length);
+            Files.delete(stagingDir);
+        }
+
+        Assert.assertTrue(failing.released);
+    }
+
+    @Test
+    public void writesTypesWithoutShardSupportWhole() throws IOException {
+        for(boolean recordSnapshotLengths : new boolean[] { false, true }) {
+            HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+            writeEngine.setRecordSnapshotLengths(recordSnapshotLengths);
+            HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+            for(int i=0;i<1000;i++)
+                mapper.add(new TypeA(i));
+
+            HollowObjectSchema schema = new HollowObjectSchema("Unsharded", 1);
+            schema.addField("id", FieldType.INT);
+            writeEngine.addTypeState(new WholeTypeWriteState(schema));
+            for(int i=0;i<100;i++) {
+                HollowObjectWriteRecord rec = new HollowObjectWriteRecord(schema);
+                rec.setInt("id", i);
+                writeEngine.add("Unsharded", rec);
+            }
+
+            ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+            new HollowBlobWriter(writeEngine).writeSnapshot(sequential);
+
+            Path stagingDir = Files.createTempDirectory("hollow-parallel-snapshot");
+            try {
+                ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+                new HollowBlobWriter(writeEngine).writeSnapshot(parallel, stagingDir);
+
+                Assert.assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+
+                HollowReadStateEngine expected = new HollowReadStateEngine();
+                new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(sequential.toByteArray()));
+                HollowReadStateEngine actual = new HollowReadStateEngine();
+                new HollowBlobReader(actual).readSnapshot(HollowBlobInput.serial(parallel.toByteArray()));
+                Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(actual));
+                Assert.assertEquals(100, actual.getTypeState("Unsharded").getPopulatedOrdinals().cardinality());
+            } finally {
+                Files.delete(stagingDir);
+            }
+        }
+    }
+
+    private long schemaLength(HollowSchema schema) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        schema.writeTo(os);
+        return os.size();
+    }
+
+    private void assertSameData(long targetMaxTypeShardSize, boolean recordSnapshotLengths) throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        writeEngine.setTargetMaxTypeShardSize(targetMaxTypeShardSize);
+        writeEngine.setRecordSnapshotLengths(recordSnapshotLengths);
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        for(int i=0;i<10000;i++)
+            mapper.add(new TypeA(i));
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(sequential);
+
+        Path stagingDir = Files.createTempDirectory("hollow-parallel-snapshot");
+        File blobFile = stagingDir.resolve("snapshot").toFile();
+        try {
+            ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+            new HollowBlobWriter(writeEngine).writeSnapshot(parallel, stagingDir);
+
+            try (FileOutputStream fos = new FileOutputStream(blobFile)) {
+                new HollowBlobWriter(writeEngine).writeSnapshot(fos, stagingDir);
+            }
+            Assert.assertArrayEquals(parallel.toByteArray(), Files.readAllBytes(blobFile.toPath()));
+            Assert.assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+            Assert.assertEquals(recordSnapshotLengths, !new HollowBlobHeaderReader().readHeader(
+                    HollowBlobInput.serial(parallel.toByteArray())).getTypeLengths().isEmpty());
+
+            /// only the blob remains, all serialized shards were removed
+            Assert.assertEquals(1, stagingDir.toFile().list().length);
+
+            HollowReadStateEngine expected = new HollowReadStateEngine();
+            new HollowBlobReader(expected).readSnapshot(HollowBlobInput.serial(sequential.toByteArray()));
+
+            HollowReadStateEngine onHeap = new HollowReadStateEngine();
+            new HollowBlobReader(onHeap).readSnapshot(HollowBlobInput.serial(parallel.toByteArray()));
+            Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(onHeap));
+
+            HollowReadStateEngine sharedMemory = new HollowReadStateEngine();
+            try (HollowBlobInput in = HollowBlobInput.randomAccess(blobFile)) {
+                new HollowBlobReader(sharedMemory, MemoryMode.SHARED_MEMORY_LAZY).readSnapshot(in);
+                Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(sharedMemory));
+            }
+
+            /// a delta applies to the snapshot populated from the recorded shard lengths
+            writeEngine.prepareForNextCycle();
+            for(int i=5000;i<15000;i++)
+                mapper.add(new TypeA(i));
+            ByteArrayOutputStream delta = new ByteArrayOutputStream();
+            new HollowBlobWriter(writeEngine).writeDelta(delta);
+
+            new HollowBlobReader(expected).applyDelta(HollowBlobInput.serial(delta.toByteArray()));
+            new HollowBlobReader(onHeap).applyDelta(HollowBlobInput.serial(delta.toByteArray()));
+            Assert.assertEquals(HollowChecksum.forStateEngine(expected), HollowChecksum.forStateEngine(onHeap));
+        } finally {
+            blobFile.delete();
+            Files.delete(stagingDir);
+        }
+    }
+
+    private static class WholeTypeWriteState extends HollowObjectTypeWriteState {
+        WholeTypeWriteState(HollowObjectSchema schema) {
+            super(schema);
+        }
+
+        @Override
+        protected boolean isSnapshotShardWriteSupported() {
+            return false;
+        }
+    }
+
+    private static class FailingTypeWriteState extends HollowObjectTypeWriteState {
+        private volatile boolean released;
+
+        FailingTypeWriteState(HollowObjectSchema schema) {
+            super(schema, 2);
+        }
+
+        @Override
+        protected void writeSnapshotShard(DataOutputStream dos, int shardNumber) throws IOException {
+            if(shardNumber == 1)
+                throw new IOException("FAILED");
+            super.writeSnapshotShard(dos, shardNumber);
+        }
+
+        @Override
+        protected void releaseSnapshot() {
+            released = true;
+            super.releaseSnapshot();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long bytesRead;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b != -1)
+                bytesRead++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if(n > 0)
+                bytesRead += n;
+            return n;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeA {
+        private final int id;
+        private final String name;
+        private final List<TypeB> list = new ArrayList<>();
+        private final Set<TypeB> set = new HashSet<>();
+        private final Map<TypeB, TypeB> map = new HashMap<>();
+
+        TypeA(int id) {
+            this.id = id;
+            this.name = "name" + (id % 1000);
+            for(int i=0;i<id % 5;i++) {
+                list.add(new TypeB("list" + (id + i) % 300));
+                set.add(new TypeB("set" + (id * i) % 300));
+                map.put(new TypeB("key" + i), new TypeB("value" + id % 50));
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeB {
+        private final String value;
+
+        TypeB(String value) {
+            this.value = value;
+        }
+    }
+}
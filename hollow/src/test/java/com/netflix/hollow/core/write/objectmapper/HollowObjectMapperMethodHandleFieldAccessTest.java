@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.core.write.objectmapper;
+
+import com.netflix.hollow.api.objects.generic.GenericHollowObject;
+import com.netflix.hollow.core.AbstractStateEngineTest;
+import com.netflix.hollow.core.HollowConstants;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapperTest.TypeWithAssignedOrdinal;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapperTest.TypeWithFinalAssignedOrdinal;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HollowObjectMapperMethodHandleFieldAccessTest extends AbstractStateEngineTest {
+
+    private HollowObjectMapper mapper;
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        mapper = new HollowObjectMapper(writeStateEngine);
+        mapper.useMethodHandleFieldAccess();
+    }
+
+    @Test
+    public void testAllFieldTypes() throws IOException {
+        mapper.add(new TypeWithAllFieldTypes(1));
+
+        TypeWithAllFieldTypes t = new TypeWithAllFieldTypes(2);
+        t.nullFirstHalf();
+        mapper.add(t);
+
+        t = new TypeWithAllFieldTypes(3);
+        t.nullSecondHalf();
+        mapper.add(t);
+
+        roundTripSnapshot();
+
+        Assert.assertEquals(new TypeWithAllFieldTypes(1),
+                new TypeWithAllFieldTypes(new GenericHollowObject(readStateEngine, "TypeWithAllFieldTypes", 0)));
+
+        TypeWithAllFieldTypes expected = new TypeWithAllFieldTypes(2);
+        expected.nullFirstHalf();
+        Assert.assertEquals(expected,
+                new TypeWithAllFieldTypes(new GenericHollowObject(readStateEngine, "TypeWithAllFieldTypes", 1)));
+
+        expected = new TypeWithAllFieldTypes(3);
+        expected.nullSecondHalf();
+        Assert.assertEquals(expected,
+                new TypeWithAllFieldTypes(new GenericHollowObject(readStateEngine, "TypeWithAllFieldTypes", 2)));
+    }
+
+    @Test
+    public void testSameRecordsAsUnsafeFieldAccess() {
+        HollowWriteStateEngine unsafeWriteStateEngine = new HollowWriteStateEngine();
+        HollowObjectMapper unsafeMapper = new HollowObjectMapper(unsafeWriteStateEngine);
+
+        for(int i=0;i<100;i++) {
+            TypeA a = new TypeA("a" + i, i, new TypeB((short) i, i * 1000L, i / 10f, ("b" + i).toCharArray(), new byte[] { (byte) i }),
+                    i % 2 == 0 ? Collections.<TypeC>emptySet() : new HashSet<TypeC>(Arrays.asList(new TypeC((char) i, Collections.singletonMap("c" + i, Arrays.asList(i, i + 1))))));
+            Assert.assertEquals(unsafeMapper.add(a), mapper.add(a));
+        }
+
+        Assert.assertEquals(unsafeWriteStateEngine.getTypeState("TypeA").getSchema(), writeStateEngine.getTypeState("TypeA").getSchema());
+        Assert.assertEquals(unsafeWriteStateEngine.getTypeState("TypeB").getSchema(), writeStateEngine.getTypeState("TypeB").getSchema());
+        Assert.assertEquals(unsafeWriteStateEngine.getTypeState("String").getSchema(), writeStateEngine.getTypeState("String").getSchema());
+    }
+
+    @Test
+    public void testAssignedOrdinal() {
+        TypeWithAssignedOrdinal o = new TypeWithAssignedOrdinal();
+        mapper.add(o);
+        Assert.assertNotEquals(HollowConstants.ORDINAL_NONE, o.__assigned_ordinal);
+
+        TypeWithFinalAssignedOrdinal f = new TypeWithFinalAssignedOrdinal();
+        mapper.add(f);
+        Assert.assertNotEquals(HollowConstants.ORDINAL_NONE, f.__assigned_ordinal);
+    }
+
+    @Test
+    public void testExtractPrimaryKey() {
+        Object[] key = mapper.extractPrimaryKey(new TypeWithPrimaryKey(1, "one", 1.5d)).getKey();
+        Assert.assertArrayEquals(new Object[] { 1, "one", 1.5d }, key);
+
+        key = mapper.extractPrimaryKey(new TypeWithPrimaryKey(2, null, Double.NaN)).getKey();
+        Assert.assertArrayEquals(new Object[] { 2, null, null }, key);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOnlyAssignedOrdinalIsWritable() throws NoSuchFieldException {
+        FieldAccessor accessor = FieldAccessor.methodHandle(TypeWithAssignedOrdinal.class.getDeclaredField("__assigned_ordinal"), false);
+        accessor.setLong(new TypeWithAssignedOrdinal(), 1L);
+    }
+
+    @Override
+    protected void initializeTypeStates() {
+    }
+
+    @SuppressWarnings("unused")
+    @HollowPrimaryKey(fields={"id", "name", "value"})
+    private static class TypeWithPrimaryKey {
+        private final int id;
+        @HollowInline
+        private final String name;
+        private final double value;
+
+        TypeWithPrimaryKey(int id, String name, double value) {
+            this.id = id;
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.checksum;
+
+import com.netflix.hollow.core.read.HollowBlobInput;
+import com.netflix.hollow.core.read.engine.HollowBlobReader;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.filter.HollowFilterConfig;
+import com.netflix.hollow.core.write.HollowBlobWriter;
+import com.netflix.hollow.core.write.HollowTypeWriteState;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowInline;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HollowRecordChecksumTest {
+
+    private HollowWriteStateEngine writeEngine;
+    private HollowObjectMapper mapper;
+    private HollowReadStateEngine readEngine;
+    private Map<String, Long> writtenChecksums;
+
+    @Before
+    public void setUp() {
+        writeEngine = new HollowWriteStateEngine();
+        writeEngine.setMaintainRecordChecksums(true);
+        mapper = new HollowObjectMapper(writeEngine);
+        readEngine = new HollowReadStateEngine();
+        readEngine.setMaintainRecordChecksums(true);
+    }
+
+    @Test
+    public void maintainsPublishedChecksumsThroughDeltas() throws IOException {
+        addRecords(0, 1000);
+        readSnapshot(readEngine, null);
+        assertChecksumsMatch(readEngine);
+
+        addRecords(500, 1500);
+        applyDelta(readEngine, writeDelta());
+        assertChecksumsMatch(readEngine);
+        Map<String, Long> previousChecksums = recordChecksums(readEngine);
+
+        addRecords(1200, 1300);
+        byte[] reverseDelta = writeReverseDelta();
+        applyDelta(readEngine, writeDelta());
+        assertChecksumsMatch(readEngine);
+
+        /// the reverse delta publishes the checksums of the previous state
+        applyDelta(readEngine, reverseDelta);
+        Assert.assertEquals(previousChecksums, recordChecksums(readEngine));
+        Assert.assertTrue(readEngine.getRecordChecksumMismatches().isEmpty());
+    }
+
+    @Test
+    public void deltaChecksumsMatchSnapshotChecksums() throws IOException {
+        addRecords(0, 1000);
+        readSnapshot(readEngine, null);
+
+        addRecords(700, 1700);
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(snapshot);
+        applyDelta(readEngine, writeDelta());
+
+        HollowReadStateEngine snapshotEngine = new HollowReadStateEngine();
+        snapshotEngine.setMaintainRecordChecksums(true);
+        new HollowBlobReader(snapshotEngine).readSnapshot(HollowBlobInput.serial(snapshot.toByteArray()));
+
+        Assert.assertEquals(recordChecksums(snapshotEngine), recordChecksums(readEngine));
+    }
+
+    @Test
+    public void continuesChecksumsAfterRestore() throws IOException {
+        addRecords(0, 1000);
+        readSnapshot(readEngine, null);
+
+        HollowWriteStateEngine restoredEngine = new HollowWriteStateEngine();
+        restoredEngine.setMaintainRecordChecksums(true);
+        mapper = new HollowObjectMapper(restoredEngine);
+        mapper.initializeTypeState(TypeA.class);
+        restoredEngine.restoreFrom(readEngine);
+        writeEngine = restoredEngine;
+
+        addRecords(300, 1300);
+        applyDelta(readEngine, writeDelta());
+        assertChecksumsMatch(readEngine);
+    }
+
+    @Test
+    public void doesNotMaintainChecksumsForFilteredTypes() throws IOException {
+        addRecords(0, 100);
+        HollowFilterConfig filter = new HollowFilterConfig(true);
+        filter.addField("TypeA", "name");
+        readSnapshot(readEngine, filter);
+
+        Assert.assertNull(readEngine.getRecordChecksum("TypeA"));
+        Assert.assertNotNull(readEngine.getRecordChecksum("TypeB"));
+        Assert.assertTrue(readEngine.getRecordChecksumMismatches().isEmpty());
+    }
+
+    @Test
+    public void detectsDivergedState() throws IOException {
+        addRecords(0, 100);
+        readSnapshot(readEngine, null);
+
+        HollowReadStateEngine otherEngine = new HollowReadStateEngine();
+        otherEngine.setMaintainRecordChecksums(true);
+        addRecords(0, 101);
+        readSnapshot(otherEngine, null);
+
+        Assert.assertNotEquals(readEngine.getRecordChecksum("TypeA"), otherEngine.getRecordChecksum("TypeA"));
+    }
+
+    private void addRecords(int from, int to) {
+        for(int i=from;i<to;i++)
+            mapper.add(new TypeA(i));
+    }
+
+    private void readSnapshot(HollowReadStateEngine readEngine, HollowFilterConfig filter) throws IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeSnapshot(snapshot);
+        recordWrittenChecksums();
+        writeEngine.prepareForNextCycle();
+
+        HollowBlobReader reader = new HollowBlobReader(readEngine);
+        if(filter == null)
+            reader.readSnapshot(HollowBlobInput.serial(snapshot.toByteArray()));
+        else
+            reader.readSnapshot(HollowBlobInput.serial(snapshot.toByteArray()), filter);
+    }
+
+    private byte[] writeDelta() throws IOException {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeDelta(delta);
+        recordWrittenChecksums();
+        writeEngine.prepareForNextCycle();
+        return delta.toByteArray();
+    }
+
+    private byte[] writeReverseDelta() throws IOException {
+        ByteArrayOutputStream reverseDelta = new ByteArrayOutputStream();
+        new HollowBlobWriter(writeEngine).writeReverseDelta(reverseDelta);
+        return reverseDelta.toByteArray();
+    }
+
+    private void applyDelta(HollowReadStateEngine readEngine, byte[] delta) throws IOException {
+        new HollowBlobReader(readEngine).applyDelta(HollowBlobInput.serial(delta));
+    }
+
+    private void recordWrittenChecksums() {
+        writtenChecksums = new HashMap<>();
+        for(HollowTypeWriteState typeState : writeEngine.getOrderedTypeStates())
+            writtenChecksums.put(typeState.getSchema().getName(), typeState.getRecordChecksum());
+    }
+
+    private void assertChecksumsMatch(HollowReadStateEngine readEngine) {
+        Assert.assertEquals(writtenChecksums, recordChecksums(readEngine));
+        Assert.assertTrue(readEngine.getRecordChecksumMismatches().isEmpty());
+    }
+
+    private Map<String, Long> recordChecksums(HollowReadStateEngine readEngine) {
+        Map<String, Long> checksums = new HashMap<>();
+        for(String type : readEngine.getAllTypes())
+            checksums.put(type, readEngine.getRecordChecksum(type));
+        return checksums;
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeA {
+        private final int id;
+        private final long longValue;
+        private final float floatValue;
+        private final double doubleValue;
+        private final boolean booleanValue;
+        private final Integer nullableInt;
+        private final String name;
+        @HollowInline
+        private final String inlineName;
+        private final byte[] bytes;
+        private final List<TypeB> list = new ArrayList<>();
+        private final Set<TypeB> set = new HashSet<>();
+        private final Map<TypeB, TypeB> map = new HashMap<>();
+
+        TypeA(int id) {
+            this.id = id;
+            this.longValue = -id * 1000000000L;
+            this.floatValue = id % 7 == 0 ? Float.NaN : id / 3f;
+            this.doubleValue = id % 11 == 0 ? Double.NaN : -id / 7d;
+            this.booleanValue = id % 2 == 0;
+            this.nullableInt = id % 3 == 0 ? null : id;
+            this.name = id % 5 == 0 ? null : "name" + (id % 100);
+            this.inlineName = id % 4 == 0 ? null : "inlineé" + id;
+            this.bytes = id % 6 == 0 ? null : new byte[] { (byte)id, (byte)(id >> 8) };
+            for(int i=0;i<id % 5;i++) {
+                list.add(new TypeB("list" + (id + i) % 300));
+                set.add(new TypeB("set" + (id * i) % 300));
+                map.put(new TypeB("key" + (id + i) % 50), new TypeB("value" + id % 50));
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class TypeB {
+        private final String value;
+
+        TypeB(String value) {
+            this.value = value;
+        }
+    }
+}
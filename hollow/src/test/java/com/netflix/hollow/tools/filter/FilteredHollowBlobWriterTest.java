@@ -18,16 +18,22 @@ package com.netflix.hollow.tools.filter;
 
 import com.netflix.hollow.api.objects.generic.GenericHollowObject;
 import com.netflix.hollow.core.read.HollowBlobInput;
+import com.netflix.hollow.core.read.engine.HollowBlobHeaderReader;
 import com.netflix.hollow.core.read.engine.HollowBlobReader;
 import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
 import com.netflix.hollow.core.read.filter.HollowFilterConfig;
+import com.netflix.hollow.core.read.filter.TypeFilter;
 import com.netflix.hollow.core.schema.HollowObjectSchema;
 import com.netflix.hollow.core.write.HollowBlobWriter;
 import com.netflix.hollow.core.write.HollowWriteStateEngine;
 import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -131,6 +137,47 @@ public class FilteredHollowBlobWriterTest {
         Assert.assertEquals(2, readEngine.getTypeState("TypeB").getPopulatedOrdinals().cardinality());
     }
 
+    @Test
+    public void filteredSnapshotHasNoTypeDirectory() throws IOException {
+        HollowWriteStateEngine writeEngine = new HollowWriteStateEngine();
+        writeEngine.setRecordSnapshotLengths(true);
+        HollowObjectMapper mapper = new HollowObjectMapper(writeEngine);
+        for(int i=0;i<1000;i++) {
+            mapper.add(new TypeA(i, "value" + i));
+            mapper.add(new TypeB(i, i + 0.5f));
+        }
+
+        Path stagingDir = Files.createTempDirectory("hollow-filtered-snapshot");
+        File blobFile = stagingDir.resolve("snapshot").toFile();
+        try {
+            try (FileOutputStream fos = new FileOutputStream(blobFile)) {
+                new HollowBlobWriter(writeEngine).writeSnapshot(fos, stagingDir);
+            }
+            byte[] unfiltered = Files.readAllBytes(blobFile.toPath());
+            Assert.assertFalse(new HollowBlobHeaderReader().readHeader(HollowBlobInput.serial(unfiltered)).getTypeLengths().isEmpty());
+
+            /// only fields are filtered, so the filtered snapshot has the same types with different lengths
+            HollowFilterConfig filterConfig = new HollowFilterConfig(true);
+            filterConfig.addField("TypeA", "value");
+
+            ByteArrayOutputStream filteredBlobStream = new ByteArrayOutputStream();
+            new FilteredHollowBlobWriter(filterConfig).filterSnapshot(new ByteArrayInputStream(unfiltered), filteredBlobStream);
+            byte[] filtered = filteredBlobStream.toByteArray();
+            Assert.assertTrue(new HollowBlobHeaderReader().readHeader(HollowBlobInput.serial(filtered)).getTypeLengths().isEmpty());
+
+            HollowReadStateEngine readEngine = new HollowReadStateEngine();
+            TypeFilter typeFilter = TypeFilter.newTypeFilter().excludeAll().include("TypeB").build();
+            new HollowBlobReader(readEngine).readSnapshot(HollowBlobInput.serial(filtered), typeFilter);
+
+            Assert.assertNull(readEngine.getTypeState("TypeA"));
+            Assert.assertEquals(1000, readEngine.getTypeState("TypeB").getPopulatedOrdinals().cardinality());
+            Assert.assertEquals(999.5f, new GenericHollowObject(readEngine, "TypeB", 999).getFloat("value"), 0);
+        } finally {
+            blobFile.delete();
+            Files.delete(stagingDir);
+        }
+    }
+
     @SuppressWarnings("unused")
     private static class TypeA {
         int id;
@@ -0,0 +1,196 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.query;
+
+import com.netflix.hollow.core.index.HollowHashIndex;
+import com.netflix.hollow.core.index.HollowPrimaryKeyIndex;
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.read.engine.object.HollowObjectTypeReadState;
+import com.netflix.hollow.core.util.StateEngineRoundTripper;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowInline;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HollowColumnScanQueryTest {
+
+    private HollowWriteStateEngine writeEngine;
+    private HollowObjectMapper mapper;
+    private HollowReadStateEngine readEngine;
+    private List<Rec> records;
+
+    @Before
+    public void setUp() throws IOException {
+        writeEngine = new HollowWriteStateEngine();
+        /// several shards per type
+        writeEngine.setTargetMaxTypeShardSize(1024);
+        mapper = new HollowObjectMapper(writeEngine);
+        readEngine = new HollowReadStateEngine();
+
+        records = new ArrayList<>();
+        for(int i=0;i<1000;i++)
+            records.add(new Rec(i));
+        addRecords();
+        StateEngineRoundTripper.roundTripSnapshot(writeEngine, readEngine);
+    }
+
+    @Test
+    public void scansSeveralShards() {
+        Assert.assertTrue(((HollowObjectTypeReadState)readEngine.getTypeState("Rec")).numShards() > 1);
+    }
+
+    @Test
+    public void matchesEqualValues() {
+        assertMatches(HollowFieldPredicate.equalTo("id", 17), r -> r.id == 17);
+        assertMatches(HollowFieldPredicate.equalTo("id", "17"), r -> r.id == 17);
+        assertMatches(HollowFieldPredicate.equalTo("value", -3L << 40), r -> r.value == -3L << 40);
+        assertMatches(HollowFieldPredicate.equalTo("score", 2.5d), r -> r.score != null && r.score == 2.5d);
+        assertMatches(HollowFieldPredicate.equalTo("ratio", 0.25f), r -> r.ratio == 0.25f);
+        assertMatches(HollowFieldPredicate.equalTo("active", true), r -> r.active != null && r.active);
+        assertMatches(HollowFieldPredicate.equalTo("name", "name42"), r -> "name42".equals(r.name));
+        assertMatches(HollowFieldPredicate.equalTo("data", new byte[] { 7, 1 }), r -> r.data != null && r.data[0] == 7 && r.data[1] == 1);
+        assertMatches(HollowFieldPredicate.equalTo("id", "not a number"), r -> false);
+    }
+
+    @Test
+    public void matchesNullValues() {
+        assertMatches(HollowFieldPredicate.equalTo("score", null), r -> r.score == null);
+        assertMatches(HollowFieldPredicate.equalTo("name", null), r -> r.name == null);
+        assertMatches(HollowFieldPredicate.equalTo("active", null), r -> r.active == null);
+        assertMatches(HollowFieldPredicate.in("tag", null, "tag3"), r -> r.tag == null || r.tag.equals("tag3"));
+    }
+
+    @Test
+    public void matchesValuesInSet() {
+        assertMatches(HollowFieldPredicate.in("id", 1, 500, 999, 1000), r -> r.id == 1 || r.id == 500 || r.id == 999);
+        assertMatches(HollowFieldPredicate.in("name", "name1", "name12", "missing"), r -> "name1".equals(r.name) || "name12".equals(r.name));
+        assertMatches(HollowFieldPredicate.in("score", 0.5d, 1.0d), r -> r.score != null && (r.score == 0.5d || r.score == 1.0d));
+    }
+
+    @Test
+    public void matchesValuesInRange() {
+        assertMatches(HollowFieldPredicate.between("id", 100, 199), r -> r.id >= 100 && r.id <= 199);
+        assertMatches(HollowFieldPredicate.between("id", null, 9), r -> r.id <= 9);
+        assertMatches(HollowFieldPredicate.between("value", 0L, null), r -> r.value >= 0);
+        assertMatches(HollowFieldPredicate.between("score", "10", 20.25d), r -> r.score != null && r.score >= 10 && r.score <= 20.25);
+        assertMatches(HollowFieldPredicate.between("ratio", -1, 0.5f), r -> r.ratio >= -1 && r.ratio <= 0.5f);
+        assertMatches(HollowFieldPredicate.between("name", "a", "z"), r -> false);
+    }
+
+    @Test
+    public void matchesPrefixes() {
+        assertMatches(HollowFieldPredicate.startsWith("name", "name9"), r -> r.name != null && r.name.startsWith("name9"));
+        assertMatches(HollowFieldPredicate.startsWith("name", "été"), r -> r.name != null && r.name.startsWith("été"));
+        assertMatches(HollowFieldPredicate.startsWith("tag", "tag1"), r -> r.tag != null && r.tag.startsWith("tag1"));
+    }
+
+    @Test
+    public void matchesReferencedValues() {
+        assertMatches(HollowFieldPredicate.equalTo("tag", "tag3"), r -> "tag3".equals(r.tag));
+
+        /// the Boolean type also has a value field, and any string parses as a boolean
+        Map<String, BitSet> matches = new HollowColumnScanQuery(readEngine).findMatchingRecords(HollowFieldPredicate.equalTo("value", "tag3"));
+        Assert.assertEquals(2, matches.size());
+        Assert.assertEquals(1, matches.get("String").cardinality());
+        Assert.assertEquals(1, matches.get("Boolean").cardinality());
+    }
+
+    @Test
+    public void answersPredicatesWithIndexes() {
+        HollowColumnScanQuery query = new HollowColumnScanQuery(readEngine);
+        query.addIndex(new HollowPrimaryKeyIndex(readEngine, "Rec", "id"));
+        query.addIndex(new HollowHashIndex(readEngine, "Rec", "", "name"));
+        query.addIndex(new HollowHashIndex(readEngine, "Rec", "", "tag.value"));
+
+        assertMatches(query, HollowFieldPredicate.in("id", 3, "4", 5000), r -> r.id == 3 || r.id == 4);
+        assertMatches(query, HollowFieldPredicate.equalTo("name", "name42"), r -> "name42".equals(r.name));
+        assertMatches(query, HollowFieldPredicate.equalTo("tag", "tag3"), r -> "tag3".equals(r.tag));
+        assertMatches(query, HollowFieldPredicate.equalTo("name", null), r -> r.name == null);
+    }
+
+    @Test
+    public void matchesCurrentRecordsAfterDelta() throws IOException {
+        for(int i=0;i<records.size();i+=3)
+            records.set(i, new Rec(i + 1000));
+        addRecords();
+        StateEngineRoundTripper.roundTripDelta(writeEngine, readEngine);
+
+        assertMatches(HollowFieldPredicate.between("id", 0, 2000), r -> true);
+        assertMatches(HollowFieldPredicate.startsWith("name", "name10"), r -> r.name != null && r.name.startsWith("name10"));
+        assertMatches(HollowFieldPredicate.equalTo("id", 0), r -> false);
+    }
+
+    private void addRecords() {
+        for(Rec rec : records)
+            mapper.add(rec);
+    }
+
+    private void assertMatches(HollowFieldPredicate predicate, Predicate<Rec> expected) {
+        assertMatches(new HollowColumnScanQuery(readEngine), predicate, expected);
+    }
+
+    private void assertMatches(HollowColumnScanQuery query, HollowFieldPredicate predicate, Predicate<Rec> expected) {
+        Set<Integer> expectedIds = new HashSet<>();
+        for(Rec rec : records) {
+            if(expected.test(rec))
+                expectedIds.add(rec.id);
+        }
+
+        HollowObjectTypeReadState typeState = (HollowObjectTypeReadState)readEngine.getTypeState("Rec");
+        BitSet matches = query.findMatchingRecords("Rec", predicate);
+        Set<Integer> actualIds = new HashSet<>();
+        for(int ordinal = matches.nextSetBit(0); ordinal != -1; ordinal = matches.nextSetBit(ordinal + 1))
+            actualIds.add(typeState.readInt(ordinal, typeState.getSchema().getPosition("id")));
+
+        Assert.assertEquals(predicate.toString(), expectedIds, actualIds);
+        Assert.assertEquals(predicate.toString(), expectedIds.size(), matches.cardinality());
+    }
+
+    @SuppressWarnings("unused")
+    private static class Rec {
+        private final int id;
+        private final long value;
+        private final Double score;
+        private final float ratio;
+        private final Boolean active;
+        @HollowInline
+        private final String name;
+        private final String tag;
+        private final byte[] data;
+
+        Rec(int id) {
+            this.id = id;
+            this.value = (id % 2 == 0 ? -1L : 1L) * ((long)(id % 7) << 40);
+            this.score = id % 11 == 0 ? null : (id % 50) / 2d;
+            this.ratio = (id % 8) / 4f - 1;
+            this.active = id % 3 == 0 ? null : id % 3 == 1;
+            this.name = id % 13 == 0 ? null : (id % 17 == 0 ? "été" : "name") + id;
+            this.tag = id % 5 == 0 ? null : "tag" + (id % 23);
+            this.data = id % 4 == 0 ? null : new byte[] { (byte)(id % 9), (byte)(id % 2) };
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2016-2019 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.hollow.tools.traverse;
+
+import com.netflix.hollow.core.read.engine.HollowReadStateEngine;
+import com.netflix.hollow.core.util.StateEngineRoundTripper;
+import com.netflix.hollow.core.write.HollowWriteStateEngine;
+import com.netflix.hollow.core.write.objectmapper.HollowObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReverseReferenceIndexTest {
+
+    private HollowWriteStateEngine writeEngine;
+    private HollowObjectMapper mapper;
+    private HollowReadStateEngine readEngine;
+
+    @Before
+    public void setUp() throws IOException {
+        writeEngine = new HollowWriteStateEngine();
+        mapper = new HollowObjectMapper(writeEngine);
+        readEngine = new HollowReadStateEngine();
+
+        for(int i=0;i<100;i++)
+            mapper.add(new Movie(i));
+        StateEngineRoundTripper.roundTripSnapshot(writeEngine, readEngine);
+    }
+
+    @Test
+    public void indexesReferencersOfEachRecord() {
+        ReverseReferenceIndex index = new ReverseReferenceIndex(readEngine);
+        assertIndexMatchesState(index);
+
+        /// every movie references the same list of the same tag twice
+        int tagOrdinal = readEngine.getTypeState("Tag").getPopulatedOrdinals().nextSetBit(0);
+        Assert.assertEquals(2, index.numReferencers("Tag", tagOrdinal));
+        Assert.assertEquals(0, index.numReferencers("Movie", 0));
+        Assert.assertEquals(0, index.numReferencers("Missing", 0));
+    }
+
+    @Test
+    public void removesTheSameRecordsAsScanningReferencers() {
+        ReverseReferenceIndex index = new ReverseReferenceIndex(readEngine);
+        for(int i=0;i<100;i+=7)
+            assertSameClosure(index, i);
+    }
+
+    @Test
+    public void updatesIndexWithDeltas() throws IOException {
+        ReverseReferenceIndex index = new ReverseReferenceIndex(readEngine);
+        index.listenForDeltaUpdates();
+
+        for(int cycle=1;cycle<=3;cycle++) {
+            writeEngine.prepareForNextCycle();
+            for(int i=0;i<100;i++) {
+                if(i % 10 != cycle)
+                    mapper.add(new Movie(i * (i % 3 == cycle % 3 ? cycle + 1 : 1)));
+            }
+            StateEngineRoundTripper.roundTripDelta(writeEngine, readEngine);
+
+            assertIndexMatchesState(index);
+            for(int i=0;i<100;i+=11)
+                assertSameClosure(index, i);
+        }
+
+        index.detachFromDeltaUpdates();
+        writeEngine.prepareForNextCycle();
+        StateEngineRoundTripper.roundTripDelta(writeEngine, readEngine);
+        Assert.assertTrue(index.numReferencers("String", readEngine.getTypeState("String").getPreviousOrdinals().nextSetBit(0)) > 0);
+    }
+
+    @Test
+    public void updatesIndexWithDeltasWhichReplaceEveryRecord() throws IOException {
+        ReverseReferenceIndex index = new ReverseReferenceIndex(readEngine);
+        index.listenForDeltaUpdates();
+
+        /// alternate between deltas which replace every movie, and deltas which replace a few of them
+        for(int cycle=1;cycle<=6;cycle++) {
+            writeEngine.prepareForNextCycle();
+            for(int i=0;i<100;i++)
+                mapper.add(new Movie(cycle % 2 == 1 || i % 13 == 0 ? i + cycle * 1000 : i + (cycle - 1) * 1000));
+            StateEngineRoundTripper.roundTripDelta(writeEngine, readEngine);
+
+            assertIndexMatchesState(index);
+        }
+    }
+
+    @Test
+    public void indexesOnlyTypesReachableFromGivenTypes() throws IOException {
+        ReverseReferenceIndex index = new ReverseReferenceIndex(readEngine, Collections.singleton("Tag"));
+        index.listenForDeltaUpdates();
+
+        int listOrdinal = readEngine.getTypeState("ListOfTag").getPopulatedOrdinals().nextSetBit(0);
+        Assert.assertTrue(new ReverseReferenceIndex(readEngine).numReferencers("ListOfTag", listOrdinal) > 0);
+        Assert.assertEquals(0, index.numReferencers("ListOfTag", listOrdinal));
+
+        writeEngine.prepareForNextCycle();
+        for(int i=0;i<100;i++)
+            mapper.add(new Movie(i * 2));
+        StateEngineRoundTripper.roundTripDelta(writeEngine, readEngine);
+
+        ReverseReferenceIndex rebuilt = new ReverseReferenceIndex(readEngine);
+        for(String type : new String[] { "String", "Tag" }) {
+            for(int ordinal=0;ordinal<=readEngine.getTypeState(type).maxOrdinal();ordinal++)
+                Assert.assertEquals(referencers(rebuilt, type, ordinal), referencers(index, type, ordinal));
+        }
+    }
+
+    private void assertIndexMatchesState(ReverseReferenceIndex index) {
+        ReverseReferenceIndex rebuilt = new ReverseReferenceIndex(readEngine);
+        for(String type : new String[] { "String", "Tag", "ListOfTag", "MapOfStringToString", "Movie" }) {
+            int maxOrdinal = readEngine.getTypeState(type).maxOrdinal();
+            for(int ordinal=0;ordinal<=maxOrdinal + 10;ordinal++) {
+                Assert.assertEquals(referencers(rebuilt, type, ordinal), referencers(index, type, ordinal));
+            }
+        }
+    }
+
+    private static Map<String, List<Integer>> referencers(ReverseReferenceIndex index, String type, int ordinal) {
+        Map<String, List<Integer>> referencers = new HashMap<>();
+        index.visitReferencers(type, ordinal, (referencerType, referencerOrdinal) -> {
+            referencers.computeIfAbsent(referencerType, t -> new ArrayList<>()).add(referencerOrdinal);
+            return true;
+        });
+        for(List<Integer> ordinals : referencers.values())
+            ordinals.sort(null);
+        return referencers;
+    }
+
+    private void assertSameClosure(ReverseReferenceIndex index, int movieOrdinal) {
+        if(!readEngine.getTypeState("Movie").getPopulatedOrdinals().get(movieOrdinal))
+            return;
+
+        Map<String, BitSet> scanned = selectMovie(movieOrdinal);
+        TransitiveSetTraverser.addTransitiveMatches(readEngine, scanned);
+        Map<String, BitSet> indexed = copy(scanned);
+
+        TransitiveSetTraverser.removeReferencedOutsideClosure(readEngine, scanned);
+        TransitiveSetTraverser.removeReferencedOutsideClosure(readEngine, indexed, index);
+
+        for(Map.Entry<String, BitSet> entry : scanned.entrySet()) {
+            BitSet indexedMatches = indexed.get(entry.getKey());
+            Assert.assertEquals(entry.getValue(), indexedMatches == null ? new BitSet() : indexedMatches);
+        }
+        Assert.assertTrue(indexed.get("Movie").get(movieOrdinal));
+    }
+
+    private static Map<String, BitSet> selectMovie(int ordinal) {
+        BitSet movies = new BitSet();
+        movies.set(ordinal);
+        Map<String, BitSet> matches = new HashMap<>();
+        matches.put("Movie", movies);
+        return matches;
+    }
+
+    private static Map<String, BitSet> copy(Map<String, BitSet> matches) {
+        Map<String, BitSet> copy = new HashMap<>();
+        for(Map.Entry<String, BitSet> entry : matches.entrySet())
+            copy.put(entry.getKey(), (BitSet) entry.getValue().clone());
+        return copy;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Movie {
+        int id;
+        String title;
+        List<Tag> tags;
+        Map<String, String> attributes;
+
+        Movie(int id) {
+            this.id = id;
+            this.title = "title" + (id % 50);
+            this.tags = new ArrayList<>();
+            this.tags.add(new Tag("tag"));
+            this.tags.add(new Tag("tag"));
+            this.attributes = new HashMap<>();
+            this.attributes.put("genre" + (id % 5), "title" + (id % 7));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Tag {
+        String name;
+
+        Tag(String name) {
+            this.name = name;
+        }
+    }
+}